@@ -0,0 +1,71 @@
+package com.UST.Apache_Camel.benchmark;
+
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+// Main class of benchmarks.jar: runs JMH with the usual command line options (java -jar target/benchmarks.jar -h)
+// and by default adds the gc profiler and saves the results as JSON to results/<label>.json, so runs of different
+// commits can be compared (e.g. with jmh.morethan.io); <label> is -Dbenchmark.label, else the short git commit
+// and a timestamp. -prof, -rf and -rff on the command line take precedence over these defaults
+public class BenchmarkRunner {
+
+    private static final String RESULTS_DIR = "results";
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        if (commandLine.shouldHelp() || commandLine.shouldList() || commandLine.shouldListWithParams()
+                || commandLine.shouldListProfilers() || commandLine.shouldListResultFormats()) {
+            Main.main(args);
+            return;
+        }
+
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine);
+        if (commandLine.getProfilers().isEmpty()) {
+            options.addProfiler(GCProfiler.class);
+        }
+        if (!commandLine.getResultFormat().hasValue()) {
+            options.resultFormat(ResultFormatType.JSON);
+        }
+        if (!commandLine.getResult().hasValue()) {
+            File results = new File(RESULTS_DIR, label() + ".json");
+            results.getParentFile().mkdirs();
+            options.result(results.getPath());
+        }
+        new Runner(options.build()).run();
+    }
+
+    private static String label() {
+        String label = System.getProperty("benchmark.label");
+        if (label != null && !label.isBlank()) {
+            return label;
+        }
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        String commit = gitCommit();
+        return commit != null ? commit + "-" + timestamp : timestamp;
+    }
+
+    private static String gitCommit() {
+        try {
+            Process git = new ProcessBuilder("git", "rev-parse", "--short", "HEAD").redirectErrorStream(true).start();
+            String commit;
+            try (BufferedReader output = new BufferedReader(new InputStreamReader(git.getInputStream(), StandardCharsets.UTF_8))) {
+                commit = output.readLine();
+            }
+            return git.waitFor() == 0 && commit != null ? commit.trim() : null;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
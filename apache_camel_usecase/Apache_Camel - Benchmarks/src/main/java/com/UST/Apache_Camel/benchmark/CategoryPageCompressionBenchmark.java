@@ -0,0 +1,163 @@
+package com.UST.Apache_Camel.benchmark;
+
+import com.github.luben.zstd.Zstd;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DocumentCodec;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xerial.snappy.Snappy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+// Bandwidth effect of MongoDB wire compression (app.mongo.compressors) on category listings: one operation compresses
+// (server side) or decompresses (driver side) the find reply of a page of 100 or 1000 category items, the BSON of
+// {cursor: {firstBatch: [items], id, ns}, ok: 1} with the fields GetItemsByCategoryProcessor projects
+// The wireBytes and rawBytes counters are the reply sizes summed over the operations of an iteration, so
+// wireBytes / rawBytes is the share of the listing bandwidth left with that compressor (1 for none); the sizes of one
+// reply are also printed at setup. Compressors run at the driver's default levels (zlib: Deflater default)
+// Result (1 CPU, 5 x 2 s), reply size left and compress / decompress time for 100 and 1000 items (30.5 KB / 307 KB raw):
+//   zstd    7.7% / 4.7%     99 / 653 us     44 / 280 us
+//   snappy  17.5% / 16.2%   42 / 355 us     35 / 336 us
+//   zlib    9.6% / 7.8%     516 / 6136 us   69 / 634 us
+// The generated items repeat their field names and most values, so real catalogs will compress somewhat less
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CategoryPageCompressionBenchmark {
+
+    @Param({"100", "1000"})
+    private int items;
+
+    @Param({"none", "zstd", "snappy", "zlib"})
+    private String compressor;
+
+    private byte[] reply;
+    private byte[] compressedReply;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class WireBytes {
+        public long rawBytes;
+        public long wireBytes;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        List<Document> page = new ArrayList<>(items);
+        for (int i = 0; i < items; i++) {
+            page.add(item(i));
+        }
+        Document findReply = new Document("cursor", new Document("firstBatch", page)
+                .append("id", 0L)
+                .append("ns", "mycartdb.item"))
+                .append("ok", 1.0);
+        RawBsonDocument bson = new RawBsonDocument(findReply, new DocumentCodec());
+        reply = Arrays.copyOf(bson.getByteBuffer().array(), bson.getByteBuffer().remaining());
+        compressedReply = compress(reply);
+        System.out.printf("%n# category page of %d items: %d bytes, %s %d bytes (%.1f%%)%n", items, reply.length,
+                compressor, compressedReply.length, 100.0 * compressedReply.length / reply.length);
+    }
+
+    @Benchmark
+    public byte[] compressReply(WireBytes wireBytes) throws IOException {
+        byte[] compressed = compress(reply);
+        wireBytes.rawBytes += reply.length;
+        wireBytes.wireBytes += compressed.length;
+        return compressed;
+    }
+
+    @Benchmark
+    public byte[] decompressReply() throws IOException {
+        return decompress(compressedReply);
+    }
+
+    private byte[] compress(byte[] bytes) throws IOException {
+        switch (compressor) {
+            case "zstd":
+                return Zstd.compress(bytes);
+            case "snappy":
+                return Snappy.compress(bytes);
+            case "zlib":
+                Deflater deflater = new Deflater();
+                try {
+                    deflater.setInput(bytes);
+                    deflater.finish();
+                    ByteArrayOutputStream compressed = new ByteArrayOutputStream(bytes.length / 2);
+                    byte[] buffer = new byte[8192];
+                    while (!deflater.finished()) {
+                        compressed.write(buffer, 0, deflater.deflate(buffer));
+                    }
+                    return compressed.toByteArray();
+                } finally {
+                    deflater.end();
+                }
+            default:
+                return bytes;
+        }
+    }
+
+    private byte[] decompress(byte[] bytes) throws IOException {
+        switch (compressor) {
+            case "zstd":
+                return Zstd.decompress(bytes, reply.length);
+            case "snappy":
+                return Snappy.uncompress(bytes);
+            case "zlib":
+                Inflater inflater = new Inflater();
+                try {
+                    inflater.setInput(bytes);
+                    byte[] decompressed = new byte[reply.length];
+                    int length = 0;
+                    while (!inflater.finished() && length < decompressed.length) {
+                        length += inflater.inflate(decompressed, length, decompressed.length - length);
+                    }
+                    return decompressed;
+                } catch (DataFormatException e) {
+                    throw new IOException(e);
+                } finally {
+                    inflater.end();
+                }
+            default:
+                return bytes;
+        }
+    }
+
+    // A category item as GetItemsByCategoryProcessor returns it, with its rating rollup
+    private static Document item(int i) {
+        return new Document("_id", "item-" + i)
+                .append("itemName", "Item item-" + i)
+                .append("categoryId", "cat-" + (i % 20))
+                .append("lastUpdateDate", "2024-01-" + String.format("%02d", 1 + i % 28))
+                .append("itemPrice", new Document("basePrice", 100.0 + i % 50).append("sellingPrice", 90.0 + i % 45))
+                .append("stockDetails", new Document("availableStock", 1000 + i % 500)
+                        .append("unitOfMeasure", "pcs")
+                        .append("soldOut", i % 7)
+                        .append("damaged", i % 3))
+                .append("specialProduct", i % 10 == 0)
+                .append("ratingCount", i % 4)
+                .append("ratingAvg", i % 4 == 0 ? 0.0 : 1 + (i % 5) * 0.75);
+    }
+}
@@ -0,0 +1,203 @@
+package com.UST.Apache_Camel.benchmark;
+
+import com.UST.Apache_Camel.config.InventoryPayloadReader;
+import com.UST.Apache_Camel.config.InventoryUpdateComponents;
+import com.UST.Apache_Camel.model.InventoryItem;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import org.apache.camel.CamelContext;
+import org.apache.camel.Exchange;
+import org.apache.camel.component.jackson.JacksonDataFormat;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.support.DefaultExchange;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// The synchronous inventory update hot path of the Item Service, one payload of 10, 100 or 1000 items per operation:
+// payloadValidation     PayloadValidationProcessor on the request stream
+// processItem           ItemProcessor.processItem for every line
+// validateAndUpdateItem ItemProcessor.validateAndUpdateItem for every line, on the item as read from MongoDB
+// aggregate             ItemAggregationStrategy folding every line's itemResult, as the split does
+// finalResponse         FinalResponseProcessor building the response of all itemResults
+// restJsonRequest       the REST json binding reading the request into a Map (as before binding was turned off)
+// restJsonResponse      marshalling the final response to JSON, as the route does
+// Throughput and sample time (latency percentiles) are both reported; BenchmarkRunner adds -prof gc and JSON results
+// The stored items are updated in place between operations and stocked so they never run out
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InventoryProcessingBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int items;
+
+    private CamelContext camelContext;
+    private byte[] payload;
+    private List<InventoryItem> lines;
+    private List<Map<String, Object>> storedItems;
+    private List<Map<String, Object>> itemResults;
+    private List<Exchange> splitExchanges;
+    private Map<String, Object> finalResponse;
+    private JacksonDataFormat requestBinding;
+    private JacksonDataFormat responseBinding;
+
+    private final InventoryUpdateComponents.PayloadValidationProcessor payloadValidationProcessor =
+            new InventoryUpdateComponents.PayloadValidationProcessor();
+    private final InventoryUpdateComponents.ItemProcessor itemProcessor = new InventoryUpdateComponents.ItemProcessor();
+    private final InventoryUpdateComponents.ItemAggregationStrategy aggregationStrategy =
+            new InventoryUpdateComponents.ItemAggregationStrategy();
+    private final InventoryUpdateComponents.FinalResponseProcessor finalResponseProcessor =
+            new InventoryUpdateComponents.FinalResponseProcessor();
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        camelContext = new DefaultCamelContext();
+        camelContext.start();
+
+        StringBuilder json = new StringBuilder("{\"items\":[");
+        storedItems = new ArrayList<>(items);
+        itemResults = new ArrayList<>(items);
+        for (int i = 0; i < items; i++) {
+            json.append(i > 0 ? "," : "")
+                    .append("{\"_id\":\"item-").append(i)
+                    .append("\",\"stockDetails\":{\"soldOut\":").append(i % 7)
+                    .append(",\"damaged\":").append(i % 3).append("}}");
+            storedItems.add(storedItem(i));
+            itemResults.add(itemResult("item-" + i, i % 20 == 0 ? "error" : "success"));
+        }
+        payload = json.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+        lines = InventoryPayloadReader.read(new ByteArrayInputStream(payload));
+
+        splitExchanges = new ArrayList<>(items);
+        for (Map<String, Object> itemResult : itemResults) {
+            Exchange exchange = new DefaultExchange(camelContext);
+            exchange.setProperty("itemResult", itemResult);
+            splitExchanges.add(exchange);
+        }
+        finalResponse = Map.of("status", "partial", "results", itemResults);
+
+        requestBinding = new JacksonDataFormat(HashMap.class);
+        requestBinding.setDisableFeatures(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES.name());
+        requestBinding.setCamelContext(camelContext);
+        requestBinding.start();
+        responseBinding = new JacksonDataFormat();
+        responseBinding.setCamelContext(camelContext);
+        responseBinding.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        camelContext.stop();
+    }
+
+    @Benchmark
+    public Object payloadValidation() throws Exception {
+        Exchange exchange = new DefaultExchange(camelContext);
+        exchange.getIn().setBody(new ByteArrayInputStream(payload));
+        payloadValidationProcessor.process(exchange);
+        return exchange.getProperty("inventoryList");
+    }
+
+    @Benchmark
+    public void processItem(Blackhole blackhole) throws Exception {
+        Exchange exchange = new DefaultExchange(camelContext);
+        for (InventoryItem line : lines) {
+            exchange.getIn().setBody(line);
+            itemProcessor.processItem(exchange);
+            blackhole.consume(exchange.getProperty("itemId"));
+        }
+    }
+
+    @Benchmark
+    public void validateAndUpdateItem(Blackhole blackhole) throws Exception {
+        Exchange exchange = new DefaultExchange(camelContext);
+        for (int i = 0; i < items; i++) {
+            InventoryItem line = lines.get(i);
+            exchange.setProperty("itemId", line.getId());
+            exchange.setProperty("soldOut", line.getStockDetails().getSoldOut());
+            exchange.setProperty("damaged", line.getStockDetails().getDamaged());
+            exchange.getIn().setBody(storedItems.get(i));
+            itemProcessor.validateAndUpdateItem(exchange);
+            blackhole.consume(exchange.getIn().getBody());
+        }
+    }
+
+    @Benchmark
+    public Object aggregate() {
+        Exchange result = null;
+        splitExchanges.get(0).setProperty("itemResults", new ArrayList<>());
+        for (Exchange exchange : splitExchanges) {
+            result = aggregationStrategy.aggregate(result, exchange);
+        }
+        return result.getProperty("itemResults");
+    }
+
+    @Benchmark
+    public Object finalResponse() throws Exception {
+        Exchange exchange = new DefaultExchange(camelContext);
+        exchange.setProperty("itemResults", itemResults);
+        finalResponseProcessor.process(exchange);
+        return exchange.getMessage().getBody();
+    }
+
+    @Benchmark
+    public Object restJsonRequest() throws Exception {
+        Exchange exchange = new DefaultExchange(camelContext);
+        return requestBinding.unmarshal(exchange, new ByteArrayInputStream(payload));
+    }
+
+    @Benchmark
+    public byte[] restJsonResponse() throws Exception {
+        Exchange exchange = new DefaultExchange(camelContext);
+        ByteArrayOutputStream response = new ByteArrayOutputStream();
+        responseBinding.marshal(exchange, finalResponse, response);
+        return response.toByteArray();
+    }
+
+    private static Map<String, Object> storedItem(int i) {
+        Map<String, Object> stockDetails = new HashMap<>();
+        stockDetails.put("availableStock", Integer.MAX_VALUE / 2);
+        stockDetails.put("unitOfMeasure", "pcs");
+        stockDetails.put("soldOut", 0);
+        stockDetails.put("damaged", 0);
+        Map<String, Object> item = new HashMap<>();
+        item.put("_id", "item-" + i);
+        item.put("itemName", "Item " + i);
+        item.put("categoryId", "category-" + (i % 10));
+        item.put("stockDetails", stockDetails);
+        return item;
+    }
+
+    private static Map<String, Object> itemResult(String itemId, String status) {
+        Map<String, Object> itemResult = new HashMap<>();
+        itemResult.put("itemId", itemId);
+        itemResult.put("status", status);
+        itemResult.put("message", "success".equals(status)
+                ? "Inventory updated successfully for item " + itemId
+                : "Requested quantity exceeds available stock for item ID: " + itemId);
+        return itemResult;
+    }
+}
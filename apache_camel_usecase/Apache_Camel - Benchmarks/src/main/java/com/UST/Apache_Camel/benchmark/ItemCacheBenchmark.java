@@ -0,0 +1,127 @@
+package com.UST.Apache_Camel.benchmark;
+
+import com.UST.Apache_Camel.config.ApplicationConstants;
+import com.UST.Apache_Camel.config.ItemCache;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.apache.camel.CamelContext;
+import org.apache.camel.Exchange;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.support.DefaultExchange;
+import org.bson.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.TimeUnit;
+
+// The get item path of GET /camel/mycart/item/{itemId} with and without ItemCache, one read of one of 1000 items per
+// operation against an in-memory MongoDB stand-in (mongo-java-server) over the wire protocol:
+// disabled  ItemCache.lookup (cache off), findById of the item, ItemCache.store
+// hit       ItemCache.lookup served from the cache (warmed at setup with every item)
+// A miss costs the disabled path plus the put of store. The stand-in answers faster than a MongoDB across the network,
+// so the disabled latency is a lower bound of what a hit saves
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ItemCacheBenchmark {
+
+    private static final int ITEMS = 1000;
+
+    @Param({"disabled", "hit"})
+    private String cache;
+
+    private MongoServer server;
+    private MongoClient mongoClient;
+    private MongoCollection<Document> items;
+    private CamelContext camelContext;
+    private ItemCache itemCache;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        server = new MongoServer(new MemoryBackend());
+        mongoClient = MongoClients.create(server.bindAndGetConnectionString());
+        items = mongoClient.getDatabase(ApplicationConstants.MONGO_DATABASE)
+                .getCollection(ApplicationConstants.MONGO_ITEM_READ_COLLECTION);
+        for (int i = 0; i < ITEMS; i++) {
+            items.insertOne(item(i));
+        }
+
+        camelContext = new DefaultCamelContext();
+        camelContext.start();
+
+        itemCache = new ItemCache();
+        setField(itemCache, "enabled", "hit".equals(cache));
+        setField(itemCache, "maximumSize", 10_000L);
+        setField(itemCache, "ttlSeconds", 3600L);
+        setField(itemCache, "negativeTtlSeconds", 10L);
+        itemCache.init();
+        for (int i = 0; i < ITEMS; i++) {
+            getItem();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        camelContext.stop();
+        mongoClient.close();
+        server.shutdownNow();
+    }
+
+    @Benchmark
+    public Object getItem() {
+        String itemId = "item-" + (next++ % ITEMS);
+        Exchange exchange = new DefaultExchange(camelContext);
+        exchange.getIn().setHeader("itemId", itemId);
+        exchange.getIn().setBody(itemId);
+        itemCache.lookup(exchange);
+        if (!exchange.getProperty("itemCacheHit", Boolean.class)) {
+            exchange.getIn().setBody(items.find(Filters.eq("_id", itemId)).first());
+            itemCache.store(exchange);
+        }
+        return exchange.getIn().getBody();
+    }
+
+    private static void setField(Object target, String name, Object value) {
+        Field field = ReflectionUtils.findField(target.getClass(), name);
+        ReflectionUtils.makeAccessible(field);
+        ReflectionUtils.setField(field, target, value);
+    }
+
+    // An item as stored by the item service, with its rating rollup
+    private static Document item(int i) {
+        return new Document("_id", "item-" + i)
+                .append("itemName", "Item item-" + i)
+                .append("categoryId", "cat-" + (i % 20))
+                .append("lastUpdateDate", "2024-01-" + String.format("%02d", 1 + i % 28))
+                .append("itemPrice", new Document("basePrice", 100.0 + i % 50).append("sellingPrice", 90.0 + i % 45))
+                .append("stockDetails", new Document("availableStock", 1000 + i % 500)
+                        .append("unitOfMeasure", "pcs")
+                        .append("soldOut", i % 7)
+                        .append("damaged", i % 3))
+                .append("specialProduct", i % 10 == 0)
+                .append("version", 0)
+                .append("ratingCount", i % 4)
+                .append("ratingAvg", i % 4 == 0 ? 0.0 : 1 + (i % 5) * 0.75);
+    }
+}
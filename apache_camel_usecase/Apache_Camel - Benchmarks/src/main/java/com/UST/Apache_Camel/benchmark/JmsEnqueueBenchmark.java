@@ -0,0 +1,110 @@
+package com.UST.Apache_Camel.benchmark;
+
+import org.apache.activemq.ActiveMQConnectionFactory;
+import org.apache.activemq.broker.BrokerService;
+import org.apache.activemq.pool.PooledConnectionFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jms.core.JmsTemplate;
+
+import javax.jms.Connection;
+import javax.jms.ConnectionFactory;
+import javax.jms.Session;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Enqueue throughput of the per-item async update path with and without JMS connection pooling
+// Each send goes through a JmsTemplate, as the Camel activemq producer does, to an embedded broker over TCP;
+// 10 threads match the default thread pool of the parallel split in the async inventory update route
+// A separate connection drains the queue so producer flow control does not skew the results
+// Result (1 CPU, sends/s over 5 x 5 s): plain 294 +- 27, pooled 8360 +- 1905 with synchronous sends; with asyncSend
+// plain 304 +- 84, pooled 9923 +- 5849. Without the pool every send opens and closes a connection, session and producer
+// (~160 KB allocated per send against ~8 KB pooled); asyncSend adds little once the connection is reused
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(10)
+public class JmsEnqueueBenchmark {
+
+    private static final String QUEUE = "inventory.update.queue";
+
+    @Param({"plain", "pooled"})
+    private String connections;
+
+    @Param({"false", "true"})
+    private boolean asyncSend;
+
+    private BrokerService broker;
+    private ConnectionFactory connectionFactory;
+    private Connection drainConnection;
+    private JmsTemplate jmsTemplate;
+
+    private final Map<String, Object> item = Map.of(
+            "_id", "item-1",
+            "stockDetails", Map.of("soldOut", 1, "damaged", 0));
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        broker = new BrokerService();
+        broker.setBrokerName("benchmark");
+        broker.setPersistent(false);
+        broker.setUseJmx(false);
+        broker.addConnector("tcp://127.0.0.1:0");
+        broker.start();
+        broker.waitUntilStarted();
+        String brokerUrl = broker.getTransportConnectors().get(0).getPublishableConnectString();
+
+        ActiveMQConnectionFactory factory = new ActiveMQConnectionFactory(brokerUrl);
+        factory.setUseAsyncSend(asyncSend);
+        if ("pooled".equals(connections)) {
+            PooledConnectionFactory pooledFactory = new PooledConnectionFactory(factory);
+            pooledFactory.setMaxConnections(8);
+            pooledFactory.setMaximumActiveSessionPerConnection(500);
+            pooledFactory.setUseAnonymousProducers(true);
+            connectionFactory = pooledFactory;
+        } else {
+            connectionFactory = factory;
+        }
+
+        drainConnection = new ActiveMQConnectionFactory(brokerUrl).createConnection();
+        Session drainSession = drainConnection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+        drainSession.createConsumer(drainSession.createQueue(QUEUE)).setMessageListener(message -> {
+        });
+        drainConnection.start();
+
+        jmsTemplate = new JmsTemplate(connectionFactory);
+        jmsTemplate.setDefaultDestinationName(QUEUE);
+        jmsTemplate.setExplicitQosEnabled(true);
+        jmsTemplate.setDeliveryPersistent(true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        if (connectionFactory instanceof PooledConnectionFactory) {
+            ((PooledConnectionFactory) connectionFactory).stop();
+        }
+        drainConnection.close();
+        broker.stop();
+        broker.waitUntilStopped();
+    }
+
+    @Benchmark
+    public void enqueueItem() {
+        jmsTemplate.convertAndSend(item);
+    }
+}
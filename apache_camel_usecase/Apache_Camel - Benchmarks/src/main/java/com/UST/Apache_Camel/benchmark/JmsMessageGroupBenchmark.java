@@ -0,0 +1,175 @@
+package com.UST.Apache_Camel.benchmark;
+
+import org.apache.activemq.ActiveMQConnectionFactory;
+import org.apache.activemq.broker.BrokerService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.jms.Connection;
+import javax.jms.DeliveryMode;
+import javax.jms.JMSException;
+import javax.jms.MessageProducer;
+import javax.jms.Session;
+import javax.jms.TextMessage;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+// Queue processor throughput for 5, 20 and 50 consumers on a skewed (Zipf) item distribution, with and without JMSXGroupID
+// Each message is handled like a read-modify-write stock update: read the item version, wait readMicros, then
+// compare-and-set the version after writeMicros; a concurrent update of the same item fails the CAS and is retried
+// Consumers are long-lived sessions on an embedded broker with the queue processor's prefetch (100); every invocation
+// enqueues MESSAGES updates and waits until all were applied, so the score is applied updates per second
+// Result (1 CPU, 2 forks x 10 x 5 s, updates/s): 5 consumers 3737 +- 34 without groups vs 3113 +- 49 with them,
+// 20 consumers 5790 +- 93 vs 4533 +- 84, 50 consumers 5663 +- 149 vs 4603 +- 541. Groups cost 17-22% at every
+// consumer count; all they buy is the absence of CAS conflicts (16%, 148% and 365% of the applied updates without them),
+// which the atomic update mode does not have. The item service therefore does not set JMSXGroupID
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 10, time = 5)
+@Fork(2)
+public class JmsMessageGroupBenchmark {
+
+    private static final String QUEUE = "inventory.update.queue";
+    private static final int MESSAGES = 2000;
+    private static final int ITEMS = 1000;
+    private static final double ZIPF_EXPONENT = 1.0;
+
+    @Param({"5", "20", "50"})
+    private int consumers;
+
+    @Param({"false", "true"})
+    private boolean messageGroups;
+
+    @Param({"100"})
+    private int prefetch;
+
+    @Param({"500"})
+    private long readMicros;
+
+    @Param({"500"})
+    private long writeMicros;
+
+    private BrokerService broker;
+    private Connection producerConnection;
+    private Session producerSession;
+    private MessageProducer producer;
+    private Connection consumerConnection;
+
+    private final AtomicLongArray itemVersions = new AtomicLongArray(ITEMS);
+    private final AtomicLong applied = new AtomicLong();
+    private final AtomicLong conflicts = new AtomicLong();
+    private int[] itemSequence;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        broker = new BrokerService();
+        broker.setBrokerName("groups");
+        broker.setPersistent(false);
+        broker.setUseJmx(false);
+        broker.addConnector("tcp://127.0.0.1:0");
+        broker.start();
+        broker.waitUntilStarted();
+        String brokerUrl = broker.getTransportConnectors().get(0).getPublishableConnectString();
+
+        ActiveMQConnectionFactory producerFactory = new ActiveMQConnectionFactory(brokerUrl);
+        producerFactory.setUseAsyncSend(true);
+        producerConnection = producerFactory.createConnection();
+        producerSession = producerConnection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+        producer = producerSession.createProducer(producerSession.createQueue(QUEUE));
+        producer.setDeliveryMode(DeliveryMode.NON_PERSISTENT);
+
+        ActiveMQConnectionFactory consumerFactory = new ActiveMQConnectionFactory(brokerUrl);
+        consumerFactory.getPrefetchPolicy().setQueuePrefetch(prefetch);
+        consumerConnection = consumerFactory.createConnection();
+        for (int i = 0; i < consumers; i++) {
+            Session session = consumerConnection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            session.createConsumer(session.createQueue(QUEUE)).setMessageListener(message -> {
+                try {
+                    applyUpdate(message.getIntProperty("item"));
+                } catch (JMSException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+        }
+        consumerConnection.start();
+
+        itemSequence = zipfSequence(100_000, new Random(42));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        System.out.printf("%n%d consumers, messageGroups %s: %d updates, %d CAS conflicts (%.1f%%)%n", consumers, messageGroups,
+                applied.get(), conflicts.get(), 100.0 * conflicts.get() / Math.max(applied.get(), 1));
+        consumerConnection.close();
+        producerConnection.close();
+        broker.stop();
+        broker.waitUntilStopped();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public void applySkewedUpdates() throws Exception {
+        long target = applied.get() + MESSAGES;
+        for (int i = 0; i < MESSAGES; i++) {
+            int item = itemSequence[next++ % itemSequence.length];
+            TextMessage message = producerSession.createTextMessage("{\"_id\":\"item-" + item + "\"}");
+            message.setIntProperty("item", item);
+            if (messageGroups) {
+                message.setStringProperty("JMSXGroupID", "item-" + item);
+            }
+            producer.send(message);
+        }
+        while (applied.get() < target) {
+            LockSupport.parkNanos(100_000);
+        }
+    }
+
+    // Read-modify-write of one item guarded by its version, retried until no other consumer updated it in between
+    private void applyUpdate(int item) {
+        while (true) {
+            long version = itemVersions.get(item);
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(readMicros));
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(writeMicros));
+            if (itemVersions.compareAndSet(item, version, version + 1)) {
+                applied.incrementAndGet();
+                return;
+            }
+            conflicts.incrementAndGet();
+        }
+    }
+
+    // Item indexes drawn from a Zipf distribution: item 0 is the hottest SKU
+    private static int[] zipfSequence(int length, Random random) {
+        double[] cumulative = new double[ITEMS];
+        double sum = 0;
+        for (int i = 0; i < ITEMS; i++) {
+            sum += 1 / Math.pow(i + 1, ZIPF_EXPONENT);
+            cumulative[i] = sum;
+        }
+        int[] sequence = new int[length];
+        for (int i = 0; i < length; i++) {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+            sequence[i] = Math.min(index < 0 ? -index - 1 : index, ITEMS - 1);
+        }
+        return sequence;
+    }
+}
@@ -0,0 +1,113 @@
+package com.UST.Apache_Camel.benchmark;
+
+import com.UST.Apache_Camel.config.InventoryPayloadReader;
+import com.UST.Apache_Camel.exception.InventoryValidationException;
+import com.UST.Apache_Camel.model.InventoryItem;
+import com.UST.Apache_Camel.model.StockDetails;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Parsing and validating an inventory update payload of 10, 1000 and 10000 items into typed InventoryItem records
+// mapFromString: the previous path for a non-Map body (request bytes to String, String to Map, then the Map walk
+//    with Integer.parseInt of every stock field that ItemProcessor.parseItem did per line)
+// mapFromStream: the previous path behind the REST json binding (request stream to Map, then the same Map walk)
+// streaming: InventoryPayloadReader, reading the request stream straight into records
+// The gc profiler (BenchmarkRunner adds it by default) reports gc.alloc.rate.norm, the bytes allocated per payload
+// Result (1 CPU, 5 x 2 s), time and allocation per payload:
+//   items  mapFromString       mapFromStream       streaming
+//   10     9.5 us,   6.6 KB    7.5 us,   6.1 KB    4.5 us,   1.9 KB
+//   1000   820 us,   563 KB    657 us,   503 KB    384 us,   120 KB
+//   10000  8685 us,  5.69 MB   7566 us,  5.08 MB   4393 us,  1.28 MB
+// Streaming allocates ~4x less than the Map paths (~128 bytes per item, mostly the records themselves) and takes about
+// half the time; the allocation figures are exact to a few bytes across iterations, the times vary by 10-45%
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PayloadParsingBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    private int items;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private byte[] payload;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        StringBuilder json = new StringBuilder("{\"items\":[");
+        for (int i = 0; i < items; i++) {
+            json.append(i > 0 ? "," : "")
+                    .append("{\"_id\":\"item-").append(i)
+                    .append("\",\"stockDetails\":{\"soldOut\":").append(i % 7)
+                    .append(",\"damaged\":").append(i % 3).append("}}");
+        }
+        payload = json.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public List<InventoryItem> mapFromString() throws Exception {
+        String body = new String(payload, StandardCharsets.UTF_8);
+        return parseMapPayload(objectMapper.readValue(body, HashMap.class));
+    }
+
+    @Benchmark
+    public List<InventoryItem> mapFromStream() throws Exception {
+        return parseMapPayload(objectMapper.readValue(new ByteArrayInputStream(payload), HashMap.class));
+    }
+
+    @Benchmark
+    public List<InventoryItem> streaming() throws Exception {
+        return InventoryPayloadReader.read(new ByteArrayInputStream(payload));
+    }
+
+    // The Map walk of the previous PayloadValidationProcessor and ItemProcessor.parseItem, kept here as the baseline
+    private static List<InventoryItem> parseMapPayload(Map<String, Object> body) throws InventoryValidationException {
+        if (body == null || !body.containsKey("items")) {
+            throw new InventoryValidationException("Missing 'items' in inventory payload.");
+        }
+        List<Map<String, Object>> lines = (List<Map<String, Object>>) body.get("items");
+        if (lines.isEmpty()) {
+            throw new InventoryValidationException("Inventory items list is empty.");
+        }
+        List<InventoryItem> parsed = new ArrayList<>(lines.size());
+        for (Map<String, Object> item : lines) {
+            if (item == null || item.get("_id") == null || item.get("stockDetails") == null) {
+                throw new InventoryValidationException("Each item must have '_id' and 'stockDetails'.");
+            }
+            String id = item.get("_id").toString();
+            Map<String, Object> stock = (Map<String, Object>) item.get("stockDetails");
+            if (!stock.containsKey("soldOut") || !stock.containsKey("damaged")) {
+                throw new InventoryValidationException("Missing 'soldOut' or 'damaged' values in stock details for item: " + id);
+            }
+            StockDetails stockDetails = new StockDetails();
+            stockDetails.setSoldOut(Integer.parseInt(stock.get("soldOut").toString()));
+            stockDetails.setDamaged(Integer.parseInt(stock.get("damaged").toString()));
+            InventoryItem request = new InventoryItem();
+            request.setId(id);
+            request.setStockDetails(stockDetails);
+            parsed.add(request);
+        }
+        return parsed;
+    }
+}
@@ -0,0 +1,168 @@
+package com.UST.Apache_Camel.benchmark;
+
+import com.UST.Apache_Camel.config.ApplicationConstants;
+import com.UST.Apache_Camel.config.ReactiveItemReader;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.apache.camel.AsyncProcessor;
+import org.apache.camel.CamelContext;
+import org.apache.camel.Exchange;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.support.DefaultExchange;
+import org.bson.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Item reads of GET /camel/mycart/item/{itemId} with the blocking driver and with ReactiveItemReader
+// (app.mongo.reactiveReads.enabled), `concurrency` reads in flight at once against an in-memory MongoDB stand-in
+// (mongo-java-server) over the wire protocol:
+// blocking  every read holds a request thread (a pool of `concurrency` threads, as Tomcat would need) during its find
+// reactive  every read is started from the benchmark thread and continued on the driver's I/O threads
+// Each iteration prints the threads that ran a read or its continuation and the p50 / p99 latency of a read
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReactiveReadBenchmark {
+
+    private static final int ITEMS = 1000;
+    private static final int CONCURRENCY = 200;
+
+    @Param({"blocking", "reactive"})
+    private String reads;
+
+    private MongoServer server;
+    private MongoClient mongoClient;
+    private com.mongodb.reactivestreams.client.MongoClient reactiveMongoClient;
+    private MongoCollection<Document> items;
+    private CamelContext camelContext;
+    private ExecutorService requestThreads;
+    private AsyncProcessor reactiveFindById;
+
+    private final Set<Thread> threadsUsed = ConcurrentHashMap.newKeySet();
+    private final long[] latencies = new long[1 << 20];
+    private final AtomicInteger recorded = new AtomicInteger();
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        server = new MongoServer(new MemoryBackend());
+        String connectionString = server.bindAndGetConnectionString();
+        mongoClient = MongoClients.create(connectionString);
+        items = mongoClient.getDatabase(ApplicationConstants.MONGO_DATABASE)
+                .getCollection(ApplicationConstants.MONGO_ITEM_READ_COLLECTION);
+        for (int i = 0; i < ITEMS; i++) {
+            items.insertOne(new Document("_id", "item-" + i)
+                    .append("itemName", "Item item-" + i)
+                    .append("categoryId", "cat-" + (i % 20))
+                    .append("stockDetails", new Document("availableStock", 1000).append("soldOut", 0).append("damaged", 0)));
+        }
+
+        camelContext = new DefaultCamelContext();
+        camelContext.start();
+
+        if ("reactive".equals(reads)) {
+            reactiveMongoClient = com.mongodb.reactivestreams.client.MongoClients.create(connectionString);
+            DefaultListableBeanFactory beans = new DefaultListableBeanFactory();
+            beans.registerSingleton("reactiveMongoClient", reactiveMongoClient);
+            ReactiveItemReader reader = new ReactiveItemReader();
+            Field field = ReflectionUtils.findField(ReactiveItemReader.class, "reactiveMongoClient");
+            ReflectionUtils.makeAccessible(field);
+            ReflectionUtils.setField(field, reader, beans.getBeanProvider(com.mongodb.reactivestreams.client.MongoClient.class));
+            reactiveFindById = reader.findItemById();
+        } else {
+            requestThreads = Executors.newFixedThreadPool(CONCURRENCY);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (requestThreads != null) {
+            requestThreads.shutdownNow();
+        }
+        if (reactiveMongoClient != null) {
+            reactiveMongoClient.close();
+        }
+        camelContext.stop();
+        mongoClient.close();
+        server.shutdownNow();
+    }
+
+    @Setup(Level.Iteration)
+    public void startIteration() {
+        threadsUsed.clear();
+        recorded.set(0);
+    }
+
+    @TearDown(Level.Iteration)
+    public void endIteration() {
+        long[] sorted = Arrays.copyOf(latencies, Math.min(recorded.get(), latencies.length));
+        Arrays.sort(sorted);
+        System.out.printf("%n# %s: %d reads, %d threads used, p50 %.2f ms, p99 %.2f ms%n", reads, sorted.length,
+                threadsUsed.size(), percentile(sorted, 0.50), percentile(sorted, 0.99));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CONCURRENCY)
+    public void readItems() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(CONCURRENCY);
+        for (int i = 0; i < CONCURRENCY; i++) {
+            String itemId = "item-" + (next++ % ITEMS);
+            long start = System.nanoTime();
+            if (requestThreads != null) {
+                requestThreads.execute(() -> {
+                    items.find(Filters.eq("_id", itemId)).first();
+                    finished(start, done);
+                });
+            } else {
+                Exchange exchange = new DefaultExchange(camelContext);
+                exchange.getIn().setBody(itemId);
+                reactiveFindById.process(exchange, doneSync -> finished(start, done));
+            }
+        }
+        done.await();
+    }
+
+    private void finished(long start, CountDownLatch done) {
+        int index = recorded.getAndIncrement();
+        if (index < latencies.length) {
+            latencies[index] = System.nanoTime() - start;
+        }
+        threadsUsed.add(Thread.currentThread());
+        done.countDown();
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        return sorted.length == 0 ? 0 : sorted[(int) Math.min(sorted.length - 1, sorted.length * percentile)] / 1e6;
+    }
+}
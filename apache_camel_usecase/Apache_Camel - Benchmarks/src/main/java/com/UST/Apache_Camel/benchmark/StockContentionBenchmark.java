@@ -0,0 +1,123 @@
+package com.UST.Apache_Camel.benchmark;
+
+import com.UST.Apache_Camel.config.ApplicationConstants;
+import com.UST.Apache_Camel.config.InventoryUpdateComponents;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.apache.camel.CamelContext;
+import org.apache.camel.Exchange;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.support.DefaultExchange;
+import org.bson.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// The stock update modes (app.inventory.updateMode) under contention: 8 threads update the same hot item, one line
+// (soldOut 1) per operation, against an in-memory MongoDB stand-in (mongo-java-server) over the wire protocol
+// read-modify-write  find of the item, ItemProcessor.validateAndUpdateItem, then ItemProcessor.saveStockDetails
+// atomic             ItemProcessor.applyAtomicUpdate (one conditional findOneAndUpdate)
+// Each iteration prints the lines applied and the updates lost: applied lines whose soldOut did not reach the stored
+// item because a concurrent read-modify-write overwrote it (always 0 for atomic)
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class StockContentionBenchmark {
+
+    private static final String HOT_ITEM = "item-hot";
+
+    @Param({"read-modify-write", "atomic"})
+    private String updateMode;
+
+    private MongoServer server;
+    private MongoClient mongoClient;
+    private MongoCollection<Document> items;
+    private CamelContext camelContext;
+
+    private final InventoryUpdateComponents.ItemProcessor itemProcessor = new InventoryUpdateComponents.ItemProcessor();
+    private final AtomicLong applied = new AtomicLong();
+    private int soldOutAtStart;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        server = new MongoServer(new MemoryBackend());
+        mongoClient = MongoClients.create(server.bindAndGetConnectionString());
+        items = mongoClient.getDatabase(ApplicationConstants.MONGO_DATABASE)
+                .getCollection(ApplicationConstants.MONGO_ITEM_WRITE_COLLECTION);
+        items.insertOne(new Document("_id", HOT_ITEM)
+                .append("itemName", "Hot item")
+                .append("stockDetails", new Document("availableStock", Integer.MAX_VALUE / 2)
+                        .append("unitOfMeasure", "pcs")
+                        .append("soldOut", 0)
+                        .append("damaged", 0))
+                .append("version", 0));
+
+        camelContext = new DefaultCamelContext();
+        camelContext.getRegistry().bind(ApplicationConstants.MONGO_CLIENT_BEAN, mongoClient);
+        camelContext.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        camelContext.stop();
+        mongoClient.close();
+        server.shutdownNow();
+    }
+
+    @Setup(Level.Iteration)
+    public void startIteration() {
+        applied.set(0);
+        soldOutAtStart = storedSoldOut();
+    }
+
+    @TearDown(Level.Iteration)
+    public void endIteration() {
+        long stored = storedSoldOut() - soldOutAtStart;
+        System.out.printf("%n# %s: %d lines applied, %d stored, %d lost (%.1f%%)%n", updateMode, applied.get(), stored,
+                applied.get() - stored, 100.0 * (applied.get() - stored) / Math.max(applied.get(), 1));
+    }
+
+    @Benchmark
+    public Object updateHotItem() throws Exception {
+        Exchange exchange = new DefaultExchange(camelContext);
+        exchange.setProperty("itemId", HOT_ITEM);
+        exchange.setProperty("soldOut", 1);
+        exchange.setProperty("damaged", 0);
+        if ("atomic".equals(updateMode)) {
+            itemProcessor.applyAtomicUpdate(exchange);
+        } else {
+            exchange.getIn().setBody(items.find(Filters.eq("_id", HOT_ITEM)).first());
+            itemProcessor.validateAndUpdateItem(exchange);
+            itemProcessor.saveStockDetails(exchange);
+        }
+        applied.incrementAndGet();
+        return exchange.getIn().getBody();
+    }
+
+    private int storedSoldOut() {
+        return items.find(Filters.eq("_id", HOT_ITEM)).first()
+                .get("stockDetails", Document.class).getInteger("soldOut");
+    }
+}
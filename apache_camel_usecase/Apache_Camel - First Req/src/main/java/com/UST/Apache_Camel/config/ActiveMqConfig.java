@@ -1,32 +1,86 @@
-//package com.UST.Apache_Camel.config;
-//
-//import org.apache.activemq.ActiveMQConnectionFactory;
-//import org.apache.camel.component.jms.JmsComponent;
-//import org.apache.camel.component.jms.JmsConfiguration;
-//import org.springframework.context.annotation.Bean;
-//import org.springframework.context.annotation.Configuration;
-//
-//import javax.jms.ConnectionFactory;
-//
-//@Configuration
-//public class ActiveMqConfig {
-//
-//    @Bean
-//    public ConnectionFactory connectionFactory() {
-//        ActiveMQConnectionFactory factory =
-//                new ActiveMQConnectionFactory("tcp://localhost:61616");
-//        factory.setUserName("admin");
-//        factory.setPassword("admin");
-//        return factory;
-//    }
-//
-//    @Bean
-//    public JmsComponent activemq(ConnectionFactory connectionFactory) {
-//        JmsConfiguration config = new JmsConfiguration();
-//        config.setConnectionFactory(connectionFactory);
-//        config.setConcurrentConsumers(5); // Optional concurrency
-//        return new JmsComponent(config);
-//    }
-//}
-//
-//
\ No newline at end of file
+package com.UST.Apache_Camel.config;
+
+import org.apache.activemq.ActiveMQConnectionFactory;
+import org.apache.activemq.ActiveMQPrefetchPolicy;
+import org.apache.camel.component.activemq.ActiveMQComponent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.jms.ConnectionFactory;
+
+@Configuration
+public class ActiveMqConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(ActiveMqConfig.class);
+
+    @Value("${spring.activemq.broker-url:tcp://localhost:61616}")
+    private String brokerUrl;
+
+    @Value("${spring.activemq.user:admin}")
+    private String user;
+
+    @Value("${spring.activemq.password:admin}")
+    private String password;
+
+    @Value("${app.jms.pool.enabled:true}")
+    private boolean poolEnabled;
+
+    @Value("${app.jms.pool.maxConnections:8}")
+    private int maxConnections;
+
+    @Value("${app.jms.pool.maxSessionsPerConnection:500}")
+    private int maxSessionsPerConnection;
+
+    @Value("${app.jms.pool.idleTimeoutMs:30000}")
+    private int idleTimeoutMs;
+
+    @Value("${app.jms.pool.blockIfFullTimeoutMs:5000}")
+    private long blockIfFullTimeoutMs;
+
+    @Value("${app.jms.pool.cacheProducers:true}")
+    private boolean cacheProducers;
+
+    @Value("${app.jms.prefetch:1000}")
+    private int prefetch;
+
+    @Value("${app.jms.asyncSend:false}")
+    private boolean asyncSend;
+
+    // Connection factory shared by the activemq component and the JMS helpers (InventoryChunkProducer)
+    // With app.jms.pool.enabled the broker connections, sessions and (anonymous) producers are pooled and reused,
+    // so the parallel split of the async update route no longer opens a connection and session per send
+    // app.jms.asyncSend=true lets persistent sends return without waiting for the broker acknowledgement:
+    // higher enqueue throughput, but messages still in flight are lost if the broker fails
+    @Bean
+    public ConnectionFactory connectionFactory() {
+        ActiveMQConnectionFactory factory = new ActiveMQConnectionFactory(user, password, brokerUrl);
+        ActiveMQPrefetchPolicy prefetchPolicy = new ActiveMQPrefetchPolicy();
+        prefetchPolicy.setAll(prefetch);
+        factory.setPrefetchPolicy(prefetchPolicy);
+        factory.setUseAsyncSend(asyncSend);
+        if (!poolEnabled) {
+            logger.info("Using unpooled ActiveMQ connections to {}", brokerUrl);
+            return factory;
+        }
+        MonitoredPooledConnectionFactory pooledFactory = new MonitoredPooledConnectionFactory(factory);
+        pooledFactory.setMaxConnections(maxConnections);
+        pooledFactory.setMaximumActiveSessionPerConnection(maxSessionsPerConnection);
+        pooledFactory.setIdleTimeout(idleTimeoutMs);
+        pooledFactory.setBlockIfSessionPoolIsFull(true);
+        pooledFactory.setBlockIfSessionPoolIsFullTimeout(blockIfFullTimeoutMs);
+        pooledFactory.setUseAnonymousProducers(cacheProducers);
+        logger.info("Using pooled ActiveMQ connections to {}: maxConnections {}, maxSessionsPerConnection {}, prefetch {}, asyncSend {}",
+                brokerUrl, maxConnections, maxSessionsPerConnection, prefetch, asyncSend);
+        return pooledFactory;
+    }
+
+    @Bean
+    public ActiveMQComponent activemq(ConnectionFactory connectionFactory) {
+        ActiveMQComponent component = new ActiveMQComponent();
+        component.setConnectionFactory(connectionFactory);
+        return component;
+    }
+}
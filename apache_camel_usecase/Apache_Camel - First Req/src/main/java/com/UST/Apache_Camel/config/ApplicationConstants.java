@@ -5,12 +5,26 @@ public final class ApplicationConstants {
     private ApplicationConstants() {
     }
 
+    public static final String MONGO_CLIENT_BEAN = "mongoClient";
     public static final String MONGO_DATABASE = "mycartdb";
     public static final String MONGO_ITEM_READ_COLLECTION = "item";
     public static final String MONGO_ITEM_WRITE_COLLECTION = "item";
     public static final String MONGO_CATEGORY_READ_COLLECTION = "category";
     public static final String MONGO_CATEGORY_WRITE_COLLECTION = "category";
+    public static final String MONGO_REVIEW_READ_COLLECTION = "item_review";
+    public static final String MONGO_REVIEW_WRITE_COLLECTION = "item_review";
+    public static final String MONGO_CATEGORY_CATALOG_READ_COLLECTION = "category_catalog";
+    public static final String MONGO_CATEGORY_CATALOG_WRITE_COLLECTION = "category_catalog";
     public static final String MONGO_INVENTORY_AUDIT_WRITE_COLLECTION = "inventory_audit";
+    public static final String MONGO_CORRELATION_STATUS_READ_COLLECTION = "inventory_correlation_status";
+    public static final String MONGO_CORRELATION_STATUS_WRITE_COLLECTION = "inventory_correlation_status";
+
+    public static final String MONGO_INDEX_ITEM_CATEGORY = "categoryId_specialProduct_id";
+    public static final String MONGO_INDEX_REVIEW_BUCKET = "itemId_bucket";
+
+    public static final String EXPLAIN_MODE_OFF = "off";
+    public static final String EXPLAIN_MODE_WARN = "warn";
+    public static final String EXPLAIN_MODE_FAIL = "fail";
 
     public static final String MONGO_ITEM_FIND_BY_ID = "mongodb:mongoClient?database=%s&collection=%s&operation=findById";
     public static final String MONGO_ITEM_AGGREGATE = "mongodb:mongoClient?database=%s&collection=%s&operation=aggregate";
@@ -20,6 +34,7 @@ public final class ApplicationConstants {
     public static final String MONGO_CATEGORY_FIND_BY_ID = "mongodb:mongoClient?database=%s&collection=%s&operation=findById";
     public static final String MONGO_CATEGORY_INSERT = "mongodb:mongoClient?database=%s&collection=%s&operation=insert";
     public static final String MONGO_CATEGORY_DELETE = "mongodb:mongoClient?database=%s&collection=%s&operation=remove";
+    public static final String MONGO_CORRELATION_STATUS_FIND_BY_ID = "mongodb:mongoClient?database=%s&collection=%s&operation=findById";
     public static final String MONGO_INVENTORY_AUDIT_AGGREGATE = "mongodb:myMongoBean?database=%s&collection=%s&operation=aggregate";
     public static final String MONGO_INVENTORY_AUDIT_INSERT = "mongodb:myMongoBean?database=%s&collection=%s&operation=insert";
 
@@ -27,6 +42,19 @@ public final class ApplicationConstants {
     public static final String AMQ_INVENTORY_UPDATE_READ_QUEUE = "inventory.update.queue";
     public static final String AMQ_INVENTORY_UPDATE_WRITE = "activemq:queue:%s?exchangePattern=InOnly&deliveryMode=2";
     public static final String AMQ_INVENTORY_UPDATE_READ = "activemq:queue:%s?concurrentConsumers=6";
+    public static final String AMQ_ITEM_CACHE_INVALIDATE_TOPIC = "item.cache.invalidate";
+    public static final String AMQ_ITEM_CACHE_INVALIDATE_READ = "activemq:topic:%s";
+    public static final String INVENTORY_CHUNK_HEADER = "InventoryChunkSize";
+
+    public static final String TIMER_CATEGORY_INDEX_REFRESH = "timer:categoryIndexRefresh?delay=%d&period=%d";
+
+    public static final String INVENTORY_UPDATE_MODE_READ_MODIFY_WRITE = "read-modify-write";
+    public static final String INVENTORY_UPDATE_MODE_ATOMIC = "atomic";
+    public static final String INVENTORY_UPDATE_MODE_BULK = "bulk";
+    public static final String ENQUEUE_MODE_PER_ITEM = "per-item";
+    public static final String ENQUEUE_MODE_CHUNKED = "chunked";
+    public static final String REST_THREADS_MODE_PLATFORM = "platform";
+    public static final String REST_THREADS_MODE_VIRTUAL = "virtual";
 
     public static final String REST_HOST = "0.0.0.0";
     public static final String REST_PORT = "8080";
@@ -36,28 +64,41 @@ public final class ApplicationConstants {
     public static final String ERROR_CATEGORY_NOT_FOUND = "Category is invalid";
     public static final String ERROR_ITEM_ALREADY_EXISTS = "Item already exists";
     public static final String ERROR_CATEGORY_ALREADY_EXISTS = "Category already exists";
+    public static final String ERROR_CORRELATION_ID_NOT_FOUND = "Correlation ID not found";
 
     public static final String DIRECT_PREFIX = "direct:";
     public static final String SEDA_PREFIX = "seda:";
 
     public static final String ROUTE_GET_ITEM_BY_ID = "getItemByIdRoute";
     public static final String ROUTE_GET_ITEMS_BY_CATEGORY = "getItemsByCategoryRoute";
+    public static final String ROUTE_STREAM_ITEMS_BY_CATEGORY = "streamItemsByCategoryRoute";
     public static final String ROUTE_POST_NEW_ITEM = "postNewItemRoute";
     public static final String ROUTE_POST_NEW_CATEGORY = "postNewCategoryRoute";
     public static final String ROUTE_DELETE_ITEM = "deleteItemRoute";
     public static final String ROUTE_DELETE_CATEGORY = "deleteCategoryRoute";
+    public static final String ROUTE_POST_ITEM_REVIEW = "postItemReviewRoute";
+    public static final String ROUTE_GET_ITEM_REVIEWS = "getItemReviewsRoute";
     public static final String ROUTE_PROCESS_INVENTORY_UPDATE = "processInventoryUpdateRoute";
     public static final String ROUTE_UPDATE_INVENTORY = "updateInventoryRoute";
+    public static final String ROUTE_UPDATE_INVENTORY_ITEM = "updateInventoryItemRoute";
     public static final String ROUTE_ASYNC_INVENTORY_UPDATE = "asyncInventoryUpdateRoute";
+    public static final String ROUTE_GET_ASYNC_UPDATE_STATUS = "getAsyncUpdateStatusRoute";
     public static final String ROUTE_PROCESS_INVENTORY_QUEUE = "processInventoryQueueRoute";
+    public static final String ROUTE_ITEM_CACHE_INVALIDATION = "itemCacheInvalidationRoute";
+    public static final String ROUTE_CATEGORY_INDEX_REFRESH = "categoryIndexRefreshRoute";
 
     public static final String ENDPOINT_GET_ITEM_BY_ID = "getItemById";
     public static final String ENDPOINT_GET_ITEMS_BY_CATEGORY = "getItemsByCategory";
+    public static final String ENDPOINT_STREAM_ITEMS_BY_CATEGORY = "streamItemsByCategory";
     public static final String ENDPOINT_POST_NEW_ITEM = "postNewItem";
     public static final String ENDPOINT_POST_NEW_CATEGORY = "postNewCategory";
     public static final String ENDPOINT_DELETE_ITEM = "deleteItem";
     public static final String ENDPOINT_DELETE_CATEGORY = "deleteCategory";
+    public static final String ENDPOINT_POST_ITEM_REVIEW = "postItemReview";
+    public static final String ENDPOINT_GET_ITEM_REVIEWS = "getItemReviews";
     public static final String ENDPOINT_PROCESS_INVENTORY_UPDATE = "processInventoryUpdate";
     public static final String ENDPOINT_UPDATE_INVENTORY = "updateInventory";
+    public static final String ENDPOINT_UPDATE_INVENTORY_ITEM = "updateInventoryItem";
     public static final String ENDPOINT_ASYNC_INVENTORY_UPDATE = "asyncInventoryUpdate";
+    public static final String ENDPOINT_GET_ASYNC_UPDATE_STATUS = "getAsyncUpdateStatus";
 }
\ No newline at end of file
@@ -1,6 +1,8 @@
 package com.UST.Apache_Camel.config;
 
 import org.apache.camel.component.servlet.CamelHttpTransportServlet;
+import org.apache.camel.http.common.CamelServlet;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.servlet.ServletRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -8,11 +10,17 @@ import org.springframework.context.annotation.Configuration;
 @Configuration
 public class CamelServletConfig {
 
+    @Value("${app.mongo.reactiveReads.enabled:false}")
+    private boolean reactiveReadsEnabled;
+
+    // With the reactive reads the servlet runs in async mode: a request is handed to Camel and its Tomcat thread
+    // returns, and the response is written when the route completes, on whichever thread finished it
     @Bean
     public ServletRegistrationBean<CamelHttpTransportServlet> servletRegistrationBean() {
         ServletRegistrationBean<CamelHttpTransportServlet> registration =
             new ServletRegistrationBean<>(new CamelHttpTransportServlet(), "/camel/*");
         registration.setName("CamelServlet");
+        registration.addInitParameter(CamelServlet.ASYNC_PARAM, String.valueOf(reactiveReadsEnabled));
         return registration;
     }
 }
\ No newline at end of file
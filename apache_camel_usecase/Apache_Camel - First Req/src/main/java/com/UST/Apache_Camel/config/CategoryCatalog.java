@@ -0,0 +1,310 @@
+package com.UST.Apache_Camel.config;
+
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoWriteException;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.PushOptions;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
+import org.apache.camel.Exchange;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Materialized category listing (app.category.catalog.enabled): the category_catalog collection holds, per category,
+// a regular segment ({_id: "<categoryId>:regular"}, specialProduct false) and a special segment ("<categoryId>:special",
+// every other item), each with its items as listed by GET /camel/mycart/items/{categoryId}, sorted on _id
+// A page is then one aggregation on the segment _id(s) that returns only the page's items, instead of reading every
+// item of the page from the item collection
+// The segments are kept up to date by the write paths: item insert and delete push and pull the entry, stock updates
+// and review appends re-read the item and replace its entry (refreshItems; the queue processor does the same for its
+// updates). Entries carry the item's version, which every item write $inc's, so a refresh never replaces an entry with
+// an older state of the item. A segment above maxItemsPerSegment items is marked overflow and its pages are read from
+// the item collection instead. rebuild (JMX) recomputes the whole collection from the items for repair; it also runs at startup
+// when the collection is empty
+@Component
+@ManagedResource(objectName = "com.UST.Apache_Camel:type=CategoryCatalog", description = "Materialized category listings")
+public class CategoryCatalog {
+
+    private static final Logger logger = LoggerFactory.getLogger(CategoryCatalog.class);
+
+    private static final String REGULAR_SEGMENT = ":regular";
+    private static final String SPECIAL_SEGMENT = ":special";
+
+    // Set by readPage when the page must be read from the item collection (see ItemRoute)
+    public static final String OVERFLOW_PROPERTY = "catalogOverflow";
+
+    private static final Bson REFRESH_PROJECTION = Projections.fields(
+            InventoryUpdateComponents.GetItemsByCategoryProcessor.ITEM_PROJECTION, Projections.include("version"));
+
+    @Autowired
+    private MongoClient mongoClient;
+
+    @Value("${app.category.catalog.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.category.catalog.maxItemsPerSegment:10000}")
+    private int maxItemsPerSegment;
+
+    private MongoCollection<Document> itemCollection;
+    private MongoCollection<Document> catalogCollection;
+
+    private volatile long lastRebuildTime;
+    private final AtomicLong catalogPageCount = new AtomicLong();
+    private final AtomicLong fallbackPageCount = new AtomicLong();
+    private final AtomicLong refreshedItemCount = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        itemCollection = mongoClient.getDatabase(ApplicationConstants.MONGO_DATABASE)
+                .getCollection(ApplicationConstants.MONGO_ITEM_READ_COLLECTION);
+        catalogCollection = mongoClient.getDatabase(ApplicationConstants.MONGO_DATABASE)
+                .getCollection(ApplicationConstants.MONGO_CATEGORY_CATALOG_WRITE_COLLECTION);
+        logger.info("Category catalog enabled: {}, maxItemsPerSegment: {}", enabled, maxItemsPerSegment);
+        if (!enabled) {
+            return;
+        }
+        try {
+            if (catalogCollection.estimatedDocumentCount() == 0) {
+                rebuild();
+            }
+        } catch (RuntimeException e) {
+            // Startup must not depend on MongoDB being reachable; run rebuild over JMX once it is
+            logger.error("Initial category catalog build failed: {}", e.getMessage());
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Reads one page of the category from its segments, with the same headers, limits and body as
+    // GetItemsByCategoryProcessor.readPage
+    // For an overflowed segment it only sets the OVERFLOW_PROPERTY, and the route reads the page with the
+    // GetItemsByCategoryProcessor it uses without the catalog
+    public void readPage(Exchange exchange) {
+        String categoryId = exchange.getIn().getHeader("categoryId", String.class);
+        String after = exchange.getIn().getHeader("after", String.class);
+        boolean includeSpecial = Boolean.parseBoolean(exchange.getIn().getHeader("includeSpecial", "false", String.class));
+        int limit = InventoryUpdateComponents.GetItemsByCategoryProcessor.pageLimit(exchange);
+
+        List<String> segmentIds = includeSpecial
+                ? List.of(segmentId(categoryId, false), segmentId(categoryId, true))
+                : List.of(segmentId(categoryId, false));
+        Object items = after == null || after.isBlank() ? "$items" : new Document("$filter", new Document("input", "$items")
+                .append("cond", new Document("$gt", List.of("$$this._id",
+                        InventoryUpdateComponents.GetItemsByCategoryProcessor.afterValue(after)))));
+        List<Document> segments = catalogCollection.aggregate(List.of(
+                new Document("$match", new Document("_id", new Document("$in", segmentIds))),
+                new Document("$project", new Document("overflow", 1)
+                        .append("items", new Document("$slice", List.of(new Document("$ifNull", List.of(items, List.of())), limit + 1))))))
+                .into(new ArrayList<>());
+        if (segments.stream().anyMatch(segment -> segment.getBoolean("overflow", false))) {
+            fallbackPageCount.incrementAndGet();
+            exchange.setProperty(OVERFLOW_PROPERTY, true);
+            return;
+        }
+
+        // Merges the segments in _id order, as the item query with includeSpecial does; the order is the BSON one the segments
+        // are kept in and the after filter compares with, so a category mixing string and ObjectId IDs pages through both
+        List<Document> documents = new ArrayList<>(limit + 1);
+        for (Document segment : segments) {
+            documents.addAll(segment.getList("items", Document.class));
+        }
+        documents.sort(Comparator.comparing(document -> document.get("_id"),
+                InventoryUpdateComponents.GetItemsByCategoryProcessor.ID_ORDER));
+        if (documents.size() > limit + 1) {
+            documents = new ArrayList<>(documents.subList(0, limit + 1));
+        }
+        List<String> fields = ItemProjection.fields(exchange);
+        if (fields != null) {
+            documents.replaceAll(item -> new Document(ItemProjection.project(item, fields)));
+        }
+        catalogPageCount.incrementAndGet();
+        InventoryUpdateComponents.GetItemsByCategoryProcessor.setPage(exchange, categoryId, documents, limit);
+    }
+
+    // Adds a newly inserted item to its segment, keeping the segment sorted on _id
+    // An overflowed segment has no items and the upsert of its _id fails as a duplicate, which leaves it as it is
+    public void itemInserted(Map<String, Object> item) {
+        if (!enabled || item == null) {
+            return;
+        }
+        String segmentId = segmentId((String) item.get("categoryId"), item.get("specialProduct"));
+        try {
+            catalogCollection.updateOne(
+                    Filters.and(Filters.eq("_id", segmentId), Filters.ne("overflow", true)),
+                    Updates.combine(
+                            Updates.pushEach("items", List.of(entry(item)), new PushOptions().sortDocument(new Document("_id", 1))),
+                            Updates.inc("count", 1),
+                            Updates.setOnInsert("categoryId", item.get("categoryId"))),
+                    new UpdateOptions().upsert(true));
+        } catch (MongoWriteException e) {
+            if (e.getError().getCategory() != ErrorCategory.DUPLICATE_KEY) {
+                throw e;
+            }
+            return;
+        }
+        // Past the limit the segment keeps only its count, and its pages are read from the item collection
+        catalogCollection.updateOne(
+                Filters.and(Filters.eq("_id", segmentId), Filters.gt("count", maxItemsPerSegment)),
+                Updates.combine(Updates.set("overflow", true), Updates.unset("items")));
+    }
+
+    // Removes a deleted item (the item as read before the delete) from its segment
+    public void itemDeleted(Map<String, Object> item) {
+        if (!enabled || item == null) {
+            return;
+        }
+        catalogCollection.updateOne(
+                Filters.and(Filters.eq("_id", segmentId((String) item.get("categoryId"), item.get("specialProduct"))),
+                        Filters.eq("items._id", item.get("_id"))),
+                Updates.combine(
+                        Updates.pullByFilter(new Document("items", new Document("_id", item.get("_id")))),
+                        Updates.inc("count", -1)));
+    }
+
+    public void refreshItem(String itemId) {
+        if (itemId != null) {
+            refreshItems(List.of(itemId));
+        }
+    }
+
+    // Refreshes the items updated by the bulk update mode (the successful entries of bulkItemResults)
+    public void refreshUpdatedItems(Exchange exchange) {
+        List<Map<String, Object>> itemResults = exchange.getProperty("bulkItemResults", List.class);
+        if (itemResults == null) {
+            return;
+        }
+        Set<String> itemIds = new LinkedHashSet<>();
+        for (Map<String, Object> itemResult : itemResults) {
+            if ("success".equals(itemResult.get("status"))) {
+                itemIds.add((String) itemResult.get("itemId"));
+            }
+        }
+        refreshItems(itemIds);
+    }
+
+    // Replaces the entries of the items with their current state, read with one $in query and written with one
+    // unordered bulkWrite; used after stock updates and review appends
+    // An entry is only replaced by a higher version of the item, so a refresh that read an item before a concurrent
+    // one cannot write older values over it, whatever the writes in between changed
+    // A failed refresh is only logged: the update it follows has been applied, and rebuild repairs the catalog
+    public void refreshItems(Collection<String> itemIds) {
+        if (!enabled || itemIds == null || itemIds.isEmpty()) {
+            return;
+        }
+        try {
+            List<WriteModel<Document>> writes = new ArrayList<>();
+            itemCollection.find(Filters.in("_id", itemIds))
+                    .projection(REFRESH_PROJECTION)
+                    .forEach(item -> writes.add(new UpdateOneModel<>(
+                            Filters.and(Filters.eq("_id", segmentId(item.getString("categoryId"), item.get("specialProduct"))),
+                                    Filters.elemMatch("items", entryGuard(item))),
+                            Updates.set("items.$", entry(item)))));
+            if (!writes.isEmpty()) {
+                catalogCollection.bulkWrite(writes, new BulkWriteOptions().ordered(false));
+                refreshedItemCount.addAndGet(writes.size());
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Category catalog refresh failed for items {}: {}", itemIds, e.getMessage());
+        }
+    }
+
+    // Recomputes every segment with one aggregation over the items, written with $out, which replaces the collection
+    // when the aggregation completes; item writes made while it runs may be missing from the result
+    @ManagedOperation(description = "Recompute the category catalog from the item collection")
+    public synchronized void rebuild() {
+        long started = System.nanoTime();
+        Document entry = new Document("_id", "$_id");
+        ItemProjection.ITEM_FIELDS.forEach(field -> entry.append(field, "$" + field));
+        entry.append("version", "$version");
+        Document overflow = new Document("$gt", List.of("$count", maxItemsPerSegment));
+        itemCollection.aggregate(List.of(
+                new Document("$sort", new Document("_id", 1)),
+                new Document("$group", new Document("_id", new Document("$concat", List.of("$categoryId",
+                        new Document("$cond", List.of(new Document("$eq", List.of("$specialProduct", false)),
+                                REGULAR_SEGMENT, SPECIAL_SEGMENT)))))
+                        .append("categoryId", new Document("$first", "$categoryId"))
+                        .append("count", new Document("$sum", 1))
+                        .append("items", new Document("$push", entry))),
+                new Document("$addFields", new Document("overflow", overflow)
+                        .append("items", new Document("$cond", List.of(overflow, "$$REMOVE", "$items")))),
+                new Document("$out", ApplicationConstants.MONGO_CATEGORY_CATALOG_WRITE_COLLECTION)))
+                .allowDiskUse(true)
+                .toCollection();
+        lastRebuildTime = System.currentTimeMillis();
+        logger.info("Rebuilt category catalog with {} segments in {} ms", catalogCollection.estimatedDocumentCount(),
+                (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private static String segmentId(String categoryId, Object specialProduct) {
+        return categoryId + (Boolean.FALSE.equals(specialProduct) ? REGULAR_SEGMENT : SPECIAL_SEGMENT);
+    }
+
+    // The catalog entry of an item: _id and the listed fields, as the item query projects them, and its version
+    // The version is left out of the pages, which only list the item fields
+    private static Document entry(Map<String, Object> item) {
+        Document entry = new Document("_id", item.get("_id"));
+        ItemProjection.ITEM_FIELDS.stream()
+                .filter(item::containsKey)
+                .forEach(field -> entry.append(field, item.get(field)));
+        if (item.get("version") != null) {
+            entry.append("version", item.get("version"));
+        }
+        return entry;
+    }
+
+    // Matches the item's entry when it holds a lower version than the item read, or none; an item without a version
+    // (stored by other tools and not written here since) only replaces an entry without one
+    private static Bson entryGuard(Document item) {
+        Object version = item.get("version");
+        Bson olderVersion = version instanceof Number
+                ? Filters.or(Filters.exists("version", false), Filters.lt("version", version))
+                : Filters.exists("version", false);
+        return Filters.and(Filters.eq("_id", item.get("_id")), olderVersion);
+    }
+
+    @ManagedAttribute(description = "Category pages served from the catalog")
+    public long getCatalogPageCount() {
+        return catalogPageCount.get();
+    }
+
+    @ManagedAttribute(description = "Category pages read from the item collection because their segment overflowed")
+    public long getFallbackPageCount() {
+        return fallbackPageCount.get();
+    }
+
+    @ManagedAttribute(description = "Catalog entries refreshed after stock updates and review appends")
+    public long getRefreshedItemCount() {
+        return refreshedItemCount.get();
+    }
+
+    @ManagedAttribute(description = "Time of the last rebuild (epoch millis), 0 if none since startup")
+    public long getLastRebuildTime() {
+        return lastRebuildTime;
+    }
+}
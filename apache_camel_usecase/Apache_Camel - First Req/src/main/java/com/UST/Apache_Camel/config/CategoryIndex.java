@@ -0,0 +1,175 @@
+package com.UST.Apache_Camel.config;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import org.apache.camel.Exchange;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Component
+@ManagedResource(objectName = "com.UST.Apache_Camel:type=CategoryIndex", description = "In-memory index of the category collection")
+public class CategoryIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(CategoryIndex.class);
+
+    @Autowired
+    private MongoClient mongoClient;
+
+    private MongoCollection<Document> categoryCollection;
+
+    private final Map<String, Document> categories = new ConcurrentHashMap<>();
+
+    // Time of the last local insert/delete per category ID; a refresh that read the collection
+    // before such a write must not undo it
+    private final Map<String, Long> localWrites = new ConcurrentHashMap<>();
+
+    private volatile boolean loaded;
+    private volatile long lastRefreshTime;
+    private final AtomicLong refreshCount = new AtomicLong();
+    private final AtomicLong changedOnRefreshCount = new AtomicLong();
+    private final AtomicLong fallbackLookupCount = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        categoryCollection = mongoClient.getDatabase(ApplicationConstants.MONGO_DATABASE)
+                .getCollection(ApplicationConstants.MONGO_CATEGORY_READ_COLLECTION);
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            // Startup must not depend on MongoDB being reachable; lookups fall back to findById until a refresh succeeds
+            logger.error("Initial category load failed, falling back to MongoDB lookups: {}", e.getMessage());
+        }
+    }
+
+    // Re-reads the category collection and applies only the differences to the index
+    // Called once at startup and then periodically by the category index refresh route,
+    // which picks up categories written by other instances or directly in MongoDB
+    @ManagedOperation(description = "Reload the category collection into the index")
+    public synchronized void refresh() {
+        long started = System.nanoTime();
+        Map<String, Document> current = new HashMap<>();
+        for (Document category : categoryCollection.find()) {
+            current.put(String.valueOf(category.get("_id")), category);
+        }
+        int changed = 0;
+        for (Map.Entry<String, Document> entry : current.entrySet()) {
+            if (!writtenSince(entry.getKey(), started) && !entry.getValue().equals(categories.get(entry.getKey()))) {
+                categories.put(entry.getKey(), entry.getValue());
+                changed++;
+            }
+        }
+        for (String categoryId : categories.keySet()) {
+            if (!current.containsKey(categoryId) && !writtenSince(categoryId, started)) {
+                categories.remove(categoryId);
+                changed++;
+            }
+        }
+        localWrites.values().removeIf(writtenAt -> writtenAt - started < 0);
+        loaded = true;
+        lastRefreshTime = System.currentTimeMillis();
+        refreshCount.incrementAndGet();
+        changedOnRefreshCount.addAndGet(changed);
+        logger.debug("Refreshed category index: {} categories, {} changed", categories.size(), changed);
+    }
+
+    // Replaces the category ID in the message body with the category, or null if it does not exist
+    // Used by the post item route in place of the MongoDB findById on the category collection
+    public void lookup(Exchange exchange) {
+        String categoryId = exchange.getIn().getBody(String.class);
+        exchange.getIn().setBody(findById(categoryId));
+    }
+
+    public Document findById(String categoryId) {
+        if (categoryId == null) {
+            return null;
+        }
+        if (!loaded) {
+            fallbackLookupCount.incrementAndGet();
+            return categoryCollection.find(Filters.eq("_id", categoryId)).first();
+        }
+        return categories.get(categoryId);
+    }
+
+    // Adds the category stored in the newCategory property after a successful insert
+    public void put(Exchange exchange) {
+        Document category = new Document(exchange.getProperty("newCategory", Map.class));
+        String categoryId = String.valueOf(category.get("_id"));
+        localWrites.put(categoryId, System.nanoTime());
+        categories.put(categoryId, category);
+    }
+
+    // Removes the category in the categoryId header after a successful delete
+    public void remove(Exchange exchange) {
+        String categoryId = exchange.getIn().getHeader("categoryId", String.class);
+        localWrites.put(categoryId, System.nanoTime());
+        categories.remove(categoryId);
+    }
+
+    // Adds categoryName, categoryDepartment and categoryTax to each category group of the items-by-category result,
+    // replacing the former $lookup on the category collection; fields are null for an unknown category, as with the $lookup
+    public void enrichCategoryDetails(Exchange exchange) {
+        List<Document> groups = exchange.getIn().getBody(List.class);
+        if (groups == null) {
+            return;
+        }
+        for (int i = 0; i < groups.size(); i++) {
+            Document group = groups.get(i);
+            Document category = findById((String) group.get("_id"));
+            Document enriched = new Document("_id", group.get("_id"))
+                    .append("categoryName", category != null ? category.get("categoryName") : null)
+                    .append("categoryDepartment", category != null ? category.get("categoryDep") : null)
+                    .append("categoryTax", category != null ? category.get("categoryTax") : null);
+            group.forEach(enriched::putIfAbsent);
+            groups.set(i, enriched);
+        }
+    }
+
+    private boolean writtenSince(String categoryId, long since) {
+        Long writtenAt = localWrites.get(categoryId);
+        return writtenAt != null && writtenAt - since >= 0;
+    }
+
+    @ManagedAttribute(description = "Categories held in memory")
+    public int getSize() {
+        return categories.size();
+    }
+
+    @ManagedAttribute(description = "Whether the index has been loaded from MongoDB")
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    @ManagedAttribute(description = "Time of the last successful refresh (epoch milliseconds)")
+    public long getLastRefreshTime() {
+        return lastRefreshTime;
+    }
+
+    @ManagedAttribute(description = "Completed refreshes")
+    public long getRefreshCount() {
+        return refreshCount.get();
+    }
+
+    @ManagedAttribute(description = "Categories added, changed or removed by refreshes")
+    public long getChangedOnRefreshCount() {
+        return changedOnRefreshCount.get();
+    }
+
+    @ManagedAttribute(description = "Lookups sent to MongoDB because the index was not loaded yet")
+    public long getFallbackLookupCount() {
+        return fallbackLookupCount.get();
+    }
+}
@@ -0,0 +1,91 @@
+package com.UST.Apache_Camel.config;
+
+import com.UST.Apache_Camel.model.InventoryItem;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.camel.Exchange;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.jms.support.JmsUtils;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.jms.ConnectionFactory;
+import javax.jms.DeliveryMode;
+import javax.jms.MessageProducer;
+import javax.jms.TextMessage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@Component
+public class InventoryChunkProducer {
+
+    private static final Logger logger = LoggerFactory.getLogger(InventoryChunkProducer.class);
+
+    @Autowired
+    private ConnectionFactory connectionFactory;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private InventoryMetrics inventoryMetrics;
+
+    @Value("${app.inventory.enqueueChunkSize:500}")
+    private int chunkSize;
+
+    private JmsTemplate jmsTemplate;
+
+    @PostConstruct
+    public void init() {
+        jmsTemplate = new JmsTemplate(connectionFactory);
+        jmsTemplate.setSessionTransacted(true);
+    }
+
+    // Sends the inventoryList property to the inventory update queue as JSON arrays of up to
+    // app.inventory.enqueueChunkSize items (0 sends the whole request as one message), all in one JMS transaction
+    // Each message carries the correlation ID and the InventoryChunkSize property the queue processor unpacks it by;
+    // if any send fails nothing is committed and the exception reaches the route's error handling
+    public void sendChunks(Exchange exchange) {
+        List<InventoryItem> items = exchange.getProperty("inventoryList", List.class);
+        String correlationId = exchange.getProperty("correlationId", String.class);
+        int size = chunkSize > 0 ? chunkSize : Math.max(items.size(), 1);
+        List<List<InventoryItem>> chunks = new ArrayList<>();
+        for (int start = 0; start < items.size(); start += size) {
+            chunks.add(items.subList(start, Math.min(start + size, items.size())));
+        }
+        jmsTemplate.execute(session -> {
+            MessageProducer producer = session.createProducer(session.createQueue(ApplicationConstants.AMQ_INVENTORY_UPDATE_WRITE_QUEUE));
+            try {
+                producer.setDeliveryMode(DeliveryMode.PERSISTENT);
+                for (List<InventoryItem> chunk : chunks) {
+                    TextMessage message = session.createTextMessage(toJson(chunk));
+                    message.setJMSCorrelationID(correlationId);
+                    message.setIntProperty(ApplicationConstants.INVENTORY_CHUNK_HEADER, chunk.size());
+                    producer.send(message);
+                }
+                JmsUtils.commitIfNecessary(session);
+            } finally {
+                JmsUtils.closeMessageProducer(producer);
+            }
+            return null;
+        }, true);
+        inventoryMetrics.recordEnqueued(chunks.size(), items.size());
+        logger.info("Enqueued {} items in {} chunk(s) for correlationId: {}", items.size(), chunks.size(), correlationId);
+    }
+
+    // Serializes a chunk in the queue wire form of its items (see InventoryPayloadReader.toQueueMessage)
+    private String toJson(List<InventoryItem> chunk) {
+        List<Map<String, Object>> messages = new ArrayList<>(chunk.size());
+        chunk.forEach(item -> messages.add(InventoryPayloadReader.toQueueMessage(item)));
+        try {
+            return objectMapper.writeValueAsString(messages);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Failed to serialize inventory chunk: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.UST.Apache_Camel.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.camel.Exchange;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Map;
+
+// Inventory counters on top of the Camel route and endpoint timers (see MetricsConfig), scraped from /actuator/prometheus:
+// inventory_item_updates_total{status="success|error"}  results of the synchronous update, counted as markSuccess /
+//                                                        markFailure (or the bulk update) set them
+// inventory_queue_messages_sent_total                   JMS messages put on the inventory update queue
+// inventory_queue_items_sent_total                      items in those messages (a chunk carries many)
+// The queue processor counts the messages it receives and their time in the queue, so the backlog is
+// sent minus received and the consumer lag is its inventory_queue_lag_seconds histogram
+// All counters are registered once at startup; recording is a map lookup and an atomic add, with no tag per item
+@Component
+public class InventoryMetrics {
+
+    private static final String STATUS_SUCCESS = "success";
+    private static final String STATUS_ERROR = "error";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Map<String, Counter> itemUpdates;
+    private Counter messagesSent;
+    private Counter itemsSent;
+
+    @PostConstruct
+    public void init() {
+        itemUpdates = Map.of(
+                STATUS_SUCCESS, itemUpdateCounter(STATUS_SUCCESS),
+                STATUS_ERROR, itemUpdateCounter(STATUS_ERROR));
+        messagesSent = Counter.builder("inventory.queue.messages.sent")
+                .description("Messages sent to " + ApplicationConstants.AMQ_INVENTORY_UPDATE_WRITE_QUEUE)
+                .register(meterRegistry);
+        itemsSent = Counter.builder("inventory.queue.items.sent")
+                .description("Inventory items sent to " + ApplicationConstants.AMQ_INVENTORY_UPDATE_WRITE_QUEUE)
+                .register(meterRegistry);
+    }
+
+    // Counts the itemResult property of one inventory line by its status
+    public void recordItemResult(Exchange exchange) {
+        Map<String, Object> itemResult = exchange.getProperty("itemResult", Map.class);
+        Counter counter = itemResult != null ? itemUpdates.get(itemResult.get("status")) : null;
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+
+    // Counts messages put on the inventory update queue and the items they carry
+    public void recordEnqueued(int messages, int items) {
+        messagesSent.increment(messages);
+        itemsSent.increment(items);
+    }
+
+    private Counter itemUpdateCounter(String status) {
+        return Counter.builder("inventory.item.updates")
+                .description("Inventory item updates by result")
+                .tag("status", status)
+                .register(meterRegistry);
+    }
+}
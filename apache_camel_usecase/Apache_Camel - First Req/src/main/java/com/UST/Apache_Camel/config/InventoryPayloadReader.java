@@ -0,0 +1,223 @@
+package com.UST.Apache_Camel.config;
+
+import com.UST.Apache_Camel.exception.InventoryValidationException;
+import com.UST.Apache_Camel.model.InventoryItem;
+import com.UST.Apache_Camel.model.StockDetails;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Reads inventory update payloads ({"items":[{"_id":..., "stockDetails":{"soldOut":..., "damaged":...}}, ...]})
+// straight from the request stream into InventoryItem/StockDetails records with Jackson's streaming parser,
+// validating every line while it is parsed; neither the payload as a String nor a Map tree of it is ever built
+// A line that fails validation is kept as a record with its validationError, so it still gets its own error result
+public final class InventoryPayloadReader {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    static final String ERROR_MISSING_FIELDS = "Each item must have '_id' and 'stockDetails'.";
+    static final String ERROR_MISSING_STOCK_VALUES = "Missing 'soldOut' or 'damaged' values in stock details for item: ";
+    static final String ERROR_INVALID_STOCK_VALUE = "Invalid '%s' value in stock details for item: %s";
+
+    private InventoryPayloadReader() {
+    }
+
+    // Parses the payload and returns one record per line of 'items', in request order
+    // Throws InventoryValidationException for malformed JSON, a missing or non-array 'items' or an empty list
+    public static List<InventoryItem> read(InputStream payload) throws InventoryValidationException {
+        try (JsonParser parser = JSON_FACTORY.createParser(payload)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new InventoryValidationException("Invalid JSON payload: expected an object with 'items'.");
+            }
+            List<InventoryItem> items = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken token = parser.nextToken();
+                if ("items".equals(field) && token == JsonToken.START_ARRAY) {
+                    items = new ArrayList<>();
+                    while (parser.nextToken() != JsonToken.END_ARRAY) {
+                        items.add(readItem(parser));
+                    }
+                } else if ("items".equals(field) && token != JsonToken.VALUE_NULL) {
+                    throw new InventoryValidationException("'items' in inventory payload must be an array.");
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            return checkItems(items);
+        } catch (JsonProcessingException e) {
+            throw new InventoryValidationException("Invalid JSON payload: " + e.getOriginalMessage());
+        } catch (IOException e) {
+            throw new InventoryValidationException("Invalid JSON payload: " + e.getMessage());
+        }
+    }
+
+    // Converts an already parsed payload (e.g. a Map body from a direct call) to the same records as read
+    public static List<InventoryItem> fromMap(Map<String, Object> payload) throws InventoryValidationException {
+        Object lines = payload != null ? payload.get("items") : null;
+        if (lines != null && !(lines instanceof List)) {
+            throw new InventoryValidationException("'items' in inventory payload must be an array.");
+        }
+        List<InventoryItem> items = null;
+        if (lines != null) {
+            items = new ArrayList<>(((List<?>) lines).size());
+            for (Object line : (List<?>) lines) {
+                items.add(fromLine(line));
+            }
+        }
+        return checkItems(items);
+    }
+
+    // Converts one line given as a Map, applying the same rules as the streaming reader
+    public static InventoryItem fromLine(Object line) {
+        if (!(line instanceof Map)) {
+            return invalid(null, ERROR_MISSING_FIELDS);
+        }
+        Object rawId = ((Map<?, ?>) line).get("_id");
+        String id = rawId instanceof Map || rawId instanceof List ? null : rawId != null ? rawId.toString() : null;
+        if (id == null || !(((Map<?, ?>) line).get("stockDetails") instanceof Map)) {
+            return invalid(id, ERROR_MISSING_FIELDS);
+        }
+        Map<?, ?> stock = (Map<?, ?>) ((Map<?, ?>) line).get("stockDetails");
+        if (!stock.containsKey("soldOut") || !stock.containsKey("damaged")) {
+            return invalid(id, ERROR_MISSING_STOCK_VALUES + id);
+        }
+        Integer soldOut = toInt(stock.get("soldOut"));
+        Integer damaged = toInt(stock.get("damaged"));
+        if (soldOut == null || damaged == null) {
+            return invalid(id, String.format(ERROR_INVALID_STOCK_VALUE, soldOut == null ? "soldOut" : "damaged", id));
+        }
+        return item(id, soldOut, damaged, null);
+    }
+
+    // Throws the validation error of a record read from the payload, if it has one
+    public static InventoryItem validate(InventoryItem item) throws InventoryValidationException {
+        if (item.getValidationError() != null) {
+            throw new InventoryValidationException(item.getValidationError());
+        }
+        return item;
+    }
+
+    // Wire form of a record for the inventory update queue, as the queue processor reads it:
+    // {"_id":..., "stockDetails":{"soldOut":..., "damaged":...}} plus validationError for a rejected line
+    public static Map<String, Object> toQueueMessage(InventoryItem item) {
+        Map<String, Object> stockDetails = new LinkedHashMap<>(4);
+        stockDetails.put("soldOut", item.getStockDetails().getSoldOut());
+        stockDetails.put("damaged", item.getStockDetails().getDamaged());
+        Map<String, Object> message = new LinkedHashMap<>(4);
+        message.put("_id", item.getId());
+        message.put("stockDetails", stockDetails);
+        if (item.getValidationError() != null) {
+            message.put("validationError", item.getValidationError());
+        }
+        return message;
+    }
+
+    private static List<InventoryItem> checkItems(List<InventoryItem> items) throws InventoryValidationException {
+        if (items == null) {
+            throw new InventoryValidationException("Missing 'items' in inventory payload.");
+        }
+        if (items.isEmpty()) {
+            throw new InventoryValidationException("Inventory items list is empty.");
+        }
+        return items;
+    }
+
+    // Reads one element of 'items'; the parser is on its first token and is left on its last one
+    private static InventoryItem readItem(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return invalid(null, ERROR_MISSING_FIELDS);
+        }
+        String id = null;
+        boolean hasStock = false;
+        Integer soldOut = null;
+        Integer damaged = null;
+        String invalidField = null;
+        boolean hasSoldOut = false;
+        boolean hasDamaged = false;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            if ("_id".equals(field)) {
+                id = token.isScalarValue() && token != JsonToken.VALUE_NULL ? parser.getText() : null;
+                parser.skipChildren();
+            } else if ("stockDetails".equals(field) && token == JsonToken.START_OBJECT) {
+                hasStock = true;
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String stockField = parser.getCurrentName();
+                    JsonToken valueToken = parser.nextToken();
+                    if ("soldOut".equals(stockField)) {
+                        hasSoldOut = true;
+                        soldOut = readInt(parser, valueToken);
+                        invalidField = soldOut == null && invalidField == null ? "soldOut" : invalidField;
+                    } else if ("damaged".equals(stockField)) {
+                        hasDamaged = true;
+                        damaged = readInt(parser, valueToken);
+                        invalidField = damaged == null && invalidField == null ? "damaged" : invalidField;
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        if (id == null || !hasStock) {
+            return invalid(id, ERROR_MISSING_FIELDS);
+        }
+        if (!hasSoldOut || !hasDamaged) {
+            return invalid(id, ERROR_MISSING_STOCK_VALUES + id);
+        }
+        if (invalidField != null) {
+            return invalid(id, String.format(ERROR_INVALID_STOCK_VALUE, invalidField, id));
+        }
+        return item(id, soldOut, damaged, null);
+    }
+
+    // Integer value of a stock field: a JSON int, or a string holding one (as accepted before); null otherwise
+    private static Integer readInt(JsonParser parser, JsonToken token) throws IOException {
+        if (token == JsonToken.VALUE_NUMBER_INT && parser.getNumberType() == JsonParser.NumberType.INT) {
+            return parser.getIntValue();
+        }
+        if (token == JsonToken.VALUE_STRING) {
+            return toInt(parser.getText());
+        }
+        parser.skipChildren();
+        return null;
+    }
+
+    private static Integer toInt(Object value) {
+        if (value instanceof Integer) {
+            return (Integer) value;
+        }
+        try {
+            return value != null ? Integer.valueOf(value.toString().trim()) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static InventoryItem invalid(String id, String validationError) {
+        return item(id, 0, 0, validationError);
+    }
+
+    private static InventoryItem item(String id, int soldOut, int damaged, String validationError) {
+        StockDetails stockDetails = new StockDetails();
+        stockDetails.setSoldOut(soldOut);
+        stockDetails.setDamaged(damaged);
+        InventoryItem item = new InventoryItem();
+        item.setId(id);
+        item.setStockDetails(stockDetails);
+        item.setValidationError(validationError);
+        return item;
+    }
+}
@@ -0,0 +1,115 @@
+package com.UST.Apache_Camel.config;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// NDJSON (one JSON document per line) body of a streamed synchronous inventory update
+// Every itemResult is written and flushed as its line completes, so the client sees results while the update runs and
+// the service keeps only the success/error counts instead of the itemResults list; the last line is the trailer with
+// the overall status, the same completed/partial as FinalResponseProcessor sets, and the counts:
+//   {"itemId":"item-1","status":"success","message":"Inventory updated successfully for item item-1"}
+//   {"itemId":"item-2","status":"error","message":"Requested quantity exceeds available stock for item ID: item-2"}
+//   {"status":"partial","total":2,"succeeded":1,"failed":1}
+// A request that fails after the first line ends with a {"status":"error","message":...} trailer instead, since the
+// response status was already sent. Set as the resultStream property by InventoryStreamingResponse; writes are
+// synchronized, so split branches may complete concurrently
+// The parallel split completes lines out of order: write(line, itemResult) holds a result back until all earlier
+// lines were written, so the lines still come in request order
+public final class InventoryResultStream {
+
+    public static final String PROPERTY = "resultStream";
+
+    // The response stream stays open between lines, so Jackson must not close it after each value
+    private static final ObjectWriter WRITER = new ObjectMapper().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET).writer();
+    private static final byte[] NEWLINE = {'\n'};
+
+    private final OutputStream out;
+    private long succeeded;
+    private long failed;
+    private int nextLine;
+    private final Map<Integer, Map<String, Object>> heldBack = new HashMap<>();
+    private boolean started;
+    private boolean finished;
+
+    public InventoryResultStream(OutputStream out) {
+        this.out = out;
+    }
+
+    // True once the first line was written; from then on the response status and headers are committed
+    public synchronized boolean isStarted() {
+        return started;
+    }
+
+    // Writes one itemResult line and flushes it to the client
+    public synchronized void write(Map<String, Object> itemResult) {
+        if ("success".equals(itemResult.get("status"))) {
+            succeeded++;
+        } else {
+            failed++;
+        }
+        writeLine(itemResult);
+    }
+
+    // Writes the result of request line `line` once every earlier line was written; a null itemResult (a line that
+    // produced no result) only advances the order
+    public synchronized void write(int line, Map<String, Object> itemResult) {
+        if (line != nextLine) {
+            heldBack.put(line, itemResult);
+            return;
+        }
+        Map<String, Object> next = itemResult;
+        while (true) {
+            if (next != null) {
+                write(next);
+            }
+            nextLine++;
+            if (!heldBack.containsKey(nextLine)) {
+                return;
+            }
+            next = heldBack.remove(nextLine);
+        }
+    }
+
+    // Writes the trailer line with the overall status and the counts
+    public synchronized void finish() {
+        Map<String, Object> trailer = new LinkedHashMap<>();
+        trailer.put("status", failed == 0 ? "completed" : "partial");
+        trailer.put("total", succeeded + failed);
+        trailer.put("succeeded", succeeded);
+        trailer.put("failed", failed);
+        writeLine(trailer);
+        finished = true;
+    }
+
+    // Writes an error trailer for a request that failed after streaming started
+    public synchronized void fail(String message) {
+        Map<String, Object> trailer = new LinkedHashMap<>();
+        trailer.put("status", "error");
+        trailer.put("message", message);
+        trailer.put("total", succeeded + failed);
+        writeLine(trailer);
+        finished = true;
+    }
+
+    private void writeLine(Map<String, Object> line) {
+        if (finished) {
+            throw new IllegalStateException("Inventory result stream is already finished");
+        }
+        try {
+            WRITER.writeValue(out, line);
+            out.write(NEWLINE);
+            out.flush();
+            started = true;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to stream inventory result: " + e.getMessage(), e);
+        }
+    }
+}
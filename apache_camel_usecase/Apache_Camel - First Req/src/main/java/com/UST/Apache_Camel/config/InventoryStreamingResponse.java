@@ -0,0 +1,48 @@
+package com.UST.Apache_Camel.config;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.Message;
+import org.apache.camel.http.common.HttpMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+@Component
+public class InventoryStreamingResponse {
+
+    private static final Logger logger = LoggerFactory.getLogger(InventoryStreamingResponse.class);
+
+    private static final String NDJSON_CONTENT_TYPE = "application/x-ndjson";
+
+    @Value("${app.inventory.streaming.enabled:true}")
+    private boolean enabled;
+
+    // Opts a POST /camel/inventory/update into the streamed NDJSON response when the client sends
+    // Accept: application/x-ndjson (and app.inventory.streaming.enabled is set)
+    // Unlike the category item stream, which is pulled from a MongoDB cursor by the servlet binding, the update results
+    // are pushed: the split hands every itemResult to the InventoryResultStream set here as the resultStream property,
+    // which writes it straight to the servlet response (chunked transfer encoding) and flushes it
+    // The status and content type are set now but only sent with the first line, so a request rejected before any
+    // item completes (e.g. an empty items list) still gets the usual JSON error response
+    public void open(Exchange exchange) throws IOException {
+        String accept = exchange.getIn().getHeader("Accept", String.class);
+        if (!enabled || accept == null || !accept.contains(NDJSON_CONTENT_TYPE)) {
+            return;
+        }
+        Message in = exchange.getIn();
+        if (!(in instanceof HttpMessage)) {
+            logger.warn("Streaming inventory update requested, but the exchange has no servlet response; responding with JSON");
+            return;
+        }
+        HttpServletResponse response = ((HttpMessage) in).getResponse();
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(NDJSON_CONTENT_TYPE);
+        response.setCharacterEncoding("UTF-8");
+        exchange.setProperty(InventoryResultStream.PROPERTY, new InventoryResultStream(response.getOutputStream()));
+        logger.info("Streaming inventory update results as NDJSON");
+    }
+}
@@ -1,79 +1,121 @@
 package com.UST.Apache_Camel.config;
 
 import com.UST.Apache_Camel.exception.InventoryValidationException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.UST.Apache_Camel.model.InventoryItem;
+import com.UST.Apache_Camel.shared.BulkStockWriter;
+import com.mongodb.MongoWriteException;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
 import org.apache.camel.AggregationStrategy;
 import org.apache.camel.Exchange;
 import org.apache.camel.Processor;
 import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
 
 public class InventoryUpdateComponents {
     private static final Logger logger = LoggerFactory.getLogger(InventoryUpdateComponents.class);
 
+    // Resolves a collection of the application database through the shared MongoClient bean
+    // Used by processors that need driver operations the Camel mongodb endpoints do not offer
+    static MongoCollection<Document> mongoCollection(Exchange exchange, String collection) {
+        MongoClient mongoClient = exchange.getContext().getRegistry()
+                .lookupByNameAndType(ApplicationConstants.MONGO_CLIENT_BEAN, MongoClient.class);
+        return mongoClient.getDatabase(ApplicationConstants.MONGO_DATABASE).getCollection(collection);
+    }
+
     public static class ItemAggregationStrategy implements AggregationStrategy {
         private static final Logger logger = LoggerFactory.getLogger(ItemAggregationStrategy.class);
 
         // Aggregates item processing results during split operations in inventory update routes
         // Combines itemResult from each newExchange into a list (itemResults) in the resultExchange
         // Initializes itemResults if null and logs warnings for null itemResult cases
+        // For a streamed response (resultStream property) the itemResult is written to the client instead of kept
+        // Thread-safe, as the parallel split aggregates the lines of different items concurrently: there every line
+        // carries its request position (lineIndex) and its result is stored in that slot of the shared itemResultSlots
+        // array (or written at that position of the stream), so results keep the request order whatever order the
+        // lines complete in; the itemResults list of the sequential split is only changed while holding its exchange
         @Override
         public Exchange aggregate(Exchange oldExchange, Exchange newExchange) {
-            List itemResults = oldExchange != null
-                    ? oldExchange.getProperty("itemResults", List.class)
-                    : newExchange.getProperty("itemResults", List.class);
-
-            if (itemResults == null) {
-                itemResults = new ArrayList<>();
-                logger.warn("itemResults was null in aggregation, initialized new list");
-            }
-
+            Exchange resultExchange = oldExchange != null ? oldExchange : newExchange;
             Map<String, Object> itemResult = newExchange.getProperty("itemResult", Map.class);
-            if (itemResult != null) {
-                itemResults.add(itemResult);
-                logger.debug("Added itemResult for item {}: {}", itemResult.get("itemId"), itemResult);
-            } else {
+            if (itemResult == null) {
                 logger.warn("itemResult is null for item, exchange: {}", newExchange);
             }
+            Integer lineIndex = newExchange.getProperty("lineIndex", Integer.class);
+
+            InventoryResultStream resultStream = newExchange.getProperty(InventoryResultStream.PROPERTY, InventoryResultStream.class);
+            if (resultStream != null) {
+                if (lineIndex != null) {
+                    resultStream.write(lineIndex, itemResult);
+                } else if (itemResult != null) {
+                    resultStream.write(itemResult);
+                }
+                return resultExchange;
+            }
 
-            Exchange resultExchange = oldExchange != null ? oldExchange : newExchange;
-            resultExchange.setProperty("itemResults", itemResults);
+            AtomicReferenceArray<Map<String, Object>> itemResultSlots =
+                    newExchange.getProperty("itemResultSlots", AtomicReferenceArray.class);
+            if (itemResultSlots != null && lineIndex != null) {
+                itemResultSlots.set(lineIndex, itemResult);
+                return resultExchange;
+            }
+
+            synchronized (resultExchange) {
+                List itemResults = resultExchange.getProperty("itemResults", List.class);
+                if (itemResults == null) {
+                    itemResults = new ArrayList<>();
+                    resultExchange.setProperty("itemResults", itemResults);
+                    logger.warn("itemResults was null in aggregation, initialized new list");
+                }
+                if (itemResult != null) {
+                    itemResults.add(itemResult);
+                    logger.debug("Added itemResult for item {}: {}", itemResult.get("itemId"), itemResult);
+                }
+            }
             return resultExchange;
         }
     }
 
     public static class PayloadValidationProcessor implements Processor {
         // Validates the incoming inventory update payload for synchronous and asynchronous routes
-        // Ensures the payload is a valid JSON map with a non-empty 'items' list
+        // Streams the request body through InventoryPayloadReader into InventoryItem records, validating every line while
+        // parsing; a Map body (direct calls) is converted with the same rules
         // Initializes itemResults and sets inventoryList as exchange properties
-        // Throws InventoryValidationException for invalid or missing data
+        // Throws InventoryValidationException for invalid JSON or a missing or empty 'items' list
         @Override
         public void process(Exchange exchange) throws Exception {
             Object body = exchange.getIn().getBody();
-            Map<String, Object> bodyMap;
-
-            try {
-                if (body instanceof Map) {
-                    bodyMap = (Map<String, Object>) body;
-                } else {
-                    exchange.getIn().setBody(body, String.class);
-                    bodyMap = exchange.getIn().getBody(Map.class);
+            List<InventoryItem> items;
+            if (body instanceof Map) {
+                items = InventoryPayloadReader.fromMap((Map<String, Object>) body);
+            } else {
+                InputStream payload = exchange.getIn().getBody(InputStream.class);
+                if (payload == null) {
+                    throw new InventoryValidationException("Missing 'items' in inventory payload.");
                 }
-            } catch (Exception e) {
-                throw new InventoryValidationException("Invalid JSON payload: " + e.getMessage());
-            }
-
-            if (bodyMap == null || !bodyMap.containsKey("items")) {
-                throw new InventoryValidationException("Missing 'items' in inventory payload.");
-            }
-
-            List<Map<String, Object>> items = (List<Map<String, Object>>) bodyMap.get("items");
-            if (items.isEmpty()) {
-                throw new InventoryValidationException("Inventory items list is empty.");
+                items = InventoryPayloadReader.read(payload);
             }
 
             List<Map<String, Object>> itemResults = new ArrayList<>();
@@ -94,25 +136,66 @@ public class InventoryUpdateComponents {
         // Sets itemId, soldOut, and damaged as exchange properties for later use
         // Throws InventoryValidationException if validation fails
         public void processItem(Exchange exchange) throws Exception {
-            Map<String, Object> item = exchange.getIn().getBody(Map.class);
-            if (item == null || item.get("_id") == null || item.get("stockDetails") == null) {
-                throw new InventoryValidationException("Each item must have '_id' and 'stockDetails'.");
-            }
+            InventoryItem request = parseItem(exchange.getIn().getBody());
 
-            String id = item.get("_id").toString();
-            Map<String, Object> stock = (Map<String, Object>) item.get("stockDetails");
+            exchange.setProperty("itemId", request.getId());
+            exchange.setProperty("soldOut", request.getStockDetails().getSoldOut());
+            exchange.setProperty("damaged", request.getStockDetails().getDamaged());
+            logger.debug("Processing item: {}", request.getId());
+        }
+
+        // Validates one line of the inventory update payload, read by PayloadValidationProcessor as an InventoryItem
+        // (or given as a Map), and throws its validation error if it has one
+        // Shared by processItem and the bulk update mode so both apply the same rules
+        static InventoryItem parseItem(Object item) throws InventoryValidationException {
+            return InventoryPayloadReader.validate(item instanceof InventoryItem
+                    ? (InventoryItem) item : InventoryPayloadReader.fromLine(item));
+        }
 
-            if (!stock.containsKey("soldOut") || !stock.containsKey("damaged")) {
-                throw new InventoryValidationException("Missing 'soldOut' or 'damaged' values in stock details for item: " + id);
+        // Prepares the parallel split (app.inventory.parallelSplit.enabled): groups the positions of the request lines by
+        // item _id, in request order within each group, as the inventoryGroups property
+        // The split runs the groups in parallel and the lines of one group one after another, so the updates of an item
+        // are applied in submission order; lines without an _id form groups of their own (they fail validation anyway)
+        // Also sets itemResultSlots, one result slot per line, unless the results are streamed to the client
+        public void groupLinesByItem(Exchange exchange) {
+            List<InventoryItem> lines = exchange.getProperty("inventoryList", List.class);
+            Map<Object, List<Integer>> groups = new LinkedHashMap<>();
+            for (int line = 0; line < lines.size(); line++) {
+                String itemId = lines.get(line).getId();
+                groups.computeIfAbsent(itemId != null ? itemId : line, key -> new ArrayList<>()).add(line);
             }
+            exchange.setProperty("inventoryGroups", new ArrayList<>(groups.values()));
+            if (exchange.getProperty(InventoryResultStream.PROPERTY) == null) {
+                exchange.setProperty("itemResultSlots", new AtomicReferenceArray<Map<String, Object>>(lines.size()));
+            }
+            logger.debug("Grouped {} lines into {} items for the parallel split", lines.size(), groups.size());
+        }
 
-            int soldOut = Integer.parseInt(stock.get("soldOut").toString());
-            int damaged = Integer.parseInt(stock.get("damaged").toString());
+        // Sets the request line at the position in the body (one entry of an inventoryGroups group) as the body,
+        // and the position as lineIndex, for processItem and ItemAggregationStrategy
+        public void selectLine(Exchange exchange) {
+            int line = exchange.getIn().getBody(Integer.class);
+            exchange.setProperty("lineIndex", line);
+            exchange.getIn().setBody(exchange.getProperty("inventoryList", List.class).get(line));
+        }
 
-            exchange.setProperty("itemId", id);
-            exchange.setProperty("soldOut", soldOut);
-            exchange.setProperty("damaged", damaged);
-            logger.debug("Processing item: {}", id);
+        // Sets itemResults from itemResultSlots once the parallel split is done, in request order
+        // A line that ended without a result (an unexpected error) is left out, as the sequential split does
+        public void collectItemResults(Exchange exchange) {
+            AtomicReferenceArray<Map<String, Object>> itemResultSlots =
+                    exchange.getProperty("itemResultSlots", AtomicReferenceArray.class);
+            if (itemResultSlots == null) {
+                return;
+            }
+            List<Map<String, Object>> itemResults = new ArrayList<>(itemResultSlots.length());
+            for (int line = 0; line < itemResultSlots.length(); line++) {
+                Map<String, Object> itemResult = itemResultSlots.get(line);
+                if (itemResult != null) {
+                    itemResults.add(itemResult);
+                }
+            }
+            exchange.setProperty("itemResults", itemResults);
+            exchange.removeProperty("itemResultSlots");
         }
 
         // Prepares the item ID for MongoDB findById operation
@@ -138,26 +221,118 @@ public class InventoryUpdateComponents {
                 throw new InventoryValidationException("Missing stockDetails in DB for item: " + exchange.getProperty("itemId"));
             }
 
-            int availableStock = Integer.parseInt(stockDetails.get("availableStock").toString());
-            int existingSoldOut = Integer.parseInt(stockDetails.get("soldOut").toString());
-            int existingDamaged = Integer.parseInt(stockDetails.get("damaged").toString());
+            applyStockChange(stockDetails, exchange.getProperty("itemId", String.class),
+                    exchange.getProperty("soldOut", Integer.class), exchange.getProperty("damaged", Integer.class));
 
+            item.put("stockDetails", stockDetails);
+            item.put("lastUpdateDate", LocalDate.now().toString());
+
+            exchange.setProperty("updatedItem", item);
+            exchange.getIn().setBody(item);
+        }
+
+        // Writes the stock change of validateAndUpdateItem (read-modify-write mode) with a $set of stockDetails and
+        // lastUpdateDate instead of saving the whole document, so the rest of the item is not rewritten and a concurrent
+        // change to it (e.g. the rating rollup of a review append) is not overwritten
+        public void saveStockDetails(Exchange exchange) {
+            Map<String, Object> item = exchange.getProperty("updatedItem", Map.class);
+            mongoCollection(exchange, ApplicationConstants.MONGO_ITEM_WRITE_COLLECTION).updateOne(
+                    Filters.eq("_id", exchange.getProperty("itemId", String.class)),
+                    Updates.combine(
+                            Updates.set("stockDetails", item.get("stockDetails")),
+                            Updates.set("lastUpdateDate", item.get("lastUpdateDate")),
+                            Updates.inc("version", 1)));
+        }
+
+        // Checks that the stored stock covers soldOut + damaged and applies the change to the stored stockDetails map
+        // The rule lives in BulkStockWriter so the bulk update mode (of both services) applies the same one
+        static void applyStockChange(Map<String, Object> stockDetails, String itemId, int soldOut, int damaged) throws InventoryValidationException {
+            String error = BulkStockWriter.applyStockChange(stockDetails, itemId, soldOut, damaged);
+            if (error != null) {
+                throw new InventoryValidationException(error);
+            }
+        }
+
+        // Applies the stock change for an item in a single round trip (atomic update mode)
+        // Issues one findOneAndUpdate that $inc's availableStock, soldOut and damaged, guarded by availableStock >= soldOut + damaged,
+        // so concurrent updates to the same item can no longer overwrite each other
+        // When nothing matches, re-reads the item to report the same errors as validateAndUpdateItem, after
+        // converting stock stored as strings and retrying once
+        // Throws InventoryValidationException for missing items, missing or non-numeric stockDetails or insufficient stock
+        public void applyAtomicUpdate(Exchange exchange) throws Exception {
+            String itemId = exchange.getProperty("itemId", String.class);
             int soldOut = exchange.getProperty("soldOut", Integer.class);
             int damaged = exchange.getProperty("damaged", Integer.class);
 
-            if (soldOut + damaged > availableStock) {
-                throw new InventoryValidationException("Requested quantity exceeds available stock for item ID: " + exchange.getProperty("itemId"));
+            MongoCollection<Document> items = mongoCollection(exchange, ApplicationConstants.MONGO_ITEM_WRITE_COLLECTION);
+            Document updatedItem = incrementStock(items, itemId, soldOut, damaged);
+
+            if (updatedItem == null) {
+                Document existing = items.find(Filters.eq("_id", itemId))
+                        .projection(Projections.include("stockDetails"))
+                        .first();
+                if (existing == null) {
+                    throw new InventoryValidationException("Item not found for ID: " + itemId);
+                }
+                if (existing.get("stockDetails") == null) {
+                    throw new InventoryValidationException("Missing stockDetails in DB for item: " + itemId);
+                }
+                if (convertStringStock(items, itemId, existing.get("stockDetails", Document.class))) {
+                    updatedItem = incrementStock(items, itemId, soldOut, damaged);
+                }
+                if (updatedItem == null) {
+                    throw new InventoryValidationException("Requested quantity exceeds available stock for item ID: " + itemId);
+                }
             }
 
-            stockDetails.put("availableStock", availableStock - soldOut - damaged);
-            stockDetails.put("soldOut", existingSoldOut + soldOut);
-            stockDetails.put("damaged", existingDamaged + damaged);
+            exchange.setProperty("updatedItem", updatedItem);
+            exchange.getIn().setBody(updatedItem);
+        }
 
-            item.put("stockDetails", stockDetails);
-            item.put("lastUpdateDate", LocalDate.now().toString());
+        // The conditional $inc of applyAtomicUpdate; null when the item is missing or its availableStock is below the
+        // requested quantity (or not a number)
+        private static Document incrementStock(MongoCollection<Document> items, String itemId, int soldOut, int damaged)
+                throws InventoryValidationException {
+            int requested = soldOut + damaged;
+            try {
+                return items.findOneAndUpdate(
+                        Filters.and(
+                                Filters.eq("_id", itemId),
+                                Filters.gte("stockDetails.availableStock", requested)),
+                        Updates.combine(
+                                Updates.inc("stockDetails.availableStock", -requested),
+                                Updates.inc("stockDetails.soldOut", soldOut),
+                                Updates.inc("stockDetails.damaged", damaged),
+                                Updates.set("lastUpdateDate", LocalDate.now().toString()),
+                                Updates.inc("version", 1)),
+                        new FindOneAndUpdateOptions().returnDocument(ReturnDocument.AFTER));
+            } catch (MongoWriteException e) {
+                throw new InventoryValidationException("Stock details could not be updated for item " + itemId + ": " + e.getError().getMessage());
+            }
+        }
 
-            exchange.setProperty("updatedItem", item);
-            exchange.getIn().setBody(item);
+        // Stock values stored as strings (the read-modify-write mode parses them) never match the numeric guard of
+        // incrementStock: converts them to numbers with an update guarded by the stored strings, so the caller can retry
+        // Returns false when there was nothing to convert; throws InventoryValidationException for a value that is not a number
+        private static boolean convertStringStock(MongoCollection<Document> items, String itemId, Document stockDetails)
+                throws InventoryValidationException {
+            Map<String, Object> parsed;
+            try {
+                parsed = BulkStockWriter.parseStringStock(stockDetails);
+            } catch (NumberFormatException e) {
+                throw new InventoryValidationException("Stock details are not numeric for item: " + itemId);
+            }
+            if (parsed.isEmpty()) {
+                return false;
+            }
+            List<Bson> guards = new ArrayList<>(List.of(Filters.eq("_id", itemId)));
+            List<Bson> conversions = new ArrayList<>();
+            parsed.forEach((field, value) -> {
+                guards.add(Filters.eq("stockDetails." + field, stockDetails.get(field)));
+                conversions.add(Updates.set("stockDetails." + field, value));
+            });
+            items.updateOne(Filters.and(guards), Updates.combine(conversions));
+            return true;
         }
 
         // Marks a successful inventory update for an item
@@ -187,6 +362,49 @@ public class InventoryUpdateComponents {
         }
     }
 
+    public static class BulkInventoryUpdateProcessor implements Processor {
+        private static final Logger logger = LoggerFactory.getLogger(BulkInventoryUpdateProcessor.class);
+
+        // Placeholder method required by the Processor interface, not used in this implementation
+        @Override
+        public void process(Exchange exchange) throws Exception {
+        }
+
+        // Applies the whole inventoryList in bulk (bulk update mode)
+        // Validates every line with the same rules as processItem and hands the valid lines to BulkStockWriter, chunked at
+        // the bulkChunkSize property (one $in lookup, one compare-and-set update per item, retried on concurrent updates)
+        // Sets bulkItemResults to one itemResult per line, in request order
+        public void applyBulkUpdate(Exchange exchange) {
+            List<InventoryItem> inventoryList = exchange.getProperty("inventoryList", List.class);
+            int chunkSize = exchange.getProperty("bulkChunkSize", BulkStockWriter.DEFAULT_CHUNK_SIZE, Integer.class);
+
+            List<Map<String, Object>> results = new ArrayList<>(Collections.nCopies(inventoryList.size(), null));
+            List<BulkStockWriter.StockLine> lines = new ArrayList<>(inventoryList.size());
+            for (int line = 0; line < inventoryList.size(); line++) {
+                try {
+                    InventoryItem request = ItemProcessor.parseItem(inventoryList.get(line));
+                    lines.add(new BulkStockWriter.StockLine(request.getId(),
+                            request.getStockDetails().getSoldOut(), request.getStockDetails().getDamaged()));
+                } catch (InventoryValidationException e) {
+                    lines.add(null);
+                    results.set(line, BulkStockWriter.itemResult(null, "error", e.getMessage()));
+                }
+            }
+
+            BulkStockWriter.apply(mongoCollection(exchange, ApplicationConstants.MONGO_ITEM_WRITE_COLLECTION), lines, chunkSize, results);
+
+            exchange.setProperty("bulkItemResults", results);
+            logger.info("Bulk update processed {} lines", results.size());
+        }
+
+        // Sets the current split entry of bulkItemResults as the itemResult consumed by ItemAggregationStrategy
+        public void setItemResult(Exchange exchange) {
+            Map<String, Object> itemResult = exchange.getIn().getBody(Map.class);
+            exchange.setProperty("itemId", itemResult.get("itemId"));
+            exchange.setProperty("itemResult", itemResult);
+        }
+    }
+
     public static class ErrorResponseProcessor implements Processor {
         // Handles exceptions caught during synchronous inventory update processing
         // Sets an error response in the exchange body with a 400 status code and the exception message
@@ -209,21 +427,52 @@ public class InventoryUpdateComponents {
         // Finalizes the response for synchronous inventory updates
         // Aggregates itemResults, determines overall status (completed or partial), and sets a 200 response with results
         // Initializes itemResults as an empty list if null and logs the final status
+        // A streamed response (resultStream property) only gets its trailer line, see finishStream
         @Override
         public void process(Exchange exchange) throws Exception {
+            InventoryResultStream resultStream = exchange.getProperty(InventoryResultStream.PROPERTY, InventoryResultStream.class);
+            if (resultStream != null) {
+                finishStream(exchange, resultStream);
+                return;
+            }
             List<Map<String, Object>> itemResults = exchange.getProperty("itemResults", List.class);
             if (itemResults == null) {
                 itemResults = new ArrayList<>();
                 logger.warn("itemResults is null in final response, initializing as empty list");
             }
             String status = itemResults.stream().allMatch(r -> "success".equals(r.get("status"))) ? "completed" : "partial";
-            logger.info("Final response itemResults: {}, status: {}", itemResults, status);
+            logger.info("Final response status: {}, items: {}", status, itemResults.size());
+            logger.debug("Final response itemResults: {}", itemResults);
             exchange.getMessage().setBody(Map.of(
                     "status", status,
                     "results", itemResults
             ));
             exchange.getMessage().setHeader(Exchange.HTTP_RESPONSE_CODE, 200);
         }
+
+        // Ends a streamed response with its trailer line and clears the body, as everything was already written
+        // A request that failed (ErrorResponseProcessor set a 4xx) before the first line keeps its JSON error response;
+        // one that failed after it gets an error trailer, since the 200 status was already sent
+        private void finishStream(Exchange exchange, InventoryResultStream resultStream) {
+            Integer responseCode = exchange.getMessage().getHeader(Exchange.HTTP_RESPONSE_CODE, Integer.class);
+            boolean failed = responseCode != null && responseCode >= 400;
+            if (failed && !resultStream.isStarted()) {
+                return;
+            }
+            try {
+                if (failed) {
+                    Map<String, Object> error = exchange.getMessage().getBody(Map.class);
+                    resultStream.fail(error != null ? String.valueOf(error.get("message")) : "Inventory update failed");
+                } else {
+                    resultStream.finish();
+                }
+            } catch (UncheckedIOException e) {
+                logger.warn("Could not finish streamed inventory update response: {}", e.getMessage());
+            }
+            exchange.getMessage().setBody(null);
+            exchange.getMessage().setHeader(Exchange.HTTP_RESPONSE_CODE, 200);
+            logger.info("Finished streamed inventory update response");
+        }
     }
 
     public static class GetItemProcessor implements Processor {
@@ -259,54 +508,159 @@ public class InventoryUpdateComponents {
     public static class GetItemsByCategoryProcessor implements Processor {
         private static final Logger logger = LoggerFactory.getLogger(GetItemsByCategoryProcessor.class);
 
-        // Builds a MongoDB aggregation pipeline for retrieving items by category
-        // Includes optional filtering for special products and joins with the category collection
-        // Sets the pipeline as the exchange body for MongoDB execution
-        public void buildAggregationPipeline(Exchange exchange) {
+        private static final int DEFAULT_PAGE_LIMIT = 100;
+        private static final int MAX_PAGE_LIMIT = 1000;
+        private static final ObjectMapper NDJSON_MAPPER = new ObjectMapper();
+        private static final String OBJECT_ID_CURSOR_PREFIX = "oid:";
+        static final Bson ITEM_PROJECTION = Projections.include(ItemProjection.ITEM_FIELDS);
+        static final Bson ITEM_SORT = Sorts.ascending("_id");
+
+        // Reads one page of items for the category with a keyset query on _id, served by the
+        // {categoryId, specialProduct, _id} index: the limit query parameter sets the page size (clamped to the
+        // maxPageLimit property) and after is the last item ID of the previous page
+        // Sets a single category group with the page items and nextAfter (null on the last page) as the exchange body,
+        // or an empty list when there are no items, for enrichment by the CategoryIndex
+        public void readPage(Exchange exchange) {
             String categoryId = exchange.getIn().getHeader("categoryId", String.class);
-            boolean includeSpecial = Boolean.parseBoolean(exchange.getIn().getHeader("includeSpecial", "false", String.class));
+            String after = exchange.getIn().getHeader("after", String.class);
+            int limit = pageLimit(exchange);
 
-            List<Document> pipeline = new ArrayList<>();
-            Document matchStage = new Document("$match", new Document("categoryId", categoryId));
-            if (!includeSpecial) {
-                matchStage.get("$match", Document.class).append("specialProduct", false);
+            List<Document> documents = new ArrayList<>(limit + 1);
+            try (MongoCursor<Document> cursor = findItems(exchange, categoryId, after).limit(limit + 1).iterator()) {
+                while (cursor.hasNext() && documents.size() <= limit) {
+                    documents.add(cursor.next());
+                }
             }
-            pipeline.add(matchStage);
+            setPage(exchange, categoryId, documents, limit);
+        }
 
-            pipeline.add(new Document("$lookup", new Document()
-                    .append("from", ApplicationConstants.MONGO_CATEGORY_READ_COLLECTION)
-                    .append("localField", "categoryId")
-                    .append("foreignField", "_id")
-                    .append("as", "categoryDetails")
-            ));
+        // Sets the page body from up to limit + 1 item documents read in _id order; a document past the limit only
+        // tells that there is a next page. Shared with the reactive read (ReactiveItemReader)
+        static void setPage(Exchange exchange, String categoryId, List<Document> documents, int limit) {
+            List<String> fields = ItemProjection.topLevelFields(exchange);
+            List<Document> items = new ArrayList<>(Math.min(documents.size(), limit));
+            for (int i = 0; i < documents.size() && i < limit; i++) {
+                items.add(toItem(documents.get(i), fields));
+            }
+            String nextAfter = documents.size() > limit ? cursor(items.get(items.size() - 1).get("id")) : null;
+            exchange.getIn().setBody(items.isEmpty() ? new ArrayList<>() : new ArrayList<>(List.of(new Document()
+                    .append("_id", categoryId)
+                    .append("items", items)
+                    .append("nextAfter", nextAfter))));
+            logger.debug("Read page of {} items for categoryId: {}, after: {}, limit: {}",
+                    items.size(), categoryId, exchange.getIn().getHeader("after"), limit);
+        }
 
-            pipeline.add(new Document("$unwind", new Document()
-                    .append("path", "$categoryDetails")
-                    .append("preserveNullAndEmptyArrays", true)
-            ));
+        // Streams every item of the category as NDJSON (one item per line) straight from the MongoDB cursor
+        // The body is an InputStream that encodes the next item only when the HTTP response asks for more bytes,
+        // so heap use does not depend on the category size; closing it closes the cursor
+        public void streamItems(Exchange exchange) {
+            String categoryId = exchange.getIn().getHeader("categoryId", String.class);
+            MongoCursor<Document> cursor = findItems(exchange, categoryId, null).batchSize(MAX_PAGE_LIMIT).iterator();
+            exchange.getIn().setHeader(Exchange.CONTENT_TYPE, "application/x-ndjson");
+            List<String> fields = ItemProjection.topLevelFields(exchange);
+            exchange.getIn().setBody(new NdjsonCursorStream(cursor, item -> toItem(item, fields), NDJSON_MAPPER));
+            logger.info("Streaming items for categoryId: {}", categoryId);
+        }
 
-            pipeline.add(new Document("$group", new Document()
-                    .append("_id", "$categoryId")
-                    .append("categoryName", new Document("$first", "$categoryDetails.categoryName"))
-                    .append("categoryDepartment", new Document("$first", "$categoryDetails.categoryDep"))
-                    .append("categoryTax", new Document("$first", "$categoryDetails.categoryTax"))
-                    .append("items", new Document("$push", new Document()
-                            .append("id", "$_id")
-                            .append("itemName", "$itemName")
-                            .append("categoryId", "$categoryId")
-                            .append("lastUpdateDate", "$lastUpdateDate")
-                            .append("itemPrice", "$itemPrice")
-                            .append("stockDetails", "$stockDetails")
-                            .append("specialProduct", "$specialProduct")
-                            .append("review", "$review")
-                    ))
-            ));
+        // Keyset cursor (nextAfter) of an item _id: string IDs, as POST /camel/mycart creates them, are passed as they are,
+        // ObjectId IDs (items stored by other tools) as oid:<hex> so afterValue parses them back to an ObjectId
+        // Other _id types are rejected: after would compare as a string and never match them (MongoDB compares _id
+        // values of different BSON types by type first, which also means a category mixing string and ObjectId IDs
+        // is only paged through its string IDs)
+        static String cursor(Object id) {
+            if (id instanceof String) {
+                return (String) id;
+            }
+            if (id instanceof ObjectId) {
+                return OBJECT_ID_CURSOR_PREFIX + ((ObjectId) id).toHexString();
+            }
+            throw new IllegalStateException("Cannot page past item " + id + ": _id of type "
+                    + (id == null ? "null" : id.getClass().getSimpleName()) + " is not supported, only string and ObjectId");
+        }
+
+        // The _id value of an after cursor, of the BSON type the cursor was created from
+        static Object afterValue(String after) {
+            String hex = after.startsWith(OBJECT_ID_CURSOR_PREFIX) ? after.substring(OBJECT_ID_CURSOR_PREFIX.length()) : null;
+            return hex != null && ObjectId.isValid(hex) ? new ObjectId(hex) : after;
+        }
+
+        // Order of _id values as MongoDB sorts them: by BSON type first (numbers, then strings, then ObjectIds), then by
+        // value, strings by code point as MongoDB compares their UTF-8 bytes; used to merge in-memory lists of items in
+        // the same order as the keyset query and the afterValue cursors
+        static final Comparator<Object> ID_ORDER = (a, b) -> {
+            int rank = Integer.compare(idTypeRank(a), idTypeRank(b));
+            if (rank != 0) {
+                return rank;
+            }
+            if (a instanceof Number) {
+                return Double.compare(((Number) a).doubleValue(), ((Number) b).doubleValue());
+            }
+            if (a instanceof String) {
+                return Arrays.compare(((String) a).codePoints().toArray(), ((String) b).codePoints().toArray());
+            }
+            if (a instanceof ObjectId) {
+                return ((ObjectId) a).compareTo((ObjectId) b);
+            }
+            return String.valueOf(a).compareTo(String.valueOf(b));
+        };
+
+        private static int idTypeRank(Object id) {
+            if (id instanceof Number) {
+                return 0;
+            }
+            if (id instanceof String) {
+                return 1;
+            }
+            return id instanceof ObjectId ? 2 : 3;
+        }
 
-            exchange.getIn().setBody(pipeline);
-            logger.debug("Built aggregation pipeline for categoryId: {}, includeSpecial: {}", categoryId, includeSpecial);
+        // Keyset query shared by the paged and streamed reads, sorted on _id
+        private static FindIterable<Document> findItems(Exchange exchange, String categoryId, String after) {
+            return mongoCollection(exchange, ApplicationConstants.MONGO_ITEM_READ_COLLECTION)
+                    .find(itemsFilter(exchange, categoryId, after))
+                    .projection(ItemProjection.projection(exchange, ITEM_PROJECTION))
+                    .sort(ITEM_SORT);
         }
 
-        // Processes the MongoDB aggregation result for items by category
+        // Filter of the keyset query, also used by the reactive read (ReactiveItemReader)
+        // includeSpecial=true matches specialProduct with $in instead of leaving it out, so MongoDB can still merge
+        // the index ranges in _id order rather than sorting the category in memory
+        static Bson itemsFilter(Exchange exchange, String categoryId, String after) {
+            boolean includeSpecial = Boolean.parseBoolean(exchange.getIn().getHeader("includeSpecial", "false", String.class));
+            List<Bson> filters = new ArrayList<>();
+            filters.add(Filters.eq("categoryId", categoryId));
+            filters.add(includeSpecial
+                    ? Filters.in("specialProduct", Arrays.asList(false, true, null))
+                    : Filters.eq("specialProduct", false));
+            if (after != null && !after.isBlank()) {
+                filters.add(Filters.gt("_id", afterValue(after)));
+            }
+            return Filters.and(filters);
+        }
+
+        // Shapes an item document like the entries of the former $group/$push result, with _id renamed to id
+        // fields are the top-level fields of the request's projection (see ItemProjection), all of them by default
+        private static Document toItem(Document item, List<String> fields) {
+            Document shaped = new Document("id", item.get("_id"));
+            fields.forEach(field -> shaped.append(field, item.get(field)));
+            return shaped;
+        }
+
+        static int pageLimit(Exchange exchange) {
+            int maxLimit = exchange.getProperty("maxPageLimit", MAX_PAGE_LIMIT, Integer.class);
+            int defaultLimit = Math.min(exchange.getProperty("defaultPageLimit", DEFAULT_PAGE_LIMIT, Integer.class), maxLimit);
+            String limit = exchange.getIn().getHeader("limit", String.class);
+            try {
+                int requested = limit != null ? Integer.parseInt(limit.trim()) : defaultLimit;
+                return requested > 0 ? Math.min(requested, maxLimit) : defaultLimit;
+            } catch (NumberFormatException e) {
+                logger.warn("Ignoring invalid limit '{}', using {}", limit, defaultLimit);
+                return defaultLimit;
+            }
+        }
+
+        // Processes the page read for items by category
         // Sets an empty response with a message if no items are found, or the result list if items exist
         public void processResult(Exchange exchange) {
             List<?> result = exchange.getIn().getBody(List.class);
@@ -377,9 +731,14 @@ public class InventoryUpdateComponents {
         }
 
         // Prepares the validated item for insertion into MongoDB
-        // Sets the validated item as the exchange body for the insert operation
+        // Sets the validated item as the exchange body for the insert operation, with an empty rating rollup and version 0
+        // (every later write $inc's it, see CategoryCatalog); reviews posted with the item are moved into the review
+        // buckets after the insert (see ReviewStore)
         public void prepareItemForInsert(Exchange exchange) {
             Map<String, Object> item = exchange.getProperty("validatedItem", Map.class);
+            item.put("ratingCount", 0);
+            item.put("ratingAvg", 0.0);
+            item.put("version", 0);
             exchange.getIn().setBody(item);
             logger.debug("Prepared item for insert: {}", item.get("_id"));
         }
@@ -515,6 +874,62 @@ public class InventoryUpdateComponents {
         }
     }
 
+    // InputStream over a MongoDB cursor that writes one JSON document per line
+    // Encodes documents lazily as the stream is read, so only the current line is held in memory
+    public static class NdjsonCursorStream extends InputStream {
+        private final MongoCursor<Document> cursor;
+        private final Function<Document, Document> mapper;
+        private final ObjectMapper objectMapper;
+        private byte[] line = new byte[0];
+        private int position;
+
+        public NdjsonCursorStream(MongoCursor<Document> cursor, Function<Document, Document> mapper, ObjectMapper objectMapper) {
+            this.cursor = cursor;
+            this.mapper = mapper;
+            this.objectMapper = objectMapper;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!nextLine()) {
+                return -1;
+            }
+            return line[position++] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            if (!nextLine()) {
+                return -1;
+            }
+            int count = Math.min(length, line.length - position);
+            System.arraycopy(line, position, buffer, offset, count);
+            position += count;
+            return count;
+        }
+
+        @Override
+        public void close() {
+            cursor.close();
+        }
+
+        private boolean nextLine() throws IOException {
+            while (position == line.length) {
+                if (!cursor.hasNext()) {
+                    return false;
+                }
+                byte[] json = objectMapper.writeValueAsBytes(mapper.apply(cursor.next()));
+                line = Arrays.copyOf(json, json.length + 1);
+                line[json.length] = '\n';
+                position = 0;
+            }
+            return true;
+        }
+    }
+
     public static class AsyncInventoryUpdateProcessor implements Processor {
         private static final Logger logger = LoggerFactory.getLogger(AsyncInventoryUpdateProcessor.class);
 
@@ -540,10 +955,55 @@ public class InventoryUpdateComponents {
             logger.info("Generated correlationId: {}", correlationId);
         }
 
+        // Creates the summary document the queue processor counts finished items in, before any item is enqueued
+        // Upserts so the total is still recorded if a consumer already counted an item under this correlation ID
+        public void createCorrelationStatus(Exchange exchange) {
+            String correlationId = exchange.getProperty("correlationId", String.class);
+            List<?> inventoryList = exchange.getProperty("inventoryList", List.class);
+            Date now = new Date();
+            mongoCollection(exchange, ApplicationConstants.MONGO_CORRELATION_STATUS_WRITE_COLLECTION).updateOne(
+                    Filters.eq("_id", correlationId),
+                    Updates.combine(
+                            Updates.set("total", inventoryList.size()),
+                            Updates.setOnInsert("succeeded", 0),
+                            Updates.setOnInsert("failed", 0),
+                            Updates.setOnInsert("createdAt", now),
+                            Updates.set("lastUpdate", now)),
+                    new UpdateOptions().upsert(true));
+            logger.debug("Created status for correlationId: {} with {} items", correlationId, inventoryList.size());
+        }
+
+        // Builds the response of GET /camel/inventory/async-update/{correlationId} from its summary document
+        // Sets total/succeeded/failed/pending counts and a status of in-progress or completed, or a 404 if the ID is unknown
+        public void buildStatusResponse(Exchange exchange) {
+            String correlationId = exchange.getIn().getHeader("correlationId", String.class);
+            Map<String, Object> summary = exchange.getIn().getBody(Map.class);
+            if (summary == null) {
+                exchange.getIn().setHeader(Exchange.HTTP_RESPONSE_CODE, 404);
+                exchange.getIn().setBody(Map.of("message", ApplicationConstants.ERROR_CORRELATION_ID_NOT_FOUND));
+                logger.warn("Status requested for unknown correlationId: {}", correlationId);
+                return;
+            }
+            int total = summary.get("total") != null ? ((Number) summary.get("total")).intValue() : 0;
+            int succeeded = summary.get("succeeded") != null ? ((Number) summary.get("succeeded")).intValue() : 0;
+            int failed = summary.get("failed") != null ? ((Number) summary.get("failed")).intValue() : 0;
+            int pending = Math.max(total - succeeded - failed, 0);
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("correlationId", correlationId);
+            response.put("status", pending == 0 ? "completed" : "in-progress");
+            response.put("total", total);
+            response.put("succeeded", succeeded);
+            response.put("failed", failed);
+            response.put("pending", pending);
+            response.put("lastUpdate", summary.get("lastUpdate"));
+            exchange.getIn().setHeader(Exchange.HTTP_RESPONSE_CODE, 200);
+            exchange.getIn().setBody(response);
+        }
+
         // Prepares an item for queuing in ActiveMQ
-        // Sets the item as the exchange body and ensures the correlationId is included in the JMS header
+        // Sets the item in its queue wire form as the exchange body and ensures the correlationId is included in the JMS header
         public void prepareQueueMessage(Exchange exchange) {
-            Map<String, Object> item = exchange.getIn().getBody(Map.class);
+            Map<String, Object> item = InventoryPayloadReader.toQueueMessage(exchange.getIn().getBody(InventoryItem.class));
             exchange.getIn().setBody(item);
             exchange.getIn().setHeader("JMSCorrelationID", exchange.getProperty("correlationId"));
             logger.debug("Prepared queue message for itemId: {}", item.get("_id"));
@@ -0,0 +1,152 @@
+package com.UST.Apache_Camel.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.apache.camel.Exchange;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Component
+@ManagedResource(objectName = "com.UST.Apache_Camel:type=ItemCache", description = "Read-through cache for GET /camel/mycart/item/{itemId}")
+public class ItemCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ItemCache.class);
+
+    // Cached marker for item IDs that do not exist, so repeated 404s do not reach MongoDB
+    private static final Map<String, Object> NOT_FOUND = Collections.unmodifiableMap(new HashMap<>());
+
+    @Value("${app.item.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.item.cache.maximumSize:10000}")
+    private long maximumSize;
+
+    @Value("${app.item.cache.ttlSeconds:60}")
+    private long ttlSeconds;
+
+    @Value("${app.item.cache.negativeTtlSeconds:10}")
+    private long negativeTtlSeconds;
+
+    private Cache<String, Map<String, Object>> cache;
+
+    // Bumped on every invalidation; a lookup that raced with one does not store its (possibly stale) result
+    private final AtomicLong invalidations = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        long ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        long negativeTtlNanos = TimeUnit.SECONDS.toNanos(negativeTtlSeconds);
+        cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new Expiry<String, Map<String, Object>>() {
+                    @Override
+                    public long expireAfterCreate(String itemId, Map<String, Object> item, long currentTime) {
+                        return item == NOT_FOUND ? negativeTtlNanos : ttlNanos;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String itemId, Map<String, Object> item, long currentTime, long currentDuration) {
+                        return expireAfterCreate(itemId, item, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String itemId, Map<String, Object> item, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        logger.info("Item cache enabled: {}, maximumSize: {}, ttlSeconds: {}, negativeTtlSeconds: {}",
+                enabled, maximumSize, ttlSeconds, negativeTtlSeconds);
+    }
+
+    // Looks up the item ID in the message body before the MongoDB findById in the get item route
+    // Sets itemCacheHit; on a hit the body becomes the cached item, or null for a cached not-found
+    // Cached items are shared between requests and must be treated as read-only
+    public void lookup(Exchange exchange) {
+        String itemId = exchange.getIn().getBody(String.class);
+        exchange.setProperty("itemCacheGeneration", invalidations.get());
+        Map<String, Object> cached = enabled && itemId != null ? cache.getIfPresent(itemId) : null;
+        exchange.setProperty("itemCacheHit", cached != null);
+        if (cached != null) {
+            exchange.getIn().setBody(cached == NOT_FOUND ? null : cached);
+            logger.debug("Item cache hit for ID: {}", itemId);
+        }
+    }
+
+    // Stores the findById result for the itemId header, or a not-found entry when the body is null
+    // Skipped when an invalidation happened since lookup, as the result may predate that write, and for projected
+    // reads (see ItemProjection), as the cache holds whole items that are projected on a hit
+    public void store(Exchange exchange) {
+        String itemId = exchange.getIn().getHeader("itemId", String.class);
+        if (!enabled || itemId == null || exchange.getProperty(ItemProjection.PROPERTY) != null
+                || exchange.getProperty("itemCacheGeneration", -1L, Long.class) != invalidations.get()) {
+            return;
+        }
+        Map<String, Object> item = exchange.getIn().getBody(Map.class);
+        cache.put(itemId, item == null ? NOT_FOUND : item);
+    }
+
+    // Removes an item after a write path changed or created it
+    public void invalidate(String itemId) {
+        if (itemId == null) {
+            return;
+        }
+        invalidations.incrementAndGet();
+        cache.invalidate(itemId);
+        logger.debug("Invalidated item cache for ID: {}", itemId);
+    }
+
+    // Removes all listed items, used for invalidations published by the inventory queue processor
+    public void invalidateAll(Collection<String> itemIds) {
+        if (itemIds == null || itemIds.isEmpty()) {
+            return;
+        }
+        invalidations.incrementAndGet();
+        cache.invalidateAll(itemIds);
+        logger.debug("Invalidated item cache for {} IDs", itemIds.size());
+    }
+
+    @ManagedAttribute(description = "Cached entries, including not-found entries")
+    public long getSize() {
+        return cache.estimatedSize();
+    }
+
+    @ManagedAttribute(description = "Lookups served from the cache")
+    public long getHitCount() {
+        return cache.stats().hitCount();
+    }
+
+    @ManagedAttribute(description = "Lookups that went to MongoDB")
+    public long getMissCount() {
+        return cache.stats().missCount();
+    }
+
+    @ManagedAttribute(description = "Entries evicted for size or expiry")
+    public long getEvictionCount() {
+        return cache.stats().evictionCount();
+    }
+
+    @ManagedAttribute(description = "Share of lookups served from the cache")
+    public double getHitRate() {
+        return cache.stats().hitRate();
+    }
+
+    @ManagedAttribute(description = "Invalidations triggered by write paths")
+    public long getInvalidationCount() {
+        return invalidations.get();
+    }
+}
@@ -0,0 +1,155 @@
+package com.UST.Apache_Camel.config;
+
+import com.mongodb.client.model.Projections;
+import org.apache.camel.Exchange;
+import org.bson.conversions.Bson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Field projection of the item reads (GET /camel/mycart/item/{itemId}, the category page and stream)
+// ?view= names a compact view and ?fields= lists field paths (e.g. fields=itemName,itemPrice.sellingPrice); both may be
+// combined and the fields are added to the view. Without either the whole item is returned, as before
+//   summary        itemName, categoryId, itemPrice.sellingPrice, stockDetails.availableStock, specialProduct, ratingAvg
+//   availability   stockDetails.availableStock, unitOfMeasure, soldOut and damaged
+// The projection is pushed down into the MongoDB query, so the left-out fields are neither read from the server nor
+// encoded in the response; an unknown view or field is ignored with a warning, like an invalid page limit
+public final class ItemProjection {
+
+    private static final Logger logger = LoggerFactory.getLogger(ItemProjection.class);
+
+    // The projected field paths for the request, or null for the whole item
+    public static final String PROPERTY = "itemFields";
+
+    static final List<String> ITEM_FIELDS = List.of(
+            "itemName", "categoryId", "lastUpdateDate", "itemPrice", "stockDetails", "specialProduct", "ratingCount", "ratingAvg");
+
+    private static final Map<String, List<String>> VIEWS = Map.of(
+            "summary", List.of("itemName", "categoryId", "itemPrice.sellingPrice", "stockDetails.availableStock", "specialProduct",
+                    "ratingAvg"),
+            "availability", List.of("stockDetails.availableStock", "stockDetails.unitOfMeasure",
+                    "stockDetails.soldOut", "stockDetails.damaged"));
+
+    private ItemProjection() {
+    }
+
+    // Reads the view and fields query parameters into the itemFields property
+    public static void resolve(Exchange exchange) {
+        String view = exchange.getIn().getHeader("view", String.class);
+        String fields = exchange.getIn().getHeader("fields", String.class);
+        Set<String> paths = new LinkedHashSet<>();
+        if (view != null && !view.isBlank()) {
+            List<String> viewFields = VIEWS.get(view.trim());
+            if (viewFields != null) {
+                paths.addAll(viewFields);
+            } else {
+                logger.warn("Ignoring unknown view '{}' (views: {})", view, VIEWS.keySet());
+            }
+        }
+        if (fields != null) {
+            for (String field : fields.split(",")) {
+                String path = field.trim();
+                if (path.isEmpty() || path.equals("_id") || path.equals("id")) {
+                    continue;
+                }
+                if (ITEM_FIELDS.contains(topLevel(path)) && !path.startsWith(".") && !path.endsWith(".") && !path.contains("..")) {
+                    paths.add(path);
+                } else {
+                    logger.warn("Ignoring unknown field '{}' (fields: {})", path, ITEM_FIELDS);
+                }
+            }
+        }
+        if (paths.isEmpty()) {
+            exchange.removeProperty(PROPERTY);
+            return;
+        }
+        List<String> projected = withoutCoveredPaths(paths);
+        exchange.setProperty(PROPERTY, projected);
+        logger.debug("Projecting item reads to {}", projected);
+    }
+
+    // The projected field paths of the request, or null for the whole item
+    static List<String> fields(Exchange exchange) {
+        return exchange.getProperty(PROPERTY, List.class);
+    }
+
+    // The query projection for the request, or whole when the request has none
+    static Bson projection(Exchange exchange, Bson whole) {
+        List<String> fields = fields(exchange);
+        return fields != null ? Projections.include(fields) : whole;
+    }
+
+    // The fields projection header of the mongodb findById endpoint, null for the whole item
+    public static Bson findByIdProjection(Exchange exchange) {
+        List<String> fields = fields(exchange);
+        return fields != null ? Projections.include(fields) : null;
+    }
+
+    // The top-level fields of the request's projection in ITEM_FIELDS order, or all ITEM_FIELDS for the whole item
+    static List<String> topLevelFields(Exchange exchange) {
+        List<String> fields = fields(exchange);
+        if (fields == null) {
+            return ITEM_FIELDS;
+        }
+        List<String> topLevel = new ArrayList<>();
+        for (String field : ITEM_FIELDS) {
+            if (fields.stream().anyMatch(path -> topLevel(path).equals(field))) {
+                topLevel.add(field);
+            }
+        }
+        return topLevel;
+    }
+
+    // Projects the item in the body in memory, for items served from the ItemCache (which holds whole items)
+    public static void projectBody(Exchange exchange) {
+        List<String> fields = fields(exchange);
+        Map<String, Object> item = exchange.getIn().getBody(Map.class);
+        if (fields != null && item != null) {
+            exchange.getIn().setBody(project(item, fields));
+        }
+    }
+
+    // Copies _id and the field paths present in item, keeping the nesting of dotted paths
+    static Map<String, Object> project(Map<String, Object> item, List<String> fields) {
+        Map<String, Object> projected = new LinkedHashMap<>();
+        projected.put("_id", item.get("_id"));
+        for (String path : fields) {
+            String[] segments = path.split("\\.");
+            Object value = item;
+            for (String segment : segments) {
+                value = value instanceof Map ? ((Map<?, ?>) value).get(segment) : null;
+            }
+            if (value == null) {
+                continue;
+            }
+            Map<String, Object> target = projected;
+            for (int i = 0; i < segments.length - 1; i++) {
+                target = (Map<String, Object>) target.computeIfAbsent(segments[i], key -> new LinkedHashMap<String, Object>());
+            }
+            target.put(segments[segments.length - 1], value);
+        }
+        return projected;
+    }
+
+    // MongoDB rejects a projection with both a path and one of its sub-paths, so a sub-path of an included field goes
+    private static List<String> withoutCoveredPaths(Set<String> paths) {
+        List<String> kept = new ArrayList<>();
+        for (String path : paths) {
+            if (paths.stream().noneMatch(other -> path.startsWith(other + "."))) {
+                kept.add(path);
+            }
+        }
+        return kept;
+    }
+
+    private static String topLevel(String path) {
+        int dot = path.indexOf('.');
+        return dot < 0 ? path : path.substring(0, dot);
+    }
+}
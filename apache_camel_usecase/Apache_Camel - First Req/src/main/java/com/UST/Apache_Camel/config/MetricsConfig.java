@@ -0,0 +1,58 @@
+package com.UST.Apache_Camel.config;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import org.apache.camel.component.micrometer.MicrometerConstants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class MetricsConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(MetricsConfig.class);
+
+    @Value("${app.metrics.histogram.minimumExpectedMs:1}")
+    private long minimumExpectedMs;
+
+    @Value("${app.metrics.histogram.maximumExpectedMs:30000}")
+    private long maximumExpectedMs;
+
+    // Publishes the latency timers as Prometheus histograms (_bucket series), so p50/p99/p999 are computed at query time
+    // with histogram_quantile across instances, instead of client-side percentiles computed on every recording
+    // Covers the per-route timers of camel-micrometer (CamelRoutePolicy, tagged routeId - every route ID in
+    // ApplicationConstants), the per-endpoint timers (CamelExchangeEventNotifier, tagged endpointName with the endpoint
+    // URI, e.g. each mongodb: operation and the activemq: queue), the inventory timers and the MongoDB driver timers
+    // (command latency, pool checkout wait); the buckets are limited to
+    // app.metrics.histogram.minimumExpectedMs..maximumExpectedMs to keep the series count per timer small
+    @Bean
+    public MeterFilter latencyHistogramMeterFilter() {
+        logger.info("Latency histograms from {} ms to {} ms", minimumExpectedMs, maximumExpectedMs);
+        DistributionStatisticConfig histogram = DistributionStatisticConfig.builder()
+                .percentilesHistogram(true)
+                .minimumExpectedValue((double) Duration.ofMillis(minimumExpectedMs).toNanos())
+                .maximumExpectedValue((double) Duration.ofMillis(maximumExpectedMs).toNanos())
+                .build();
+        return new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                if (id.getType() != Meter.Type.TIMER || !isLatencyTimer(id.getName())) {
+                    return config;
+                }
+                return histogram.merge(config);
+            }
+        };
+    }
+
+    private static boolean isLatencyTimer(String name) {
+        return name.equals(MicrometerConstants.DEFAULT_CAMEL_ROUTE_POLICY_METER_NAME)
+                || name.equals(MicrometerConstants.DEFAULT_CAMEL_EXCHANGE_EVENT_METER_NAME)
+                || name.startsWith("inventory.")
+                || name.startsWith("mongodb.driver.");
+    }
+}
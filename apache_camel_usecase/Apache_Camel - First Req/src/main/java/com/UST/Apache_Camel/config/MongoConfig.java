@@ -1,22 +1,126 @@
 package com.UST.Apache_Camel.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.MongoCompressor;
 import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoClients;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.mongodb.MongoMetricsCommandListener;
+import io.micrometer.core.instrument.binder.mongodb.MongoMetricsConnectionPoolListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
 @Configuration
 public class MongoConfig {
 
     private static final Logger logger = LoggerFactory.getLogger(MongoConfig.class);
 
+    @Value("${spring.data.mongodb.uri:mongodb://localhost:27017}")
+    private String mongoUri;
+
+    @Value("${app.mongo.pool.maxSize:100}")
+    private int poolMaxSize;
+
+    @Value("${app.mongo.pool.minSize:0}")
+    private int poolMinSize;
+
+    @Value("${app.mongo.pool.maxWaitTimeMs:120000}")
+    private long poolMaxWaitTimeMs;
+
+    @Value("${app.mongo.pool.maxConnecting:2}")
+    private int poolMaxConnecting;
+
+    @Value("${app.mongo.pool.maxConnectionIdleTimeMs:0}")
+    private long poolMaxConnectionIdleTimeMs;
+
+    @Value("${app.mongo.socket.connectTimeoutMs:10000}")
+    private int socketConnectTimeoutMs;
+
+    @Value("${app.mongo.socket.readTimeoutMs:0}")
+    private int socketReadTimeoutMs;
+
+    @Value("${app.mongo.serverSelectionTimeoutMs:30000}")
+    private long serverSelectionTimeoutMs;
+
+    @Value("${app.mongo.compressors:}")
+    private String compressors;
+
     @Bean(name = "mongoClient")
-    public MongoClient mongoClient() {
+    public MongoClient mongoClient(MeterRegistry meterRegistry) {
         logger.info("Creating MongoClient bean");
-        return MongoClients.create("mongodb://localhost:27017");
+        return MongoClients.create(clientSettings(meterRegistry, true));
+    }
+
+    // Reactive-streams client for the non-blocking item reads (see ReactiveItemReader), on the same URI; created only
+    // with app.mongo.reactiveReads.enabled, as it keeps its own connection pool and server monitors
+    @Bean(name = "reactiveMongoClient")
+    @ConditionalOnProperty(name = "app.mongo.reactiveReads.enabled", havingValue = "true")
+    public com.mongodb.reactivestreams.client.MongoClient reactiveMongoClient(MeterRegistry meterRegistry) {
+        logger.info("Creating reactive MongoClient bean");
+        return com.mongodb.reactivestreams.client.MongoClients.create(clientSettings(meterRegistry, false));
+    }
+
+    // Client settings from spring.data.mongodb.uri, with the pool, socket, server selection and compression settings
+    // of the app.mongo.* properties taking precedence over the same options in the URI
+    // The pool and command listeners publish the pool size, checkout wait and utilization (see MongoPoolListener) and
+    // the latency of every command (mongodb.driver.commands, tagged command and status) to /actuator/prometheus
+    private MongoClientSettings clientSettings(MeterRegistry meterRegistry, boolean timeCheckouts) {
+        List<MongoCompressor> compressorList = compressorList();
+        logger.info("MongoDB pool {}..{} connections, {} ms max wait, compressors {}",
+                poolMinSize, poolMaxSize, poolMaxWaitTimeMs, compressors.isBlank() ? "none" : compressors);
+        return MongoClientSettings.builder()
+                .applyConnectionString(new ConnectionString(mongoUri))
+                .applyToConnectionPoolSettings(pool -> pool
+                        .maxSize(poolMaxSize)
+                        .minSize(poolMinSize)
+                        .maxWaitTime(poolMaxWaitTimeMs, TimeUnit.MILLISECONDS)
+                        .maxConnecting(poolMaxConnecting)
+                        .maxConnectionIdleTime(poolMaxConnectionIdleTimeMs, TimeUnit.MILLISECONDS)
+                        .addConnectionPoolListener(new MongoMetricsConnectionPoolListener(meterRegistry))
+                        .addConnectionPoolListener(new MongoPoolListener(meterRegistry, timeCheckouts)))
+                .applyToSocketSettings(socket -> socket
+                        .connectTimeout(socketConnectTimeoutMs, TimeUnit.MILLISECONDS)
+                        .readTimeout(socketReadTimeoutMs, TimeUnit.MILLISECONDS))
+                .applyToClusterSettings(cluster -> cluster
+                        .serverSelectionTimeout(serverSelectionTimeoutMs, TimeUnit.MILLISECONDS))
+                .compressorList(compressorList)
+                .addCommandListener(new MongoMetricsCommandListener(meterRegistry))
+                .build();
+    }
+
+    // app.mongo.compressors in order of preference; the server compresses with the first one it also has enabled
+    // (net.compression.compressors), and zstd and snappy need their libraries (zstd-jni, snappy-java) at runtime
+    private List<MongoCompressor> compressorList() {
+        List<MongoCompressor> compressorList = new ArrayList<>();
+        for (String compressor : compressors.split(",")) {
+            switch (compressor.trim().toLowerCase()) {
+                case "":
+                    break;
+                case "zstd":
+                    compressorList.add(MongoCompressor.createZstdCompressor());
+                    break;
+                case "snappy":
+                    compressorList.add(MongoCompressor.createSnappyCompressor());
+                    break;
+                case "zlib":
+                    compressorList.add(MongoCompressor.createZlibCompressor());
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown MongoDB compressor '" + compressor.trim()
+                            + "' in app.mongo.compressors (zstd, snappy or zlib)");
+            }
+        }
+        return compressorList;
     }
 
     @Bean
@@ -24,4 +128,4 @@ public class MongoConfig {
         logger.info("Creating ObjectMapper bean");
         return new ObjectMapper();
     }
-}
\ No newline at end of file
+}
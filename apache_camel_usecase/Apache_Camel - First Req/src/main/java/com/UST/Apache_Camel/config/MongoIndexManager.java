@@ -0,0 +1,162 @@
+package com.UST.Apache_Camel.config;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.Sorts;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+@Component
+public class MongoIndexManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(MongoIndexManager.class);
+
+    // Placeholder value used in the explained filters; the plan does not depend on it
+    private static final String SAMPLE_ID = "explain-check";
+
+    @Autowired
+    private MongoClient mongoClient;
+
+    @Value("${app.mongo.indexes.ensure:true}")
+    private boolean ensureIndexes;
+
+    @Value("${app.mongo.explain.mode:" + ApplicationConstants.EXPLAIN_MODE_WARN + "}")
+    private String explainMode;
+
+    // Indexes required by the Item Service routes
+    private static final List<IndexDefinition> INDEXES = List.of(
+            // Keyset pages and streams of GET /camel/mycart/items/{categoryId}
+            new IndexDefinition(ApplicationConstants.MONGO_ITEM_WRITE_COLLECTION, ApplicationConstants.MONGO_INDEX_ITEM_CATEGORY,
+                    Indexes.ascending("categoryId", "specialProduct", "_id")),
+            // Review pages of GET /camel/mycart/item/{itemId}/review (see ReviewStore)
+            new IndexDefinition(ApplicationConstants.MONGO_REVIEW_WRITE_COLLECTION, ApplicationConstants.MONGO_INDEX_REVIEW_BUCKET,
+                    Indexes.ascending("itemId", "bucket"))
+    );
+
+    // Query shapes of the hot routes and the plan stages they must not use
+    private static final List<QueryShape> QUERY_SHAPES = List.of(
+            new QueryShape(ApplicationConstants.ROUTE_GET_ITEMS_BY_CATEGORY, ApplicationConstants.MONGO_ITEM_READ_COLLECTION,
+                    Filters.and(Filters.eq("categoryId", SAMPLE_ID), Filters.eq("specialProduct", false), Filters.gt("_id", SAMPLE_ID)),
+                    Sorts.ascending("_id"), Set.of("COLLSCAN", "SORT")),
+            new QueryShape(ApplicationConstants.ROUTE_GET_ITEMS_BY_CATEGORY + " (includeSpecial)", ApplicationConstants.MONGO_ITEM_READ_COLLECTION,
+                    Filters.and(Filters.eq("categoryId", SAMPLE_ID), Filters.in("specialProduct", Arrays.asList(false, true, null))),
+                    Sorts.ascending("_id"), Set.of("COLLSCAN", "SORT")),
+            new QueryShape(ApplicationConstants.ROUTE_GET_ITEM_REVIEWS, ApplicationConstants.MONGO_REVIEW_READ_COLLECTION,
+                    Filters.and(Filters.eq("itemId", SAMPLE_ID), Filters.gt("bucket", -1)),
+                    Sorts.ascending("bucket"), Set.of("COLLSCAN", "SORT")),
+            new QueryShape(ApplicationConstants.ROUTE_UPDATE_INVENTORY + " (atomic)", ApplicationConstants.MONGO_ITEM_WRITE_COLLECTION,
+                    Filters.and(Filters.eq("_id", SAMPLE_ID), Filters.gte("stockDetails.availableStock", 1)),
+                    null, Set.of("COLLSCAN")),
+            new QueryShape(ApplicationConstants.ROUTE_UPDATE_INVENTORY + " (bulk)", ApplicationConstants.MONGO_ITEM_READ_COLLECTION,
+                    Filters.in("_id", List.of(SAMPLE_ID, SAMPLE_ID + "-2")),
+                    null, Set.of("COLLSCAN"))
+    );
+
+    // Creates the required indexes and verifies the query plans of the hot routes at startup
+    // createIndex is a no-op for an index that already exists with the same definition
+    // With app.mongo.explain.mode=fail a plan using a forbidden stage (e.g. COLLSCAN) stops the application,
+    // with warn it is logged; MongoDB being unreachable is only logged, the routes then fail on their own
+    @PostConstruct
+    public void init() {
+        MongoDatabase database = mongoClient.getDatabase(ApplicationConstants.MONGO_DATABASE);
+        try {
+            if (ensureIndexes) {
+                for (IndexDefinition index : INDEXES) {
+                    database.getCollection(index.collection).createIndex(index.keys, new IndexOptions().name(index.name));
+                    logger.info("Ensured index {} on {}", index.name, index.collection);
+                }
+            }
+            if (!ApplicationConstants.EXPLAIN_MODE_OFF.equals(explainMode)) {
+                verifyQueryPlans(database);
+            }
+        } catch (QueryPlanException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            logger.error("Failed to ensure MongoDB indexes or verify query plans: {}", e.getMessage());
+        }
+    }
+
+    private void verifyQueryPlans(MongoDatabase database) {
+        List<String> violations = new ArrayList<>();
+        for (QueryShape shape : QUERY_SHAPES) {
+            Document explain = database.getCollection(shape.collection).find(shape.filter).sort(shape.sort).explain();
+            Document winningPlan = explain.get("queryPlanner", Document.class).get("winningPlan", Document.class);
+            List<String> stages = new ArrayList<>();
+            collectStages(winningPlan, stages);
+            List<String> forbidden = stages.stream().filter(shape.forbiddenStages::contains).distinct().toList();
+            if (forbidden.isEmpty()) {
+                logger.info("Query plan for {} uses {}", shape.name, stages);
+            } else {
+                violations.add(shape.name + " uses " + forbidden + " on " + shape.collection);
+            }
+        }
+        if (violations.isEmpty()) {
+            return;
+        }
+        if (ApplicationConstants.EXPLAIN_MODE_FAIL.equals(explainMode)) {
+            throw new QueryPlanException("Query plan verification failed: " + violations);
+        }
+        violations.forEach(violation -> logger.warn("Query plan verification: {}", violation));
+    }
+
+    // Collects the stage names of a plan tree; covers inputStage/inputStages and the queryPlan wrapper of newer servers
+    private static void collectStages(Object plan, List<String> stages) {
+        if (plan instanceof Document) {
+            Document document = (Document) plan;
+            if (document.get("stage") instanceof String) {
+                stages.add(document.getString("stage"));
+            }
+            document.values().forEach(value -> collectStages(value, stages));
+        } else if (plan instanceof List) {
+            ((List<?>) plan).forEach(value -> collectStages(value, stages));
+        }
+    }
+
+    private static final class IndexDefinition {
+        private final String collection;
+        private final String name;
+        private final Bson keys;
+
+        private IndexDefinition(String collection, String name, Bson keys) {
+            this.collection = collection;
+            this.name = name;
+            this.keys = keys;
+        }
+    }
+
+    private static final class QueryShape {
+        private final String name;
+        private final String collection;
+        private final Bson filter;
+        private final Bson sort;
+        private final Set<String> forbiddenStages;
+
+        private QueryShape(String name, String collection, Bson filter, Bson sort, Set<String> forbiddenStages) {
+            this.name = name;
+            this.collection = collection;
+            this.filter = filter;
+            this.sort = sort;
+            this.forbiddenStages = forbiddenStages;
+        }
+    }
+
+    private static final class QueryPlanException extends IllegalStateException {
+        private QueryPlanException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.UST.Apache_Camel.config;
+
+import org.apache.activemq.ActiveMQConnectionFactory;
+import org.apache.activemq.jms.pool.ConnectionPool;
+import org.apache.activemq.pool.PooledConnectionFactory;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+import javax.jms.Connection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// ActiveMQ PooledConnectionFactory that exposes pool utilization over JMX
+// Keeps weak references to the connection pools it creates so session usage can be summed across them
+@ManagedResource(objectName = "com.UST.Apache_Camel:type=JmsConnectionPool", description = "Pooled ActiveMQ connections and sessions")
+public class MonitoredPooledConnectionFactory extends PooledConnectionFactory {
+
+    private final Set<ConnectionPool> connectionPools = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+    private final AtomicLong createdConnectionCount = new AtomicLong();
+
+    public MonitoredPooledConnectionFactory(ActiveMQConnectionFactory connectionFactory) {
+        super(connectionFactory);
+    }
+
+    @Override
+    protected ConnectionPool createConnectionPool(Connection connection) {
+        ConnectionPool connectionPool = super.createConnectionPool(connection);
+        connectionPools.add(connectionPool);
+        createdConnectionCount.incrementAndGet();
+        return connectionPool;
+    }
+
+    // Closes the pooled connections when the Spring context shuts down (inferred destroy method)
+    public void close() {
+        stop();
+    }
+
+    @ManagedAttribute(description = "Broker connections currently open in the pool")
+    public int getOpenConnections() {
+        return getNumConnections();
+    }
+
+    @ManagedAttribute(description = "Maximum broker connections in the pool")
+    public int getMaximumConnections() {
+        return getMaxConnections();
+    }
+
+    @ManagedAttribute(description = "Broker connections created since startup; growing steadily means connections are churned")
+    public long getCreatedConnectionCount() {
+        return createdConnectionCount.get();
+    }
+
+    @ManagedAttribute(description = "Maximum sessions per pooled connection")
+    public int getMaximumSessionsPerConnection() {
+        return getMaximumActiveSessionPerConnection();
+    }
+
+    @ManagedAttribute(description = "Sessions borrowed from the pool")
+    public int getActiveSessions() {
+        return snapshot().stream().mapToInt(ConnectionPool::getNumActiveSessions).sum();
+    }
+
+    @ManagedAttribute(description = "Sessions idle in the pool")
+    public int getIdleSessions() {
+        return snapshot().stream().mapToInt(ConnectionPool::getNumIdleSessions).sum();
+    }
+
+    @ManagedAttribute(description = "Share of the session capacity of the open connections in use")
+    public double getSessionUtilization() {
+        long capacity = (long) getNumConnections() * getMaximumActiveSessionPerConnection();
+        return capacity == 0 ? 0 : (double) getActiveSessions() / capacity;
+    }
+
+    private List<ConnectionPool> snapshot() {
+        synchronized (connectionPools) {
+            return new ArrayList<>(connectionPools);
+        }
+    }
+}
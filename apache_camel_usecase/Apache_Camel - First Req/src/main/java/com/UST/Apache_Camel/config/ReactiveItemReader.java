@@ -0,0 +1,138 @@
+package com.UST.Apache_Camel.config;
+
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.reactivestreams.client.FindPublisher;
+import com.mongodb.reactivestreams.client.MongoClient;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import org.apache.camel.AsyncCallback;
+import org.apache.camel.AsyncProcessor;
+import org.apache.camel.Exchange;
+import org.apache.camel.support.AsyncProcessorSupport;
+import org.bson.Document;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+// Non-blocking MongoDB reads for the item and category page routes (app.mongo.reactiveReads.enabled)
+// Each read is an asynchronous Camel processor on the reactive-streams driver: it sends the query and returns, and the
+// route continues on the driver's I/O thread once the documents arrived, so no thread waits for MongoDB; with the
+// servlet in async mode (see CamelServletConfig) the Tomcat request thread is released as well
+// The results are the same bodies as the blocking reads: the item Document (or null) of findById, and the category
+// page of GetItemsByCategoryProcessor
+@Component
+public class ReactiveItemReader {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveItemReader.class);
+
+    @Autowired
+    private ObjectProvider<MongoClient> reactiveMongoClient;
+
+    // Reads the item with the ID in the body, like the mongodb findById endpoint; the body becomes the item or null
+    // Only the fields of the request's projection are read (see ItemProjection)
+    public AsyncProcessor findItemById() {
+        return new AsyncProcessorSupport() {
+            @Override
+            public boolean process(Exchange exchange, AsyncCallback callback) {
+                String itemId = exchange.getIn().getBody(String.class);
+                FindPublisher<Document> query = itemCollection().find(Filters.eq("_id", itemId));
+                List<String> fields = ItemProjection.fields(exchange);
+                if (fields != null) {
+                    query = query.projection(Projections.include(fields));
+                }
+                collect(query.first(), exchange, callback, items -> {
+                    exchange.getIn().setBody(items.isEmpty() ? null : items.get(0));
+                    logger.debug("Read item {} reactively, found: {}", itemId, !items.isEmpty());
+                });
+                return false;
+            }
+        };
+    }
+
+    // Reads one keyset page of category items, like GetItemsByCategoryProcessor.readPage
+    public AsyncProcessor readCategoryPage() {
+        return new AsyncProcessorSupport() {
+            @Override
+            public boolean process(Exchange exchange, AsyncCallback callback) {
+                String categoryId = exchange.getIn().getHeader("categoryId", String.class);
+                String after = exchange.getIn().getHeader("after", String.class);
+                int limit = InventoryUpdateComponents.GetItemsByCategoryProcessor.pageLimit(exchange);
+                collect(itemCollection()
+                                .find(InventoryUpdateComponents.GetItemsByCategoryProcessor.itemsFilter(exchange, categoryId, after))
+                                .projection(ItemProjection.projection(exchange,
+                                        InventoryUpdateComponents.GetItemsByCategoryProcessor.ITEM_PROJECTION))
+                                .sort(InventoryUpdateComponents.GetItemsByCategoryProcessor.ITEM_SORT)
+                                .limit(limit + 1),
+                        exchange, callback,
+                        documents -> InventoryUpdateComponents.GetItemsByCategoryProcessor.setPage(exchange, categoryId, documents, limit));
+                return false;
+            }
+        };
+    }
+
+    private MongoCollection<Document> itemCollection() {
+        return reactiveMongoClient.getObject()
+                .getDatabase(ApplicationConstants.MONGO_DATABASE)
+                .getCollection(ApplicationConstants.MONGO_ITEM_READ_COLLECTION);
+    }
+
+    // Subscribes to the query and hands all its documents to onResult, then continues the exchange; a failed query
+    // (or onResult) sets the exception on the exchange for the route's error handling
+    private static void collect(Publisher<Document> query, Exchange exchange, AsyncCallback callback,
+                                Consumer<List<Document>> onResult) {
+        query.subscribe(new CollectingSubscriber((documents, failure) -> {
+            try {
+                if (failure != null) {
+                    exchange.setException(failure);
+                } else {
+                    onResult.accept(documents);
+                }
+            } catch (RuntimeException e) {
+                exchange.setException(e);
+            } finally {
+                callback.done(false);
+            }
+        }));
+    }
+
+    // Requests every document at once (the queries are limited) and reports them, or the failure, when the query ends
+    private static final class CollectingSubscriber implements Subscriber<Document> {
+
+        private final List<Document> documents = new ArrayList<>();
+        private final BiConsumer<List<Document>, Throwable> onComplete;
+
+        CollectingSubscriber(BiConsumer<List<Document>, Throwable> onComplete) {
+            this.onComplete = onComplete;
+        }
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(Document document) {
+            documents.add(document);
+        }
+
+        @Override
+        public void onError(Throwable failure) {
+            onComplete.accept(documents, failure);
+        }
+
+        @Override
+        public void onComplete() {
+            onComplete.accept(documents, null);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.UST.Apache_Camel.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.coyote.ProtocolHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+@Configuration
+public class RestThreadConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(RestThreadConfig.class);
+
+    @Value("${app.rest.threads.mode:" + ApplicationConstants.REST_THREADS_MODE_PLATFORM + "}")
+    private String threadsMode;
+
+    @Value("${app.rest.virtualThreads.maxConcurrentRequests:1000}")
+    private int maxConcurrentRequests;
+
+    // Selects the threads the REST routes run on: the servlet consumer runs every route body (findById, save,
+    // category queries, the inventory update split) on the Tomcat request thread, so with slow MongoDB calls the
+    // request pool (server.tomcat.threads.max) fills up and further requests wait for a thread
+    // In virtual mode (app.rest.threads.mode=virtual) Tomcat runs every request on a new virtual thread instead, and a
+    // request blocked on MongoDB parks its virtual thread rather than holding a platform thread
+    // The mode is throttled: at most app.rest.virtualThreads.maxConcurrentRequests requests run at once and the others
+    // wait for a permit, parked, in arrival order; MongoDB still sees at most the driver pool size (maxPoolSize) of
+    // concurrent operations, the permits bound how many requests queue in the driver for a connection
+    // Virtual threads need JDK 21 or later: on an older runtime the setting is logged and Tomcat keeps its platform
+    // thread pool. Open connections are limited separately, in either mode, by server.tomcat.max-connections
+    @Bean
+    public TomcatProtocolHandlerCustomizer<ProtocolHandler> restThreadsCustomizer(MeterRegistry meterRegistry) {
+        return protocolHandler -> {
+            if (!ApplicationConstants.REST_THREADS_MODE_VIRTUAL.equals(threadsMode)) {
+                logger.info("REST requests run on the Tomcat thread pool");
+                return;
+            }
+            ExecutorService virtualThreads = newVirtualThreadPerTaskExecutor();
+            if (virtualThreads == null) {
+                logger.warn("app.rest.threads.mode=virtual needs JDK 21 or later (running on {}); "
+                        + "REST requests run on the Tomcat thread pool", Runtime.version());
+                return;
+            }
+            Semaphore permits = new Semaphore(maxConcurrentRequests, true);
+            Gauge.builder("rest.requests.waiting", permits, Semaphore::getQueueLength)
+                    .description("REST requests waiting for one of app.rest.virtualThreads.maxConcurrentRequests")
+                    .register(meterRegistry);
+            protocolHandler.setExecutor(throttled(virtualThreads, permits));
+            logger.info("REST requests run on virtual threads, at most {} at once", maxConcurrentRequests);
+        };
+    }
+
+    // Runs every task on its own thread of the executor, once it holds one of the permits; tasks over the permits park
+    // their thread until a running task finishes, in arrival order when the semaphore is fair
+    static Executor throttled(ExecutorService threads, Semaphore permits) {
+        return task -> threads.execute(() -> {
+            permits.acquireUninterruptibly();
+            try {
+                task.run();
+            } finally {
+                permits.release();
+            }
+        });
+    }
+
+    // Executors.newVirtualThreadPerTaskExecutor() of JDK 21, looked up at runtime as the service is built for JDK 17;
+    // null when the running JDK has no virtual threads
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,310 @@
+package com.UST.Apache_Camel.config;
+
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoWriteException;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Accumulators;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.result.UpdateResult;
+import org.apache.camel.Exchange;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Reviews of the items, kept out of the item documents in fixed-size buckets of the item_review collection
+// Bucket n of an item, {_id: "<itemId>:<n>", itemId, bucket: n, count, ratingSum, reviews: [{reviewId, rating, comment,
+// createdAt}]}, holds up to bucketSize reviews in append order, so an append writes one small bucket and the item itself
+// only carries the ratingCount / ratingAvg rollup; stock updates no longer read or rewrite reviews
+// An append first pushes the review into the item's last bucket and then recomputes the rollup from the bucket counts
+// and rating sums. The push is idempotent on the reviewId, so a client retrying a failed append (with the reviewId of
+// its first attempt) neither stores the review twice nor loses it, and the retry repairs a rollup the failure left behind
+@Component
+@ManagedResource(objectName = "com.UST.Apache_Camel:type=ReviewStore", description = "Bucketed item reviews with rating rollups")
+public class ReviewStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReviewStore.class);
+
+    // Bucket pushes an append may need when other appends keep filling up the last bucket first; every lost race means
+    // another append stored its review, so this only bounds a loop that stopped making progress
+    static final int MAX_PUSH_ATTEMPTS = 100;
+
+    @Autowired
+    private MongoClient mongoClient;
+
+    @Autowired
+    private ItemCache itemCache;
+
+    @Autowired
+    private CategoryCatalog categoryCatalog;
+
+    @Value("${app.review.bucketSize:50}")
+    private int bucketSize;
+
+    private MongoCollection<Document> itemCollection;
+    private MongoCollection<Document> reviewCollection;
+
+    private final AtomicLong appendCount = new AtomicLong();
+    private final AtomicLong migratedItemCount = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        itemCollection = mongoClient.getDatabase(ApplicationConstants.MONGO_DATABASE)
+                .getCollection(ApplicationConstants.MONGO_ITEM_WRITE_COLLECTION);
+        reviewCollection = mongoClient.getDatabase(ApplicationConstants.MONGO_DATABASE)
+                .getCollection(ApplicationConstants.MONGO_REVIEW_WRITE_COLLECTION);
+        logger.info("Review store bucketSize: {}", bucketSize);
+    }
+
+    // Appends the review in the body ({rating, comment, reviewId}) to the item of the itemId header
+    // reviewId is optional; without it a new one is generated, so only a client that sends one can retry safely
+    // Sets a 201 response with the reviewId and the item's new ratingCount and ratingAvg (200 if the review was already
+    // stored by an earlier attempt), or a 404 when the item does not exist
+    // Throws IllegalArgumentException for a rating outside 1..5
+    public void append(Exchange exchange) {
+        String itemId = exchange.getIn().getHeader("itemId", String.class);
+        Map<String, Object> review = exchange.getIn().getBody(Map.class);
+        Object rating = review == null ? null : review.get("rating");
+        if (!(rating instanceof Number) || ((Number) rating).intValue() < 1 || ((Number) rating).intValue() > 5) {
+            throw new IllegalArgumentException("Review rating must be a number from 1 to 5");
+        }
+        if (itemCollection.find(Filters.eq("_id", itemId)).projection(Projections.include("_id")).first() == null) {
+            exchange.getIn().setHeader(Exchange.HTTP_RESPONSE_CODE, 404);
+            exchange.getIn().setBody(Map.of("message", ApplicationConstants.ERROR_ITEM_NOT_FOUND));
+            logger.warn("Review for unknown item: {}", itemId);
+            return;
+        }
+        Object requestedId = review.get("reviewId");
+        String reviewId = requestedId instanceof String && !((String) requestedId).isBlank()
+                ? (String) requestedId : UUID.randomUUID().toString();
+        Document entry = new Document("reviewId", reviewId)
+                .append("rating", ((Number) rating).intValue())
+                .append("comment", review.get("comment"))
+                .append("createdAt", LocalDateTime.now().toString());
+
+        boolean added = reviewCollection.find(Filters.and(Filters.eq("itemId", itemId), Filters.eq("reviews.reviewId", reviewId)))
+                .projection(Projections.include("_id")).first() == null;
+        if (added) {
+            pushReview(itemId, entry, lastBucket(itemId));
+            appendCount.incrementAndGet();
+        }
+        Document rollup = updateRollup(itemId);
+        itemCache.invalidate(itemId);
+        categoryCatalog.refreshItem(itemId);
+
+        exchange.getIn().setHeader(Exchange.HTTP_RESPONSE_CODE, added ? 201 : 200);
+        exchange.getIn().setBody(Map.of(
+                "message", added ? "Review added successfully" : "Review already added",
+                "reviewId", reviewId,
+                "ratingCount", rollup.getInteger("ratingCount"),
+                "ratingAvg", rollup.get("ratingAvg")));
+        logger.debug("{} review {} for item {}", added ? "Added" : "Already had", reviewId, itemId);
+    }
+
+    // Reads one bucket of reviews of the item in the itemId header, oldest first: after is the nextAfter of the
+    // previous page (a bucket number), and nextAfter is null on the last page
+    // The query is served by the {itemId, bucket} index
+    public void readPage(Exchange exchange) {
+        String itemId = exchange.getIn().getHeader("itemId", String.class);
+        int after = -1;
+        String afterHeader = exchange.getIn().getHeader("after", String.class);
+        if (afterHeader != null && !afterHeader.isBlank()) {
+            try {
+                after = Integer.parseInt(afterHeader.trim());
+            } catch (NumberFormatException e) {
+                logger.warn("Ignoring invalid after '{}', reading the first page of reviews", afterHeader);
+            }
+        }
+
+        List<Document> buckets = reviewCollection
+                .find(Filters.and(Filters.eq("itemId", itemId), Filters.gt("bucket", after)))
+                .projection(Projections.include("bucket", "reviews"))
+                .sort(Sorts.ascending("bucket"))
+                .limit(2)
+                .into(new ArrayList<>());
+        Document page = buckets.isEmpty() ? null : buckets.get(0);
+        exchange.getIn().setHeader(Exchange.HTTP_RESPONSE_CODE, 200);
+        exchange.getIn().setBody(new Document("itemId", itemId)
+                .append("reviews", page == null ? List.of() : page.get("reviews"))
+                .append("nextAfter", buckets.size() > 1 ? page.get("bucket") : null));
+        logger.debug("Read review page after {} for item {}", after, itemId);
+    }
+
+    // Moves the reviews still embedded in an item (the former review array) into its buckets, recomputes the rollup and
+    // then removes the array; does nothing for an item without the array
+    // The embedded reviews get the reviewIds <itemId>:legacy:<position>, so a migration interrupted before the array
+    // was removed can simply be run again without storing any review twice
+    // Used for newly inserted items and by migrateEmbeddedReviews
+    public boolean migrateItem(String itemId) {
+        Document item = itemCollection.find(Filters.and(Filters.eq("_id", itemId), Filters.exists("review")))
+                .projection(Projections.include("review"))
+                .first();
+        if (item == null) {
+            return false;
+        }
+        List<Document> reviews = item.getList("review", Document.class, List.of());
+        Set<String> stored = storedReviewIds(itemId);
+        int bucket = lastBucket(itemId);
+        for (int i = 0; i < reviews.size(); i++) {
+            String reviewId = itemId + ":legacy:" + i;
+            if (!stored.contains(reviewId)) {
+                Document entry = new Document("reviewId", reviewId);
+                reviews.get(i).forEach((field, value) -> entry.putIfAbsent(field, value));
+                bucket = pushReview(itemId, entry, bucket);
+            }
+        }
+        updateRollup(itemId);
+        itemCollection.updateOne(Filters.eq("_id", itemId), Updates.unset("review"));
+        itemCache.invalidate(itemId);
+        categoryCatalog.refreshItem(itemId);
+        logger.debug("Moved {} embedded reviews of item {} into review buckets", reviews.size(), itemId);
+        return true;
+    }
+
+    // Moves the reviews a new item was posted with (validatedItem of the post item route) into its buckets
+    public void migrateInsertedItem(Exchange exchange) {
+        Map<String, Object> item = exchange.getProperty("validatedItem", Map.class);
+        if (item != null && item.get("review") != null) {
+            migrateItem(String.valueOf(item.get("_id")));
+        }
+    }
+
+    @ManagedOperation(description = "Move reviews still embedded in item documents into review buckets; returns the items migrated")
+    public long migrateEmbeddedReviews() {
+        long migrated = 0;
+        try (MongoCursor<Document> cursor = itemCollection.find(Filters.exists("review"))
+                .projection(Projections.include("_id")).iterator()) {
+            while (cursor.hasNext()) {
+                if (migrateItem(String.valueOf(cursor.next().get("_id")))) {
+                    migrated++;
+                }
+            }
+        }
+        migratedItemCount.addAndGet(migrated);
+        logger.info("Moved the embedded reviews of {} items into review buckets", migrated);
+        return migrated;
+    }
+
+    // Pushes one review into bucket, or the first bucket after it with room, and returns the bucket it went into
+    // The push only matches a bucket that is not full and does not hold the reviewId yet; a full or missing bucket is
+    // followed by an insert of the next one, and an insert that finds it already created by a concurrent append moves on
+    // to the item's last bucket. Throws IllegalStateException after MAX_PUSH_ATTEMPTS lost races
+    // The reviewId guard covers the bucket pushed into, so two attempts with one reviewId that run at the same time
+    // and land in different buckets would both be stored; retries after a failed response do not overlap like that
+    private int pushReview(String itemId, Document entry, int bucket) {
+        for (int attempt = 0; attempt < MAX_PUSH_ATTEMPTS; attempt++) {
+            if (bucket >= 0) {
+                UpdateResult result = reviewCollection.updateOne(
+                        Filters.and(
+                                Filters.eq("_id", bucketId(itemId, bucket)),
+                                Filters.lt("count", bucketSize),
+                                Filters.ne("reviews.reviewId", entry.getString("reviewId"))),
+                        Updates.combine(
+                                Updates.push("reviews", entry),
+                                Updates.inc("count", 1),
+                                Updates.inc("ratingSum", entry.getInteger("rating"))));
+                if (result.getMatchedCount() == 1) {
+                    return bucket;
+                }
+            }
+            int next = bucket + 1;
+            try {
+                reviewCollection.insertOne(new Document("_id", bucketId(itemId, next))
+                        .append("itemId", itemId)
+                        .append("bucket", next)
+                        .append("count", 1)
+                        .append("ratingSum", entry.getInteger("rating"))
+                        .append("reviews", List.of(entry)));
+                return next;
+            } catch (MongoWriteException e) {
+                if (e.getError().getCategory() != ErrorCategory.DUPLICATE_KEY) {
+                    throw e;
+                }
+            }
+            bucket = Math.max(next, lastBucket(itemId));
+        }
+        throw new IllegalStateException("Could not store review " + entry.getString("reviewId") + " of item " + itemId
+                + " after " + MAX_PUSH_ATTEMPTS + " attempts");
+    }
+
+    // Sets ratingCount / ratingAvg of the item from the counts and rating sums of all its buckets and returns them
+    // Counts only grow, so the update is skipped when the item already has a higher count, written by a concurrent
+    // append that read more reviews; an equal count means the same reviews and rewrites the same rollup
+    private Document updateRollup(String itemId) {
+        Document totals = reviewCollection.aggregate(List.of(
+                        Aggregates.match(Filters.eq("itemId", itemId)),
+                        Aggregates.group(null, Accumulators.sum("count", "$count"), Accumulators.sum("ratingSum", "$ratingSum"))))
+                .first();
+        int count = totals != null ? totals.getInteger("count") : 0;
+        double average = count > 0 ? ((Number) totals.get("ratingSum")).doubleValue() / count : 0.0;
+        Document item = itemCollection.findOneAndUpdate(
+                Filters.and(Filters.eq("_id", itemId),
+                        Filters.or(Filters.exists("ratingCount", false), Filters.lte("ratingCount", count))),
+                Updates.combine(Updates.set("ratingCount", count), Updates.set("ratingAvg", average), Updates.inc("version", 1)),
+                new FindOneAndUpdateOptions()
+                        .projection(Projections.include("ratingCount", "ratingAvg"))
+                        .returnDocument(ReturnDocument.AFTER));
+        return item != null ? item : itemCollection.find(Filters.eq("_id", itemId))
+                .projection(Projections.include("ratingCount", "ratingAvg")).first();
+    }
+
+    // Highest bucket number of the item, -1 when it has none
+    private int lastBucket(String itemId) {
+        Document last = reviewCollection.find(Filters.eq("itemId", itemId))
+                .projection(Projections.include("bucket"))
+                .sort(Sorts.descending("bucket"))
+                .first();
+        return last != null ? last.getInteger("bucket") : -1;
+    }
+
+    private Set<String> storedReviewIds(String itemId) {
+        Set<String> reviewIds = new HashSet<>();
+        reviewCollection.find(Filters.eq("itemId", itemId))
+                .projection(Projections.include("reviews.reviewId"))
+                .forEach(bucket -> bucket.getList("reviews", Document.class, List.of())
+                        .forEach(review -> reviewIds.add(review.getString("reviewId"))));
+        return reviewIds;
+    }
+
+    private static String bucketId(String itemId, int bucket) {
+        return itemId + ":" + bucket;
+    }
+
+    @ManagedAttribute(description = "Reviews per bucket")
+    public int getBucketSize() {
+        return bucketSize;
+    }
+
+    @ManagedAttribute(description = "Reviews appended since startup")
+    public long getAppendCount() {
+        return appendCount.get();
+    }
+
+    @ManagedAttribute(description = "Items whose embedded reviews were moved into buckets by migrateEmbeddedReviews")
+    public long getMigratedItemCount() {
+        return migratedItemCount.get();
+    }
+}
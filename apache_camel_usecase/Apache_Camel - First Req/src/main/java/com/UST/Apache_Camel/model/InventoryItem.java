@@ -9,6 +9,7 @@ public class InventoryItem {
 
     private String id;  // Changed to `id` for consistency
     private StockDetails stockDetails;
+    private String validationError;  // Set when the line failed validation while the payload was read
 
     // Getters and Setters
 
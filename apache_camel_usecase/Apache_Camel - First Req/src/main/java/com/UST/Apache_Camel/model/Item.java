@@ -3,7 +3,6 @@ package com.UST.Apache_Camel.model;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
 import java.time.LocalDateTime;
-import java.util.List;
 
 @Document(collection = "item")
 public class Item {
@@ -16,7 +15,9 @@ public class Item {
     private ItemPrice itemPrice;
     private StockDetails stockDetails;
     private boolean specialProduct;
-    private List<Review> review;
+    // Rollup of the item's reviews, which are kept in the item_review buckets
+    private int ratingCount;
+    private double ratingAvg;
 
     // Getters and Setters
 
@@ -76,11 +77,19 @@ public class Item {
         this.specialProduct = specialProduct;
     }
 
-    public List<Review> getReview() {
-        return review;
+    public int getRatingCount() {
+        return ratingCount;
     }
 
-    public void setReview(List<Review> review) {
-        this.review = review;
+    public void setRatingCount(int ratingCount) {
+        this.ratingCount = ratingCount;
+    }
+
+    public double getRatingAvg() {
+        return ratingAvg;
+    }
+
+    public void setRatingAvg(double ratingAvg) {
+        this.ratingAvg = ratingAvg;
     }
 }
\ No newline at end of file
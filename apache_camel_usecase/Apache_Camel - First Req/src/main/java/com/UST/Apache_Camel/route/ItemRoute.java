@@ -1,12 +1,29 @@
 package com.UST.Apache_Camel.route;
 
 import com.UST.Apache_Camel.config.ApplicationConstants;
+import com.UST.Apache_Camel.config.CategoryCatalog;
+import com.UST.Apache_Camel.config.CategoryIndex;
+import com.UST.Apache_Camel.config.InventoryChunkProducer;
+import com.UST.Apache_Camel.config.InventoryMetrics;
+import com.UST.Apache_Camel.config.InventoryStreamingResponse;
 import com.UST.Apache_Camel.config.InventoryUpdateComponents;
+import com.UST.Apache_Camel.config.ItemCache;
+import com.UST.Apache_Camel.config.ItemProjection;
+import com.UST.Apache_Camel.config.ReactiveItemReader;
+import com.UST.Apache_Camel.config.ReviewStore;
 import com.UST.Apache_Camel.exception.InventoryValidationException;
+import com.mongodb.client.model.Projections;
+import org.apache.camel.Exchange;
 import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.builder.ThreadPoolProfileBuilder;
+import org.apache.camel.component.mongodb.MongoDbConstants;
+import org.apache.camel.model.ChoiceDefinition;
+import org.apache.camel.model.RouteDefinition;
+import org.apache.camel.model.dataformat.JsonLibrary;
 import org.apache.camel.model.dataformat.JsonDataFormat;
 import org.apache.camel.model.rest.RestBindingMode;
 import org.apache.camel.model.rest.RestParamType;
+import org.apache.camel.util.concurrent.ThreadPoolRejectedPolicy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,12 +31,38 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import java.util.concurrent.ExecutorService;
+
 @Component
 public class ItemRoute extends RouteBuilder {
 
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private ItemCache itemCache;
+
+    @Autowired
+    private CategoryIndex categoryIndex;
+
+    @Autowired
+    private CategoryCatalog categoryCatalog;
+
+    @Autowired
+    private InventoryChunkProducer inventoryChunkProducer;
+
+    @Autowired
+    private InventoryMetrics inventoryMetrics;
+
+    @Autowired
+    private InventoryStreamingResponse inventoryStreamingResponse;
+
+    @Autowired
+    private ReactiveItemReader reactiveItemReader;
+
+    @Autowired
+    private ReviewStore reviewStore;
+
     private static final Logger logger = LoggerFactory.getLogger(ItemRoute.class);
 
     @Value("${app.error.itemNotFound:Item not found}")
@@ -28,6 +71,36 @@ public class ItemRoute extends RouteBuilder {
     @Value("${app.error.categoryNotFound:Category not found}")
     private String categoryNotFoundMessage;
 
+    @Value("${app.inventory.updateMode:" + ApplicationConstants.INVENTORY_UPDATE_MODE_ATOMIC + "}")
+    private String inventoryUpdateMode;
+
+    @Value("${app.inventory.bulkChunkSize:500}")
+    private int bulkChunkSize;
+
+    @Value("${app.inventory.enqueueMode:" + ApplicationConstants.ENQUEUE_MODE_CHUNKED + "}")
+    private String enqueueMode;
+
+    @Value("${app.inventory.parallelSplit.enabled:false}")
+    private boolean parallelSplitEnabled;
+
+    @Value("${app.inventory.parallelSplit.threads:8}")
+    private int parallelSplitThreads;
+
+    @Value("${app.inventory.parallelSplit.maxQueueSize:1000}")
+    private int parallelSplitMaxQueueSize;
+
+    @Value("${app.mongo.reactiveReads.enabled:false}")
+    private boolean reactiveReadsEnabled;
+
+    @Value("${app.category.items.defaultPageLimit:100}")
+    private int defaultPageLimit;
+
+    @Value("${app.category.items.maxPageLimit:1000}")
+    private int maxPageLimit;
+
+    @Value("${app.category.index.refreshIntervalMs:60000}")
+    private long categoryIndexRefreshIntervalMs;
+
     // Configures Camel routes for the Item Service, handling REST endpoints for item and category management,
     // synchronous inventory updates, and asynchronous inventory updates via ActiveMQ
     // Sets up REST configuration with JSON binding and defines routes for:
@@ -51,20 +124,52 @@ public class ItemRoute extends RouteBuilder {
                 .dataFormatProperty("json.in.disableFeatures", "FAIL_ON_UNKNOWN_PROPERTIES");
 
         // Item management routes
-        // GET /camel/mycart/item/{itemId}: Retrieves an item by ID from MongoDB
+        // GET /camel/mycart/item/{itemId}?view={view}&fields={fields}: Retrieves an item by ID from MongoDB, optionally
+        // only the fields of a view and/or the listed fields (see ItemProjection)
         // DELETE /camel/mycart/item/{itemId}: Deletes an item by ID after verifying its existence
         rest("/mycart/item/{itemId}")
-                .get().to(ApplicationConstants.DIRECT_PREFIX + ApplicationConstants.ENDPOINT_GET_ITEM_BY_ID)
+                .get()
+                .param()
+                .name("view")
+                .type(RestParamType.query)
+                .description("Compact view of the items: summary or availability")
+                .dataType("string")
+                .endParam()
+                .param()
+                .name("fields")
+                .type(RestParamType.query)
+                .description("Comma-separated item fields to return, e.g. itemName,itemPrice.sellingPrice")
+                .dataType("string")
+                .endParam()
+                .to(ApplicationConstants.DIRECT_PREFIX + ApplicationConstants.ENDPOINT_GET_ITEM_BY_ID)
                 .delete().to(ApplicationConstants.DIRECT_PREFIX + ApplicationConstants.ENDPOINT_DELETE_ITEM);
 
         // Route for retrieving an item by ID
         // Uses GetItemProcessor to set the item ID and process the MongoDB result
-        from(ApplicationConstants.DIRECT_PREFIX + ApplicationConstants.ENDPOINT_GET_ITEM_BY_ID)
+        // Reads through ItemCache: hits (including cached not-found results) skip the MongoDB findById
+        // With app.mongo.reactiveReads.enabled the findById is a non-blocking read (see ReactiveItemReader)
+        // A projected read (view or fields) reads only those fields from MongoDB, or projects a cached item in memory
+        ChoiceDefinition itemCacheMiss = from(ApplicationConstants.DIRECT_PREFIX + ApplicationConstants.ENDPOINT_GET_ITEM_BY_ID)
                 .routeId(ApplicationConstants.ROUTE_GET_ITEM_BY_ID)
                 .log("Fetching item with ID: ${header.itemId}")
+                .bean(ItemProjection.class, "resolve")
                 .bean(InventoryUpdateComponents.GetItemProcessor.class, "setItemId")
-                .to(String.format(ApplicationConstants.MONGO_ITEM_FIND_BY_ID,
-                        ApplicationConstants.MONGO_DATABASE, ApplicationConstants.MONGO_ITEM_READ_COLLECTION))
+                .bean(itemCache, "lookup")
+                .choice()
+                .when(exchangeProperty("itemCacheHit").isEqualTo(false));
+        if (reactiveReadsEnabled) {
+            itemCacheMiss.process(reactiveItemReader.findItemById());
+        } else {
+            itemCacheMiss
+                    .setHeader(MongoDbConstants.FIELDS_PROJECTION, method(ItemProjection.class, "findByIdProjection"))
+                    .to(String.format(ApplicationConstants.MONGO_ITEM_FIND_BY_ID,
+                    ApplicationConstants.MONGO_DATABASE, ApplicationConstants.MONGO_ITEM_READ_COLLECTION));
+        }
+        itemCacheMiss
+                .bean(itemCache, "store")
+                .otherwise()
+                .bean(ItemProjection.class, "projectBody")
+                .end()
                 .bean(InventoryUpdateComponents.GetItemProcessor.class, "processResult");
 
         // Route for deleting an item by ID
@@ -79,14 +184,19 @@ public class ItemRoute extends RouteBuilder {
                 .when(body().isNull())
                 .bean(InventoryUpdateComponents.DeleteItemProcessor.class, "handleItemNotFound")
                 .otherwise()
+                .setProperty("deletedItem", body())
                 .to(String.format(ApplicationConstants.MONGO_ITEM_DELETE,
                         ApplicationConstants.MONGO_DATABASE, ApplicationConstants.MONGO_ITEM_WRITE_COLLECTION))
+                .bean(itemCache, "invalidate(${header.itemId})")
+                .bean(categoryCatalog, "itemDeleted(${exchangeProperty.deletedItem})")
                 .bean(InventoryUpdateComponents.DeleteItemProcessor.class, "handleDeleteSuccess")
                 .end();
 
         // Route for listing items by category
-        // GET /camel/mycart/items/{categoryId}?includeSpecial={boolean}: Retrieves items for a category,
-        // optionally including special products, using MongoDB aggregation
+        // GET /camel/mycart/items/{categoryId}?includeSpecial={boolean}&limit={n}&after={itemId}: Retrieves one page of items
+        // for a category, optionally including special products; pass the returned nextAfter as after for the next page
+        // GET /camel/mycart/items/{categoryId}/stream?includeSpecial={boolean}: Streams all items of the category as NDJSON
+        // Both also take the view and fields parameters of the get item route to return only some item fields
         rest("/mycart/items/{categoryId}")
                 .get()
                 .param()
@@ -96,17 +206,116 @@ public class ItemRoute extends RouteBuilder {
                 .dataType("boolean")
                 .defaultValue("false")
                 .endParam()
-                .to(ApplicationConstants.DIRECT_PREFIX + ApplicationConstants.ENDPOINT_GET_ITEMS_BY_CATEGORY);
+                .param()
+                .name("limit")
+                .type(RestParamType.query)
+                .description("Maximum number of items in the page")
+                .dataType("integer")
+                .endParam()
+                .param()
+                .name("after")
+                .type(RestParamType.query)
+                .description("Return items with an ID after this one (nextAfter of the previous page)")
+                .dataType("string")
+                .endParam()
+                .param()
+                .name("view")
+                .type(RestParamType.query)
+                .description("Compact view of the items: summary or availability")
+                .dataType("string")
+                .endParam()
+                .param()
+                .name("fields")
+                .type(RestParamType.query)
+                .description("Comma-separated item fields to return, e.g. itemName,itemPrice.sellingPrice")
+                .dataType("string")
+                .endParam()
+                .to(ApplicationConstants.DIRECT_PREFIX + ApplicationConstants.ENDPOINT_GET_ITEMS_BY_CATEGORY)
+                .get("/stream")
+                .bindingMode(RestBindingMode.off)
+                .produces("application/x-ndjson")
+                .param()
+                .name("includeSpecial")
+                .type(RestParamType.query)
+                .description("Include special items")
+                .dataType("boolean")
+                .defaultValue("false")
+                .endParam()
+                .param()
+                .name("view")
+                .type(RestParamType.query)
+                .description("Compact view of the items: summary or availability")
+                .dataType("string")
+                .endParam()
+                .param()
+                .name("fields")
+                .type(RestParamType.query)
+                .description("Comma-separated item fields to return, e.g. itemName,itemPrice.sellingPrice")
+                .dataType("string")
+                .endParam()
+                .to(ApplicationConstants.DIRECT_PREFIX + ApplicationConstants.ENDPOINT_STREAM_ITEMS_BY_CATEGORY);
 
         // Processes the category items request
-        // Builds an aggregation pipeline and processes the MongoDB results using GetItemsByCategoryProcessor
-        from(ApplicationConstants.DIRECT_PREFIX + ApplicationConstants.ENDPOINT_GET_ITEMS_BY_CATEGORY)
+        // Reads one keyset page of items using GetItemsByCategoryProcessor and adds category details from the CategoryIndex
+        // With app.mongo.reactiveReads.enabled the page is a non-blocking read (see ReactiveItemReader)
+        // With app.category.catalog.enabled the page is read from the materialized category catalog (see CategoryCatalog),
+        // or with GetItemsByCategoryProcessor when the category's segment has overflowed
+        RouteDefinition categoryItems = from(ApplicationConstants.DIRECT_PREFIX + ApplicationConstants.ENDPOINT_GET_ITEMS_BY_CATEGORY)
                 .routeId(ApplicationConstants.ROUTE_GET_ITEMS_BY_CATEGORY)
-                .bean(InventoryUpdateComponents.GetItemsByCategoryProcessor.class, "buildAggregationPipeline")
-                .to(String.format(ApplicationConstants.MONGO_ITEM_AGGREGATE,
-                        ApplicationConstants.MONGO_DATABASE, ApplicationConstants.MONGO_ITEM_READ_COLLECTION))
+                .bean(ItemProjection.class, "resolve")
+                .setProperty("defaultPageLimit", constant(defaultPageLimit))
+                .setProperty("maxPageLimit", constant(maxPageLimit));
+        if (categoryCatalog.isEnabled()) {
+            categoryItems
+                    .bean(categoryCatalog, "readPage")
+                    .choice()
+                    .when(exchangeProperty(CategoryCatalog.OVERFLOW_PROPERTY).isEqualTo(true))
+                    .bean(InventoryUpdateComponents.GetItemsByCategoryProcessor.class, "readPage")
+                    .end();
+        } else if (reactiveReadsEnabled) {
+            categoryItems.process(reactiveItemReader.readCategoryPage());
+        } else {
+            categoryItems.bean(InventoryUpdateComponents.GetItemsByCategoryProcessor.class, "readPage");
+        }
+        categoryItems
+                .bean(categoryIndex, "enrichCategoryDetails")
                 .bean(InventoryUpdateComponents.GetItemsByCategoryProcessor.class, "processResult");
 
+        // Streams the category items as NDJSON straight from the MongoDB cursor, written to the client in chunks
+        from(ApplicationConstants.DIRECT_PREFIX + ApplicationConstants.ENDPOINT_STREAM_ITEMS_BY_CATEGORY)
+                .routeId(ApplicationConstants.ROUTE_STREAM_ITEMS_BY_CATEGORY)
+                .bean(ItemProjection.class, "resolve")
+                .bean(InventoryUpdateComponents.GetItemsByCategoryProcessor.class, "streamItems");
+
+        // Item review routes
+        // POST /camel/mycart/item/{itemId}/review: Adds a review ({rating, comment, reviewId}) and updates the item's rating
+        // rollup; a retry with the same reviewId does not add the review twice
+        // GET /camel/mycart/item/{itemId}/review?after={bucket}: Retrieves one page (bucket) of the item's reviews, oldest
+        // first; pass the returned nextAfter as after for the next page
+        rest("/mycart/item/{itemId}/review")
+                .post()
+                .consumes("application/json")
+                .to(ApplicationConstants.DIRECT_PREFIX + ApplicationConstants.ENDPOINT_POST_ITEM_REVIEW)
+                .get()
+                .param()
+                .name("after")
+                .type(RestParamType.query)
+                .description("Return the reviews after this page (nextAfter of the previous page)")
+                .dataType("integer")
+                .endParam()
+                .to(ApplicationConstants.DIRECT_PREFIX + ApplicationConstants.ENDPOINT_GET_ITEM_REVIEWS);
+
+        // Appends a review to its bucket (see ReviewStore); the item cache entry goes as the item's rollup changed
+        from(ApplicationConstants.DIRECT_PREFIX + ApplicationConstants.ENDPOINT_POST_ITEM_REVIEW)
+                .routeId(ApplicationConstants.ROUTE_POST_ITEM_REVIEW)
+                .log("Adding review for item ${header.itemId}")
+                .bean(reviewStore, "append");
+
+        // Reads one bucket of reviews, served by the {itemId, bucket} index
+        from(ApplicationConstants.DIRECT_PREFIX + ApplicationConstants.ENDPOINT_GET_ITEM_REVIEWS)
+                .routeId(ApplicationConstants.ROUTE_GET_ITEM_REVIEWS)
+                .bean(reviewStore, "readPage");
+
         // Route for creating a new item
         // POST /camel/mycart: Creates a new item after validating it and checking category existence
         rest("/mycart")
@@ -115,7 +324,7 @@ public class ItemRoute extends RouteBuilder {
                 .to(ApplicationConstants.DIRECT_PREFIX + ApplicationConstants.ENDPOINT_POST_NEW_ITEM);
 
         // Validates and inserts a new item
-        // Checks for existing items, validates the category, and inserts into MongoDB
+        // Checks for existing items, validates the category against the CategoryIndex, and inserts into MongoDB
         from(ApplicationConstants.DIRECT_PREFIX + ApplicationConstants.ENDPOINT_POST_NEW_ITEM)
                 .routeId(ApplicationConstants.ROUTE_POST_NEW_ITEM)
                 .log("Received new item: ${body}")
@@ -127,8 +336,7 @@ public class ItemRoute extends RouteBuilder {
                 .bean(InventoryUpdateComponents.PostNewItemProcessor.class, "handleExistingItem")
                 .otherwise()
                 .bean(InventoryUpdateComponents.PostNewItemProcessor.class, "setCategoryId")
-                .to(String.format(ApplicationConstants.MONGO_CATEGORY_FIND_BY_ID,
-                        ApplicationConstants.MONGO_DATABASE, ApplicationConstants.MONGO_CATEGORY_READ_COLLECTION))
+                .bean(categoryIndex, "lookup")
                 .choice()
                 .when(body().isNull())
                 .bean(InventoryUpdateComponents.PostNewItemProcessor.class, "handleInvalidCategory")
@@ -136,6 +344,9 @@ public class ItemRoute extends RouteBuilder {
                 .bean(InventoryUpdateComponents.PostNewItemProcessor.class, "prepareItemForInsert")
                 .to(String.format(ApplicationConstants.MONGO_ITEM_INSERT,
                         ApplicationConstants.MONGO_DATABASE, ApplicationConstants.MONGO_ITEM_WRITE_COLLECTION))
+                .bean(categoryCatalog, "itemInserted(${exchangeProperty.validatedItem})")
+                .bean(reviewStore, "migrateInsertedItem")
+                .bean(itemCache, "invalidate(${exchangeProperty.validatedItem[_id]})")
                 .bean(InventoryUpdateComponents.PostNewItemProcessor.class, "handleInsertSuccess")
                 .endChoice()
                 .endChoice();
@@ -164,6 +375,7 @@ public class ItemRoute extends RouteBuilder {
                 .bean(InventoryUpdateComponents.PostNewCategoryProcessor.class, "prepareCategoryForInsert")
                 .to(String.format(ApplicationConstants.MONGO_CATEGORY_INSERT,
                         ApplicationConstants.MONGO_DATABASE, ApplicationConstants.MONGO_CATEGORY_WRITE_COLLECTION))
+                .bean(categoryIndex, "put")
                 .bean(InventoryUpdateComponents.PostNewCategoryProcessor.class, "handleInsertSuccess")
                 .otherwise()
                 .bean(InventoryUpdateComponents.PostNewCategoryProcessor.class, "handleExistingCategory");
@@ -182,80 +394,205 @@ public class ItemRoute extends RouteBuilder {
                 .otherwise()
                 .to(String.format(ApplicationConstants.MONGO_CATEGORY_DELETE,
                         ApplicationConstants.MONGO_DATABASE, ApplicationConstants.MONGO_CATEGORY_WRITE_COLLECTION))
+                .bean(categoryIndex, "remove")
                 .bean(InventoryUpdateComponents.DeleteCategoryProcessor.class, "handleDeleteSuccess")
                 .end();
 
+        // Category index refresh
+        // Periodically applies category changes made by other instances or directly in MongoDB to the CategoryIndex;
+        // the category routes above update it immediately for their own writes
+        from(String.format(ApplicationConstants.TIMER_CATEGORY_INDEX_REFRESH,
+                categoryIndexRefreshIntervalMs, categoryIndexRefreshIntervalMs))
+                .routeId(ApplicationConstants.ROUTE_CATEGORY_INDEX_REFRESH)
+                .bean(categoryIndex, "refresh");
+
         // Synchronous inventory update route
         // POST /camel/inventory/update: Updates item stock details synchronously and returns results
+        // Binding is off so PayloadValidationProcessor streams the request body instead of receiving it as a parsed Map;
+        // the response is marshalled to JSON by the route
+        // With Accept: application/x-ndjson the results are instead streamed one line per item as they complete,
+        // followed by a trailer line with the overall status (see InventoryStreamingResponse)
         rest("/inventory/update")
                 .post()
+                .bindingMode(RestBindingMode.off)
                 .consumes("application/json")
-                .produces("application/json")
+                .produces("application/json,application/x-ndjson")
                 .to(ApplicationConstants.DIRECT_PREFIX + ApplicationConstants.ENDPOINT_PROCESS_INVENTORY_UPDATE);
 
         // Orchestrates synchronous inventory update
         // Handles exceptions and finalizes the response using ErrorResponseProcessor and FinalResponseProcessor
+        // A streamed response has no body left to marshal once FinalResponseProcessor wrote its trailer
         from(ApplicationConstants.DIRECT_PREFIX + ApplicationConstants.ENDPOINT_PROCESS_INVENTORY_UPDATE)
                 .routeId(ApplicationConstants.ROUTE_PROCESS_INVENTORY_UPDATE)
                 .errorHandler(noErrorHandler())
+                .bean(inventoryStreamingResponse, "open")
                 .doTry()
                 .to(ApplicationConstants.DIRECT_PREFIX + ApplicationConstants.ENDPOINT_UPDATE_INVENTORY)
                 .doCatch(Exception.class)
                 .bean(InventoryUpdateComponents.ErrorResponseProcessor.class)
                 .doFinally()
                 .bean(InventoryUpdateComponents.FinalResponseProcessor.class)
+                .end()
+                .filter(body().isNotNull())
+                .marshal().json(JsonLibrary.Jackson)
+                .setHeader(Exchange.CONTENT_TYPE, constant("application/json"))
                 .end();
 
         // Processes synchronous inventory updates
         // Splits the item list, validates and updates each item in MongoDB, and aggregates results
-        from(ApplicationConstants.DIRECT_PREFIX + ApplicationConstants.ENDPOINT_UPDATE_INVENTORY)
-                .routeId(ApplicationConstants.ROUTE_UPDATE_INVENTORY)
-                .bean(InventoryUpdateComponents.PayloadValidationProcessor.class)
-                .split(simple("${exchangeProperty.inventoryList}"))
-                .aggregationStrategy(new InventoryUpdateComponents.ItemAggregationStrategy())
-                .streaming()
-                .doTry()
-                .bean(InventoryUpdateComponents.ItemProcessor.class, "processItem")
-                .bean(InventoryUpdateComponents.ItemProcessor.class, "setItemId")
-                .to(String.format(ApplicationConstants.MONGO_ITEM_FIND_BY_ID,
-                        ApplicationConstants.MONGO_DATABASE, ApplicationConstants.MONGO_ITEM_READ_COLLECTION))
-                .bean(InventoryUpdateComponents.ItemProcessor.class, "validateAndUpdateItem")
-                .to(String.format(ApplicationConstants.MONGO_ITEM_SAVE,
-                        ApplicationConstants.MONGO_DATABASE, ApplicationConstants.MONGO_ITEM_WRITE_COLLECTION))
-                .bean(InventoryUpdateComponents.ItemProcessor.class, "markSuccess")
-                .doCatch(InventoryValidationException.class)
-                .bean(InventoryUpdateComponents.ItemProcessor.class, "markFailure")
-                .end()
-                .log("Completed processing item ${exchangeProperty.itemId}, itemResult: ${exchangeProperty.itemResult}")
-                .end()
-                .log("Split completed, itemResults: ${exchangeProperty.itemResults}");
+        // In atomic mode (app.inventory.updateMode=atomic) each item is updated with a single conditional findOneAndUpdate,
+        // otherwise the item is read with findById, updated in memory and written back with save
+        // In bulk mode (app.inventory.updateMode=bulk) all items are loaded with one $in query and written with unordered
+        // bulkWrites of app.inventory.bulkChunkSize items; the per-item results are then split back through ItemAggregationStrategy
+        // With app.inventory.parallelSplit.enabled the items are updated in parallel on a dedicated pool of
+        // app.inventory.parallelSplit.threads threads: lines are grouped by _id and each group runs its lines one after
+        // another, so updates of the same item keep their submission order; results are collected (or streamed) in request
+        // order. A full pool queue (app.inventory.parallelSplit.maxQueueSize) makes the request thread run the group itself
+        boolean atomicUpdateMode = ApplicationConstants.INVENTORY_UPDATE_MODE_ATOMIC.equals(inventoryUpdateMode);
+        logger.info("Inventory update mode: {}", inventoryUpdateMode);
+        if (ApplicationConstants.INVENTORY_UPDATE_MODE_BULK.equals(inventoryUpdateMode)) {
+            from(ApplicationConstants.DIRECT_PREFIX + ApplicationConstants.ENDPOINT_UPDATE_INVENTORY)
+                    .routeId(ApplicationConstants.ROUTE_UPDATE_INVENTORY)
+                    .bean(InventoryUpdateComponents.PayloadValidationProcessor.class)
+                    .setProperty("bulkChunkSize", constant(bulkChunkSize))
+                    .bean(InventoryUpdateComponents.BulkInventoryUpdateProcessor.class, "applyBulkUpdate")
+                    .bean(categoryCatalog, "refreshUpdatedItems")
+                    .split(simple("${exchangeProperty.bulkItemResults}"))
+                    .aggregationStrategy(new InventoryUpdateComponents.ItemAggregationStrategy())
+                    .bean(InventoryUpdateComponents.BulkInventoryUpdateProcessor.class, "setItemResult")
+                    .bean(inventoryMetrics, "recordItemResult")
+                    .bean(itemCache, "invalidate(${exchangeProperty.itemId})")
+                    .end()
+                    .log("Bulk update completed for ${exchangeProperty.inventoryList.size} items");
+        } else if (parallelSplitEnabled) {
+            ExecutorService inventorySplitExecutor = getContext().getExecutorServiceManager().newThreadPool(this, "InventorySplit",
+                    new ThreadPoolProfileBuilder("inventorySplit")
+                            .poolSize(parallelSplitThreads)
+                            .maxPoolSize(parallelSplitThreads)
+                            .maxQueueSize(parallelSplitMaxQueueSize)
+                            .rejectedPolicy(ThreadPoolRejectedPolicy.CallerRuns)
+                            .build());
+            logger.info("Parallel inventory split: {} threads, queue of {}", parallelSplitThreads, parallelSplitMaxQueueSize);
+            from(ApplicationConstants.DIRECT_PREFIX + ApplicationConstants.ENDPOINT_UPDATE_INVENTORY)
+                    .routeId(ApplicationConstants.ROUTE_UPDATE_INVENTORY)
+                    .bean(InventoryUpdateComponents.PayloadValidationProcessor.class)
+                    .bean(InventoryUpdateComponents.ItemProcessor.class, "groupLinesByItem")
+                    .split(simple("${exchangeProperty.inventoryGroups}"))
+                    .parallelProcessing()
+                    .executorService(inventorySplitExecutor)
+                    .split(body())
+                    .aggregationStrategy(new InventoryUpdateComponents.ItemAggregationStrategy())
+                    .bean(InventoryUpdateComponents.ItemProcessor.class, "selectLine")
+                    .to(ApplicationConstants.DIRECT_PREFIX + ApplicationConstants.ENDPOINT_UPDATE_INVENTORY_ITEM)
+                    .end()
+                    .end()
+                    .bean(InventoryUpdateComponents.ItemProcessor.class, "collectItemResults")
+                    .log("Parallel split completed for ${exchangeProperty.inventoryList.size} items");
+        } else {
+            from(ApplicationConstants.DIRECT_PREFIX + ApplicationConstants.ENDPOINT_UPDATE_INVENTORY)
+                    .routeId(ApplicationConstants.ROUTE_UPDATE_INVENTORY)
+                    .bean(InventoryUpdateComponents.PayloadValidationProcessor.class)
+                    .split(simple("${exchangeProperty.inventoryList}"))
+                    .aggregationStrategy(new InventoryUpdateComponents.ItemAggregationStrategy())
+                    .streaming()
+                    .to(ApplicationConstants.DIRECT_PREFIX + ApplicationConstants.ENDPOINT_UPDATE_INVENTORY_ITEM)
+                    .end()
+                    .log("Split completed for ${exchangeProperty.inventoryList.size} items");
+        }
+
+        // Validates and updates one item of a synchronous inventory update (the split body) and sets its itemResult
+        if (!ApplicationConstants.INVENTORY_UPDATE_MODE_BULK.equals(inventoryUpdateMode)) {
+            from(ApplicationConstants.DIRECT_PREFIX + ApplicationConstants.ENDPOINT_UPDATE_INVENTORY_ITEM)
+                    .routeId(ApplicationConstants.ROUTE_UPDATE_INVENTORY_ITEM)
+                    .doTry()
+                    .bean(InventoryUpdateComponents.ItemProcessor.class, "processItem")
+                    .choice()
+                    .when(exchange -> atomicUpdateMode)
+                    .bean(InventoryUpdateComponents.ItemProcessor.class, "applyAtomicUpdate")
+                    .otherwise()
+                    .bean(InventoryUpdateComponents.ItemProcessor.class, "setItemId")
+                    .setHeader(MongoDbConstants.FIELDS_PROJECTION, constant(Projections.include("stockDetails")))
+                    .to(String.format(ApplicationConstants.MONGO_ITEM_FIND_BY_ID,
+                            ApplicationConstants.MONGO_DATABASE, ApplicationConstants.MONGO_ITEM_READ_COLLECTION))
+                    .removeHeader(MongoDbConstants.FIELDS_PROJECTION)
+                    .bean(InventoryUpdateComponents.ItemProcessor.class, "validateAndUpdateItem")
+                    .bean(InventoryUpdateComponents.ItemProcessor.class, "saveStockDetails")
+                    .end()
+                    .bean(InventoryUpdateComponents.ItemProcessor.class, "markSuccess")
+                    .bean(categoryCatalog, "refreshItem(${exchangeProperty.itemId})")
+                    .endDoTry()
+                    .doCatch(InventoryValidationException.class)
+                    .bean(InventoryUpdateComponents.ItemProcessor.class, "markFailure")
+                    .end()
+                    .bean(inventoryMetrics, "recordItemResult")
+                    .bean(itemCache, "invalidate(${exchangeProperty.itemId})")
+                    .log("Completed processing item ${exchangeProperty.itemId}, itemResult: ${exchangeProperty.itemResult}");
+        }
 
         // Asynchronous inventory update route
         // POST /camel/inventory/async-update: Enqueues item updates to ActiveMQ and returns a correlation ID
+        // GET /camel/inventory/async-update/{correlationId}: Returns the progress of an enqueued update
+        // The POST has binding off, like /inventory/update, and marshals its response in the route
         rest("/inventory/async-update")
                 .post()
+                .bindingMode(RestBindingMode.off)
                 .consumes("application/json")
                 .produces("application/json")
-                .to(ApplicationConstants.DIRECT_PREFIX + ApplicationConstants.ENDPOINT_ASYNC_INVENTORY_UPDATE);
+                .to(ApplicationConstants.DIRECT_PREFIX + ApplicationConstants.ENDPOINT_ASYNC_INVENTORY_UPDATE)
+                .get("/{correlationId}")
+                .produces("application/json")
+                .to(ApplicationConstants.DIRECT_PREFIX + ApplicationConstants.ENDPOINT_GET_ASYNC_UPDATE_STATUS);
 
         // Processes asynchronous inventory updates
-        // Validates the payload, generates a correlation ID, splits items, and sends them to ActiveMQ in parallel
-        // Uses parallelProcessing to handle each item concurrently, improving performance for large item lists
+        // Validates the payload, generates a correlation ID and sends the items to ActiveMQ
+        // In chunked enqueue mode (app.inventory.enqueueMode=chunked, the default) the items are sent as JSON arrays of
+        // app.inventory.enqueueChunkSize items in a single JMS transaction; the queue processor unpacks them per item
+        // In per-item mode every item is sent as its own message, using parallelProcessing to send them concurrently
+        boolean chunkedEnqueue = ApplicationConstants.ENQUEUE_MODE_CHUNKED.equals(enqueueMode);
         from(ApplicationConstants.DIRECT_PREFIX + ApplicationConstants.ENDPOINT_ASYNC_INVENTORY_UPDATE)
                 .routeId(ApplicationConstants.ROUTE_ASYNC_INVENTORY_UPDATE)
                 .onException(Exception.class)
                 .handled(true)
                 .bean(InventoryUpdateComponents.AsyncInventoryUpdateProcessor.class, "handleException")
+                .marshal().json(JsonLibrary.Jackson)
+                .setHeader(Exchange.CONTENT_TYPE, constant("application/json"))
                 .end()
                 .bean(InventoryUpdateComponents.PayloadValidationProcessor.class)
                 .bean(InventoryUpdateComponents.AsyncInventoryUpdateProcessor.class, "initializeCorrelationId")
+                .bean(InventoryUpdateComponents.AsyncInventoryUpdateProcessor.class, "createCorrelationStatus")
+                .choice()
+                .when(exchange -> chunkedEnqueue)
+                .bean(inventoryChunkProducer, "sendChunks")
+                .otherwise()
                 .split(simple("${exchangeProperty.inventoryList}"))
                 .parallelProcessing() // Enables parallel processing for split items
                 .bean(InventoryUpdateComponents.AsyncInventoryUpdateProcessor.class, "prepareQueueMessage")
                 .log("Sending item to ActiveMQ queue: ${header.JMSCorrelationID}")
                 .to(String.format(ApplicationConstants.AMQ_INVENTORY_UPDATE_WRITE ,
                         ApplicationConstants.AMQ_INVENTORY_UPDATE_WRITE_QUEUE))
+                .bean(inventoryMetrics, "recordEnqueued(1, 1)")
+                .end()
                 .end()
-                .bean(InventoryUpdateComponents.AsyncInventoryUpdateProcessor.class, "buildEnqueueResponse");
+                .bean(InventoryUpdateComponents.AsyncInventoryUpdateProcessor.class, "buildEnqueueResponse")
+                .marshal().json(JsonLibrary.Jackson)
+                .setHeader(Exchange.CONTENT_TYPE, constant("application/json"));
+
+        // Reads the correlation summary document, kept up to date by the queue processor with $inc as each item finishes,
+        // so a status request is a single findById instead of an aggregation over inventory_audit
+        from(ApplicationConstants.DIRECT_PREFIX + ApplicationConstants.ENDPOINT_GET_ASYNC_UPDATE_STATUS)
+                .routeId(ApplicationConstants.ROUTE_GET_ASYNC_UPDATE_STATUS)
+                .setBody(header("correlationId"))
+                .to(String.format(ApplicationConstants.MONGO_CORRELATION_STATUS_FIND_BY_ID,
+                        ApplicationConstants.MONGO_DATABASE, ApplicationConstants.MONGO_CORRELATION_STATUS_READ_COLLECTION))
+                .bean(InventoryUpdateComponents.AsyncInventoryUpdateProcessor.class, "buildStatusResponse");
+
+        // Item cache invalidation
+        // The inventory queue processor publishes the IDs of items it updated (JSON array) on a topic,
+        // so every item service instance drops them from its ItemCache
+        from(String.format(ApplicationConstants.AMQ_ITEM_CACHE_INVALIDATE_READ,
+                ApplicationConstants.AMQ_ITEM_CACHE_INVALIDATE_TOPIC))
+                .routeId(ApplicationConstants.ROUTE_ITEM_CACHE_INVALIDATION)
+                .unmarshal().json(JsonLibrary.Jackson, java.util.List.class)
+                .bean(itemCache, "invalidateAll");
     }
 }
\ No newline at end of file
@@ -0,0 +1,106 @@
+package com.UST.Apache_Camel.config;
+
+import com.UST.Apache_Camel.model.InventoryItem;
+import com.UST.Apache_Camel.model.StockDetails;
+import com.UST.Apache_Camel.shared.MongoTestSupport;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import org.apache.camel.Exchange;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// AsyncInventoryUpdateProcessor: the correlation summary created on enqueue, the status response built from it and
+// the per-item queue message
+class AsyncInventoryUpdateProcessorTest extends MongoTestSupport {
+
+    private final InventoryUpdateComponents.AsyncInventoryUpdateProcessor processor =
+            new InventoryUpdateComponents.AsyncInventoryUpdateProcessor();
+
+    @Test
+    void createsTheSummaryWithZeroCounts() {
+        processor.createCorrelationStatus(enqueue("corr-1", 3));
+
+        Document status = statuses().find(Filters.eq("_id", "corr-1")).first();
+        assertThat(status.getInteger("total")).isEqualTo(3);
+        assertThat(status.getInteger("succeeded")).isZero();
+        assertThat(status.getInteger("failed")).isZero();
+    }
+
+    @Test
+    void keepsCountsOfItemsFinishedBeforeTheSummaryWasCreated() {
+        statuses().insertOne(new Document("_id", "corr-1").append("succeeded", 1).append("failed", 1));
+
+        processor.createCorrelationStatus(enqueue("corr-1", 3));
+
+        Document status = statuses().find(Filters.eq("_id", "corr-1")).first();
+        assertThat(status.getInteger("total")).isEqualTo(3);
+        assertThat(status.getInteger("succeeded")).isEqualTo(1);
+        assertThat(status.getInteger("failed")).isEqualTo(1);
+    }
+
+    @Test
+    void reportsPendingItemsUntilAllAreCounted() {
+        Map<String, Object> inProgress = statusResponse(Map.of("total", 3, "succeeded", 1, "failed", 1));
+        Map<String, Object> completed = statusResponse(Map.of("total", 3, "succeeded", 2, "failed", 1));
+
+        assertThat(inProgress).containsEntry("status", "in-progress").containsEntry("pending", 1);
+        assertThat(completed).containsEntry("status", "completed").containsEntry("pending", 0);
+    }
+
+    @Test
+    void answersNotFoundForAnUnknownCorrelationId() {
+        Exchange exchange = exchange();
+        exchange.getIn().setHeader("correlationId", "unknown");
+        exchange.getIn().setBody(null);
+        processor.buildStatusResponse(exchange);
+
+        assertThat(exchange.getIn().getHeader(Exchange.HTTP_RESPONSE_CODE)).isEqualTo(404);
+    }
+
+    @Test
+    void sendsTheItemInItsQueueWireFormWithTheCorrelationId() {
+        Exchange exchange = queueMessage("item-1");
+
+        assertThat(exchange.getIn().getHeader("JMSCorrelationID")).isEqualTo("corr-1");
+        assertThat(exchange.getIn().getBody(Map.class)).containsEntry("_id", "item-1")
+                .containsEntry("stockDetails", Map.of("soldOut", 1, "damaged", 0));
+    }
+
+    private Exchange queueMessage(String itemId) {
+        StockDetails stockDetails = new StockDetails();
+        stockDetails.setSoldOut(1);
+        InventoryItem item = new InventoryItem();
+        item.setId(itemId);
+        item.setStockDetails(stockDetails);
+        Exchange exchange = exchange();
+        exchange.setProperty("correlationId", "corr-1");
+        exchange.getIn().setBody(item);
+        processor.prepareQueueMessage(exchange);
+        return exchange;
+    }
+
+    private static Exchange enqueue(String correlationId, int items) {
+        Exchange exchange = exchange();
+        exchange.setProperty("correlationId", correlationId);
+        exchange.setProperty("inventoryList", Collections.nCopies(items, Map.of()));
+        return exchange;
+    }
+
+    private Map<String, Object> statusResponse(Map<String, Object> summary) {
+        Exchange exchange = exchange();
+        exchange.getIn().setHeader("correlationId", "corr-1");
+        exchange.getIn().setBody(summary);
+        processor.buildStatusResponse(exchange);
+        assertThat(exchange.getIn().getHeader(Exchange.HTTP_RESPONSE_CODE)).isEqualTo(200);
+        return exchange.getIn().getBody(Map.class);
+    }
+
+    private static MongoCollection<Document> statuses() {
+        return collection(ApplicationConstants.MONGO_CORRELATION_STATUS_WRITE_COLLECTION);
+    }
+}
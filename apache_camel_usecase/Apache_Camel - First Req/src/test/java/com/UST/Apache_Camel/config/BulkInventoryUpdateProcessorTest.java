@@ -0,0 +1,64 @@
+package com.UST.Apache_Camel.config;
+
+import com.UST.Apache_Camel.shared.MongoTestSupport;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import org.apache.camel.Exchange;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// BulkInventoryUpdateProcessor (app.inventory.updateMode=bulk): request lines validated and reported per line; the
+// compare-and-set write and its conflict handling are covered by BulkStockWriterTest in the shared module
+class BulkInventoryUpdateProcessorTest extends MongoTestSupport {
+
+    private final InventoryUpdateComponents.BulkInventoryUpdateProcessor processor =
+            new InventoryUpdateComponents.BulkInventoryUpdateProcessor();
+
+    @Test
+    void appliesLinesInRequestOrderAndReportsEachLine() {
+        items().insertOne(item("item-1", "cat-1", 10));
+        items().insertOne(item("item-2", "cat-1", 1));
+
+        Exchange exchange = exchange();
+        exchange.setProperty("inventoryList", List.of(
+                line("item-1", 3, 1),
+                line("item-2", 2, 0),
+                line("item-1", 5, 0),
+                line("item-1", 2, 0),
+                line("missing", 1, 0),
+                Map.of("_id", "item-1")));
+        exchange.setProperty("bulkChunkSize", 1);
+        processor.applyBulkUpdate(exchange);
+
+        List<Map<String, Object>> results = exchange.getProperty("bulkItemResults", List.class);
+        assertThat(results).extracting(result -> result.get("status"))
+                .containsExactly("success", "error", "success", "error", "error", "error");
+        assertThat(results.get(1).get("message")).isEqualTo("Requested quantity exceeds available stock for item ID: item-2");
+        assertThat(results.get(3).get("message")).isEqualTo("Requested quantity exceeds available stock for item ID: item-1");
+        assertThat(results.get(4).get("message")).isEqualTo("Item not found for ID: missing");
+        assertThat(stock("item-1").getInteger("availableStock")).isEqualTo(1);
+        assertThat(stock("item-1").getInteger("soldOut")).isEqualTo(8);
+        assertThat(stock("item-1").getInteger("damaged")).isEqualTo(1);
+        assertThat(stock("item-2").getInteger("availableStock")).isEqualTo(1);
+        assertThat(items().find(Filters.eq("_id", "item-1")).first())
+                .containsEntry("version", 1)
+                .doesNotContainKey("stockWriteId");
+    }
+
+    private static Map<String, Object> line(String itemId, int soldOut, int damaged) {
+        return Map.of("_id", itemId, "stockDetails", Map.of("soldOut", soldOut, "damaged", damaged));
+    }
+
+    private static MongoCollection<Document> items() {
+        return collection(ApplicationConstants.MONGO_ITEM_WRITE_COLLECTION);
+    }
+
+    private static Document stock(String itemId) {
+        return items().find(Filters.eq("_id", itemId)).first().get("stockDetails", Document.class);
+    }
+}
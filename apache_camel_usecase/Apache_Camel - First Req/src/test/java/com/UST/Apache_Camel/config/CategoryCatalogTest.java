@@ -0,0 +1,211 @@
+package com.UST.Apache_Camel.config;
+
+import com.UST.Apache_Camel.shared.MongoTestSupport;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Updates;
+import org.apache.camel.Exchange;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// CategoryCatalog (app.category.catalog.enabled): segment pages, the entry updates of the write paths and rebuild
+class CategoryCatalogTest extends MongoTestSupport {
+
+    private CategoryCatalog catalog;
+
+    @BeforeEach
+    void createCatalog() {
+        catalog = new CategoryCatalog();
+        ReflectionTestUtils.setField(catalog, "mongoClient", mongoClient);
+        ReflectionTestUtils.setField(catalog, "enabled", true);
+        ReflectionTestUtils.setField(catalog, "maxItemsPerSegment", 3);
+        catalog.init();
+    }
+
+    @Test
+    void pagesThroughASegmentAndMergesTheSpecialOneOnRequest() {
+        for (String itemId : List.of("item-c", "item-a", "item-b")) {
+            catalog.itemInserted(versioned(item(itemId, "cat-1", 10)));
+        }
+        catalog.itemInserted(versioned(item("item-ab", "cat-1", 10).append("specialProduct", true)));
+
+        Document first = readPage("cat-1", null, "2", false);
+        Document last = readPage("cat-1", first.getString("nextAfter"), "2", false);
+        Exchange withSpecial = exchange("cat-1", null, null);
+        withSpecial.getIn().setHeader("includeSpecial", "true");
+        catalog.readPage(withSpecial);
+
+        assertThat(itemIds(first)).containsExactly("item-a", "item-b");
+        assertThat(itemIds(last)).containsExactly("item-c");
+        assertThat(last.getString("nextAfter")).isNull();
+        assertThat(itemIds(page(withSpecial))).containsExactly("item-a", "item-ab", "item-b", "item-c");
+        assertThat(first.getList("items", Document.class).get(0)).doesNotContainKey("version")
+                .containsEntry("itemName", "Item item-a");
+        assertThat(catalog.getCatalogPageCount()).isEqualTo(3);
+    }
+
+    @Test
+    void pagesThroughStringAndObjectIdItemsInBsonOrder() {
+        ObjectId regularId = new ObjectId("650000000000000000000001");
+        ObjectId specialId = new ObjectId("650000000000000000000002");
+        catalog.itemInserted(versioned(item("item-a", "cat-1", 10)));
+        catalog.itemInserted(versioned(item("unused", "cat-1", 10)).append("_id", regularId));
+        catalog.itemInserted(versioned(item("item-b", "cat-1", 10)));
+        catalog.itemInserted(versioned(item("unused", "cat-1", 10)).append("_id", specialId).append("specialProduct", true));
+        catalog.itemInserted(versioned(item("item-c", "cat-1", 10)).append("specialProduct", true));
+
+        Document first = readPage("cat-1", null, "2", true);
+        Document second = readPage("cat-1", first.getString("nextAfter"), "2", true);
+        Document last = readPage("cat-1", second.getString("nextAfter"), "2", true);
+
+        assertThat(itemIds(first)).containsExactly("item-a", "item-b");
+        assertThat(itemIds(second)).containsExactly("item-c", regularId);
+        assertThat(second.getString("nextAfter")).isEqualTo("oid:" + regularId.toHexString());
+        assertThat(itemIds(last)).containsExactly(specialId);
+        assertThat(last.getString("nextAfter")).isNull();
+    }
+
+    @Test
+    void leavesTheOverflowedSegmentToTheItemQuery() {
+        for (int i = 0; i < 4; i++) {
+            catalog.itemInserted(versioned(item("item-" + i, "cat-1", 10)));
+        }
+
+        Exchange exchange = exchange("cat-1", null, null);
+        catalog.readPage(exchange);
+
+        assertThat(exchange.getProperty(CategoryCatalog.OVERFLOW_PROPERTY, Boolean.class)).isTrue();
+        assertThat(exchange.getIn().getBody()).isNull();
+        assertThat(catalog.getFallbackPageCount()).isEqualTo(1);
+        assertThat(segment("cat-1:regular")).doesNotContainKey("items").containsEntry("overflow", true);
+    }
+
+    @Test
+    void removesDeletedItems() {
+        catalog.itemInserted(versioned(item("item-1", "cat-1", 10)));
+        catalog.itemInserted(versioned(item("item-2", "cat-1", 10)));
+
+        catalog.itemDeleted(item("item-1", "cat-1", 10));
+
+        assertThat(entryIds("cat-1:regular")).containsExactly("item-2");
+        assertThat(segment("cat-1:regular").getInteger("count")).isEqualTo(1);
+    }
+
+    @Test
+    void refreshesEntriesWithTheCurrentStateWhateverChanged() {
+        items().insertOne(versioned(item("item-1", "cat-1", 10)));
+        catalog.itemInserted(items().find().first());
+
+        items().updateOne(Filters.eq("_id", "item-1"), Updates.combine(
+                Updates.set("stockDetails.availableStock", 25), Updates.set("ratingCount", 0), Updates.inc("version", 1)));
+        catalog.refreshItem("item-1");
+
+        Document entry = segment("cat-1:regular").getList("items", Document.class).get(0);
+        assertThat(entry.get("stockDetails", Document.class).getInteger("availableStock")).isEqualTo(25);
+        assertThat(entry.getInteger("version")).isEqualTo(1);
+        assertThat(catalog.getRefreshedItemCount()).isEqualTo(1);
+    }
+
+    @Test
+    void doesNotReplaceAnEntryWithAnOlderVersion() {
+        items().insertOne(versioned(item("item-1", "cat-1", 10)).append("version", 3));
+        catalog.itemInserted(item("item-1", "cat-1", 4).append("version", 5));
+
+        catalog.refreshItem("item-1");
+
+        Document entry = segment("cat-1:regular").getList("items", Document.class).get(0);
+        assertThat(entry.getInteger("version")).isEqualTo(5);
+        assertThat(entry.get("stockDetails", Document.class).getInteger("availableStock")).isEqualTo(4);
+    }
+
+    @Test
+    void refreshesOnlyTheSuccessfullyUpdatedItemsOfABulkUpdate() {
+        items().insertOne(versioned(item("item-1", "cat-1", 10)));
+        items().insertOne(versioned(item("item-2", "cat-1", 10)));
+        catalog.itemInserted(items().find(Filters.eq("_id", "item-1")).first());
+        catalog.itemInserted(items().find(Filters.eq("_id", "item-2")).first());
+        items().updateMany(Filters.exists("_id"), Updates.combine(
+                Updates.set("stockDetails.availableStock", 7), Updates.inc("version", 1)));
+
+        Exchange exchange = exchange();
+        exchange.setProperty("bulkItemResults", List.of(
+                Map.of("itemId", "item-1", "status", "success"),
+                Map.of("itemId", "item-2", "status", "error")));
+        catalog.refreshUpdatedItems(exchange);
+
+        List<Document> entries = segment("cat-1:regular").getList("items", Document.class);
+        assertThat(entries.get(0).get("stockDetails", Document.class).getInteger("availableStock")).isEqualTo(7);
+        assertThat(entries.get(1).get("stockDetails", Document.class).getInteger("availableStock")).isEqualTo(10);
+    }
+
+    // An overflowing segment is not covered: the MongoDB stand-in does not support $$REMOVE
+    @Test
+    void rebuildsTheSegmentsFromTheItems() {
+        items().insertOne(versioned(item("item-b", "cat-1", 10)));
+        items().insertOne(versioned(item("item-a", "cat-1", 10)).append("version", 2));
+        items().insertOne(versioned(item("item-c", "cat-1", 10)).append("specialProduct", true));
+
+        catalog.rebuild();
+
+        assertThat(entryIds("cat-1:regular")).containsExactly("item-a", "item-b");
+        assertThat(segment("cat-1:regular").getList("items", Document.class).get(0).getInteger("version")).isEqualTo(2);
+        assertThat(entryIds("cat-1:special")).containsExactly("item-c");
+        assertThat(segment("cat-1:regular")).containsEntry("overflow", false).containsEntry("count", 2);
+        assertThat(catalog.getLastRebuildTime()).isPositive();
+    }
+
+    private Document readPage(String categoryId, String after, String limit, boolean includeSpecial) {
+        Exchange exchange = exchange(categoryId, after, limit);
+        exchange.getIn().setHeader("includeSpecial", String.valueOf(includeSpecial));
+        catalog.readPage(exchange);
+        return page(exchange);
+    }
+
+    private static Exchange exchange(String categoryId, String after, String limit) {
+        Exchange exchange = exchange();
+        exchange.getIn().setHeader("categoryId", categoryId);
+        exchange.getIn().setHeader("after", after);
+        exchange.getIn().setHeader("limit", limit);
+        return exchange;
+    }
+
+    private static Document page(Exchange exchange) {
+        List<Document> body = exchange.getIn().getBody(List.class);
+        assertThat(body).hasSize(1);
+        return body.get(0);
+    }
+
+    private static List<Object> itemIds(Document page) {
+        List<Object> itemIds = new ArrayList<>();
+        page.getList("items", Document.class).forEach(item -> itemIds.add(item.get("id")));
+        return itemIds;
+    }
+
+    private static List<Object> entryIds(String segmentId) {
+        List<Object> entryIds = new ArrayList<>();
+        segment(segmentId).getList("items", Document.class).forEach(entry -> entryIds.add(entry.get("_id")));
+        return entryIds;
+    }
+
+    // An item as POST /camel/mycart stores it
+    private static Document versioned(Document item) {
+        return item.append("version", 0);
+    }
+
+    private static Document segment(String segmentId) {
+        return collection(ApplicationConstants.MONGO_CATEGORY_CATALOG_WRITE_COLLECTION).find(Filters.eq("_id", segmentId)).first();
+    }
+
+    private static MongoCollection<Document> items() {
+        return collection(ApplicationConstants.MONGO_ITEM_WRITE_COLLECTION);
+    }
+}
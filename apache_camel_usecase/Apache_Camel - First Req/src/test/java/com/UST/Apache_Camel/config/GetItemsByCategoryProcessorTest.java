@@ -0,0 +1,148 @@
+package com.UST.Apache_Camel.config;
+
+import com.UST.Apache_Camel.shared.MongoTestSupport;
+import com.mongodb.client.MongoCollection;
+import org.apache.camel.Exchange;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// GetItemsByCategoryProcessor.readPage: keyset pages on _id (limit and after headers, nextAfter in the body)
+class GetItemsByCategoryProcessorTest extends MongoTestSupport {
+
+    private final InventoryUpdateComponents.GetItemsByCategoryProcessor processor =
+            new InventoryUpdateComponents.GetItemsByCategoryProcessor();
+
+    @Test
+    void pagesThroughTheCategoryInIdOrder() {
+        for (String itemId : List.of("item-e", "item-b", "item-d", "item-a", "item-c")) {
+            items().insertOne(item(itemId, "cat-1", 10));
+        }
+        items().insertOne(item("other", "cat-2", 10));
+
+        Document first = readPage("cat-1", null, "2");
+        Document second = readPage("cat-1", first.getString("nextAfter"), "2");
+        Document last = readPage("cat-1", second.getString("nextAfter"), "2");
+
+        assertThat(itemIds(first)).containsExactly("item-a", "item-b");
+        assertThat(first.getString("nextAfter")).isEqualTo("item-b");
+        assertThat(itemIds(second)).containsExactly("item-c", "item-d");
+        assertThat(itemIds(last)).containsExactly("item-e");
+        assertThat(last.getString("nextAfter")).isNull();
+        assertThat(first.getString("_id")).isEqualTo("cat-1");
+    }
+
+    @Test
+    void leavesOutSpecialProductsUnlessIncluded() {
+        items().insertOne(item("item-a", "cat-1", 10));
+        items().insertOne(item("item-b", "cat-1", 10).append("specialProduct", true));
+
+        assertThat(itemIds(readPage("cat-1", null, null))).containsExactly("item-a");
+
+        Exchange exchange = exchange("cat-1", null, null);
+        exchange.getIn().setHeader("includeSpecial", "true");
+        processor.readPage(exchange);
+        assertThat(itemIds(page(exchange))).containsExactly("item-a", "item-b");
+    }
+
+    @Test
+    void pagesThroughItemsWithObjectIdIds() {
+        List<ObjectId> ids = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            ObjectId id = new ObjectId();
+            ids.add(id);
+            items().insertOne(item("unused", "cat-1", 10).append("_id", id));
+        }
+
+        Document first = readPage("cat-1", null, "2");
+        Document second = readPage("cat-1", first.getString("nextAfter"), "2");
+
+        assertThat(first.getString("nextAfter")).isEqualTo("oid:" + ids.get(1).toHexString());
+        assertThat(itemIds(first)).containsExactly(ids.get(0), ids.get(1));
+        assertThat(itemIds(second)).containsExactly(ids.get(2));
+        assertThat(second.getString("nextAfter")).isNull();
+    }
+
+    @Test
+    void rejectsPagingPastAnIdTypeItCannotResumeFrom() {
+        for (int i = 1; i <= 3; i++) {
+            items().insertOne(item("unused", "cat-1", 10).append("_id", i));
+        }
+
+        assertThat(itemIds(readPage("cat-1", null, "5"))).containsExactly(1, 2, 3);
+        assertThatThrownBy(() -> readPage("cat-1", null, "2"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("_id of type Integer is not supported");
+    }
+
+    @Test
+    void parsesCursorsBackToTheirType() {
+        ObjectId id = new ObjectId();
+
+        assertThat(InventoryUpdateComponents.GetItemsByCategoryProcessor.afterValue("item-1")).isEqualTo("item-1");
+        assertThat(InventoryUpdateComponents.GetItemsByCategoryProcessor.afterValue(
+                InventoryUpdateComponents.GetItemsByCategoryProcessor.cursor(id))).isEqualTo(id);
+        assertThat(InventoryUpdateComponents.GetItemsByCategoryProcessor.afterValue("oid:not-hex")).isEqualTo("oid:not-hex");
+    }
+
+    @Test
+    void clampsTheLimitAndIgnoresInvalidOnes() {
+        for (int i = 0; i < 5; i++) {
+            items().insertOne(item("item-" + i, "cat-1", 10));
+        }
+
+        Exchange clamped = exchange("cat-1", null, "5000");
+        clamped.setProperty("maxPageLimit", 3);
+        processor.readPage(clamped);
+        Exchange invalid = exchange("cat-1", null, "many");
+        invalid.setProperty("defaultPageLimit", 4);
+        processor.readPage(invalid);
+
+        assertThat(itemIds(page(clamped))).hasSize(3);
+        assertThat(itemIds(page(invalid))).hasSize(4);
+    }
+
+    @Test
+    void returnsAnEmptyBodyForAnEmptyCategory() {
+        Exchange exchange = exchange("cat-1", null, null);
+        processor.readPage(exchange);
+
+        assertThat(exchange.getIn().getBody(List.class)).isEmpty();
+    }
+
+    private Document readPage(String categoryId, String after, String limit) {
+        Exchange exchange = exchange(categoryId, after, limit);
+        processor.readPage(exchange);
+        return page(exchange);
+    }
+
+    private static Exchange exchange(String categoryId, String after, String limit) {
+        Exchange exchange = exchange();
+        exchange.getIn().setHeader("categoryId", categoryId);
+        exchange.getIn().setHeader("after", after);
+        exchange.getIn().setHeader("limit", limit);
+        return exchange;
+    }
+
+    private static Document page(Exchange exchange) {
+        List<Document> body = exchange.getIn().getBody(List.class);
+        assertThat(body).hasSize(1);
+        return body.get(0);
+    }
+
+    private static List<Object> itemIds(Document page) {
+        List<Object> itemIds = new ArrayList<>();
+        page.getList("items", Document.class).forEach(item -> itemIds.add(item.get("id")));
+        return itemIds;
+    }
+
+    private static MongoCollection<Document> items() {
+        return collection(ApplicationConstants.MONGO_ITEM_WRITE_COLLECTION);
+    }
+}
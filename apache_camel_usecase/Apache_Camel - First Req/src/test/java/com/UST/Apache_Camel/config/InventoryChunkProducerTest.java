@@ -0,0 +1,170 @@
+package com.UST.Apache_Camel.config;
+
+import com.UST.Apache_Camel.model.InventoryItem;
+import com.UST.Apache_Camel.model.StockDetails;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.activemq.ActiveMQConnectionFactory;
+import org.apache.activemq.broker.BrokerService;
+import org.apache.activemq.command.ActiveMQQueue;
+import org.apache.camel.Exchange;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.support.DefaultExchange;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.jms.Connection;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageConsumer;
+import javax.jms.Session;
+import javax.jms.TextMessage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+
+// InventoryChunkProducer (app.inventory.enqueueMode=chunked) against an embedded broker
+class InventoryChunkProducerTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private static BrokerService broker;
+    private static ActiveMQConnectionFactory connectionFactory;
+
+    private InventoryChunkProducer producer;
+
+    @BeforeAll
+    static void startBroker() throws Exception {
+        broker = new BrokerService();
+        broker.setBrokerName("chunk-producer-test");
+        broker.setPersistent(false);
+        broker.setUseJmx(false);
+        broker.start();
+        broker.waitUntilStarted();
+        connectionFactory = new ActiveMQConnectionFactory("vm://chunk-producer-test?create=false");
+    }
+
+    @AfterAll
+    static void stopBroker() throws Exception {
+        broker.stop();
+        broker.waitUntilStopped();
+    }
+
+    @BeforeEach
+    void createProducer() throws Exception {
+        broker.removeDestination(new ActiveMQQueue(ApplicationConstants.AMQ_INVENTORY_UPDATE_WRITE_QUEUE));
+        producer = producer(3);
+    }
+
+    @Test
+    void sendsTheItemsInChunksOfEnqueueChunkSizeInRequestOrder() throws Exception {
+        producer.sendChunks(request("corr-1", "item-1", "item-2", "item-3", "item-4", "item-5"));
+
+        List<Message> messages = receiveAll();
+
+        assertThat(messages).hasSize(2);
+        assertThat(messages.get(0).getIntProperty(ApplicationConstants.INVENTORY_CHUNK_HEADER)).isEqualTo(3);
+        assertThat(messages.get(1).getIntProperty(ApplicationConstants.INVENTORY_CHUNK_HEADER)).isEqualTo(2);
+        assertThat(itemIds(messages)).containsExactly("item-1", "item-2", "item-3", "item-4", "item-5");
+        assertThat(messages).allSatisfy(message -> assertThat(message.getJMSCorrelationID()).isEqualTo("corr-1"));
+    }
+
+    @Test
+    void sendsTheWholeRequestAsOneMessageWithChunkSizeZero() throws Exception {
+        producer = producer(0);
+        producer.sendChunks(request("corr-1", "item-1", "item-2", "item-3", "item-4"));
+
+        List<Message> messages = receiveAll();
+
+        assertThat(messages).hasSize(1);
+        assertThat(messages.get(0).getIntProperty(ApplicationConstants.INVENTORY_CHUNK_HEADER)).isEqualTo(4);
+    }
+
+    @Test
+    void keepsTheQueueWireFormOfEachItem() throws Exception {
+        Exchange exchange = request("corr-1", "item-1");
+        ((List<InventoryItem>) exchange.getProperty("inventoryList", List.class)).get(0).setValidationError("bad line");
+        producer.sendChunks(exchange);
+
+        List<Map<String, Object>> chunk = OBJECT_MAPPER.readValue(((TextMessage) receiveAll().get(0)).getText(), List.class);
+
+        assertThat(chunk.get(0)).containsEntry("_id", "item-1")
+                .containsEntry("stockDetails", Map.of("soldOut", 1, "damaged", 0))
+                .containsEntry("validationError", "bad line");
+    }
+
+    @Test
+    void commitsNothingWhenALaterChunkFails() throws Exception {
+        ObjectMapper failsOnSecondChunk = Mockito.spy(new ObjectMapper());
+        Mockito.doCallRealMethod()
+                .doThrow(new JsonMappingException(null, "cannot serialize"))
+                .when(failsOnSecondChunk).writeValueAsString(any());
+        ReflectionTestUtils.setField(producer, "objectMapper", failsOnSecondChunk);
+
+        assertThatThrownBy(() -> producer.sendChunks(request("corr-1", "item-1", "item-2", "item-3", "item-4")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(receiveAll()).isEmpty();
+    }
+
+    static InventoryChunkProducer producer(int chunkSize) {
+        InventoryMetrics inventoryMetrics = new InventoryMetrics();
+        ReflectionTestUtils.setField(inventoryMetrics, "meterRegistry", new SimpleMeterRegistry());
+        inventoryMetrics.init();
+
+        InventoryChunkProducer producer = new InventoryChunkProducer();
+        ReflectionTestUtils.setField(producer, "connectionFactory", connectionFactory);
+        ReflectionTestUtils.setField(producer, "objectMapper", OBJECT_MAPPER);
+        ReflectionTestUtils.setField(producer, "inventoryMetrics", inventoryMetrics);
+        ReflectionTestUtils.setField(producer, "chunkSize", chunkSize);
+        producer.init();
+        return producer;
+    }
+
+    // Request lines with soldOut set to their 1-based position, so the line order can be checked on the queue
+    static Exchange request(String correlationId, String... itemIds) {
+        List<InventoryItem> items = new ArrayList<>();
+        for (String itemId : itemIds) {
+            StockDetails stockDetails = new StockDetails();
+            stockDetails.setSoldOut(items.size() + 1);
+            InventoryItem item = new InventoryItem();
+            item.setId(itemId);
+            item.setStockDetails(stockDetails);
+            items.add(item);
+        }
+        Exchange exchange = new DefaultExchange(new DefaultCamelContext());
+        exchange.setProperty("correlationId", correlationId);
+        exchange.setProperty("inventoryList", items);
+        return exchange;
+    }
+
+    static List<Message> receiveAll() throws JMSException {
+        List<Message> messages = new ArrayList<>();
+        try (Connection connection = connectionFactory.createConnection()) {
+            connection.start();
+            Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            MessageConsumer consumer = session.createConsumer(session.createQueue(ApplicationConstants.AMQ_INVENTORY_UPDATE_WRITE_QUEUE));
+            for (Message message = consumer.receive(500); message != null; message = consumer.receive(200)) {
+                messages.add(message);
+            }
+        }
+        return messages;
+    }
+
+    static List<Object> itemIds(List<Message> messages) throws Exception {
+        List<Object> itemIds = new ArrayList<>();
+        for (Message message : messages) {
+            List<Map<String, Object>> chunk = OBJECT_MAPPER.readValue(((TextMessage) message).getText(), List.class);
+            chunk.forEach(item -> itemIds.add(item.get("_id")));
+        }
+        return itemIds;
+    }
+}
@@ -0,0 +1,125 @@
+package com.UST.Apache_Camel.config;
+
+import com.UST.Apache_Camel.exception.InventoryValidationException;
+import com.UST.Apache_Camel.model.InventoryItem;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// InventoryPayloadReader: payload errors reject the request, line errors are kept as records with their validationError
+class InventoryPayloadReaderTest {
+
+    private static final String LINES = "["
+            + "{\"_id\":\"item-1\",\"stockDetails\":{\"soldOut\":2,\"damaged\":1}},"
+            + "{\"_id\":\"item-2\",\"stockDetails\":{\"soldOut\":\"3\",\"damaged\":0,\"note\":{\"a\":[1]}},\"extra\":[1,2]},"
+            + "\"not an object\","
+            + "{\"stockDetails\":{\"soldOut\":1,\"damaged\":0}},"
+            + "{\"_id\":\"item-5\"},"
+            + "{\"_id\":\"item-6\",\"stockDetails\":{\"soldOut\":1}},"
+            + "{\"_id\":\"item-7\",\"stockDetails\":{\"soldOut\":1.5,\"damaged\":0}},"
+            + "{\"_id\":\"item-8\",\"stockDetails\":{\"soldOut\":1,\"damaged\":\"many\"}},"
+            + "{\"_id\":\"item-9\",\"stockDetails\":{\"soldOut\":3000000000,\"damaged\":0}},"
+            + "{\"_id\":10,\"stockDetails\":{\"soldOut\":1,\"damaged\":null}}"
+            + "]";
+
+    @Test
+    void readsValidLinesAndKeepsTheErrorOfEachInvalidOne() throws Exception {
+        List<InventoryItem> items = InventoryPayloadReader.read(stream("{\"requestId\":{\"x\":1},\"items\":" + LINES + "}"));
+
+        assertThat(items).hasSize(10);
+        assertThat(items.get(0).getValidationError()).isNull();
+        assertThat(items.get(0).getStockDetails().getSoldOut()).isEqualTo(2);
+        assertThat(items.get(0).getStockDetails().getDamaged()).isEqualTo(1);
+        assertThat(items.get(1).getValidationError()).isNull();
+        assertThat(items.get(1).getStockDetails().getSoldOut()).isEqualTo(3);
+        assertThat(errors(items).subList(2, 10)).containsExactly(
+                InventoryPayloadReader.ERROR_MISSING_FIELDS,
+                InventoryPayloadReader.ERROR_MISSING_FIELDS,
+                InventoryPayloadReader.ERROR_MISSING_FIELDS,
+                InventoryPayloadReader.ERROR_MISSING_STOCK_VALUES + "item-6",
+                "Invalid 'soldOut' value in stock details for item: item-7",
+                "Invalid 'damaged' value in stock details for item: item-8",
+                "Invalid 'soldOut' value in stock details for item: item-9",
+                "Invalid 'damaged' value in stock details for item: 10");
+        assertThat(items.get(4).getId()).isEqualTo("item-5");
+    }
+
+    @Test
+    void convertsAMapPayloadWithTheSameRules() throws Exception {
+        Map<String, Object> payload = new ObjectMapper().readValue("{\"items\":" + LINES + "}", Map.class);
+
+        List<InventoryItem> fromMap = InventoryPayloadReader.fromMap(payload);
+        List<InventoryItem> read = InventoryPayloadReader.read(stream("{\"items\":" + LINES + "}"));
+
+        assertThat(errors(fromMap)).containsExactlyElementsOf(errors(read));
+        assertThat(fromMap).extracting(InventoryItem::getId).containsExactlyElementsOf(
+                read.stream().map(InventoryItem::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    void rejectsPayloadsWithoutAnItemsArray() {
+        assertRejected("", "Invalid JSON payload: expected an object with 'items'.");
+        assertRejected("[1,2]", "Invalid JSON payload: expected an object with 'items'.");
+        assertRejected("{\"other\":1}", "Missing 'items' in inventory payload.");
+        assertRejected("{\"items\":null}", "Missing 'items' in inventory payload.");
+        assertRejected("{\"items\":{\"_id\":\"item-1\"}}", "'items' in inventory payload must be an array.");
+        assertRejected("{\"items\":[]}", "Inventory items list is empty.");
+    }
+
+    @Test
+    void rejectsMalformedJson() {
+        assertThatThrownBy(() -> InventoryPayloadReader.read(stream("{\"items\":[{\"_id\":\"item-1\",")))
+                .isInstanceOf(InventoryValidationException.class)
+                .hasMessageStartingWith("Invalid JSON payload: ");
+        assertThatThrownBy(() -> InventoryPayloadReader.read(stream("{\"items\":[{\"_id\":item-1}]}")))
+                .isInstanceOf(InventoryValidationException.class)
+                .hasMessageStartingWith("Invalid JSON payload: ");
+    }
+
+    @Test
+    void rejectsMapPayloadsWithoutAnItemsList() {
+        assertThatThrownBy(() -> InventoryPayloadReader.fromMap(Map.of("items", "item-1")))
+                .isInstanceOf(InventoryValidationException.class)
+                .hasMessage("'items' in inventory payload must be an array.");
+        assertThatThrownBy(() -> InventoryPayloadReader.fromMap(null))
+                .isInstanceOf(InventoryValidationException.class)
+                .hasMessage("Missing 'items' in inventory payload.");
+    }
+
+    @Test
+    void validateThrowsTheErrorOfARejectedLine() throws Exception {
+        InventoryItem invalid = InventoryPayloadReader.fromLine(Map.of("_id", "item-1"));
+        InventoryItem valid = InventoryPayloadReader.fromLine(Map.of("_id", "item-1",
+                "stockDetails", Map.of("soldOut", 1, "damaged", 0)));
+
+        assertThat(InventoryPayloadReader.validate(valid)).isSameAs(valid);
+        assertThatThrownBy(() -> InventoryPayloadReader.validate(invalid))
+                .isInstanceOf(InventoryValidationException.class)
+                .hasMessage(InventoryPayloadReader.ERROR_MISSING_FIELDS);
+    }
+
+    private static void assertRejected(String payload, String message) {
+        assertThatThrownBy(() -> InventoryPayloadReader.read(stream(payload)))
+                .isInstanceOf(InventoryValidationException.class)
+                .hasMessage(message);
+    }
+
+    private static List<String> errors(List<InventoryItem> items) {
+        List<String> errors = new ArrayList<>();
+        items.forEach(item -> errors.add(item.getValidationError()));
+        return errors;
+    }
+
+    private static ByteArrayInputStream stream(String payload) {
+        return new ByteArrayInputStream(payload.getBytes(StandardCharsets.UTF_8));
+    }
+}
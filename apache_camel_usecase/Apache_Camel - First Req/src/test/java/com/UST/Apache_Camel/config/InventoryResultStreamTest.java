@@ -0,0 +1,166 @@
+package com.UST.Apache_Camel.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.camel.Exchange;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.support.DefaultExchange;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// InventoryResultStream and the streamed response of POST /camel/inventory/update: one NDJSON line per itemResult,
+// then a trailer with the overall status
+class InventoryResultStreamTest {
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private final InventoryResultStream resultStream = new InventoryResultStream(out);
+
+    @Test
+    void writesOneLinePerResultAndACompletedTrailer() throws Exception {
+        resultStream.write(result("item-1", "success"));
+        resultStream.write(result("item-2", "success"));
+        resultStream.finish();
+
+        List<Map<String, Object>> lines = lines();
+        assertThat(lines).hasSize(3);
+        assertThat(lines.get(0)).containsEntry("itemId", "item-1");
+        assertThat(lines.get(2)).containsEntry("status", "completed").containsEntry("total", 2)
+                .containsEntry("succeeded", 2).containsEntry("failed", 0);
+    }
+
+    @Test
+    void reportsPartialWhenAnyLineFailed() throws Exception {
+        resultStream.write(result("item-1", "success"));
+        resultStream.write(result("item-2", "error"));
+        resultStream.finish();
+
+        assertThat(lines().get(2)).containsEntry("status", "partial").containsEntry("succeeded", 1).containsEntry("failed", 1);
+    }
+
+    @Test
+    void flushesEachLineAsItIsWritten() {
+        ByteArrayOutputStream flushed = new ByteArrayOutputStream();
+        ByteArrayOutputStream written = new ByteArrayOutputStream() {
+            @Override
+            public void flush() {
+                flushed.reset();
+                flushed.writeBytes(toByteArray());
+            }
+        };
+        InventoryResultStream flushing = new InventoryResultStream(written);
+
+        flushing.write(result("item-1", "success"));
+        String afterFirstLine = flushed.toString(StandardCharsets.UTF_8);
+        flushing.write(result("item-2", "success"));
+
+        assertThat(afterFirstLine).endsWith("\n").contains("item-1").doesNotContain("item-2");
+        assertThat(flushed.toString(StandardCharsets.UTF_8)).isEqualTo(written.toString(StandardCharsets.UTF_8));
+        assertThat(flushing.isStarted()).isTrue();
+    }
+
+    @Test
+    void endsWithAnErrorTrailerAndAcceptsNothingAfterTheTrailer() throws Exception {
+        resultStream.write(result("item-1", "success"));
+        resultStream.fail("Database unavailable");
+
+        assertThat(lines().get(1)).containsEntry("status", "error").containsEntry("message", "Database unavailable")
+                .containsEntry("total", 1);
+        assertThatThrownBy(() -> resultStream.write(result("item-2", "success"))).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void reportsAClosedConnectionAsUncheckedIoException() {
+        InventoryResultStream closed = new InventoryResultStream(new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        });
+
+        assertThatThrownBy(() -> closed.write(result("item-1", "success")))
+                .isInstanceOf(UncheckedIOException.class)
+                .hasMessageContaining("Broken pipe");
+        assertThat(closed.isStarted()).isFalse();
+    }
+
+    @Test
+    void aggregationWritesToTheStreamInsteadOfCollectingResults() throws Exception {
+        InventoryUpdateComponents.ItemAggregationStrategy aggregation = new InventoryUpdateComponents.ItemAggregationStrategy();
+        Exchange first = line(result("item-1", "success"));
+        Exchange result = aggregation.aggregate(null, first);
+        aggregation.aggregate(result, line(result("item-2", "error")));
+
+        assertThat(result.getProperty("itemResults")).isNull();
+        assertThat(lines()).extracting(line -> line.get("itemId")).containsExactly("item-1", "item-2");
+    }
+
+    @Test
+    void finalResponseOnlyWritesTheTrailer() throws Exception {
+        Exchange exchange = line(result("item-1", "success"));
+        resultStream.write(result("item-1", "success"));
+        new InventoryUpdateComponents.FinalResponseProcessor().process(exchange);
+
+        assertThat(exchange.getMessage().getBody()).isNull();
+        assertThat(exchange.getMessage().getHeader(Exchange.HTTP_RESPONSE_CODE)).isEqualTo(200);
+        assertThat(lines().get(1)).containsEntry("status", "completed");
+    }
+
+    @Test
+    void keepsTheJsonErrorOfARequestRejectedBeforeTheFirstLine() throws Exception {
+        Exchange exchange = line(null);
+        exchange.getMessage().setHeader(Exchange.HTTP_RESPONSE_CODE, 400);
+        exchange.getMessage().setBody(Map.of("status", "error", "message", "Inventory items list is empty."));
+        new InventoryUpdateComponents.FinalResponseProcessor().process(exchange);
+
+        assertThat(out.size()).isZero();
+        assertThat(exchange.getMessage().getHeader(Exchange.HTTP_RESPONSE_CODE)).isEqualTo(400);
+        assertThat(exchange.getMessage().getBody(Map.class)).containsEntry("message", "Inventory items list is empty.");
+    }
+
+    @Test
+    void isNotOpenedWithoutTheNdjsonAcceptHeader() throws Exception {
+        InventoryStreamingResponse streamingResponse = new InventoryStreamingResponse();
+        ReflectionTestUtils.setField(streamingResponse, "enabled", true);
+        Exchange json = new DefaultExchange(new DefaultCamelContext());
+        json.getIn().setHeader("Accept", "application/json");
+        streamingResponse.open(json);
+        Exchange noServletResponse = new DefaultExchange(new DefaultCamelContext());
+        noServletResponse.getIn().setHeader("Accept", "application/x-ndjson");
+        streamingResponse.open(noServletResponse);
+
+        assertThat(json.getProperty(InventoryResultStream.PROPERTY)).isNull();
+        assertThat(noServletResponse.getProperty(InventoryResultStream.PROPERTY)).isNull();
+    }
+
+    // A finished split line carrying its itemResult and the request's result stream
+    private Exchange line(Map<String, Object> itemResult) {
+        Exchange exchange = new DefaultExchange(new DefaultCamelContext());
+        exchange.setProperty(InventoryResultStream.PROPERTY, resultStream);
+        exchange.setProperty("itemResult", itemResult);
+        return exchange;
+    }
+
+    static Map<String, Object> result(String itemId, String status) {
+        return Map.of("itemId", itemId, "status", status, "message", status + " for " + itemId);
+    }
+
+    private List<Map<String, Object>> lines() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        List<Map<String, Object>> lines = new ArrayList<>();
+        for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+            lines.add(objectMapper.readValue(line, Map.class));
+        }
+        return lines;
+    }
+}
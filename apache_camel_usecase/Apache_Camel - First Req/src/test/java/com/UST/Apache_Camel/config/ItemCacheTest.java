@@ -0,0 +1,147 @@
+package com.UST.Apache_Camel.config;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.support.DefaultExchange;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// ItemCache around the get item route: lookup before the findById, store after it, invalidation by the write paths
+class ItemCacheTest {
+
+    private ItemCache itemCache;
+
+    @BeforeEach
+    void createCache() {
+        itemCache = cache(true);
+    }
+
+    @Test
+    void servesAStoredItemFromTheCache() {
+        Exchange miss = lookup("item-1");
+        found(miss, Map.of("_id", "item-1", "itemName", "Item 1"));
+        itemCache.store(miss);
+
+        Exchange hit = lookup("item-1");
+
+        assertThat(miss.getProperty("itemCacheHit", Boolean.class)).isFalse();
+        assertThat(hit.getProperty("itemCacheHit", Boolean.class)).isTrue();
+        assertThat(hit.getIn().getBody(Map.class)).containsEntry("itemName", "Item 1");
+        assertThat(itemCache.getHitCount()).isEqualTo(1);
+        assertThat(itemCache.getMissCount()).isEqualTo(1);
+    }
+
+    @Test
+    void cachesNotFoundAsAHitWithANullBody() {
+        Exchange miss = lookup("missing");
+        found(miss, null);
+        itemCache.store(miss);
+
+        Exchange hit = lookup("missing");
+
+        assertThat(hit.getProperty("itemCacheHit", Boolean.class)).isTrue();
+        assertThat(hit.getIn().getBody()).isNull();
+    }
+
+    @Test
+    void expiresNotFoundEntriesAfterTheNegativeTtl() throws Exception {
+        Exchange miss = lookup("missing");
+        found(miss, null);
+        itemCache.store(miss);
+        Exchange item = lookup("item-1");
+        found(item, Map.of("_id", "item-1"));
+        itemCache.store(item);
+
+        Thread.sleep(1200);
+
+        assertThat(lookup("missing").getProperty("itemCacheHit", Boolean.class)).isFalse();
+        assertThat(lookup("item-1").getProperty("itemCacheHit", Boolean.class)).isTrue();
+    }
+
+    @Test
+    void doesNotStoreAResultReadBeforeAnInvalidation() {
+        Exchange stale = lookup("item-1");
+        itemCache.invalidate("item-1");
+        found(stale, Map.of("_id", "item-1", "itemName", "Before the write"));
+        itemCache.store(stale);
+
+        assertThat(lookup("item-1").getProperty("itemCacheHit", Boolean.class)).isFalse();
+        assertThat(itemCache.getInvalidationCount()).isEqualTo(1);
+    }
+
+    @Test
+    void storesAgainOnceTheNextLookupStartsAfterTheInvalidation() {
+        itemCache.invalidate("item-1");
+        Exchange miss = lookup("item-1");
+        found(miss, Map.of("_id", "item-1"));
+        itemCache.store(miss);
+
+        assertThat(lookup("item-1").getProperty("itemCacheHit", Boolean.class)).isTrue();
+    }
+
+    @Test
+    void invalidationRemovesTheListedItems() {
+        for (String itemId : List.of("item-1", "item-2", "item-3")) {
+            Exchange miss = lookup(itemId);
+            found(miss, Map.of("_id", itemId));
+            itemCache.store(miss);
+        }
+
+        itemCache.invalidate("item-1");
+        itemCache.invalidateAll(List.of("item-2"));
+
+        assertThat(lookup("item-1").getProperty("itemCacheHit", Boolean.class)).isFalse();
+        assertThat(lookup("item-2").getProperty("itemCacheHit", Boolean.class)).isFalse();
+        assertThat(lookup("item-3").getProperty("itemCacheHit", Boolean.class)).isTrue();
+    }
+
+    @Test
+    void doesNotStoreProjectedReads() {
+        Exchange miss = lookup("item-1");
+        miss.setProperty(ItemProjection.PROPERTY, "compact");
+        found(miss, Map.of("_id", "item-1"));
+        itemCache.store(miss);
+
+        assertThat(lookup("item-1").getProperty("itemCacheHit", Boolean.class)).isFalse();
+    }
+
+    @Test
+    void neverHitsWhenDisabled() {
+        itemCache = cache(false);
+        Exchange miss = lookup("item-1");
+        found(miss, Map.of("_id", "item-1"));
+        itemCache.store(miss);
+
+        assertThat(lookup("item-1").getProperty("itemCacheHit", Boolean.class)).isFalse();
+        assertThat(itemCache.getSize()).isZero();
+    }
+
+    private static ItemCache cache(boolean enabled) {
+        ItemCache itemCache = new ItemCache();
+        ReflectionTestUtils.setField(itemCache, "enabled", enabled);
+        ReflectionTestUtils.setField(itemCache, "maximumSize", 100L);
+        ReflectionTestUtils.setField(itemCache, "ttlSeconds", 60L);
+        ReflectionTestUtils.setField(itemCache, "negativeTtlSeconds", 1L);
+        itemCache.init();
+        return itemCache;
+    }
+
+    private Exchange lookup(String itemId) {
+        Exchange exchange = new DefaultExchange(new DefaultCamelContext());
+        exchange.getIn().setHeader("itemId", itemId);
+        exchange.getIn().setBody(itemId);
+        itemCache.lookup(exchange);
+        return exchange;
+    }
+
+    // The findById result of a lookup that missed
+    private static void found(Exchange exchange, Map<String, Object> item) {
+        exchange.getIn().setBody(item);
+    }
+}
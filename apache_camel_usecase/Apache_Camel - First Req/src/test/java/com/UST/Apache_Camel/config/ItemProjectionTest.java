@@ -0,0 +1,102 @@
+package com.UST.Apache_Camel.config;
+
+import com.UST.Apache_Camel.shared.MongoTestSupport;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import org.apache.camel.Exchange;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// ItemProjection: ?view= and ?fields= of the item reads, pushed down into the MongoDB query or applied in memory
+class ItemProjectionTest extends MongoTestSupport {
+
+    @Test
+    void returnsTheWholeItemWithoutViewOrFields() {
+        Exchange exchange = request(null, null);
+
+        assertThat(ItemProjection.fields(exchange)).isNull();
+        assertThat(ItemProjection.findByIdProjection(exchange)).isNull();
+        assertThat(ItemProjection.topLevelFields(exchange)).isEqualTo(ItemProjection.ITEM_FIELDS);
+    }
+
+    @Test
+    void addsTheListedFieldsToTheView() {
+        Exchange exchange = request("availability", "itemName, lastUpdateDate");
+
+        assertThat(ItemProjection.fields(exchange)).containsExactly("stockDetails.availableStock", "stockDetails.unitOfMeasure",
+                "stockDetails.soldOut", "stockDetails.damaged", "itemName", "lastUpdateDate");
+        assertThat(ItemProjection.topLevelFields(exchange)).containsExactly("itemName", "lastUpdateDate", "stockDetails");
+    }
+
+    @Test
+    void ignoresUnknownViewsFieldsAndTheId() {
+        Exchange exchange = request("everything", "_id,id,price,itemPrice.,.itemName,itemPrice..basePrice,,itemName");
+        Exchange nothingValid = request("everything", "price");
+
+        assertThat(ItemProjection.fields(exchange)).containsExactly("itemName");
+        assertThat(ItemProjection.fields(nothingValid)).isNull();
+    }
+
+    @Test
+    void dropsSubPathsOfAnIncludedField() {
+        Exchange exchange = request("summary", "stockDetails,itemPrice.basePrice");
+
+        assertThat(ItemProjection.fields(exchange)).containsExactly("itemName", "categoryId", "itemPrice.sellingPrice",
+                "specialProduct", "ratingAvg", "stockDetails", "itemPrice.basePrice");
+    }
+
+    @Test
+    void projectsTheFindByIdQuery() {
+        items().insertOne(item("item-1", "cat-1", 10));
+        Exchange exchange = request("availability", "itemPrice.sellingPrice");
+
+        Document item = items().find(Filters.eq("_id", "item-1")).projection(ItemProjection.findByIdProjection(exchange)).first();
+
+        assertThat(item.keySet()).containsExactlyInAnyOrder("_id", "stockDetails", "itemPrice");
+        assertThat(item.get("itemPrice", Document.class).keySet()).containsExactly("sellingPrice");
+        assertThat(item.get("stockDetails", Document.class)).containsEntry("availableStock", 10);
+    }
+
+    @Test
+    void projectsACachedItemInMemoryLikeTheQuery() {
+        items().insertOne(item("item-1", "cat-1", 10));
+        Exchange exchange = request("summary", null);
+        Document queried = items().find(Filters.eq("_id", "item-1")).projection(ItemProjection.findByIdProjection(exchange)).first();
+
+        exchange.getIn().setBody(items().find(Filters.eq("_id", "item-1")).first());
+        ItemProjection.projectBody(exchange);
+
+        assertThat(new Document(exchange.getIn().getBody(Map.class))).isEqualTo(queried);
+    }
+
+    @Test
+    void projectsTheCategoryPage() {
+        items().insertOne(item("item-1", "cat-1", 10));
+        Exchange exchange = request("availability", "itemName");
+        exchange.getIn().setHeader("categoryId", "cat-1");
+
+        new InventoryUpdateComponents.GetItemsByCategoryProcessor().readPage(exchange);
+
+        Document page = (Document) exchange.getIn().getBody(List.class).get(0);
+        Document item = page.getList("items", Document.class).get(0);
+        assertThat(item.keySet()).containsExactly("id", "itemName", "stockDetails");
+        assertThat(item.get("stockDetails", Document.class)).doesNotContainKey("_id").containsEntry("soldOut", 0);
+    }
+
+    private static Exchange request(String view, String fields) {
+        Exchange exchange = exchange();
+        exchange.getIn().setHeader("view", view);
+        exchange.getIn().setHeader("fields", fields);
+        ItemProjection.resolve(exchange);
+        return exchange;
+    }
+
+    private static MongoCollection<Document> items() {
+        return collection(ApplicationConstants.MONGO_ITEM_WRITE_COLLECTION);
+    }
+}
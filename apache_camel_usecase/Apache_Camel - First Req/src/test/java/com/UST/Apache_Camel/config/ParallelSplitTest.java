@@ -0,0 +1,154 @@
+package com.UST.Apache_Camel.config;
+
+import com.UST.Apache_Camel.model.InventoryItem;
+import com.UST.Apache_Camel.model.StockDetails;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.camel.Exchange;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.support.DefaultExchange;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Parallel synchronous split (app.inventory.parallelSplit.enabled): lines grouped by item, results kept in request order
+// whatever order the lines complete in
+class ParallelSplitTest {
+
+    private final InventoryUpdateComponents.ItemProcessor itemProcessor = new InventoryUpdateComponents.ItemProcessor();
+    private final InventoryUpdateComponents.ItemAggregationStrategy aggregation = new InventoryUpdateComponents.ItemAggregationStrategy();
+
+    @Test
+    void groupsLinePositionsByItemInRequestOrder() {
+        Exchange request = request("item-1", "item-2", "item-1", null, "item-3", "item-2", null);
+        itemProcessor.groupLinesByItem(request);
+
+        assertThat(request.getProperty("inventoryGroups", List.class)).containsExactly(
+                List.of(0, 2), List.of(1, 5), List.of(3), List.of(4), List.of(6));
+        assertThat(request.getProperty("itemResultSlots")).isNotNull();
+    }
+
+    @Test
+    void selectsTheLineOfAGroupEntry() {
+        Exchange request = request("item-1", "item-2");
+        Exchange line = request.copy();
+        line.getIn().setBody(1);
+        itemProcessor.selectLine(line);
+
+        assertThat(line.getProperty("lineIndex")).isEqualTo(1);
+        assertThat(line.getIn().getBody(InventoryItem.class).getId()).isEqualTo("item-2");
+    }
+
+    @Test
+    void collectsResultsInRequestOrderWhateverOrderTheLinesComplete() throws Exception {
+        int lines = 200;
+        Exchange request = request(IntStream.range(0, lines).mapToObj(i -> "item-" + i % 7).toArray(String[]::new));
+        itemProcessor.groupLinesByItem(request);
+
+        List<Integer> completionOrder = IntStream.range(0, lines).boxed().collect(Collectors.toList());
+        Collections.shuffle(completionOrder);
+        aggregateConcurrently(request, completionOrder, lines - 1);
+        itemProcessor.collectItemResults(request);
+
+        List<Map<String, Object>> itemResults = request.getProperty("itemResults", List.class);
+        assertThat(itemResults).hasSize(lines - 1);
+        assertThat(itemResults.get(0).get("message")).isEqualTo("line 0");
+        assertThat(itemResults.get(lines - 2).get("message")).isEqualTo("line " + (lines - 2));
+        assertThat(itemResults).isSortedAccordingTo((a, b) -> Integer.compare(lineOf(a), lineOf(b)));
+        assertThat(request.getProperty("itemResultSlots")).isNull();
+    }
+
+    @Test
+    void streamsResultsInRequestOrderWhateverOrderTheLinesComplete() throws Exception {
+        int lines = 200;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        InventoryResultStream resultStream = new InventoryResultStream(out);
+        Exchange request = request(IntStream.range(0, lines).mapToObj(i -> "item-" + i % 7).toArray(String[]::new));
+        request.setProperty(InventoryResultStream.PROPERTY, resultStream);
+        itemProcessor.groupLinesByItem(request);
+
+        List<Integer> completionOrder = IntStream.range(0, lines).boxed().collect(Collectors.toList());
+        Collections.shuffle(completionOrder);
+        aggregateConcurrently(request, completionOrder, 3);
+        resultStream.finish();
+
+        assertThat(request.getProperty("itemResultSlots")).isNull();
+        List<Integer> streamed = new ArrayList<>();
+        ObjectMapper objectMapper = new ObjectMapper();
+        for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+            Map<String, Object> result = objectMapper.readValue(line, Map.class);
+            if (result.containsKey("itemId")) {
+                streamed.add(lineOf(result));
+            }
+        }
+        assertThat(streamed).hasSize(lines - 1).isSorted().doesNotContain(3);
+    }
+
+    @Test
+    void holdsBackAStreamedLineUntilEveryEarlierLineWasWritten() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        InventoryResultStream resultStream = new InventoryResultStream(out);
+
+        resultStream.write(2, result(2));
+        resultStream.write(1, null);
+        String beforeFirstLine = out.toString(StandardCharsets.UTF_8);
+        resultStream.write(0, result(0));
+
+        assertThat(beforeFirstLine).isEmpty();
+        assertThat(out.toString(StandardCharsets.UTF_8).split("\n")).hasSize(2);
+    }
+
+    // Aggregates one split line per entry of completionOrder on 8 threads; the line at withoutResult has no itemResult
+    private void aggregateConcurrently(Exchange request, List<Integer> completionOrder, int withoutResult) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            for (int line : completionOrder) {
+                Exchange lineExchange = request.copy();
+                lineExchange.setProperty("lineIndex", line);
+                lineExchange.setProperty("itemResult", line == withoutResult ? null : result(line));
+                executor.submit(() -> {
+                    start.await();
+                    return aggregation.aggregate(request, lineExchange);
+                });
+            }
+            start.countDown();
+        } finally {
+            executor.shutdown();
+            assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+        }
+    }
+
+    private static Exchange request(String... itemIds) {
+        List<InventoryItem> items = new ArrayList<>();
+        for (String itemId : itemIds) {
+            InventoryItem item = new InventoryItem();
+            item.setId(itemId);
+            item.setStockDetails(new StockDetails());
+            items.add(item);
+        }
+        Exchange exchange = new DefaultExchange(new DefaultCamelContext());
+        exchange.setProperty("inventoryList", items);
+        return exchange;
+    }
+
+    private static Map<String, Object> result(int line) {
+        return Map.of("itemId", "item-" + line % 7, "status", "success", "message", "line " + line);
+    }
+
+    private static int lineOf(Map<String, Object> itemResult) {
+        return Integer.parseInt(itemResult.get("message").toString().substring("line ".length()));
+    }
+}
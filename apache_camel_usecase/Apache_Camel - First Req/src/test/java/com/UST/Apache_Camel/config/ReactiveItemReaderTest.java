@@ -0,0 +1,163 @@
+package com.UST.Apache_Camel.config;
+
+import com.UST.Apache_Camel.shared.MongoTestSupport;
+import com.mongodb.MongoTimeoutException;
+import com.mongodb.reactivestreams.client.MongoClient;
+import com.mongodb.reactivestreams.client.MongoClients;
+import org.apache.camel.AsyncProcessor;
+import org.apache.camel.Exchange;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// ReactiveItemReader (app.mongo.reactiveReads.enabled) on the reactive-streams driver: the item and category page reads
+// continue the exchange with the same bodies as the blocking reads, and report failures on the exchange
+class ReactiveItemReaderTest extends MongoTestSupport {
+
+    private MongoClient reactiveClient;
+    private ReactiveItemReader reader;
+
+    @BeforeEach
+    void createReader() {
+        InetSocketAddress address = mongoServer.getLocalAddress();
+        reactiveClient = MongoClients.create("mongodb://" + address.getHostString() + ":" + address.getPort());
+        reader = reader(reactiveClient);
+    }
+
+    @AfterEach
+    void closeClient() {
+        reactiveClient.close();
+    }
+
+    @Test
+    void readsAnItemById() throws Exception {
+        collection(ApplicationConstants.MONGO_ITEM_READ_COLLECTION).insertOne(item("item-1", "cat-1", 10));
+
+        Exchange exchange = exchange();
+        exchange.getIn().setBody("item-1");
+        process(reader.findItemById(), exchange);
+
+        assertThat(exchange.getException()).isNull();
+        Map<String, Object> item = exchange.getIn().getBody(Map.class);
+        assertThat(item).containsEntry("_id", "item-1").containsEntry("itemName", "Item item-1");
+        assertThat((Map<String, Object>) item.get("stockDetails")).containsEntry("availableStock", 10);
+    }
+
+    @Test
+    void readsOnlyTheProjectedFields() throws Exception {
+        collection(ApplicationConstants.MONGO_ITEM_READ_COLLECTION).insertOne(item("item-1", "cat-1", 10));
+
+        Exchange exchange = exchange();
+        exchange.getIn().setBody("item-1");
+        exchange.setProperty(ItemProjection.PROPERTY, List.of("itemName"));
+        process(reader.findItemById(), exchange);
+
+        assertThat(exchange.getIn().getBody(Map.class)).containsOnlyKeys("_id", "itemName");
+    }
+
+    @Test
+    void setsANullBodyForAnUnknownItem() throws Exception {
+        Exchange exchange = exchange();
+        exchange.getIn().setBody("missing");
+        process(reader.findItemById(), exchange);
+
+        assertThat(exchange.getException()).isNull();
+        assertThat(exchange.getIn().getBody()).isNull();
+    }
+
+    @Test
+    void readsTheSameCategoryPagesAsTheBlockingRead() throws Exception {
+        for (String itemId : List.of("item-c", "item-a", "item-b")) {
+            collection(ApplicationConstants.MONGO_ITEM_READ_COLLECTION).insertOne(item(itemId, "cat-1", 10));
+        }
+        collection(ApplicationConstants.MONGO_ITEM_READ_COLLECTION).insertOne(item("other", "cat-2", 10));
+
+        Exchange first = categoryPage("cat-1", null, "2");
+        process(reader.readCategoryPage(), first);
+        Exchange blocking = categoryPage("cat-1", null, "2");
+        new InventoryUpdateComponents.GetItemsByCategoryProcessor().readPage(blocking);
+        Document firstPage = page(first);
+        Exchange last = categoryPage("cat-1", firstPage.getString("nextAfter"), "2");
+        process(reader.readCategoryPage(), last);
+
+        assertThat(first.getIn().getBody(List.class)).isEqualTo(blocking.getIn().getBody(List.class));
+        assertThat(firstPage.getString("nextAfter")).isEqualTo("item-b");
+        assertThat(page(last).getList("items", Document.class)).extracting(item -> item.get("id")).containsExactly("item-c");
+        assertThat(page(last).getString("nextAfter")).isNull();
+    }
+
+    @Test
+    void returnsAnEmptyBodyForAnEmptyCategory() throws Exception {
+        Exchange exchange = categoryPage("cat-1", null, null);
+        process(reader.readCategoryPage(), exchange);
+
+        assertThat(exchange.getException()).isNull();
+        assertThat(exchange.getIn().getBody(List.class)).isEmpty();
+    }
+
+    @Test
+    void setsTheExceptionOfAPageItCannotBuild() throws Exception {
+        for (int i = 1; i <= 3; i++) {
+            collection(ApplicationConstants.MONGO_ITEM_READ_COLLECTION).insertOne(item("unused", "cat-1", 10).append("_id", i));
+        }
+
+        Exchange exchange = categoryPage("cat-1", null, "2");
+        process(reader.readCategoryPage(), exchange);
+
+        assertThat(exchange.getException())
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("_id of type Integer is not supported");
+    }
+
+    @Test
+    void setsTheExceptionOfAFailedQuery() throws Exception {
+        try (MongoClient unreachable = MongoClients.create("mongodb://127.0.0.1:1/?serverSelectionTimeoutMS=200")) {
+            Exchange exchange = exchange();
+            exchange.getIn().setBody("item-1");
+            process(reader(unreachable).findItemById(), exchange);
+
+            assertThat(exchange.getException()).isInstanceOf(MongoTimeoutException.class);
+        }
+    }
+
+    private static ReactiveItemReader reader(MongoClient client) {
+        DefaultListableBeanFactory beans = new DefaultListableBeanFactory();
+        beans.registerSingleton("reactiveMongoClient", client);
+        ReactiveItemReader reader = new ReactiveItemReader();
+        ReflectionTestUtils.setField(reader, "reactiveMongoClient", beans.getBeanProvider(MongoClient.class));
+        return reader;
+    }
+
+    // Runs the asynchronous processor and waits until it continued the exchange
+    private static void process(AsyncProcessor processor, Exchange exchange) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        boolean sync = processor.process(exchange, doneSync -> done.countDown());
+        assertThat(sync).isFalse();
+        assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+    }
+
+    private static Exchange categoryPage(String categoryId, String after, String limit) {
+        Exchange exchange = exchange();
+        exchange.getIn().setHeader("categoryId", categoryId);
+        exchange.getIn().setHeader("after", after);
+        exchange.getIn().setHeader("limit", limit);
+        return exchange;
+    }
+
+    private static Document page(Exchange exchange) {
+        List<Document> body = exchange.getIn().getBody(List.class);
+        assertThat(body).hasSize(1);
+        return body.get(0);
+    }
+}
@@ -0,0 +1,103 @@
+package com.UST.Apache_Camel.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.coyote.ProtocolHandler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+// RestThreadConfig: the permit throttle of the virtual thread mode (on platform threads, as the build runs on JDK 17)
+// and the fallback to the Tomcat pool on a JDK without virtual threads
+class RestThreadConfigTest {
+
+    private final ExecutorService threads = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void stopThreads() throws InterruptedException {
+        threads.shutdownNow();
+        threads.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void runsAtMostThePermittedTasksAtOnce() throws Exception {
+        Semaphore permits = new Semaphore(2, true);
+        Executor executor = RestThreadConfig.throttled(threads, permits);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(5);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        for (int i = 0; i < 5; i++) {
+            executor.execute(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    running.decrementAndGet();
+                    finished.countDown();
+                }
+            });
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while ((running.get() < 2 || permits.getQueueLength() < 3) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertThat(running.get()).isEqualTo(2);
+        assertThat(permits.getQueueLength()).isEqualTo(3);
+
+        release.countDown();
+        assertThat(finished.await(5, TimeUnit.SECONDS)).isTrue();
+        threads.shutdown();
+        assertThat(threads.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(maxRunning.get()).isEqualTo(2);
+        assertThat(permits.availablePermits()).isEqualTo(2);
+    }
+
+    @Test
+    void releasesThePermitOfAFailedTask() throws Exception {
+        Semaphore permits = new Semaphore(1, true);
+        Executor executor = RestThreadConfig.throttled(threads, permits);
+        CountDownLatch ran = new CountDownLatch(1);
+
+        executor.execute(() -> {
+            throw new IllegalStateException("request failed");
+        });
+        executor.execute(ran::countDown);
+
+        assertThat(ran.await(5, TimeUnit.SECONDS)).isTrue();
+        threads.shutdown();
+        assertThat(threads.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(permits.availablePermits()).isEqualTo(1);
+    }
+
+    @Test
+    void keepsTheTomcatPoolWithoutVirtualThreads() {
+        assumeTrue(Runtime.version().feature() < 21, "the JDK has virtual threads");
+        RestThreadConfig config = new RestThreadConfig();
+        ReflectionTestUtils.setField(config, "threadsMode", ApplicationConstants.REST_THREADS_MODE_VIRTUAL);
+        ReflectionTestUtils.setField(config, "maxConcurrentRequests", 10);
+        ProtocolHandler protocolHandler = mock(ProtocolHandler.class);
+
+        config.restThreadsCustomizer(new SimpleMeterRegistry()).customize(protocolHandler);
+
+        verify(protocolHandler, never()).setExecutor(any());
+    }
+}
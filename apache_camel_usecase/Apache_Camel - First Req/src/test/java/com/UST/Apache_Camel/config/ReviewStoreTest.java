@@ -0,0 +1,250 @@
+package com.UST.Apache_Camel.config;
+
+import com.UST.Apache_Camel.shared.MongoTestSupport;
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import org.apache.camel.Exchange;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.AdditionalAnswers;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+
+// ReviewStore: bucketed reviews, idempotent appends, the rating rollup, paging and the move of embedded reviews
+class ReviewStoreTest extends MongoTestSupport {
+
+    private ReviewStore reviewStore;
+
+    @BeforeEach
+    void createStore() {
+        reviewStore = new ReviewStore();
+        ReflectionTestUtils.setField(reviewStore, "mongoClient", mongoClient);
+        ReflectionTestUtils.setField(reviewStore, "itemCache", Mockito.mock(ItemCache.class));
+        ReflectionTestUtils.setField(reviewStore, "categoryCatalog", Mockito.mock(CategoryCatalog.class));
+        ReflectionTestUtils.setField(reviewStore, "bucketSize", 2);
+        reviewStore.init();
+    }
+
+    @Test
+    void appendsReviewsIntoBucketsAndUpdatesTheRollup() {
+        items().insertOne(item("item-1", "cat-1", 10));
+
+        for (int rating : new int[]{5, 4, 3, 2, 1}) {
+            assertThat(append("item-1", rating, null).getIn().getHeader(Exchange.HTTP_RESPONSE_CODE)).isEqualTo(201);
+        }
+
+        assertThat(buckets("item-1")).extracting(bucket -> bucket.getInteger("count")).containsExactly(2, 2, 1);
+        assertThat(buckets("item-1")).extracting(bucket -> bucket.getInteger("ratingSum")).containsExactly(9, 5, 1);
+        assertThat(rollup("item-1").getInteger("ratingCount")).isEqualTo(5);
+        assertThat(rollup("item-1").getDouble("ratingAvg")).isEqualTo(3.0);
+    }
+
+    @Test
+    void storesARetriedReviewOnce() {
+        items().insertOne(item("item-1", "cat-1", 10));
+
+        Exchange first = append("item-1", 4, "review-1");
+        Exchange retry = append("item-1", 4, "review-1");
+
+        assertThat(first.getIn().getHeader(Exchange.HTTP_RESPONSE_CODE)).isEqualTo(201);
+        assertThat(retry.getIn().getHeader(Exchange.HTTP_RESPONSE_CODE)).isEqualTo(200);
+        assertThat(retry.getIn().getBody(Map.class)).containsEntry("reviewId", "review-1").containsEntry("ratingCount", 1);
+        assertThat(reviews().countDocuments()).isEqualTo(1);
+        assertThat(buckets("item-1").get(0).getInteger("count")).isEqualTo(1);
+    }
+
+    @Test
+    void retryRepairsTheRollupOfAnAppendThatFailedAfterThePush() {
+        items().insertOne(item("item-1", "cat-1", 10));
+        MongoCollection<Document> real = items();
+        MongoCollection<Document> failsOnce = Mockito.mock(MongoCollection.class, AdditionalAnswers.delegatesTo(real));
+        AtomicBoolean failed = new AtomicBoolean();
+        Mockito.doAnswer(invocation -> {
+            if (failed.compareAndSet(false, true)) {
+                throw new MongoException("connection reset");
+            }
+            return AdditionalAnswers.delegatesTo(real).answer(invocation);
+        }).when(failsOnce).findOneAndUpdate(any(Bson.class), any(Bson.class), any(FindOneAndUpdateOptions.class));
+        ReflectionTestUtils.setField(reviewStore, "itemCollection", failsOnce);
+
+        assertThatThrownBy(() -> append("item-1", 5, "review-1")).isInstanceOf(MongoException.class);
+        assertThat(rollup("item-1").getInteger("ratingCount")).isZero();
+        append("item-1", 5, "review-1");
+
+        assertThat(reviews().countDocuments()).isEqualTo(1);
+        assertThat(rollup("item-1").getInteger("ratingCount")).isEqualTo(1);
+        assertThat(rollup("item-1").getDouble("ratingAvg")).isEqualTo(5.0);
+    }
+
+    @Test
+    void keepsEveryConcurrentAppend() throws Exception {
+        items().insertOne(item("item-1", "cat-1", 10));
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<Exchange>> appends = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            int rating = i % 5 + 1;
+            appends.add(executor.submit(() -> append("item-1", rating, null)));
+        }
+        try {
+            for (Future<Exchange> append : appends) {
+                append.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+
+        List<Document> buckets = buckets("item-1");
+        assertThat(buckets).allSatisfy(bucket -> assertThat(bucket.getInteger("count")).isBetween(1, 2));
+        assertThat(buckets.stream().mapToInt(bucket -> bucket.getList("reviews", Document.class).size()).sum()).isEqualTo(40);
+        assertThat(rollup("item-1").getInteger("ratingCount")).isEqualTo(40);
+        assertThat(rollup("item-1").getDouble("ratingAvg")).isEqualTo(3.0);
+    }
+
+    @Test
+    void rejectsUnknownItemsAndInvalidRatings() {
+        Exchange unknown = append("missing", 5, null);
+
+        assertThat(unknown.getIn().getHeader(Exchange.HTTP_RESPONSE_CODE)).isEqualTo(404);
+        assertThat(reviews().countDocuments()).isZero();
+        assertThatThrownBy(() -> append("missing", 6, null)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void doesNotOverwriteAHigherRollupWithAStaleOne() {
+        items().insertOne(item("item-1", "cat-1", 10).append("ratingCount", 7).append("ratingAvg", 4.5));
+
+        append("item-1", 1, null);
+
+        assertThat(rollup("item-1").getInteger("ratingCount")).isEqualTo(7);
+        assertThat(rollup("item-1").getDouble("ratingAvg")).isEqualTo(4.5);
+    }
+
+    @Test
+    void pagesThroughTheBucketsOldestFirst() {
+        items().insertOne(item("item-1", "cat-1", 10));
+        for (int i = 0; i < 5; i++) {
+            append("item-1", 5, "review-" + i);
+        }
+
+        List<Object> reviewIds = new ArrayList<>();
+        List<Object> cursors = new ArrayList<>();
+        String after = null;
+        do {
+            Document page = readPage("item-1", after);
+            page.getList("reviews", Document.class).forEach(review -> reviewIds.add(review.get("reviewId")));
+            after = page.get("nextAfter") != null ? page.get("nextAfter").toString() : null;
+            cursors.add(after);
+        } while (after != null);
+
+        assertThat(reviewIds).containsExactly("review-0", "review-1", "review-2", "review-3", "review-4");
+        assertThat(cursors).containsExactly("0", "1", null);
+        assertThat(readPage("item-1", "not-a-number").getList("reviews", Document.class)).hasSize(2);
+        assertThat(readPage("other", null).getList("reviews", Document.class)).isEmpty();
+    }
+
+    @Test
+    void movesEmbeddedReviewsIntoBucketsAndRemovesTheArray() {
+        items().insertOne(item("item-1", "cat-1", 10).append("review", embedded(5, 3, 4)));
+        items().insertOne(item("item-2", "cat-1", 10));
+
+        assertThat(reviewStore.migrateEmbeddedReviews()).isEqualTo(1);
+
+        Document item = items().find(Filters.eq("_id", "item-1")).first();
+        assertThat(item.containsKey("review")).isFalse();
+        assertThat(item.getInteger("ratingCount")).isEqualTo(3);
+        assertThat(item.getDouble("ratingAvg")).isEqualTo(4.0);
+        assertThat(buckets("item-1")).extracting(bucket -> bucket.getInteger("count")).containsExactly(2, 1);
+        assertThat(buckets("item-1").get(0).getList("reviews", Document.class).get(0))
+                .containsEntry("reviewId", "item-1:legacy:0").containsEntry("comment", "review 0");
+        assertThat(reviewStore.migrateItem("item-1")).isFalse();
+    }
+
+    @Test
+    void rerunsAnInterruptedMoveWithoutDuplicatingReviews() {
+        items().insertOne(item("item-1", "cat-1", 10).append("review", embedded(5, 3, 4)));
+        reviews().insertOne(new Document("_id", "item-1:0").append("itemId", "item-1").append("bucket", 0)
+                .append("count", 1).append("ratingSum", 5)
+                .append("reviews", List.of(new Document("reviewId", "item-1:legacy:0").append("rating", 5))));
+
+        assertThat(reviewStore.migrateItem("item-1")).isTrue();
+
+        assertThat(buckets("item-1").stream().mapToInt(bucket -> bucket.getInteger("count")).sum()).isEqualTo(3);
+        assertThat(rollup("item-1").getInteger("ratingCount")).isEqualTo(3);
+        assertThat(rollup("item-1").getDouble("ratingAvg")).isEqualTo(4.0);
+    }
+
+    @Test
+    void continuesAfterAppendedReviewsWhenMovingAPostedItem() {
+        items().insertOne(item("item-1", "cat-1", 10).append("review", embedded(2)));
+        Exchange posted = exchange();
+        posted.setProperty("validatedItem", Map.of("_id", "item-1", "review", List.of(Map.of("rating", 2))));
+
+        reviewStore.migrateInsertedItem(posted);
+        append("item-1", 4, null);
+
+        assertThat(rollup("item-1").getInteger("ratingCount")).isEqualTo(2);
+        assertThat(rollup("item-1").getDouble("ratingAvg")).isEqualTo(3.0);
+    }
+
+    private Exchange append(String itemId, int rating, String reviewId) {
+        Map<String, Object> review = new java.util.HashMap<>(Map.of("rating", rating, "comment", "rated " + rating));
+        if (reviewId != null) {
+            review.put("reviewId", reviewId);
+        }
+        Exchange exchange = exchange();
+        exchange.getIn().setHeader("itemId", itemId);
+        exchange.getIn().setBody(review);
+        reviewStore.append(exchange);
+        return exchange;
+    }
+
+    private Document readPage(String itemId, String after) {
+        Exchange exchange = exchange();
+        exchange.getIn().setHeader("itemId", itemId);
+        exchange.getIn().setHeader("after", after);
+        reviewStore.readPage(exchange);
+        return exchange.getIn().getBody(Document.class);
+    }
+
+    private static List<Document> embedded(int... ratings) {
+        List<Document> reviews = new ArrayList<>();
+        for (int i = 0; i < ratings.length; i++) {
+            reviews.add(new Document("rating", ratings[i]).append("comment", "review " + i));
+        }
+        return reviews;
+    }
+
+    private static List<Document> buckets(String itemId) {
+        return reviews().find(Filters.eq("itemId", itemId)).sort(new Document("bucket", 1)).into(new ArrayList<>());
+    }
+
+    private static Document rollup(String itemId) {
+        return items().find(Filters.eq("_id", itemId)).first();
+    }
+
+    private static MongoCollection<Document> items() {
+        return collection(ApplicationConstants.MONGO_ITEM_WRITE_COLLECTION);
+    }
+
+    private static MongoCollection<Document> reviews() {
+        return collection(ApplicationConstants.MONGO_REVIEW_WRITE_COLLECTION);
+    }
+}
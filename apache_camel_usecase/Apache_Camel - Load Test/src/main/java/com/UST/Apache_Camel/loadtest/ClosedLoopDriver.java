@@ -0,0 +1,96 @@
+package com.UST.Apache_Camel.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongFunction;
+
+// Closed-loop HTTP load: a fixed number of clients, each on its own connection, send a request, wait for the response
+// and send the next one, so the service always has that many requests in flight; this is what exhausts a request
+// thread pool, where the open-loop OpenLoopDriver measures latency at a given rate
+// The clients start spread over the warmup, so the connections are not all opened at once; latency is measured from
+// the actual send, so it is the service time at that concurrency (a closed loop does not see queueing in the client)
+// The peak number of live threads of the JVM during the run is kept as well; the services run in the harness JVM, so
+// it covers their request, MongoDB driver and Camel threads (plus the few of the client)
+final class ClosedLoopDriver {
+
+    private static final long HIGHEST_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(10);
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(30))
+            .build();
+
+    // The outcome of one run at `connections` concurrent clients
+    static final class Result {
+        final int connections;
+        final Histogram latencyMicros = new ConcurrentHistogram(HIGHEST_LATENCY_MICROS, 3);
+        final AtomicLong sent = new AtomicLong();
+        final AtomicLong errors = new AtomicLong();
+        long measuredNanos;
+        int peakThreads;
+
+        Result(int connections) {
+            this.connections = connections;
+        }
+
+        // Responses (successful or not) per second of the measured period
+        double throughput() {
+            return measuredNanos > 0 ? latencyMicros.getTotalCount() * 1e9 / measuredNanos : 0;
+        }
+    }
+
+    // Runs `connections` clients for warmup + duration and waits (up to responseTimeout) for their last responses
+    Result run(int connections, LongFunction<HttpRequest> requests, Duration warmup, Duration duration,
+               Duration responseTimeout) throws InterruptedException {
+        Result result = new Result(connections);
+        result.measuredNanos = duration.toNanos();
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        threads.resetPeakThreadCount();
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+        long rampNanos = warmup.toNanos() / connections;
+        CountDownLatch finished = new CountDownLatch(connections);
+        for (int client = 0; client < connections; client++) {
+            long clientStart = start + client * rampNanos;
+            long wait = clientStart - System.nanoTime();
+            if (wait > 0) {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            }
+            send(result, requests, measureFrom, end, finished);
+        }
+        finished.await(end - System.nanoTime() + responseTimeout.toNanos(), TimeUnit.NANOSECONDS);
+        result.peakThreads = threads.getPeakThreadCount();
+        return result;
+    }
+
+    // Sends one request and, once it completed, the next one of the same client until the end of the run
+    private void send(Result result, LongFunction<HttpRequest> requests, long measureFrom, long end, CountDownLatch finished) {
+        long sentAt = System.nanoTime();
+        if (sentAt >= end) {
+            finished.countDown();
+            return;
+        }
+        httpClient.sendAsync(requests.apply(result.sent.getAndIncrement()), HttpResponse.BodyHandlers.ofString())
+                .whenCompleteAsync((response, failure) -> {
+                    if (sentAt >= measureFrom) {
+                        long latencyMicros = (System.nanoTime() - sentAt) / 1_000;
+                        result.latencyMicros.recordValue(Math.min(latencyMicros, HIGHEST_LATENCY_MICROS));
+                    }
+                    if (failure != null || response.statusCode() >= 400) {
+                        result.errors.incrementAndGet();
+                    }
+                    send(result, requests, measureFrom, end, finished);
+                });
+    }
+}
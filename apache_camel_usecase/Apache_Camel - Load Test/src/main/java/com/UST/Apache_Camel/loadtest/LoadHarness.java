@@ -0,0 +1,397 @@
+package com.UST.Apache_Camel.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Filters;
+import de.bwaldvogel.mongo.MongoServer;
+import org.apache.activemq.broker.BrokerService;
+import org.apache.activemq.command.ActiveMQQueue;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BiConsumer;
+import java.util.function.LongFunction;
+
+// End-to-end load test of the Item Service and the Inventory Queue Processor Service in one JVM
+// Starts an embedded, non-persistent ActiveMQ broker (reached over vm://loadtest) and an in-memory MongoDB stand-in
+// (mongo-java-server), seeds categories and items, starts both services against them (see ServiceLauncher) and drives
+// the REST API with open-loop load (see OpenLoopDriver), then reports throughput and p50/p99/p999 latency per scenario
+// and, for async updates, how long the queue processor needed to drain the queue after the load stopped
+//
+// Build both services and write their classpath once:
+//   mvn compile dependency:build-classpath -Dmdep.outputFile=target/classpath.txt   (in each service module)
+//   mvn package                                                                     (in this module)
+// Run, with any of the options below as key=value (rates are requests per second, 0 disables a scenario):
+//   java -jar target/load-test.jar getItemRate=500 asyncUpdateRate=50 durationSeconds=120
+// Options starting with item. or queue. are passed to the item service or queue processor as Spring properties,
+// e.g. item.app.inventory.updateMode=bulk queue.app.inventory.consumerMode=batch
+//
+// connections=1000,10000 replaces the rate scenarios with closed-loop runs (see ClosedLoopDriver) of connectionsScenario
+// at each number of concurrent connections, one after another; mongoLatencyMs slows every MongoDB command down
+// Comparing the REST thread modes of the item service under a slow MongoDB (the virtual mode needs a JDK 21 runtime):
+//   java -jar target/load-test.jar connections=1000,10000 mongoLatencyMs=20 item.app.item.cache.enabled=false
+//   java -jar target/load-test.jar connections=1000,10000 mongoLatencyMs=20 item.app.item.cache.enabled=false \
+//       item.app.rest.threads.mode=virtual
+// and the blocking against the non-blocking MongoDB reads (peak threads and p99 per number of connections):
+//   java -jar target/load-test.jar connections=1000,10000 mongoLatencyMs=20 item.app.item.cache.enabled=false \
+//       connectionsScenario=categoryItems item.app.mongo.reactiveReads.enabled=true
+// Opening 10k connections needs a matching open file limit (ulimit -n) for the JVM
+public class LoadHarness {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadHarness.class);
+
+    private static final String BROKER_NAME = "loadtest";
+    private static final String DATABASE = "mycartdb";
+    private static final String INVENTORY_QUEUE = "inventory.update.queue";
+    private static final String CORRELATION_STATUS_COLLECTION = "inventory_correlation_status";
+
+    private static final Map<String, String> DEFAULTS = new LinkedHashMap<>();
+
+    static {
+        DEFAULTS.put("itemService", "../Apache_Camel - First Req");
+        DEFAULTS.put("queueProcessor", "../Apache_Camel - Second Req");
+        DEFAULTS.put("items", "10000");
+        DEFAULTS.put("categories", "20");
+        DEFAULTS.put("itemsPerUpdate", "10");
+        DEFAULTS.put("getItemRate", "200");
+        DEFAULTS.put("categoryItemsRate", "20");
+        DEFAULTS.put("createItemRate", "10");
+        DEFAULTS.put("syncUpdateRate", "20");
+        DEFAULTS.put("asyncUpdateRate", "20");
+        DEFAULTS.put("warmupSeconds", "15");
+        DEFAULTS.put("durationSeconds", "60");
+        DEFAULTS.put("responseTimeoutSeconds", "60");
+        DEFAULTS.put("drainTimeoutSeconds", "600");
+        DEFAULTS.put("connections", "");
+        DEFAULTS.put("connectionsScenario", "getItem");
+        DEFAULTS.put("mongoLatencyMs", "0");
+    }
+
+    private final Map<String, String> options;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Queue<String> correlationIds = new ConcurrentLinkedQueue<>();
+    private final List<String> itemServiceProperties = new ArrayList<>();
+    private final List<String> queueProcessorProperties = new ArrayList<>();
+    private String baseUrl;
+
+    LoadHarness(Map<String, String> options) {
+        this.options = options;
+        options.forEach((key, value) -> {
+            if (key.startsWith("item.")) {
+                itemServiceProperties.add("--" + key.substring("item.".length()) + "=" + value);
+            } else if (key.startsWith("queue.")) {
+                queueProcessorProperties.add("--" + key.substring("queue.".length()) + "=" + value);
+            } else if (!DEFAULTS.containsKey(key)) {
+                throw new IllegalArgumentException("Unknown option: " + key + " (options: " + DEFAULTS.keySet() + ")");
+            }
+        });
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Expected key=value, got: " + arg);
+            }
+            options.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        new LoadHarness(options).run();
+        System.exit(0);
+    }
+
+    void run() throws Exception {
+        BrokerService broker = new BrokerService();
+        broker.setBrokerName(BROKER_NAME);
+        broker.setPersistent(false);
+        broker.setUseJmx(false);
+        broker.start();
+        broker.waitUntilStarted();
+
+        SlowMemoryBackend mongoBackend = new SlowMemoryBackend();
+        MongoServer mongoServer = new MongoServer(mongoBackend);
+        InetSocketAddress mongoAddress = mongoServer.bind();
+        String mongoUri = "mongodb://127.0.0.1:" + mongoAddress.getPort() + "/" + DATABASE;
+
+        try (MongoClient mongoClient = MongoClients.create(mongoUri)) {
+            MongoDatabase database = mongoClient.getDatabase(DATABASE);
+            seed(database);
+            mongoBackend.setLatencyMillis(longOption("mongoLatencyMs"));
+
+            int itemServicePort = freePort();
+            baseUrl = "http://127.0.0.1:" + itemServicePort + "/camel";
+            List<String> common = List.of(
+                    "--spring.activemq.broker-url=vm://" + BROKER_NAME + "?create=false",
+                    "--spring.data.mongodb.uri=" + mongoUri,
+                    "--spring.jmx.enabled=false",
+                    "--camel.springboot.jmx-enabled=false",
+                    "--app.mongo.explain.mode=off");
+            try (ServiceLauncher queueProcessor = new ServiceLauncher("queue processor", Path.of(option("queueProcessor")));
+                 ServiceLauncher itemService = new ServiceLauncher("item service", Path.of(option("itemService")))) {
+                queueProcessor.start(concat(common, List.of("--server.port=" + freePort()), queueProcessorProperties));
+                itemService.start(concat(common, List.of("--server.port=" + itemServicePort), connectionLimit(), itemServiceProperties));
+
+                if (!option("connections").isEmpty()) {
+                    runConnections();
+                    return;
+                }
+                List<OpenLoopDriver.Scenario> scenarios = scenarios();
+                logger.info("Driving {} for {}s after a {}s warmup", baseUrl, option("durationSeconds"), option("warmupSeconds"));
+                new OpenLoopDriver().run(scenarios,
+                        Duration.ofSeconds(longOption("warmupSeconds")),
+                        Duration.ofSeconds(longOption("durationSeconds")),
+                        Duration.ofSeconds(longOption("responseTimeoutSeconds")));
+                long loadEnd = System.nanoTime();
+                long drainNanos = correlationIds.isEmpty() ? -1 : drain(broker, database, loadEnd);
+                report(scenarios, drainNanos);
+            }
+        } finally {
+            mongoServer.shutdownNow();
+            broker.stop();
+            broker.waitUntilStopped();
+        }
+    }
+
+    // Categories cat-0..n and items item-0..n spread over them, stocked so the updates of a run never run out
+    private void seed(MongoDatabase database) {
+        int categories = intOption("categories");
+        List<Document> categoryDocuments = new ArrayList<>(categories);
+        for (int i = 0; i < categories; i++) {
+            categoryDocuments.add(new Document("_id", "cat-" + i).append("categoryName", "Category " + i));
+        }
+        database.getCollection("category").insertMany(categoryDocuments);
+
+        int items = intOption("items");
+        List<Document> itemDocuments = new ArrayList<>(items);
+        for (int i = 0; i < items; i++) {
+            itemDocuments.add(item("item-" + i, "cat-" + (i % categories))
+                    .append("lastUpdateDate", "2024-01-01"));
+            if (itemDocuments.size() == 1000 || i == items - 1) {
+                database.getCollection("item").insertMany(itemDocuments);
+                itemDocuments.clear();
+            }
+        }
+        logger.info("Seeded {} categories and {} items", categories, items);
+    }
+
+    private List<OpenLoopDriver.Scenario> scenarios() {
+        Map<String, LongFunction<HttpRequest>> requests = requests();
+        List<OpenLoopDriver.Scenario> scenarios = new ArrayList<>();
+        requests.forEach((name, scenarioRequests) -> addScenario(scenarios, name, scenarioRequests,
+                name.equals("asyncUpdate") ? (n, response) -> correlationIds.add(readCorrelationId(response)) : null));
+        return scenarios;
+    }
+
+    // The request of every scenario by name; n is the request number within the scenario
+    private Map<String, LongFunction<HttpRequest>> requests() {
+        int items = intOption("items");
+        int categories = intOption("categories");
+        int itemsPerUpdate = intOption("itemsPerUpdate");
+        Map<String, LongFunction<HttpRequest>> requests = new LinkedHashMap<>();
+        requests.put("getItem", n -> get("/mycart/item/item-" + random(items)));
+        requests.put("categoryItems", n -> get("/mycart/items/cat-" + random(categories)));
+        requests.put("createItem", n -> post("/mycart", item("load-item-" + n, "cat-" + random(categories)).toJson()));
+        requests.put("syncUpdate", n -> post("/inventory/update", updatePayload(items, itemsPerUpdate)));
+        requests.put("asyncUpdate", n -> post("/inventory/async-update", updatePayload(items, itemsPerUpdate)));
+        return requests;
+    }
+
+    // Runs connectionsScenario closed-loop at each number of connections and reports them side by side
+    private void runConnections() throws InterruptedException {
+        String scenario = option("connectionsScenario");
+        LongFunction<HttpRequest> requests = requests().get(scenario);
+        if (requests == null) {
+            throw new IllegalArgumentException("Unknown connectionsScenario: " + scenario + " (scenarios: " + requests().keySet() + ")");
+        }
+        ClosedLoopDriver driver = new ClosedLoopDriver();
+        List<ClosedLoopDriver.Result> results = new ArrayList<>();
+        for (int connections : connectionLevels()) {
+            logger.info("Driving {} with {} connections for {}s after a {}s ramp-up", scenario, connections,
+                    option("durationSeconds"), option("warmupSeconds"));
+            results.add(driver.run(connections, requests,
+                    Duration.ofSeconds(longOption("warmupSeconds")),
+                    Duration.ofSeconds(longOption("durationSeconds")),
+                    Duration.ofSeconds(longOption("responseTimeoutSeconds"))));
+        }
+        System.out.printf("%n%s, REST threads %s, reactive reads %s, MongoDB latency %s ms%n", scenario,
+                options.getOrDefault("item.app.rest.threads.mode", "platform"),
+                options.getOrDefault("item.app.mongo.reactiveReads.enabled", "false"), option("mongoLatencyMs"));
+        System.out.printf("%-12s %9s %7s %8s %11s %9s %9s %9s %9s%n",
+                "connections", "sent", "errors", "threads", "thrpt/s", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        for (ClosedLoopDriver.Result result : results) {
+            System.out.printf("%-12d %9d %7d %8d %11.1f %9.2f %9.2f %9.2f %9.2f%n",
+                    result.connections, result.sent.get(), result.errors.get(), result.peakThreads, result.throughput(),
+                    millis(result.latencyMicros.getValueAtPercentile(50)),
+                    millis(result.latencyMicros.getValueAtPercentile(99)),
+                    millis(result.latencyMicros.getValueAtPercentile(99.9)),
+                    millis(result.latencyMicros.getMaxValue()));
+        }
+    }
+
+    private List<Integer> connectionLevels() {
+        List<Integer> levels = new ArrayList<>();
+        for (String level : option("connections").split(",")) {
+            levels.add(Integer.parseInt(level.trim()));
+        }
+        return levels;
+    }
+
+    // Lets Tomcat accept all closed-loop connections (it holds at most 8192 by default), unless set with
+    // item.server.tomcat.max-connections
+    private List<String> connectionLimit() {
+        if (option("connections").isEmpty() || options.containsKey("item.server.tomcat.max-connections")) {
+            return List.of();
+        }
+        int maxConnections = connectionLevels().stream().mapToInt(Integer::intValue).max().orElse(0);
+        return List.of("--server.tomcat.max-connections=" + (maxConnections + 1000));
+    }
+
+    private void addScenario(List<OpenLoopDriver.Scenario> scenarios, String name, LongFunction<HttpRequest> requests,
+                             BiConsumer<Long, HttpResponse<String>> onResponse) {
+        double rate = Double.parseDouble(option(name + "Rate"));
+        if (rate > 0) {
+            scenarios.add(new OpenLoopDriver.Scenario(name, rate, requests, onResponse != null ? onResponse : (n, response) -> {
+            }));
+        }
+    }
+
+    // Waits until the inventory queue is empty and every accepted async update is completed in its correlation summary
+    // Returns the time from the end of the load until then, or -1 if drainTimeoutSeconds passed first
+    private long drain(BrokerService broker, MongoDatabase database, long loadEnd) throws Exception {
+        Set<String> pending = new HashSet<>(correlationIds);
+        long deadline = loadEnd + Duration.ofSeconds(longOption("drainTimeoutSeconds")).toNanos();
+        while (System.nanoTime() < deadline) {
+            long queued = broker.getDestination(new ActiveMQQueue(INVENTORY_QUEUE)).getDestinationStatistics().getMessages().getCount();
+            for (Document summary : database.getCollection(CORRELATION_STATUS_COLLECTION).find(Filters.in("_id", pending))) {
+                int total = summary.get("total", Number.class).intValue();
+                int done = summary.get("succeeded", 0) + summary.get("failed", 0);
+                if (done >= total) {
+                    pending.remove(summary.getString("_id"));
+                }
+            }
+            if (queued == 0 && pending.isEmpty()) {
+                return System.nanoTime() - loadEnd;
+            }
+            Thread.sleep(50);
+        }
+        logger.warn("Queue not drained after {}s: {} async updates still pending", option("drainTimeoutSeconds"), pending.size());
+        return -1;
+    }
+
+    private void report(List<OpenLoopDriver.Scenario> scenarios, long drainNanos) {
+        System.out.printf("%n%-14s %9s %9s %7s %11s %9s %9s %9s %9s%n",
+                "scenario", "rate/s", "sent", "errors", "thrpt/s", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        for (OpenLoopDriver.Scenario scenario : scenarios) {
+            System.out.printf("%-14s %9.1f %9d %7d %11.1f %9.2f %9.2f %9.2f %9.2f%n",
+                    scenario.name, scenario.ratePerSecond, scenario.sent.get(), scenario.errors.get(), scenario.throughput(),
+                    millis(scenario.latencyMicros.getValueAtPercentile(50)),
+                    millis(scenario.latencyMicros.getValueAtPercentile(99)),
+                    millis(scenario.latencyMicros.getValueAtPercentile(99.9)),
+                    millis(scenario.latencyMicros.getMaxValue()));
+        }
+        if (drainNanos >= 0) {
+            System.out.printf("%nAsync updates: %d accepted (%d items), queue drained %.2f s after the load stopped%n",
+                    correlationIds.size(), (long) correlationIds.size() * intOption("itemsPerUpdate"), drainNanos / 1e9);
+        } else if (!correlationIds.isEmpty()) {
+            System.out.printf("%nAsync updates: %d accepted, queue not drained within %s s%n",
+                    correlationIds.size(), option("drainTimeoutSeconds"));
+        }
+    }
+
+    private static Document item(String id, String categoryId) {
+        return new Document("_id", id)
+                .append("itemName", "Item " + id)
+                .append("categoryId", categoryId)
+                .append("itemPrice", new Document("basePrice", 100.0).append("sellingPrice", 90.0))
+                .append("stockDetails", new Document("availableStock", 1_000_000_000)
+                        .append("unitOfMeasure", "pcs")
+                        .append("soldOut", 0)
+                        .append("damaged", 0))
+                .append("specialProduct", false)
+                .append("ratingCount", 0)
+                .append("ratingAvg", 0.0);
+    }
+
+    private String updatePayload(int items, int itemsPerUpdate) {
+        StringBuilder payload = new StringBuilder("{\"items\":[");
+        for (int i = 0; i < itemsPerUpdate; i++) {
+            payload.append(i > 0 ? "," : "")
+                    .append("{\"_id\":\"item-").append(random(items))
+                    .append("\",\"stockDetails\":{\"soldOut\":1,\"damaged\":0}}");
+        }
+        return payload.append("]}").toString();
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build();
+    }
+
+    private HttpRequest post(String path, String body) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private String readCorrelationId(HttpResponse<String> response) {
+        try {
+            return objectMapper.readTree(response.body()).path("correlationId").asText();
+        } catch (Exception e) {
+            throw new IllegalStateException("Unexpected async update response: " + response.body(), e);
+        }
+    }
+
+    private static int random(int bound) {
+        return ThreadLocalRandom.current().nextInt(bound);
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    private static int freePort() throws Exception {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    @SafeVarargs
+    private static List<String> concat(List<String>... parts) {
+        List<String> all = new ArrayList<>();
+        for (List<String> part : parts) {
+            all.addAll(part);
+        }
+        return all;
+    }
+
+    private String option(String key) {
+        return options.getOrDefault(key, DEFAULTS.get(key));
+    }
+
+    private int intOption(String key) {
+        return Integer.parseInt(option(key));
+    }
+
+    private long longOption(String key) {
+        return Long.parseLong(option(key));
+    }
+}
@@ -0,0 +1,107 @@
+package com.UST.Apache_Camel.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiConsumer;
+import java.util.function.LongFunction;
+
+// Open-loop HTTP load: every scenario sends its requests on a fixed schedule (rate per second) whether or not earlier
+// responses came back, so a slow service builds up outstanding requests instead of slowing the load down
+// Latency is measured from the scheduled send time, not the actual one, so time spent queued in the client is counted
+// (no coordinated omission); requests scheduled during the warmup are sent but not recorded
+final class OpenLoopDriver {
+
+    private static final long HIGHEST_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(10);
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+    // A request stream sent at ratePerSecond; requests builds the n-th request and onResponse sees every successful response
+    static final class Scenario {
+        final String name;
+        final double ratePerSecond;
+        final LongFunction<HttpRequest> requests;
+        final BiConsumer<Long, HttpResponse<String>> onResponse;
+        final Histogram latencyMicros = new ConcurrentHistogram(HIGHEST_LATENCY_MICROS, 3);
+        final AtomicLong sent = new AtomicLong();
+        final AtomicLong completed = new AtomicLong();
+        final AtomicLong errors = new AtomicLong();
+        volatile long measuredNanos;
+
+        Scenario(String name, double ratePerSecond, LongFunction<HttpRequest> requests, BiConsumer<Long, HttpResponse<String>> onResponse) {
+            this.name = name;
+            this.ratePerSecond = ratePerSecond;
+            this.requests = requests;
+            this.onResponse = onResponse;
+        }
+
+        long outstanding() {
+            return sent.get() - completed.get() - errors.get();
+        }
+
+        // Responses (successful or not) per second of the measured period
+        double throughput() {
+            return measuredNanos > 0 ? latencyMicros.getTotalCount() * 1e9 / measuredNanos : 0;
+        }
+    }
+
+    // Runs all scenarios concurrently for warmup + duration and waits (up to responseTimeout) for the outstanding responses
+    void run(List<Scenario> scenarios, Duration warmup, Duration duration, Duration responseTimeout) throws InterruptedException {
+        long start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+        long measureFrom = start + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+        List<Thread> schedulers = new ArrayList<>();
+        for (Scenario scenario : scenarios) {
+            scenario.measuredNanos = duration.toNanos();
+            Thread scheduler = new Thread(() -> schedule(scenario, start, measureFrom, end), "load-" + scenario.name);
+            schedulers.add(scheduler);
+            scheduler.start();
+        }
+        for (Thread scheduler : schedulers) {
+            scheduler.join();
+        }
+        long deadline = System.nanoTime() + responseTimeout.toNanos();
+        while (scenarios.stream().anyMatch(scenario -> scenario.outstanding() > 0) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private void schedule(Scenario scenario, long start, long measureFrom, long end) {
+        long intervalNanos = (long) (1e9 / scenario.ratePerSecond);
+        for (long n = 0; start + n * intervalNanos < end; n++) {
+            long scheduled = start + n * intervalNanos;
+            long wait = scheduled - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            boolean measured = scheduled >= measureFrom;
+            long requestNumber = n;
+            scenario.sent.incrementAndGet();
+            httpClient.sendAsync(scenario.requests.apply(n), HttpResponse.BodyHandlers.ofString())
+                    .whenComplete((response, failure) -> {
+                        long latencyMicros = (System.nanoTime() - scheduled) / 1_000;
+                        if (measured) {
+                            scenario.latencyMicros.recordValue(Math.min(latencyMicros, HIGHEST_LATENCY_MICROS));
+                        }
+                        if (failure != null || response.statusCode() >= 400) {
+                            scenario.errors.incrementAndGet();
+                        } else {
+                            scenario.onResponse.accept(requestNumber, response);
+                            scenario.completed.incrementAndGet();
+                        }
+                    });
+        }
+    }
+}
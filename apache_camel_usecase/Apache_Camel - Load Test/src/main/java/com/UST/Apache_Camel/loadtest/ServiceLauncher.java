@@ -0,0 +1,125 @@
+package com.UST.Apache_Camel.loadtest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+// Runs one of the Spring Boot services (its target/classes plus the dependencies listed in target/classpath.txt)
+// inside the harness JVM, in a class loader of its own: both services use the same class names, so they cannot
+// share one. The ActiveMQ and JMS classes are the exception and come from the harness, so the services' vm://
+// connections find the broker the harness embedded
+// target/classpath.txt is written by: mvn dependency:build-classpath -Dmdep.outputFile=target/classpath.txt
+final class ServiceLauncher implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ServiceLauncher.class);
+
+    private static final String APPLICATION_CLASS = "com.UST.Apache_Camel.ApacheCamelApplication";
+    private static final String[] SHARED_PACKAGES = {
+            "org.apache.activemq.", "javax.jms.", "org.fusesource.hawtbuf.", "javax.management.j2ee."};
+
+    private final String name;
+    private final ServiceClassLoader classLoader;
+    private Object applicationContext;
+
+    ServiceLauncher(String name, Path moduleDir) throws IOException {
+        this.name = name;
+        Path classes = moduleDir.resolve("target/classes");
+        Path classpathFile = moduleDir.resolve("target/classpath.txt");
+        if (!Files.isDirectory(classes) || !Files.isRegularFile(classpathFile)) {
+            throw new IllegalStateException(name + " is not built: run 'mvn compile dependency:build-classpath"
+                    + " -Dmdep.outputFile=target/classpath.txt' in " + moduleDir.toAbsolutePath());
+        }
+        List<URL> urls = new ArrayList<>();
+        urls.add(classes.toUri().toURL());
+        for (String entry : Files.readString(classpathFile, StandardCharsets.UTF_8).trim().split(java.io.File.pathSeparator)) {
+            if (!entry.isBlank()) {
+                urls.add(Path.of(entry).toUri().toURL());
+            }
+        }
+        classLoader = new ServiceClassLoader(name, urls.toArray(new URL[0]), ServiceLauncher.class.getClassLoader());
+    }
+
+    // Starts the service with the given Spring Boot arguments (--property=value) and waits until it is ready
+    void start(List<String> arguments) throws Exception {
+        Thread thread = Thread.currentThread();
+        ClassLoader previous = thread.getContextClassLoader();
+        thread.setContextClassLoader(classLoader);
+        try {
+            long start = System.nanoTime();
+            Class<?> application = classLoader.loadClass(APPLICATION_CLASS);
+            Class<?> springApplication = classLoader.loadClass("org.springframework.boot.SpringApplication");
+            applicationContext = springApplication.getMethod("run", Class.class, String[].class)
+                    .invoke(null, application, arguments.toArray(new String[0]));
+            logger.info("Started {} in {} ms", name, (System.nanoTime() - start) / 1_000_000);
+        } finally {
+            thread.setContextClassLoader(previous);
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (applicationContext != null) {
+            Thread thread = Thread.currentThread();
+            ClassLoader previous = thread.getContextClassLoader();
+            thread.setContextClassLoader(classLoader);
+            try {
+                applicationContext.getClass().getMethod("close").invoke(applicationContext);
+            } finally {
+                thread.setContextClassLoader(previous);
+            }
+            applicationContext = null;
+        }
+        classLoader.close();
+    }
+
+    // Child-first class loader: JDK classes from the platform loader, the shared packages from the harness,
+    // everything else (Spring, Camel, the service itself) from the service's own classpath
+    private static final class ServiceClassLoader extends URLClassLoader {
+
+        private final ClassLoader harnessClassLoader;
+
+        ServiceClassLoader(String name, URL[] urls, ClassLoader harnessClassLoader) {
+            super(name, urls, ClassLoader.getPlatformClassLoader());
+            this.harnessClassLoader = harnessClassLoader;
+        }
+
+        @Override
+        protected Class<?> loadClass(String className, boolean resolve) throws ClassNotFoundException {
+            synchronized (getClassLoadingLock(className)) {
+                Class<?> loaded = findLoadedClass(className);
+                if (loaded == null) {
+                    if (isShared(className)) {
+                        loaded = harnessClassLoader.loadClass(className);
+                    } else {
+                        try {
+                            loaded = getParent().loadClass(className);
+                        } catch (ClassNotFoundException e) {
+                            loaded = findClass(className);
+                        }
+                    }
+                }
+                if (resolve) {
+                    resolveClass(loaded);
+                }
+                return loaded;
+            }
+        }
+
+        private static boolean isShared(String className) {
+            for (String sharedPackage : SHARED_PACKAGES) {
+                if (className.startsWith(sharedPackage)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.UST.Apache_Camel.loadtest;
+
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import de.bwaldvogel.mongo.bson.Document;
+import de.bwaldvogel.mongo.wire.message.MongoMessage;
+
+import java.util.concurrent.TimeUnit;
+
+// In-memory MongoDB stand-in that answers every command (OP_MSG, which the 4.x drivers use for all operations) only
+// after latencyMillis, to load the services against a slow MongoDB
+// The delay blocks the mongo-java-server I/O thread of the connection, so the stand-in also has a bounded capacity,
+// like a saturated server: its I/O threads times 1000 / latencyMillis commands per second
+final class SlowMemoryBackend extends MemoryBackend {
+
+    private volatile long latencyMillis;
+
+    // Applies from the next command on; the harness seeds the data before slowing the backend down
+    void setLatencyMillis(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+    }
+
+    @Override
+    public Document handleMessage(MongoMessage message) {
+        long latency = latencyMillis;
+        if (latency > 0) {
+            try {
+                TimeUnit.MILLISECONDS.sleep(latency);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return super.handleMessage(message);
+    }
+}
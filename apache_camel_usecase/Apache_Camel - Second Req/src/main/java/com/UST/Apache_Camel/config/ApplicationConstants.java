@@ -6,7 +6,8 @@ public final class ApplicationConstants {
         // Private constructor to prevent instantiation
     }
 
-    // MongoDB Database
+    // MongoDB Client and Database
+    public static final String MONGO_CLIENT_BEAN = "mongoClient";
     public static final String MONGO_DATABASE = "mycartdb";
 
     // MongoDB Collections
@@ -15,6 +16,22 @@ public final class ApplicationConstants {
     public static final String MONGO_CATEGORY_READ_COLLECTION = "category";
     public static final String MONGO_CATEGORY_WRITE_COLLECTION = "category";
     public static final String MONGO_INVENTORY_AUDIT_WRITE_COLLECTION = "inventory_audit";
+    public static final String MONGO_CORRELATION_STATUS_WRITE_COLLECTION = "inventory_correlation_status";
+    public static final String MONGO_PROCESSED_MESSAGE_WRITE_COLLECTION = "inventory_processed_message";
+    public static final String MONGO_CATEGORY_CATALOG_WRITE_COLLECTION = "category_catalog";
+
+    // MongoDB Indexes
+    public static final String MONGO_INDEX_AUDIT_CORRELATION_ID = "correlationId";
+    public static final String MONGO_INDEX_AUDIT_ITEM_ID = "itemId_timestamp";
+    public static final String MONGO_INDEX_CORRELATION_STATUS_TTL = "createdAt_ttl";
+    public static final long CORRELATION_STATUS_TTL_DAYS = 7;
+    public static final String MONGO_INDEX_PROCESSED_MESSAGE_TTL = "processedAt_ttl";
+    public static final long PROCESSED_MESSAGE_TTL_DAYS = 7;
+
+    // Query Plan Verification Modes
+    public static final String EXPLAIN_MODE_OFF = "off";
+    public static final String EXPLAIN_MODE_WARN = "warn";
+    public static final String EXPLAIN_MODE_FAIL = "fail";
 
     // MongoDB Endpoint URIs
     public static final String MONGO_ITEM_FIND_BY_ID = "mongodb:mongoClient?database=%s&collection=%s&operation=findById";
@@ -30,9 +47,30 @@ public final class ApplicationConstants {
     public static final String AMQ_INVENTORY_UPDATE_WRITE_QUEUE = "inventory.update.queue";
     public static final String AMQ_INVENTORY_UPDATE_READ_QUEUE = "inventory.update.queue";
 
+    // ActiveMQ Topics
+    public static final String AMQ_ITEM_CACHE_INVALIDATE_TOPIC = "item.cache.invalidate";
+
+    // ActiveMQ Message Properties
+    public static final String INVENTORY_CHUNK_HEADER = "InventoryChunkSize";
+
     // ActiveMQ Endpoint URIs
     public static final String AMQ_INVENTORY_UPDATE_WRITE = "activemq:queue:%s";
-    public static final String AMQ_INVENTORY_UPDATE_READ = "activemq:queue:%s?concurrentConsumers=5";
+    public static final String AMQ_INVENTORY_UPDATE_READ = "activemq:queue:%s?concurrentConsumers=%d&cacheLevelName=CACHE_CONSUMER";
+    public static final String AMQ_ITEM_CACHE_INVALIDATE_WRITE = "activemq:topic:%s?exchangePattern=InOnly&deliveryPersistent=false";
+
+    // Netty HTTP Endpoint URIs
+    public static final String NETTY_HTTP_METRICS_READ = "netty-http:http://%s:%d/actuator/prometheus?httpMethodRestrict=GET";
+
+    // Scheduler Endpoint URIs
+    public static final String SCHEDULER_INVENTORY_BATCH = "scheduler:inventoryBatch?delay=1";
+
+    // Inventory Update Modes
+    public static final String INVENTORY_UPDATE_MODE_READ_MODIFY_WRITE = "read-modify-write";
+    public static final String INVENTORY_UPDATE_MODE_ATOMIC = "atomic";
+
+    // Inventory Queue Consumer Modes
+    public static final String INVENTORY_CONSUMER_MODE_SINGLE = "single";
+    public static final String INVENTORY_CONSUMER_MODE_BATCH = "batch";
 
     // REST Configuration
     public static final String REST_HOST = "0.0.0.0";
@@ -58,6 +96,9 @@ public final class ApplicationConstants {
     public static final String ROUTE_UPDATE_INVENTORY = "updateInventoryRoute";
     public static final String ROUTE_ASYNC_INVENTORY_UPDATE = "asyncInventoryUpdateRoute";
     public static final String ROUTE_PROCESS_INVENTORY_QUEUE = "processInventoryQueueRoute";
+    public static final String ROUTE_PROCESS_INVENTORY_ITEM = "processInventoryItemRoute";
+    public static final String ROUTE_PUBLISH_ITEM_CACHE_INVALIDATION = "publishItemCacheInvalidationRoute";
+    public static final String ROUTE_METRICS_SCRAPE = "metricsScrapeRoute";
 
     // Endpoint Names
     public static final String ENDPOINT_GET_ITEM_BY_ID = "getItemById";
@@ -67,4 +108,6 @@ public final class ApplicationConstants {
     public static final String ENDPOINT_PROCESS_INVENTORY_UPDATE = "processInventoryUpdate";
     public static final String ENDPOINT_UPDATE_INVENTORY = "updateInventory";
     public static final String ENDPOINT_ASYNC_INVENTORY_UPDATE = "asyncInventoryUpdate";
+    public static final String ENDPOINT_PROCESS_INVENTORY_ITEM = "processInventoryItem";
+    public static final String ENDPOINT_PUBLISH_ITEM_CACHE_INVALIDATION = "publishItemCacheInvalidation";
 }
\ No newline at end of file
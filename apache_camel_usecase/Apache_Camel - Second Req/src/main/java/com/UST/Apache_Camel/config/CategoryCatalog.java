@@ -0,0 +1,125 @@
+package com.UST.Apache_Camel.config;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/* Keeps the item service's materialized category listing (category_catalog, app.category.catalog.enabled) up to date
+   for the stock updates applied here: the entries of the updated items are replaced with their current state, in
+   the same way as the item service does for its own updates (see CategoryCatalog there, which also builds the
+   collection and serves the pages) */
+@Component
+@ManagedResource(objectName = "com.UST.Apache_Camel:type=CategoryCatalog", description = "Category catalog refresh after stock updates")
+public class CategoryCatalog {
+
+    private static final Logger logger = LoggerFactory.getLogger(CategoryCatalog.class);
+
+    /* The item fields of a catalog entry, next to _id */
+    private static final List<String> LISTED_FIELDS = List.of(
+            "itemName", "categoryId", "lastUpdateDate", "itemPrice", "stockDetails", "specialProduct", "ratingCount", "ratingAvg");
+
+    @Autowired
+    private MongoClient mongoClient;
+
+    @Value("${app.category.catalog.enabled:false}")
+    private boolean enabled;
+
+    private MongoCollection<Document> itemCollection;
+    private MongoCollection<Document> catalogCollection;
+
+    private final AtomicLong refreshedItemCount = new AtomicLong();
+    private final AtomicLong refreshFailureCount = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        itemCollection = mongoClient.getDatabase(ApplicationConstants.MONGO_DATABASE)
+                .getCollection(ApplicationConstants.MONGO_ITEM_READ_COLLECTION);
+        catalogCollection = mongoClient.getDatabase(ApplicationConstants.MONGO_DATABASE)
+                .getCollection(ApplicationConstants.MONGO_CATEGORY_CATALOG_WRITE_COLLECTION);
+        logger.info("Category catalog refresh enabled: {}", enabled);
+    }
+
+    /* Replaces the catalog entries of the updated items (the body set by prepareCacheInvalidation) with their current
+       state, read with one $in query and written with one unordered bulkWrite
+       An entry is only replaced by a higher version of the item (every item write $inc's it), so a refresh that read
+       an item before a concurrent one cannot write older values over it, whatever the writes in between changed
+       A failed refresh is only logged: the stock updates were applied, and a catalog rebuild repairs the entries */
+    public void refreshItems(Collection<String> itemIds) {
+        if (!enabled || itemIds == null || itemIds.isEmpty()) {
+            return;
+        }
+        try {
+            List<WriteModel<Document>> writes = new ArrayList<>();
+            itemCollection.find(Filters.in("_id", itemIds))
+                    .projection(Projections.fields(Projections.include(LISTED_FIELDS), Projections.include("version")))
+                    .forEach(item -> writes.add(new UpdateOneModel<>(
+                            Filters.and(Filters.eq("_id", segmentId(item.getString("categoryId"), item.get("specialProduct"))),
+                                    Filters.elemMatch("items", entryGuard(item))),
+                            Updates.set("items.$", entry(item)))));
+            if (!writes.isEmpty()) {
+                catalogCollection.bulkWrite(writes, new BulkWriteOptions().ordered(false));
+                refreshedItemCount.addAndGet(writes.size());
+            }
+        } catch (RuntimeException e) {
+            refreshFailureCount.incrementAndGet();
+            logger.warn("Category catalog refresh failed for items {}: {}", itemIds, e.getMessage());
+        }
+    }
+
+    /* Segment of the item's category: regular for specialProduct false, special for every other item */
+    private static String segmentId(String categoryId, Object specialProduct) {
+        return categoryId + (Boolean.FALSE.equals(specialProduct) ? ":regular" : ":special");
+    }
+
+    /* The catalog entry of an item: _id, the listed fields and the item's version */
+    private static Document entry(Document item) {
+        Document entry = new Document("_id", item.get("_id"));
+        LISTED_FIELDS.stream()
+                .filter(item::containsKey)
+                .forEach(field -> entry.append(field, item.get(field)));
+        if (item.get("version") != null) {
+            entry.append("version", item.get("version"));
+        }
+        return entry;
+    }
+
+    /* Matches the item's entry when it holds a lower version than the item read, or none; an item without a version
+       (stored by other tools and not written since) only replaces an entry without one */
+    private static Bson entryGuard(Document item) {
+        Object version = item.get("version");
+        Bson olderVersion = version instanceof Number
+                ? Filters.or(Filters.exists("version", false), Filters.lt("version", version))
+                : Filters.exists("version", false);
+        return Filters.and(Filters.eq("_id", item.get("_id")), olderVersion);
+    }
+
+    @ManagedAttribute(description = "Catalog entries refreshed after stock updates")
+    public long getRefreshedItemCount() {
+        return refreshedItemCount.get();
+    }
+
+    @ManagedAttribute(description = "Refreshes that failed and left catalog entries for a rebuild to repair")
+    public long getRefreshFailureCount() {
+        return refreshFailureCount.get();
+    }
+}
@@ -0,0 +1,311 @@
+package com.UST.Apache_Camel.config;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoSocketException;
+import com.mongodb.MongoTimeoutException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.InsertManyOptions;
+import org.apache.camel.Exchange;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Component
+@ManagedResource(objectName = "com.UST.Apache_Camel:type=InventoryAuditWriter", description = "Write-behind buffer for inventory_audit inserts")
+public class InventoryAuditWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(InventoryAuditWriter.class);
+    /* Audit records that could not be written, one JSON document per line; route this logger to its own appender to
+       keep them for a replay */
+    private static final Logger deadLetterLogger = LoggerFactory.getLogger(InventoryAuditWriter.class.getName() + ".deadLetter");
+    private static final int DUPLICATE_KEY_ERROR = 11000;
+
+    @Autowired
+    private MongoClient mongoClient;
+
+    @Value("${app.inventory.audit.bufferCapacity:10000}")
+    private int bufferCapacity;
+
+    @Value("${app.inventory.audit.flushSize:500}")
+    private int flushSize;
+
+    @Value("${app.inventory.audit.flushIntervalMs:500}")
+    private long flushIntervalMs;
+
+    @Value("${app.inventory.audit.maxBlockMs:5000}")
+    private long maxBlockMs;
+
+    @Value("${app.inventory.audit.shutdownTimeoutMs:30000}")
+    private long shutdownTimeoutMs;
+
+    @Value("${app.inventory.audit.maxFlushAttempts:5}")
+    private int maxFlushAttempts;
+
+    @Value("${app.inventory.audit.retryBackoffMs:1000}")
+    private long retryBackoffMs;
+
+    private BlockingQueue<Document> buffer;
+    private MongoCollection<Document> auditCollection;
+    private Thread flusher;
+    private volatile boolean running;
+
+    private final AtomicLong writtenCount = new AtomicLong();
+    private final AtomicLong blockedCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong failedFlushCount = new AtomicLong();
+    private final AtomicLong deadLetteredCount = new AtomicLong();
+    private final AtomicLong flushCount = new AtomicLong();
+    private final AtomicLong totalFlushNanos = new AtomicLong();
+    private volatile long lastFlushLatencyMs;
+    private volatile long maxFlushLatencyMs;
+
+    @PostConstruct
+    public void start() {
+        buffer = new ArrayBlockingQueue<>(bufferCapacity);
+        auditCollection = mongoClient.getDatabase(ApplicationConstants.MONGO_DATABASE)
+                .getCollection(ApplicationConstants.MONGO_INVENTORY_AUDIT_WRITE_COLLECTION);
+        running = true;
+        flusher = new Thread(this::flushLoop, "inventory-audit-writer");
+        flusher.setDaemon(true);
+        flusher.start();
+        logger.info("Started audit writer with capacity {}, flushSize {}, flushIntervalMs {}", bufferCapacity, flushSize, flushIntervalMs);
+    }
+
+    /* Accepts the audit record in the exchange body for a later insertMany (write-behind audit mode)
+       Returns immediately while the buffer has room; when it is full the consumer thread waits up to maxBlockMs,
+       which throttles the queue consumers to the rate Mongo can absorb
+       A record that still does not fit is dropped and logged with its content */
+    public void submit(Exchange exchange) throws InterruptedException {
+        Document auditRecord = new Document(exchange.getIn().getBody(Map.class));
+        if (buffer.offer(auditRecord)) {
+            return;
+        }
+        blockedCount.incrementAndGet();
+        if (!buffer.offer(auditRecord, maxBlockMs, TimeUnit.MILLISECONDS)) {
+            droppedCount.incrementAndGet();
+            logger.error("Audit buffer full for {} ms, dropped audit record: {}", maxBlockMs, auditRecord.toJson());
+        }
+    }
+
+    /* Drains the buffer on graceful shutdown; Camel stops its routes before singleton beans are destroyed,
+       so no records arrive once draining has started
+       The flusher notices the shutdown within flushIntervalMs and is only interrupted when it has not drained the buffer
+       within shutdownTimeoutMs, which ends its retries; what is still buffered then is dead-lettered (logged) */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        flusher.join(shutdownTimeoutMs);
+        if (flusher.isAlive()) {
+            flusher.interrupt();
+            flusher.join(shutdownTimeoutMs);
+        }
+        if (!buffer.isEmpty()) {
+            List<Document> unflushed = new ArrayList<>();
+            buffer.drainTo(unflushed);
+            logger.error("Audit writer stopped with {} unflushed records", unflushed.size());
+            deadLetter(unflushed, "not flushed within shutdownTimeoutMs");
+        }
+        logger.info("Stopped audit writer, {} records written, {} dropped, {} dead-lettered",
+                writtenCount.get(), droppedCount.get(), deadLetteredCount.get());
+    }
+
+    private void flushLoop() {
+        List<Document> batch = new ArrayList<>(flushSize);
+        while ((running || !buffer.isEmpty()) && !Thread.currentThread().isInterrupted()) {
+            try {
+                Document first = running ? buffer.poll(flushIntervalMs, TimeUnit.MILLISECONDS) : buffer.poll();
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.currentTimeMillis() + flushIntervalMs;
+                while (running && batch.size() < flushSize) {
+                    long remaining = deadline - System.currentTimeMillis();
+                    Document next = remaining > 0 ? buffer.poll(remaining, TimeUnit.MILLISECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                buffer.drainTo(batch, flushSize - batch.size());
+            } catch (InterruptedException e) {
+                /* stop() ran into shutdownTimeoutMs: keep the flag so flush gives up on the collected records and the
+                   loop ends, leaving the rest of the buffer to stop() */
+                Thread.currentThread().interrupt();
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    /* Writes one batch with an unordered insertMany, retrying up to maxFlushAttempts times with retryBackoffMs between
+       attempts; duplicate key errors mean a retried record was already stored and are ignored
+       Records rejected on their own (write errors other than duplicate keys) are not retried but dead-lettered. A batch
+       that still fails after the last attempt is split to isolate the records that cannot be written, unless MongoDB
+       is unreachable, in which case the whole batch is dead-lettered. An interrupt during the backoff (a shutdown that
+       ran into shutdownTimeoutMs) ends the retries: the interrupt is restored and the batch is dead-lettered */
+    void flush(List<Document> batch) {
+        List<Document> pending = batch;
+        RuntimeException lastError = null;
+        for (int attempt = 1; attempt <= maxFlushAttempts; attempt++) {
+            long start = System.nanoTime();
+            try {
+                auditCollection.insertMany(pending, new InsertManyOptions().ordered(false));
+                recordFlush(pending.size(), System.nanoTime() - start);
+                return;
+            } catch (MongoBulkWriteException e) {
+                List<Document> rejected = rejectedRecords(pending, e);
+                recordFlush(pending.size() - rejected.size(), System.nanoTime() - start);
+                deadLetter(rejected, e.getMessage());
+                return;
+            } catch (RuntimeException e) {
+                lastError = e;
+                failedFlushCount.incrementAndGet();
+                logger.warn("Audit flush of {} records failed (attempt {} of {}): {}",
+                        pending.size(), attempt, maxFlushAttempts, e.toString());
+            }
+            if (attempt < maxFlushAttempts) {
+                try {
+                    Thread.sleep(retryBackoffMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    deadLetter(pending, "interrupted while retrying: " + lastError);
+                    return;
+                }
+            }
+        }
+        if (pending.size() > 1 && !(lastError instanceof MongoSocketException || lastError instanceof MongoTimeoutException)) {
+            isolate(pending);
+        } else {
+            deadLetter(pending, lastError.toString());
+        }
+    }
+
+    /* Writes the records of a batch that kept failing in halves, once each, down to single records, so only the
+       records that cannot be written are dead-lettered */
+    private void isolate(List<Document> records) {
+        long start = System.nanoTime();
+        try {
+            auditCollection.insertMany(records, new InsertManyOptions().ordered(false));
+            recordFlush(records.size(), System.nanoTime() - start);
+        } catch (MongoBulkWriteException e) {
+            List<Document> rejected = rejectedRecords(records, e);
+            recordFlush(records.size() - rejected.size(), System.nanoTime() - start);
+            deadLetter(rejected, e.getMessage());
+        } catch (RuntimeException e) {
+            failedFlushCount.incrementAndGet();
+            if (records.size() == 1) {
+                deadLetter(records, e.toString());
+            } else {
+                int half = records.size() / 2;
+                isolate(records.subList(0, half));
+                isolate(records.subList(half, records.size()));
+            }
+        }
+    }
+
+    /* The records of an unordered insertMany that failed with an error other than a duplicate key */
+    private static List<Document> rejectedRecords(List<Document> records, MongoBulkWriteException e) {
+        List<Document> rejected = new ArrayList<>();
+        for (BulkWriteError error : e.getWriteErrors()) {
+            if (error.getCode() != DUPLICATE_KEY_ERROR) {
+                rejected.add(records.get(error.getIndex()));
+            }
+        }
+        return rejected;
+    }
+
+    private void deadLetter(List<Document> records, String reason) {
+        if (records.isEmpty()) {
+            return;
+        }
+        deadLetteredCount.addAndGet(records.size());
+        logger.error("Dead-lettering {} audit records that could not be written: {}", records.size(), reason);
+        records.forEach(auditRecord -> deadLetterLogger.error(auditRecord.toJson()));
+    }
+
+    private void recordFlush(int records, long nanos) {
+        long latencyMs = TimeUnit.NANOSECONDS.toMillis(nanos);
+        writtenCount.addAndGet(records);
+        flushCount.incrementAndGet();
+        totalFlushNanos.addAndGet(nanos);
+        lastFlushLatencyMs = latencyMs;
+        maxFlushLatencyMs = Math.max(maxFlushLatencyMs, latencyMs);
+        logger.debug("Flushed {} audit records in {} ms", records, latencyMs);
+    }
+
+    @ManagedAttribute(description = "Audit records waiting to be flushed")
+    public int getBufferDepth() {
+        return buffer.size();
+    }
+
+    @ManagedAttribute(description = "Maximum number of buffered audit records")
+    public int getBufferCapacity() {
+        return bufferCapacity;
+    }
+
+    @ManagedAttribute(description = "Audit records written to MongoDB")
+    public long getWrittenCount() {
+        return writtenCount.get();
+    }
+
+    @ManagedAttribute(description = "Submissions that had to wait for buffer space")
+    public long getBlockedCount() {
+        return blockedCount.get();
+    }
+
+    @ManagedAttribute(description = "Audit records dropped after waiting maxBlockMs for buffer space")
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    @ManagedAttribute(description = "insertMany attempts that failed")
+    public long getFailedFlushCount() {
+        return failedFlushCount.get();
+    }
+
+    @ManagedAttribute(description = "Audit records that could not be written and were logged to the deadLetter logger")
+    public long getDeadLetteredCount() {
+        return deadLetteredCount.get();
+    }
+
+    @ManagedAttribute(description = "Completed insertMany flushes")
+    public long getFlushCount() {
+        return flushCount.get();
+    }
+
+    @ManagedAttribute(description = "Latency of the last flush in milliseconds")
+    public long getLastFlushLatencyMs() {
+        return lastFlushLatencyMs;
+    }
+
+    @ManagedAttribute(description = "Highest flush latency in milliseconds")
+    public long getMaxFlushLatencyMs() {
+        return maxFlushLatencyMs;
+    }
+
+    @ManagedAttribute(description = "Average flush latency in milliseconds")
+    public double getAverageFlushLatencyMs() {
+        long flushes = flushCount.get();
+        return flushes == 0 ? 0 : totalFlushNanos.get() / 1_000_000.0 / flushes;
+    }
+}
@@ -0,0 +1,175 @@
+package com.UST.Apache_Camel.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.camel.Exchange;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jms.support.converter.MessageConversionException;
+import org.springframework.jms.support.converter.SimpleMessageConverter;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import javax.jms.Connection;
+import javax.jms.ConnectionFactory;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageConsumer;
+import javax.jms.Session;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@Component
+public class InventoryBatchConsumer {
+
+    private static final Logger logger = LoggerFactory.getLogger(InventoryBatchConsumer.class);
+
+    @Autowired
+    private ConnectionFactory connectionFactory;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private InventoryIdempotencyStore inventoryIdempotencyStore;
+
+    @Autowired
+    private InventoryMetrics inventoryMetrics;
+
+    @Value("${app.inventory.batchSize:100}")
+    private int batchSize;
+
+    @Value("${app.inventory.batchTimeoutMs:200}")
+    private long batchTimeoutMs;
+
+    private final SimpleMessageConverter messageConverter = new SimpleMessageConverter();
+
+    private Connection connection;
+    private Session session;
+    private MessageConsumer consumer;
+
+    /* Receives the next batch of inventory update messages on a transacted session (batch consumer mode)
+       Waits up to batchTimeoutMs for the first message, then collects until batchSize messages or batchTimeoutMs have passed
+       Sets the message payloads as the inventoryList property and their JMS correlation IDs as batchCorrelationIds,
+       with the idempotency key and JMSRedelivered flag of every item as batchIdempotencyKeys and batchRedelivered;
+       a chunk message contributes all of its items, counted against batchSize, and
+       an unreadable message is kept as a null entry so only its own item is marked failed
+       Nothing is acknowledged until acknowledgeBatch commits the session */
+    public void receiveBatch(Exchange exchange) throws JMSException {
+        List<Map<String, Object>> items = new ArrayList<>();
+        List<String> correlationIds = new ArrayList<>();
+        List<String> idempotencyKeys = new ArrayList<>();
+        List<Boolean> redelivered = new ArrayList<>();
+        try {
+            MessageConsumer messageConsumer = openConsumer();
+            Message message = messageConsumer.receive(batchTimeoutMs);
+            long deadline = System.currentTimeMillis() + batchTimeoutMs;
+            while (message != null) {
+                inventoryMetrics.recordMessage(message.getJMSTimestamp());
+                boolean chunk = message.propertyExists(ApplicationConstants.INVENTORY_CHUNK_HEADER);
+                List<Map<String, Object>> messageItems = readItems(message);
+                for (int i = 0; i < messageItems.size(); i++) {
+                    items.add(messageItems.get(i));
+                    correlationIds.add(message.getJMSCorrelationID());
+                    idempotencyKeys.add(inventoryIdempotencyStore.key(message, chunk ? i : null));
+                    redelivered.add(message.getJMSRedelivered());
+                }
+                long remaining = deadline - System.currentTimeMillis();
+                if (items.size() >= batchSize || remaining <= 0) {
+                    break;
+                }
+                message = messageConsumer.receive(remaining);
+            }
+        } catch (JMSException e) {
+            close();
+            throw e;
+        }
+        exchange.setProperty("inventoryList", items);
+        exchange.setProperty("batchCorrelationIds", correlationIds);
+        exchange.setProperty("batchIdempotencyKeys", idempotencyKeys);
+        exchange.setProperty("batchRedelivered", redelivered);
+        exchange.getIn().setBody(items);
+        logger.debug("Received batch of {} inventory messages", items.size());
+    }
+
+    /* Commits the session once the batch has been applied and audited, acknowledging all of its messages */
+    public void acknowledgeBatch(Exchange exchange) throws JMSException {
+        try {
+            session.commit();
+        } catch (JMSException e) {
+            close();
+            throw e;
+        }
+        logger.debug("Acknowledged batch of {} inventory messages", exchange.getProperty("inventoryList", List.class).size());
+    }
+
+    /* Rolls back the session after a failed batch so the broker redelivers its messages */
+    public void rollbackBatch(Exchange exchange) {
+        if (session == null) {
+            return;
+        }
+        try {
+            session.rollback();
+            logger.warn("Rolled back inventory batch for redelivery");
+        } catch (JMSException e) {
+            logger.error("Failed to roll back inventory batch: {}", e.getMessage(), e);
+            close();
+        }
+    }
+
+    /* Closes the JMS connection on shutdown; unacknowledged messages of an unfinished batch are redelivered */
+    @PreDestroy
+    public void close() {
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (JMSException e) {
+                logger.warn("Failed to close inventory batch connection: {}", e.getMessage());
+            }
+        }
+        connection = null;
+        session = null;
+        consumer = null;
+    }
+
+    private MessageConsumer openConsumer() throws JMSException {
+        if (consumer == null) {
+            connection = connectionFactory.createConnection();
+            session = connection.createSession(true, Session.SESSION_TRANSACTED);
+            consumer = session.createConsumer(session.createQueue(ApplicationConstants.AMQ_INVENTORY_UPDATE_READ_QUEUE));
+            connection.start();
+            logger.info("Opened transacted batch consumer on {}", ApplicationConstants.AMQ_INVENTORY_UPDATE_READ_QUEUE);
+        }
+        return consumer;
+    }
+
+    /* Reads the items of one message: a single item, or all items of a chunk sent by the chunked enqueue mode
+       (InventoryChunkSize property, JSON array body); an unreadable message yields a single null entry */
+    private List<Map<String, Object>> readItems(Message message) throws JMSException {
+        Class<?> type = message.propertyExists(ApplicationConstants.INVENTORY_CHUNK_HEADER) ? List.class : Map.class;
+        List<Map<String, Object>> items = new ArrayList<>();
+        try {
+            Object body = messageConverter.fromMessage(message);
+            if (body instanceof String) {
+                body = objectMapper.readValue((String) body, type);
+            } else if (body instanceof byte[]) {
+                body = objectMapper.readValue((byte[]) body, type);
+            }
+            if (body instanceof List) {
+                items.addAll((List<Map<String, Object>>) body);
+                return items;
+            }
+            if (body instanceof Map) {
+                items.add((Map<String, Object>) body);
+                return items;
+            }
+        } catch (MessageConversionException | IOException e) {
+            logger.warn("Unreadable inventory message {}: {}", message.getJMSMessageID(), e.getMessage());
+        }
+        items.add(null);
+        return items;
+    }
+}
@@ -0,0 +1,306 @@
+package com.UST.Apache_Camel.config;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoWriteException;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.InsertManyOptions;
+import com.mongodb.client.model.Projections;
+import org.apache.camel.Exchange;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/* Idempotent consumer for the inventory queue (app.inventory.idempotency.enabled, on by default): the key of every
+   applied item (see key) is stored in inventory_processed_message, and an item whose key is found there is audited as
+   skipped instead of being applied again
+   This covers a redelivery after a failure between storing the key and acknowledging the message (audit insert,
+   status count, lost connection to the broker). It does not cover a crash between the stock write and the insert of
+   the key: the key is a separate write issued after saveStockDetails / applyAtomicUpdate (or after the bulkWrite in
+   batch mode), without a transaction around both, so that redelivery finds no key and applies the update a second time */
+@Component
+@ManagedResource(objectName = "com.UST.Apache_Camel:type=InventoryIdempotencyStore", description = "Duplicate detection for redelivered inventory updates")
+public class InventoryIdempotencyStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(InventoryIdempotencyStore.class);
+    private static final int DUPLICATE_KEY_ERROR = 11000;
+
+    @Autowired
+    private MongoClient mongoClient;
+
+    @Value("${app.inventory.idempotency.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.inventory.idempotency.cacheSize:100000}")
+    private int cacheSize;
+
+    private MongoCollection<Document> processedMessages;
+    private Map<String, Boolean> recentKeys;
+
+    private final AtomicLong duplicateCount = new AtomicLong();
+    private final AtomicLong cacheHitCount = new AtomicLong();
+    private final AtomicLong storeLookupCount = new AtomicLong();
+    private final AtomicLong recordedCount = new AtomicLong();
+    private final AtomicLong recordFailureCount = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        processedMessages = mongoClient.getDatabase(ApplicationConstants.MONGO_DATABASE)
+                .getCollection(ApplicationConstants.MONGO_PROCESSED_MESSAGE_WRITE_COLLECTION);
+        recentKeys = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > cacheSize;
+            }
+        };
+        logger.info("Idempotent inventory consumer {}: cacheSize {}", enabled ? "enabled" : "disabled", cacheSize);
+    }
+
+    /* Checks whether the inventory item in the exchange body was already applied (single consumer mode)
+       Sets the idempotencyKey property and duplicateMessage to true for a message that was processed before
+       Recent keys are answered from the in-memory LRU; only a redelivered message (JMSRedelivered) that is not in it,
+       e.g. after a restart or when another consumer handled the first delivery, costs a lookup in MongoDB */
+    public void check(Exchange exchange) {
+        exchange.setProperty("duplicateMessage", false);
+        if (!enabled) {
+            return;
+        }
+        String key = key(exchange.getIn().getHeader("JMSMessageID", String.class),
+                exchange.getProperty(Exchange.SPLIT_INDEX, Integer.class));
+        if (key == null) {
+            return;
+        }
+        exchange.setProperty("idempotencyKey", key);
+        boolean redelivered = exchange.getIn().getHeader("JMSRedelivered", false, Boolean.class);
+        if (isCached(key) || redelivered && !findStored(Set.of(key)).isEmpty()) {
+            remember(key);
+            duplicateCount.incrementAndGet();
+            exchange.setProperty("duplicateMessage", true);
+            logger.warn("Skipping duplicate inventory message {}", key);
+        }
+    }
+
+    /* Records the idempotencyKey of an applied stock update, right after the update and before the message is acknowledged
+       A failed insert is only logged: the update itself succeeded, the message is just not protected against redelivery */
+    public void record(Exchange exchange) {
+        String key = exchange.getProperty("idempotencyKey", String.class);
+        if (key == null) {
+            return;
+        }
+        remember(key);
+        try {
+            processedMessages.insertOne(processedMessage(key,
+                    exchange.getIn().getHeader("JMSCorrelationID", String.class), exchange.getProperty("itemId", String.class)));
+            recordedCount.incrementAndGet();
+        } catch (MongoWriteException e) {
+            if (e.getError().getCode() != DUPLICATE_KEY_ERROR) {
+                recordFailure(1, e);
+            }
+        } catch (RuntimeException e) {
+            recordFailure(1, e);
+        }
+    }
+
+    /* Key of one item of a JMS message (batch consumer mode), computed the same way as check does for the single mode,
+       so switching consumer modes keeps recognising messages processed before; null when idempotency is disabled */
+    public String key(Message message, Integer chunkIndex) throws JMSException {
+        return enabled ? key(message.getJMSMessageID(), chunkIndex) : null;
+    }
+
+    /* Removes the items already applied from a received batch (batch consumer mode)
+       Filters inventoryList, batchCorrelationIds and batchIdempotencyKeys in place; all redelivered keys missing from the
+       LRU are looked up with one $in query. The removed lines are set as skippedItemResults and skippedCorrelationIds
+       so they are audited as skipped but neither applied nor counted in the correlation status again */
+    public void filterBatch(Exchange exchange) {
+        List<Map<String, Object>> items = exchange.getProperty("inventoryList", List.class);
+        List<String> correlationIds = exchange.getProperty("batchCorrelationIds", List.class);
+        List<String> keys = exchange.getProperty("batchIdempotencyKeys", List.class);
+        List<Boolean> redelivered = exchange.getProperty("batchRedelivered", List.class);
+        List<Map<String, Object>> skippedResults = new ArrayList<>();
+        List<String> skippedCorrelationIds = new ArrayList<>();
+        exchange.setProperty("skippedItemResults", skippedResults);
+        exchange.setProperty("skippedCorrelationIds", skippedCorrelationIds);
+        if (!enabled) {
+            return;
+        }
+
+        Set<String> duplicates = new HashSet<>();
+        Set<String> lookups = new HashSet<>();
+        for (int i = 0; i < keys.size(); i++) {
+            String key = keys.get(i);
+            if (key != null && isCached(key)) {
+                duplicates.add(key);
+            } else if (key != null && redelivered.get(i)) {
+                lookups.add(key);
+            }
+        }
+        if (!lookups.isEmpty()) {
+            duplicates.addAll(findStored(lookups));
+        }
+        if (duplicates.isEmpty()) {
+            return;
+        }
+
+        List<Map<String, Object>> keptItems = new ArrayList<>(items.size());
+        List<String> keptCorrelationIds = new ArrayList<>(items.size());
+        List<String> keptKeys = new ArrayList<>(items.size());
+        for (int i = 0; i < keys.size(); i++) {
+            if (duplicates.contains(keys.get(i))) {
+                remember(keys.get(i));
+                skippedResults.add(skippedResult(items.get(i), keys.get(i)));
+                skippedCorrelationIds.add(correlationIds.get(i));
+            } else {
+                keptItems.add(items.get(i));
+                keptCorrelationIds.add(correlationIds.get(i));
+                keptKeys.add(keys.get(i));
+            }
+        }
+        duplicateCount.addAndGet(skippedResults.size());
+        exchange.setProperty("inventoryList", keptItems);
+        exchange.setProperty("batchCorrelationIds", keptCorrelationIds);
+        exchange.setProperty("batchIdempotencyKeys", keptKeys);
+        logger.warn("Skipping {} duplicate inventory items in batch", skippedResults.size());
+    }
+
+    /* Records the keys of all successfully applied lines of a batch with one unordered insertMany (batch consumer mode)
+       Runs right after the bulk update, before the batch is committed; failures are logged as for record */
+    public void recordBatch(Exchange exchange) {
+        List<String> keys = exchange.getProperty("batchIdempotencyKeys", List.class);
+        List<String> correlationIds = exchange.getProperty("batchCorrelationIds", List.class);
+        List<Map<String, Object>> itemResults = exchange.getProperty("bulkItemResults", List.class);
+        List<Document> documents = new ArrayList<>();
+        for (int i = 0; i < itemResults.size(); i++) {
+            if (keys.get(i) != null && "success".equals(itemResults.get(i).get("status"))) {
+                remember(keys.get(i));
+                documents.add(processedMessage(keys.get(i), correlationIds.get(i), (String) itemResults.get(i).get("itemId")));
+            }
+        }
+        if (documents.isEmpty()) {
+            return;
+        }
+        try {
+            processedMessages.insertMany(documents, new InsertManyOptions().ordered(false));
+            recordedCount.addAndGet(documents.size());
+        } catch (MongoBulkWriteException e) {
+            long failed = e.getWriteErrors().stream().filter(error -> error.getCode() != DUPLICATE_KEY_ERROR).count();
+            recordedCount.addAndGet(e.getWriteResult().getInsertedCount());
+            if (failed > 0) {
+                recordFailure(failed, e);
+            }
+        } catch (RuntimeException e) {
+            recordFailure(documents.size(), e);
+        }
+    }
+
+    /* The JMS message ID, plus the index within the message for the items of a chunk
+       Identifies one delivery of one request line, so repeated lines for the same item are each applied once, in both
+       consumer modes; a request that the client sends again gets new message IDs and is applied again */
+    private String key(String messageId, Integer chunkIndex) {
+        if (messageId == null) {
+            return null;
+        }
+        return chunkIndex != null ? messageId + "#" + chunkIndex : messageId;
+    }
+
+    private boolean isCached(String key) {
+        synchronized (recentKeys) {
+            if (recentKeys.containsKey(key)) {
+                cacheHitCount.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    }
+
+    private void remember(String key) {
+        synchronized (recentKeys) {
+            recentKeys.put(key, Boolean.TRUE);
+        }
+    }
+
+    private Set<String> findStored(Set<String> keys) {
+        storeLookupCount.incrementAndGet();
+        Set<String> found = new HashSet<>();
+        processedMessages.find(Filters.in("_id", keys))
+                .projection(Projections.include("_id"))
+                .forEach(document -> found.add(document.getString("_id")));
+        return found;
+    }
+
+    private void recordFailure(long count, RuntimeException e) {
+        recordFailureCount.addAndGet(count);
+        logger.error("Failed to record {} processed inventory message(s): {}", count, e.getMessage());
+    }
+
+    private static Document processedMessage(String key, String correlationId, String itemId) {
+        return new Document("_id", key)
+                .append("correlationId", correlationId)
+                .append("itemId", itemId)
+                .append("processedAt", new Date());
+    }
+
+    private static Map<String, Object> skippedResult(Map<String, Object> item, String key) {
+        Object itemId = item != null ? item.get("_id") : null;
+        Map<String, Object> itemResult = new HashMap<>();
+        itemResult.put("itemId", itemId != null ? itemId.toString() : null);
+        itemResult.put("status", "skipped");
+        itemResult.put("message", "Duplicate delivery skipped, already applied: " + key);
+        return itemResult;
+    }
+
+    @ManagedAttribute(description = "Whether duplicate detection is enabled")
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @ManagedAttribute(description = "Inventory items skipped as duplicates")
+    public long getDuplicateCount() {
+        return duplicateCount.get();
+    }
+
+    @ManagedAttribute(description = "Duplicates recognised from the in-memory LRU without a MongoDB round trip")
+    public long getCacheHitCount() {
+        return cacheHitCount.get();
+    }
+
+    @ManagedAttribute(description = "MongoDB lookups for redelivered messages missing from the LRU")
+    public long getStoreLookupCount() {
+        return storeLookupCount.get();
+    }
+
+    @ManagedAttribute(description = "Processed message keys recorded in MongoDB")
+    public long getRecordedCount() {
+        return recordedCount.get();
+    }
+
+    @ManagedAttribute(description = "Processed message keys that could not be recorded in MongoDB")
+    public long getRecordFailureCount() {
+        return recordFailureCount.get();
+    }
+
+    @ManagedAttribute(description = "Keys held in the in-memory LRU")
+    public int getCachedKeyCount() {
+        synchronized (recentKeys) {
+            return recentKeys.size();
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.UST.Apache_Camel.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.camel.Exchange;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/* Inventory queue metrics on top of the Camel route and endpoint timers (see MetricsConfig), scraped from /actuator/prometheus:
+   inventory_item_updates_total{status="success|error|skipped"}  results as markSuccess / markFailure / markSkipped (or the
+                                                                  batch update) set them
+   inventory_queue_messages_received_total                       messages taken from the inventory update queue
+   inventory_queue_lag_seconds                                   consumer lag: time from the send (JMSTimestamp) to the
+                                                                  receive, as a histogram
+   The item service counts the messages it sends (inventory_queue_messages_sent_total), so the queue backlog is sent
+   minus received. All meters are registered once at startup; recording is a map lookup and an atomic add, with no
+   tag per item */
+@Component
+public class InventoryMetrics {
+
+    private static final List<String> STATUSES = List.of("success", "error", "skipped");
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Map<String, Counter> itemUpdates;
+    private Counter messagesReceived;
+    private Timer queueLag;
+
+    @PostConstruct
+    public void init() {
+        Map<String, Counter> counters = new HashMap<>();
+        for (String status : STATUSES) {
+            counters.put(status, Counter.builder("inventory.item.updates")
+                    .description("Inventory item updates by result")
+                    .tag("status", status)
+                    .register(meterRegistry));
+        }
+        itemUpdates = Map.copyOf(counters);
+        messagesReceived = Counter.builder("inventory.queue.messages.received")
+                .description("Messages received from " + ApplicationConstants.AMQ_INVENTORY_UPDATE_READ_QUEUE)
+                .register(meterRegistry);
+        queueLag = Timer.builder("inventory.queue.lag")
+                .description("Time inventory messages spent in " + ApplicationConstants.AMQ_INVENTORY_UPDATE_READ_QUEUE)
+                .register(meterRegistry);
+    }
+
+    /* Counts a message received by the queue route (single consumer mode) and its time in the queue (JMSTimestamp header) */
+    public void recordReceived(Exchange exchange) {
+        Long timestamp = exchange.getIn().getHeader("JMSTimestamp", Long.class);
+        recordMessage(timestamp != null ? timestamp : 0);
+    }
+
+    /* Counts a received message and its time in the queue; a timestamp of 0 (disabled by the sender) records no lag */
+    public void recordMessage(long jmsTimestamp) {
+        messagesReceived.increment();
+        if (jmsTimestamp > 0) {
+            queueLag.record(Math.max(System.currentTimeMillis() - jmsTimestamp, 0), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /* Counts the itemResult property of one inventory item by its status (single consumer mode) */
+    public void recordItemResult(Exchange exchange) {
+        count(exchange.getProperty("itemResult", Map.class));
+    }
+
+    /* Counts the bulkItemResults and skippedItemResults of a committed batch by their status (batch consumer mode) */
+    public void recordBatchItemResults(Exchange exchange) {
+        List<Map<String, Object>> itemResults = exchange.getProperty("bulkItemResults", List.of(), List.class);
+        List<Map<String, Object>> skippedResults = exchange.getProperty("skippedItemResults", List.of(), List.class);
+        itemResults.forEach(this::count);
+        skippedResults.forEach(this::count);
+    }
+
+    private void count(Map<String, Object> itemResult) {
+        Counter counter = itemResult != null ? itemUpdates.get(itemResult.get("status")) : null;
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+}
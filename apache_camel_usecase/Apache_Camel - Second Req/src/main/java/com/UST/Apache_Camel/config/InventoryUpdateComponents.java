@@ -1,8 +1,25 @@
 package com.UST.Apache_Camel.config;
 
 import com.UST.Apache_Camel.exception.InventoryValidationException;
+import com.UST.Apache_Camel.model.InventoryItem;
+import com.UST.Apache_Camel.model.StockDetails;
+import com.UST.Apache_Camel.shared.BulkStockWriter;
+import com.mongodb.MongoWriteException;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
 import org.apache.camel.Exchange;
 import org.apache.camel.Processor;
+import org.bson.Document;
+import org.bson.conversions.Bson;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -13,6 +30,14 @@ import java.util.*;
 public class InventoryUpdateComponents {
     private static final Logger logger = LoggerFactory.getLogger(InventoryUpdateComponents.class);
 
+    /* Resolves a collection of the application database through the shared MongoClient bean
+       Used by processors that need driver operations the Camel mongodb endpoints do not offer */
+    static MongoCollection<Document> mongoCollection(Exchange exchange, String collection) {
+        MongoClient mongoClient = exchange.getContext().getRegistry()
+                .lookupByNameAndType(ApplicationConstants.MONGO_CLIENT_BEAN, MongoClient.class);
+        return mongoClient.getDatabase(ApplicationConstants.MONGO_DATABASE).getCollection(collection);
+    }
+
     public static class ItemProcessor implements Processor {
         // Placeholder method required by the Processor interface, not used in this implementation
         @Override
@@ -23,7 +48,21 @@ public class InventoryUpdateComponents {
            Sets itemId, soldOut, and damaged as exchange properties for later use
            Throws InventoryValidationException if validation fails */
         public void processItem(Exchange exchange) throws Exception {
-            Map<String, Object> item = exchange.getIn().getBody(Map.class);
+            InventoryItem request = parseItem(exchange.getIn().getBody(Map.class));
+
+            exchange.setProperty("itemId", request.getId());
+            exchange.setProperty("soldOut", request.getStockDetails().getSoldOut());
+            exchange.setProperty("damaged", request.getStockDetails().getDamaged());
+            logger.debug("Processing item: {}", request.getId());
+        }
+
+        /* Validates one inventory update payload and converts it to an InventoryItem
+           Shared by processItem and the batch consumer mode so both apply the same rules
+           A line the item service already rejected while reading the request arrives with its validationError */
+        static InventoryItem parseItem(Map<String, Object> item) throws InventoryValidationException {
+            if (item != null && item.get("validationError") != null) {
+                throw new InventoryValidationException(item.get("validationError").toString());
+            }
             if (item == null || item.get("_id") == null || item.get("stockDetails") == null) {
                 throw new InventoryValidationException("Each item must have '_id' and 'stockDetails'.");
             }
@@ -35,13 +74,14 @@ public class InventoryUpdateComponents {
                 throw new InventoryValidationException("Missing 'soldOut' or 'damaged' values in stock details for item: " + id);
             }
 
-            int soldOut = Integer.parseInt(stock.get("soldOut").toString());
-            int damaged = Integer.parseInt(stock.get("damaged").toString());
+            StockDetails stockDetails = new StockDetails();
+            stockDetails.setSoldOut(Integer.parseInt(stock.get("soldOut").toString()));
+            stockDetails.setDamaged(Integer.parseInt(stock.get("damaged").toString()));
 
-            exchange.setProperty("itemId", id);
-            exchange.setProperty("soldOut", soldOut);
-            exchange.setProperty("damaged", damaged);
-            logger.debug("Processing item: {}", id);
+            InventoryItem request = new InventoryItem();
+            request.setId(id);
+            request.setStockDetails(stockDetails);
+            return request;
         }
 
          /* Prepares the item ID for MongoDB findById operation by setting it as the message body
@@ -67,26 +107,118 @@ public class InventoryUpdateComponents {
                 throw new InventoryValidationException("Missing stockDetails in DB for item: " + exchange.getProperty("itemId"));
             }
 
-            int availableStock = Integer.parseInt(stockDetails.get("availableStock").toString());
-            int existingSoldOut = Integer.parseInt(stockDetails.get("soldOut").toString());
-            int existingDamaged = Integer.parseInt(stockDetails.get("damaged").toString());
+            applyStockChange(stockDetails, exchange.getProperty("itemId", String.class),
+                    exchange.getProperty("soldOut", Integer.class), exchange.getProperty("damaged", Integer.class));
+
+            item.put("stockDetails", stockDetails);
+            item.put("lastUpdateDate", LocalDate.now().toString());
+
+            exchange.setProperty("updatedItem", item);
+            exchange.getIn().setBody(item);
+        }
+
+        /* Writes the stock change of validateAndUpdateItem (read-modify-write mode) with a $set of stockDetails and
+           lastUpdateDate instead of saving the whole document, so the rest of the item is not rewritten and a concurrent
+           change to it (e.g. the rating rollup of a review append) is not overwritten */
+        public void saveStockDetails(Exchange exchange) {
+            Map<String, Object> item = exchange.getProperty("updatedItem", Map.class);
+            mongoCollection(exchange, ApplicationConstants.MONGO_ITEM_WRITE_COLLECTION).updateOne(
+                    Filters.eq("_id", exchange.getProperty("itemId", String.class)),
+                    Updates.combine(
+                            Updates.set("stockDetails", item.get("stockDetails")),
+                            Updates.set("lastUpdateDate", item.get("lastUpdateDate")),
+                            Updates.inc("version", 1)));
+        }
+
+        /* Checks that the stored stock covers soldOut + damaged and applies the change to the stored stockDetails map
+           The rule lives in BulkStockWriter so the batch consumer mode (and the item service) applies the same one */
+        static void applyStockChange(Map<String, Object> stockDetails, String itemId, int soldOut, int damaged) throws InventoryValidationException {
+            String error = BulkStockWriter.applyStockChange(stockDetails, itemId, soldOut, damaged);
+            if (error != null) {
+                throw new InventoryValidationException(error);
+            }
+        }
 
+        /* Applies the stock change for the item in a single round trip (atomic update mode)
+           Issues one findOneAndUpdate that $inc's availableStock, soldOut and damaged, guarded by availableStock >= soldOut + damaged,
+           so concurrent consumers can no longer overwrite each other's updates to the same item
+           When nothing matches, re-reads the item to report the same errors as validateAndUpdateItem, after
+           converting stock stored as strings and retrying once
+           Throws InventoryValidationException for missing items, missing or non-numeric stockDetails or insufficient stock */
+        public void applyAtomicUpdate(Exchange exchange) throws Exception {
+            String itemId = exchange.getProperty("itemId", String.class);
             int soldOut = exchange.getProperty("soldOut", Integer.class);
             int damaged = exchange.getProperty("damaged", Integer.class);
 
-            if (soldOut + damaged > availableStock) {
-                throw new InventoryValidationException("Requested quantity exceeds available stock for item ID: " + exchange.getProperty("itemId"));
+            MongoCollection<Document> items = mongoCollection(exchange, ApplicationConstants.MONGO_ITEM_WRITE_COLLECTION);
+            Document updatedItem = incrementStock(items, itemId, soldOut, damaged);
+
+            if (updatedItem == null) {
+                Document existing = items.find(Filters.eq("_id", itemId))
+                        .projection(Projections.include("stockDetails"))
+                        .first();
+                if (existing == null) {
+                    throw new InventoryValidationException("Item not found for ID: " + itemId);
+                }
+                if (existing.get("stockDetails") == null) {
+                    throw new InventoryValidationException("Missing stockDetails in DB for item: " + itemId);
+                }
+                if (convertStringStock(items, itemId, existing.get("stockDetails", Document.class))) {
+                    updatedItem = incrementStock(items, itemId, soldOut, damaged);
+                }
+                if (updatedItem == null) {
+                    throw new InventoryValidationException("Requested quantity exceeds available stock for item ID: " + itemId);
+                }
             }
 
-            stockDetails.put("availableStock", availableStock - soldOut - damaged);
-            stockDetails.put("soldOut", existingSoldOut + soldOut);
-            stockDetails.put("damaged", existingDamaged + damaged);
+            exchange.setProperty("updatedItem", updatedItem);
+            exchange.getIn().setBody(updatedItem);
+        }
 
-            item.put("stockDetails", stockDetails);
-            item.put("lastUpdateDate", LocalDate.now().toString());
+        /* The conditional $inc of applyAtomicUpdate; null when the item is missing or its availableStock is below the
+           requested quantity (or not a number) */
+        private static Document incrementStock(MongoCollection<Document> items, String itemId, int soldOut, int damaged)
+                throws InventoryValidationException {
+            int requested = soldOut + damaged;
+            try {
+                return items.findOneAndUpdate(
+                        Filters.and(
+                                Filters.eq("_id", itemId),
+                                Filters.gte("stockDetails.availableStock", requested)),
+                        Updates.combine(
+                                Updates.inc("stockDetails.availableStock", -requested),
+                                Updates.inc("stockDetails.soldOut", soldOut),
+                                Updates.inc("stockDetails.damaged", damaged),
+                                Updates.set("lastUpdateDate", LocalDate.now().toString()),
+                                Updates.inc("version", 1)),
+                        new FindOneAndUpdateOptions().returnDocument(ReturnDocument.AFTER));
+            } catch (MongoWriteException e) {
+                throw new InventoryValidationException("Stock details could not be updated for item " + itemId + ": " + e.getError().getMessage());
+            }
+        }
 
-            exchange.setProperty("updatedItem", item);
-            exchange.getIn().setBody(item);
+        /* Stock values stored as strings (the read-modify-write mode parses them) never match the numeric guard of
+           incrementStock: converts them to numbers with an update guarded by the stored strings, so the caller can retry
+           Returns false when there was nothing to convert; throws InventoryValidationException for a value that is not a number */
+        private static boolean convertStringStock(MongoCollection<Document> items, String itemId, Document stockDetails)
+                throws InventoryValidationException {
+            Map<String, Object> parsed;
+            try {
+                parsed = BulkStockWriter.parseStringStock(stockDetails);
+            } catch (NumberFormatException e) {
+                throw new InventoryValidationException("Stock details are not numeric for item: " + itemId);
+            }
+            if (parsed.isEmpty()) {
+                return false;
+            }
+            List<Bson> guards = new ArrayList<>(List.of(Filters.eq("_id", itemId)));
+            List<Bson> conversions = new ArrayList<>();
+            parsed.forEach((field, value) -> {
+                guards.add(Filters.eq("stockDetails." + field, stockDetails.get(field)));
+                conversions.add(Updates.set("stockDetails." + field, value));
+            });
+            items.updateOne(Filters.and(guards), Updates.combine(conversions));
+            return true;
         }
 
         /* Marks the inventory update as successful and stores the result in exchange properties
@@ -114,11 +246,123 @@ public class InventoryUpdateComponents {
             exchange.setProperty("itemResult", itemResult);
             logger.warn("Inventory update failed for item {}: {}", itemId, errorMessage);
         }
+
+        /* Marks a duplicate delivery as skipped without touching the stock (idempotent consumer)
+           Takes the itemId from the payload for the audit record; the message was already counted in the correlation
+           status when it was first applied, so correlationStatusUpdated is set to keep it from being counted again */
+        public void markSkipped(Exchange exchange) {
+            Map<String, Object> item = exchange.getIn().getBody(Map.class);
+            String itemId = item != null && item.get("_id") != null ? item.get("_id").toString() : null;
+            String key = exchange.getProperty("idempotencyKey", String.class);
+            Map<String, Object> itemResult = new HashMap<>();
+            itemResult.put("itemId", itemId);
+            itemResult.put("status", "skipped");
+            itemResult.put("message", "Duplicate delivery skipped, already applied: " + key);
+            exchange.setProperty("itemId", itemId);
+            exchange.setProperty("itemResult", itemResult);
+            exchange.setProperty("correlationStatusUpdated", true);
+            logger.info("Skipped duplicate inventory update for item {}", itemId);
+        }
+    }
+
+    public static class BulkInventoryUpdateProcessor implements Processor {
+        private static final Logger logger = LoggerFactory.getLogger(BulkInventoryUpdateProcessor.class);
+
+        // Placeholder method required by the Processor interface, not used in this implementation
+        @Override
+        public void process(Exchange exchange) throws Exception {
+        }
+
+        /* Applies all inventory updates of the inventoryList property in bulk (batch consumer mode)
+           Validates every line with the same rules as processItem and hands the valid lines to BulkStockWriter, chunked at
+           the bulkChunkSize property (one $in lookup, one compare-and-set update per item, retried on concurrent updates)
+           Sets bulkItemResults to one itemResult per line, in inventoryList order */
+        public void applyBulkUpdate(Exchange exchange) {
+            List<Map<String, Object>> inventoryList = exchange.getProperty("inventoryList", List.class);
+            int chunkSize = exchange.getProperty("bulkChunkSize", BulkStockWriter.DEFAULT_CHUNK_SIZE, Integer.class);
+
+            List<Map<String, Object>> results = new ArrayList<>(Collections.nCopies(inventoryList.size(), null));
+            List<BulkStockWriter.StockLine> lines = new ArrayList<>(inventoryList.size());
+            for (int line = 0; line < inventoryList.size(); line++) {
+                try {
+                    InventoryItem request = ItemProcessor.parseItem(inventoryList.get(line));
+                    lines.add(new BulkStockWriter.StockLine(request.getId(),
+                            request.getStockDetails().getSoldOut(), request.getStockDetails().getDamaged()));
+                } catch (InventoryValidationException e) {
+                    lines.add(null);
+                    results.set(line, BulkStockWriter.itemResult(null, "error", e.getMessage()));
+                }
+            }
+
+            BulkStockWriter.apply(mongoCollection(exchange, ApplicationConstants.MONGO_ITEM_WRITE_COLLECTION), lines, chunkSize, results);
+
+            exchange.setProperty("bulkItemResults", results);
+            logger.info("Bulk update processed {} lines", results.size());
+        }
     }
 
     public static class AsyncInventoryUpdateProcessor implements Processor {
         private static final Logger logger = LoggerFactory.getLogger(AsyncInventoryUpdateProcessor.class);
 
+        /* Counts the finished message in the summary document of its correlation ID (single consumer mode)
+           Adds one to succeeded or failed with $inc according to itemResult; a message that ended in an unexpected
+           exception before its stock update has no itemResult and counts as failed
+           Each message is counted once, tracked with the correlationStatusUpdated property */
+        public void updateCorrelationStatus(Exchange exchange) {
+            String correlationId = exchange.getIn().getHeader("JMSCorrelationID", String.class);
+            if (correlationId == null || exchange.getProperty("correlationStatusUpdated", false, Boolean.class)) {
+                return;
+            }
+            Map<String, Object> itemResult = exchange.getProperty("itemResult", Map.class);
+            boolean succeeded = itemResult != null && "success".equals(itemResult.get("status"));
+            try {
+                mongoCollection(exchange, ApplicationConstants.MONGO_CORRELATION_STATUS_WRITE_COLLECTION).updateOne(
+                        Filters.eq("_id", correlationId),
+                        correlationStatusUpdate(succeeded ? 1 : 0, succeeded ? 0 : 1),
+                        new UpdateOptions().upsert(true));
+                exchange.setProperty("correlationStatusUpdated", true);
+            } catch (RuntimeException e) {
+                logger.error("Failed to update status for correlationId {}: {}", correlationId, e.getMessage());
+            }
+        }
+
+        /* Counts all messages of an acknowledged batch in the summary documents of their correlation IDs (batch consumer mode)
+           Pairs bulkItemResults with batchCorrelationIds and writes one $inc per correlation ID with a single bulkWrite
+           Runs after the commit so a redelivered batch is not counted twice; a failure here leaves the items pending */
+        public void updateCorrelationStatuses(Exchange exchange) {
+            List<Map<String, Object>> itemResults = exchange.getProperty("bulkItemResults", List.class);
+            List<String> correlationIds = exchange.getProperty("batchCorrelationIds", List.class);
+            Map<String, int[]> counts = new LinkedHashMap<>();
+            for (int i = 0; i < itemResults.size(); i++) {
+                if (correlationIds.get(i) != null) {
+                    int[] count = counts.computeIfAbsent(correlationIds.get(i), id -> new int[2]);
+                    count["success".equals(itemResults.get(i).get("status")) ? 0 : 1]++;
+                }
+            }
+            if (counts.isEmpty()) {
+                return;
+            }
+            List<WriteModel<Document>> writes = new ArrayList<>(counts.size());
+            counts.forEach((correlationId, count) -> writes.add(new UpdateOneModel<>(Filters.eq("_id", correlationId),
+                    correlationStatusUpdate(count[0], count[1]), new UpdateOptions().upsert(true))));
+            try {
+                mongoCollection(exchange, ApplicationConstants.MONGO_CORRELATION_STATUS_WRITE_COLLECTION)
+                        .bulkWrite(writes, new BulkWriteOptions().ordered(false));
+            } catch (RuntimeException e) {
+                logger.error("Failed to update status for {} correlation IDs: {}", counts.size(), e.getMessage());
+            }
+        }
+
+        /* $inc of the succeeded/failed counters; createdAt is only set if the message overtook the enqueue route's upsert */
+        private static Bson correlationStatusUpdate(int succeeded, int failed) {
+            Date now = new Date();
+            return Updates.combine(
+                    Updates.inc("succeeded", succeeded),
+                    Updates.inc("failed", failed),
+                    Updates.set("lastUpdate", now),
+                    Updates.setOnInsert("createdAt", now));
+        }
+
         /* Handles exceptions that occur during queue processing in the Inventory Queue Processor Service
            Logs the error and sets an error response in the exchange body with status and message */
         public void handleQueueException(Exchange exchange) {
@@ -137,6 +381,51 @@ public class InventoryUpdateComponents {
             Map<String, Object> itemResult = exchange.getProperty("itemResult", Map.class);
             String correlationId = exchange.getIn().getHeader("JMSCorrelationID", String.class);
             String itemId = exchange.getProperty("itemId", String.class);
+            exchange.getIn().setBody(auditRecord(correlationId, itemId, itemResult));
+            logger.info("Prepared audit record for itemId: {}, correlationId: {}", itemId, correlationId);
+        }
+
+        /* Creates one audit record per message of a consumed batch and sets the list as the exchange body,
+           so the MongoDB insert endpoint stores the whole batch with a single insertMany
+           Pairs each entry of bulkItemResults with the JMS correlation ID of the message it came from,
+           followed by a skipped record for every duplicate removed from the batch (skippedItemResults) */
+        public void storeAuditRecords(Exchange exchange) {
+            List<Map<String, Object>> itemResults = exchange.getProperty("bulkItemResults", List.class);
+            List<String> correlationIds = exchange.getProperty("batchCorrelationIds", List.class);
+            List<Map<String, Object>> skippedResults = exchange.getProperty("skippedItemResults", List.of(), List.class);
+            List<String> skippedCorrelationIds = exchange.getProperty("skippedCorrelationIds", List.of(), List.class);
+            List<Map<String, Object>> auditRecords = new ArrayList<>(itemResults.size() + skippedResults.size());
+            for (int i = 0; i < itemResults.size(); i++) {
+                Map<String, Object> itemResult = itemResults.get(i);
+                auditRecords.add(auditRecord(correlationIds.get(i), (String) itemResult.get("itemId"), itemResult));
+            }
+            for (int i = 0; i < skippedResults.size(); i++) {
+                Map<String, Object> itemResult = skippedResults.get(i);
+                auditRecords.add(auditRecord(skippedCorrelationIds.get(i), (String) itemResult.get("itemId"), itemResult));
+            }
+            exchange.getIn().setBody(auditRecords);
+            logger.info("Prepared {} audit records for batch", auditRecords.size());
+        }
+
+        /* Sets the IDs of the items whose stock was changed as the exchange body, for the item cache invalidation topic
+           Reads bulkItemResults in batch consumer mode and itemResult otherwise; sets cacheInvalidationCount */
+        public void prepareCacheInvalidation(Exchange exchange) {
+            List<Map<String, Object>> itemResults = exchange.getProperty("bulkItemResults", List.class);
+            if (itemResults == null) {
+                Map<String, Object> itemResult = exchange.getProperty("itemResult", Map.class);
+                itemResults = itemResult != null ? List.of(itemResult) : List.of();
+            }
+            Set<String> itemIds = new LinkedHashSet<>();
+            for (Map<String, Object> itemResult : itemResults) {
+                if ("success".equals(itemResult.get("status"))) {
+                    itemIds.add((String) itemResult.get("itemId"));
+                }
+            }
+            exchange.setProperty("cacheInvalidationCount", itemIds.size());
+            exchange.getIn().setBody(new ArrayList<>(itemIds));
+        }
+
+        private static Map<String, Object> auditRecord(String correlationId, String itemId, Map<String, Object> itemResult) {
             Map<String, Object> auditRecord = new HashMap<>();
             auditRecord.put("_id", UUID.randomUUID().toString());
             auditRecord.put("correlationId", correlationId);
@@ -144,8 +433,7 @@ public class InventoryUpdateComponents {
             auditRecord.put("status", itemResult.get("status"));
             auditRecord.put("message", itemResult.get("message"));
             auditRecord.put("timestamp", LocalDateTime.now().toString());
-            exchange.getIn().setBody(auditRecord);
-            logger.info("Prepared audit record for itemId: {}, correlationId: {}", itemId, correlationId);
+            return auditRecord;
         }
 
         // Placeholder method required by the Processor interface, not used in this implementation
@@ -0,0 +1,57 @@
+package com.UST.Apache_Camel.config;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import org.apache.camel.component.micrometer.MicrometerConstants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class MetricsConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(MetricsConfig.class);
+
+    @Value("${app.metrics.histogram.minimumExpectedMs:1}")
+    private long minimumExpectedMs;
+
+    @Value("${app.metrics.histogram.maximumExpectedMs:30000}")
+    private long maximumExpectedMs;
+
+    /* Publishes the latency timers as Prometheus histograms (_bucket series), so percentiles are computed at query time
+       with histogram_quantile instead of on every recording
+       Covers the per-route timers of camel-micrometer (CamelRoutePolicy, tagged routeId), the per-endpoint timers
+       (CamelExchangeEventNotifier, tagged endpointName with the mongodb:/activemq: endpoint URI), the inventory
+       timers such as the queue lag and the MongoDB driver timers (command latency, pool checkout wait); buckets are
+       limited to app.metrics.histogram.minimumExpectedMs..maximumExpectedMs */
+    @Bean
+    public MeterFilter latencyHistogramMeterFilter() {
+        logger.info("Latency histograms from {} ms to {} ms", minimumExpectedMs, maximumExpectedMs);
+        DistributionStatisticConfig histogram = DistributionStatisticConfig.builder()
+                .percentilesHistogram(true)
+                .minimumExpectedValue((double) Duration.ofMillis(minimumExpectedMs).toNanos())
+                .maximumExpectedValue((double) Duration.ofMillis(maximumExpectedMs).toNanos())
+                .build();
+        return new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                if (id.getType() != Meter.Type.TIMER || !isLatencyTimer(id.getName())) {
+                    return config;
+                }
+                return histogram.merge(config);
+            }
+        };
+    }
+
+    private static boolean isLatencyTimer(String name) {
+        return name.equals(MicrometerConstants.DEFAULT_CAMEL_ROUTE_POLICY_METER_NAME)
+                || name.equals(MicrometerConstants.DEFAULT_CAMEL_EXCHANGE_EVENT_METER_NAME)
+                || name.startsWith("inventory.")
+                || name.startsWith("mongodb.driver.");
+    }
+}
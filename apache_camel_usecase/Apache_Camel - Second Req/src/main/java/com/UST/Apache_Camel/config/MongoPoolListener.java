@@ -0,0 +1,126 @@
+package com.UST.Apache_Camel.config;
+
+import com.mongodb.connection.ServerId;
+import com.mongodb.event.ConnectionCheckOutFailedEvent;
+import com.mongodb.event.ConnectionCheckOutStartedEvent;
+import com.mongodb.event.ConnectionCheckedInEvent;
+import com.mongodb.event.ConnectionCheckedOutEvent;
+import com.mongodb.event.ConnectionPoolClosedEvent;
+import com.mongodb.event.ConnectionPoolCreatedEvent;
+import com.mongodb.event.ConnectionPoolListener;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/* Connection pool telemetry of a MongoClient (see MongoConfig), next to Micrometer's pool gauges
+   (mongodb.driver.pool.size, .checkedout, .waitqueuesize) and command timers (mongodb.driver.commands):
+     mongodb_driver_pool_checkout_wait_seconds   time a request waited for a pooled connection, as a histogram
+     mongodb_driver_pool_checkout_failed_total   failed checkouts by reason; TIMEOUT is a request that got no connection
+                                                 within app.mongo.pool.maxWaitTimeMs (the "wait queue" stalls)
+     mongodb_driver_pool_utilization             checked-out connections / app.mongo.pool.maxSize
+   All tagged cluster.id and server.address like Micrometer's pool meters, so the meters of several clients stay apart
+   The synchronous driver checks a connection out on the calling thread, so the wait is timed with a thread local */
+public class MongoPoolListener implements ConnectionPoolListener {
+
+    private final MeterRegistry meterRegistry;
+    private final ThreadLocal<Long> checkoutStart = new ThreadLocal<>();
+    private final Map<ServerId, PoolMeters> pools = new ConcurrentHashMap<>();
+
+    public MongoPoolListener(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void connectionPoolCreated(ConnectionPoolCreatedEvent event) {
+        ServerId serverId = event.getServerId();
+        int maxSize = event.getSettings().getMaxSize();
+        AtomicInteger checkedOut = new AtomicInteger();
+        Gauge utilization = Gauge.builder("mongodb.driver.pool.utilization", checkedOut,
+                        count -> maxSize > 0 ? (double) count.get() / maxSize : 0)
+                .description("Share of the pool's connections checked out")
+                .tags(tags(serverId))
+                .register(meterRegistry);
+        Timer checkoutWait = Timer.builder("mongodb.driver.pool.checkout.wait")
+                .description("Time waited for a pooled connection")
+                .tags(tags(serverId))
+                .register(meterRegistry);
+        pools.put(serverId, new PoolMeters(checkedOut, utilization, checkoutWait));
+    }
+
+    @Override
+    public void connectionPoolClosed(ConnectionPoolClosedEvent event) {
+        PoolMeters pool = pools.remove(event.getServerId());
+        if (pool != null) {
+            meterRegistry.remove(pool.utilization);
+            meterRegistry.remove(pool.checkoutWait);
+        }
+    }
+
+    @Override
+    public void connectionCheckOutStarted(ConnectionCheckOutStartedEvent event) {
+        checkoutStart.set(System.nanoTime());
+    }
+
+    @Override
+    public void connectionCheckedOut(ConnectionCheckedOutEvent event) {
+        PoolMeters pool = pools.get(event.getConnectionId().getServerId());
+        if (pool != null) {
+            pool.checkedOut.incrementAndGet();
+        }
+        recordWait(pool);
+    }
+
+    @Override
+    public void connectionCheckOutFailed(ConnectionCheckOutFailedEvent event) {
+        Counter.builder("mongodb.driver.pool.checkout.failed")
+                .description("Failed connection checkouts")
+                .tags(tags(event.getServerId()))
+                .tag("reason", event.getReason().name())
+                .register(meterRegistry)
+                .increment();
+        recordWait(pools.get(event.getServerId()));
+    }
+
+    @Override
+    public void connectionCheckedIn(ConnectionCheckedInEvent event) {
+        PoolMeters pool = pools.get(event.getConnectionId().getServerId());
+        if (pool != null) {
+            pool.checkedOut.decrementAndGet();
+        }
+    }
+
+    private void recordWait(PoolMeters pool) {
+        Long start = checkoutStart.get();
+        if (start == null) {
+            return;
+        }
+        checkoutStart.remove();
+        if (pool != null) {
+            pool.checkoutWait.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static Tags tags(ServerId serverId) {
+        return Tags.of("cluster.id", serverId.getClusterId().getValue(),
+                "server.address", serverId.getAddress().toString());
+    }
+
+    private static final class PoolMeters {
+        private final AtomicInteger checkedOut;
+        private final Gauge utilization;
+        private final Timer checkoutWait;
+
+        private PoolMeters(AtomicInteger checkedOut, Gauge utilization, Timer checkoutWait) {
+            this.checkedOut = checkedOut;
+            this.utilization = utilization;
+            this.checkoutWait = checkoutWait;
+        }
+    }
+}
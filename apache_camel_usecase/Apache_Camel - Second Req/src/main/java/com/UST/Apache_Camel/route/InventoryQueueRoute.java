@@ -1,49 +1,196 @@
 package com.UST.Apache_Camel.route;
 
 import com.UST.Apache_Camel.config.ApplicationConstants;
+import com.UST.Apache_Camel.config.CategoryCatalog;
+import com.UST.Apache_Camel.config.InventoryAuditWriter;
+import com.UST.Apache_Camel.config.InventoryBatchConsumer;
+import com.UST.Apache_Camel.config.InventoryIdempotencyStore;
+import com.UST.Apache_Camel.config.InventoryMetrics;
 import com.UST.Apache_Camel.config.InventoryUpdateComponents;
 import com.UST.Apache_Camel.exception.InventoryValidationException;
+import com.mongodb.client.model.Projections;
 import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.component.mongodb.MongoDbConstants;
+import org.apache.camel.model.dataformat.JsonLibrary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
 @Component
 public class InventoryQueueRoute extends RouteBuilder {
 
+    private static final Logger logger = LoggerFactory.getLogger(InventoryQueueRoute.class);
+
+    @Value("${app.inventory.updateMode:" + ApplicationConstants.INVENTORY_UPDATE_MODE_ATOMIC + "}")
+    private String inventoryUpdateMode;
+
+    @Value("${app.inventory.consumerMode:" + ApplicationConstants.INVENTORY_CONSUMER_MODE_SINGLE + "}")
+    private String inventoryConsumerMode;
+
+    @Value("${app.inventory.concurrentConsumers:5}")
+    private int concurrentConsumers;
+
+    @Value("${app.inventory.audit.writeBehind:false}")
+    private boolean auditWriteBehind;
+
+    @Autowired
+    private InventoryBatchConsumer inventoryBatchConsumer;
+
+    @Autowired
+    private InventoryAuditWriter inventoryAuditWriter;
+
+    @Autowired
+    private InventoryIdempotencyStore inventoryIdempotencyStore;
+
+    @Autowired
+    private InventoryMetrics inventoryMetrics;
+
+    @Autowired
+    private CategoryCatalog categoryCatalog;
+
     // Configures the Camel route for the Inventory Queue Processor Service to process inventory update messages
     // Consumes messages from the ActiveMQ queue (inventory.update.queue), validates and updates item stock in MongoDB,
     // and stores audit records. Handles exceptions and logs processing steps for debugging and monitoring.
     // The route performs the following steps:
-    // 1. Reads messages from ActiveMQ with concurrent consumers
-    // 2. Processes the item payload, validates it, and retrieves the item from MongoDB
-    // 3. Updates stock details (availableStock, soldOut, damaged) and saves to MongoDB
-    // 4. Marks success or failure, stores an audit record in MongoDB, and logs the outcome
+    // 1. Reads messages from ActiveMQ with app.inventory.concurrentConsumers consumers, kept open (CACHE_CONSUMER)
+    // 2. Skips an item that was already applied (app.inventory.idempotency.enabled, see InventoryIdempotencyStore): a
+    //    redelivery after a failure between recording the key and the acknowledgement is audited as skipped instead of
+    //    applied twice; a crash between the stock update and recording its key is not covered
+    // 3. Processes the item payload, validates it, and retrieves the item from MongoDB
+    // 4. Updates stock details (availableStock, soldOut, damaged), saves to MongoDB and records the idempotency key
+    //    (atomic mode: a single conditional findOneAndUpdate replaces the findById + $set round trips)
+    // 5. Marks success or failure, counts it in the correlation summary document ($inc succeeded/failed),
+    //    stores an audit record in MongoDB, and logs the outcome
+    //    (app.inventory.audit.writeBehind=true: the record is handed to InventoryAuditWriter and inserted in batches,
+    //    so the message is acknowledged before its audit record is stored; off by default)
+    // A message sent by the chunked enqueue mode (InventoryChunkSize property) holds a JSON array of items; it is split
+    // and every item goes through steps 2-5 on its own, so each still gets its own result, audit record and status count
+    // In batch consumer mode (app.inventory.consumerMode=batch) the route is driven by a scheduler instead:
+    // 1. Receives up to app.inventory.batchSize messages or app.inventory.batchTimeoutMs of messages on a transacted session
+    // 2. Drops the items already applied, resolves the others with one $in lookup, applies the stock changes with one
+    //    unordered bulkWrite and records their idempotency keys with one insertMany
+    // 3. Stores all audit records with one insertMany and only then commits the session, acknowledging the batch
+    // 4. Counts the batch in the correlation summary documents with one bulkWrite of $inc updates
+    // A bad message only marks its own item failed; any other failure rolls the batch back for redelivery
+    // In both modes the IDs of updated items are then published on the item.cache.invalidate topic so the item
+    // services drop them from their caches; in batch mode this happens after the commit, so a failed publish
+    // cannot roll back a batch that was already applied
     @Override
     public void configure() {
-        from(String.format(ApplicationConstants.AMQ_INVENTORY_UPDATE_READ,
-                ApplicationConstants.AMQ_INVENTORY_UPDATE_READ_QUEUE))
-                .routeId(ApplicationConstants.ROUTE_PROCESS_INVENTORY_QUEUE)
-                .onException(Exception.class)
-                .handled(true)
-                .bean(InventoryUpdateComponents.AsyncInventoryUpdateProcessor.class, "handleQueueException")
-                .end()
-                .log("Processing inventory item from queue: ${body}, correlationId: ${header.JMSCorrelationID}")
-                .doTry()
-                .bean(InventoryUpdateComponents.ItemProcessor.class, "processItem")
-                .log("Processing item: ${exchangeProperty.itemId}")
-                .bean(InventoryUpdateComponents.ItemProcessor.class, "setItemId")
-                .to(String.format(ApplicationConstants.MONGO_ITEM_FIND_BY_ID,
-                        ApplicationConstants.MONGO_DATABASE, ApplicationConstants.MONGO_ITEM_READ_COLLECTION))
-                .bean(InventoryUpdateComponents.ItemProcessor.class, "validateAndUpdateItem")
-                .to(String.format(ApplicationConstants.MONGO_ITEM_SAVE,
-                        ApplicationConstants.MONGO_DATABASE, ApplicationConstants.MONGO_ITEM_WRITE_COLLECTION))
-                .bean(InventoryUpdateComponents.ItemProcessor.class, "markSuccess")
-                .doCatch(InventoryValidationException.class)
-                .bean(InventoryUpdateComponents.ItemProcessor.class, "markFailure")
-                .end()
-                .log("Completed processing item ${exchangeProperty.itemId}, itemResult: ${exchangeProperty.itemResult}")
-                .bean(InventoryUpdateComponents.AsyncInventoryUpdateProcessor.class, "storeAuditRecord")
-                .to(String.format(ApplicationConstants.MONGO_INVENTORY_AUDIT_INSERT,
-                        ApplicationConstants.MONGO_DATABASE, ApplicationConstants.MONGO_INVENTORY_AUDIT_WRITE_COLLECTION))
-                .log("Stored audit result: ${body}");
+        boolean atomicUpdateMode = ApplicationConstants.INVENTORY_UPDATE_MODE_ATOMIC.equals(inventoryUpdateMode);
+        logger.info("Inventory update mode: {}, consumer mode: {}, concurrent consumers: {}",
+                inventoryUpdateMode, inventoryConsumerMode, concurrentConsumers);
+
+        if (ApplicationConstants.INVENTORY_CONSUMER_MODE_BATCH.equals(inventoryConsumerMode)) {
+            from(ApplicationConstants.SCHEDULER_INVENTORY_BATCH)
+                    .routeId(ApplicationConstants.ROUTE_PROCESS_INVENTORY_QUEUE)
+                    .onException(Exception.class)
+                    .handled(true)
+                    .bean(inventoryBatchConsumer, "rollbackBatch")
+                    .bean(InventoryUpdateComponents.AsyncInventoryUpdateProcessor.class, "handleQueueException")
+                    .end()
+                    .bean(inventoryBatchConsumer, "receiveBatch")
+                    .filter(simple("${exchangeProperty.inventoryList.size} > 0"))
+                    .log("Processing batch of ${exchangeProperty.inventoryList.size} inventory items from queue")
+                    .bean(inventoryIdempotencyStore, "filterBatch")
+                    .bean(InventoryUpdateComponents.BulkInventoryUpdateProcessor.class, "applyBulkUpdate")
+                    .bean(inventoryIdempotencyStore, "recordBatch")
+                    .bean(InventoryUpdateComponents.AsyncInventoryUpdateProcessor.class, "storeAuditRecords")
+                    .to(String.format(ApplicationConstants.MONGO_INVENTORY_AUDIT_INSERT,
+                            ApplicationConstants.MONGO_DATABASE, ApplicationConstants.MONGO_INVENTORY_AUDIT_WRITE_COLLECTION))
+                    .bean(inventoryBatchConsumer, "acknowledgeBatch")
+                    .bean(inventoryMetrics, "recordBatchItemResults")
+                    .bean(InventoryUpdateComponents.AsyncInventoryUpdateProcessor.class, "updateCorrelationStatuses")
+                    .log("Completed batch of ${exchangeProperty.inventoryList.size} inventory items")
+                    .to(ApplicationConstants.DIRECT_PREFIX + ApplicationConstants.ENDPOINT_PUBLISH_ITEM_CACHE_INVALIDATION)
+                    .end();
+        } else {
+            from(String.format(ApplicationConstants.AMQ_INVENTORY_UPDATE_READ,
+                    ApplicationConstants.AMQ_INVENTORY_UPDATE_READ_QUEUE, concurrentConsumers))
+                    .routeId(ApplicationConstants.ROUTE_PROCESS_INVENTORY_QUEUE)
+                    .onException(Exception.class)
+                    .handled(true)
+                    .bean(InventoryUpdateComponents.AsyncInventoryUpdateProcessor.class, "handleQueueException")
+                    .end()
+                    .bean(inventoryMetrics, "recordReceived")
+                    .choice()
+                    .when(header(ApplicationConstants.INVENTORY_CHUNK_HEADER).isNotNull())
+                    .log("Unpacking chunk of ${header." + ApplicationConstants.INVENTORY_CHUNK_HEADER + "} items, correlationId: ${header.JMSCorrelationID}")
+                    .unmarshal().json(JsonLibrary.Jackson, List.class)
+                    .split(body())
+                    .to(ApplicationConstants.DIRECT_PREFIX + ApplicationConstants.ENDPOINT_PROCESS_INVENTORY_ITEM)
+                    .end()
+                    .endChoice()
+                    .otherwise()
+                    .to(ApplicationConstants.DIRECT_PREFIX + ApplicationConstants.ENDPOINT_PROCESS_INVENTORY_ITEM)
+                    .end();
+
+            // Processes a single inventory item, either a whole queue message or one entry of a chunk
+            from(ApplicationConstants.DIRECT_PREFIX + ApplicationConstants.ENDPOINT_PROCESS_INVENTORY_ITEM)
+                    .routeId(ApplicationConstants.ROUTE_PROCESS_INVENTORY_ITEM)
+                    .onException(Exception.class)
+                    .handled(true)
+                    .bean(InventoryUpdateComponents.AsyncInventoryUpdateProcessor.class, "updateCorrelationStatus")
+                    .bean(InventoryUpdateComponents.AsyncInventoryUpdateProcessor.class, "handleQueueException")
+                    .end()
+                    .log("Processing inventory item from queue: ${body}, correlationId: ${header.JMSCorrelationID}")
+                    .bean(inventoryIdempotencyStore, "check")
+                    .choice()
+                    .when(exchangeProperty("duplicateMessage").isEqualTo(true))
+                    .bean(InventoryUpdateComponents.ItemProcessor.class, "markSkipped")
+                    .otherwise()
+                    .doTry()
+                    .bean(InventoryUpdateComponents.ItemProcessor.class, "processItem")
+                    .log("Processing item: ${exchangeProperty.itemId}")
+                    .choice()
+                    .when(exchange -> atomicUpdateMode)
+                    .bean(InventoryUpdateComponents.ItemProcessor.class, "applyAtomicUpdate")
+                    .otherwise()
+                    .bean(InventoryUpdateComponents.ItemProcessor.class, "setItemId")
+                    .setHeader(MongoDbConstants.FIELDS_PROJECTION, constant(Projections.include("stockDetails")))
+                    .to(String.format(ApplicationConstants.MONGO_ITEM_FIND_BY_ID,
+                            ApplicationConstants.MONGO_DATABASE, ApplicationConstants.MONGO_ITEM_READ_COLLECTION))
+                    .removeHeader(MongoDbConstants.FIELDS_PROJECTION)
+                    .bean(InventoryUpdateComponents.ItemProcessor.class, "validateAndUpdateItem")
+                    .bean(InventoryUpdateComponents.ItemProcessor.class, "saveStockDetails")
+                    .end()
+                    .bean(inventoryIdempotencyStore, "record")
+                    .bean(InventoryUpdateComponents.ItemProcessor.class, "markSuccess")
+                    .endDoTry()
+                    .doCatch(InventoryValidationException.class)
+                    .bean(InventoryUpdateComponents.ItemProcessor.class, "markFailure")
+                    .end()
+                    .bean(InventoryUpdateComponents.AsyncInventoryUpdateProcessor.class, "updateCorrelationStatus")
+                    .endChoice()
+                    .end()
+                    .bean(inventoryMetrics, "recordItemResult")
+                    .log("Completed processing item ${exchangeProperty.itemId}, itemResult: ${exchangeProperty.itemResult}")
+                    .bean(InventoryUpdateComponents.AsyncInventoryUpdateProcessor.class, "storeAuditRecord")
+                    .choice()
+                    .when(exchange -> auditWriteBehind)
+                    .bean(inventoryAuditWriter, "submit")
+                    .otherwise()
+                    .to(String.format(ApplicationConstants.MONGO_INVENTORY_AUDIT_INSERT,
+                            ApplicationConstants.MONGO_DATABASE, ApplicationConstants.MONGO_INVENTORY_AUDIT_WRITE_COLLECTION))
+                    .end()
+                    .log("Stored audit result: ${body}")
+                    .to(ApplicationConstants.DIRECT_PREFIX + ApplicationConstants.ENDPOINT_PUBLISH_ITEM_CACHE_INVALIDATION);
+        }
+
+        // Publishes the IDs of the items updated by this exchange for item cache invalidation
+        // With app.category.catalog.enabled their category catalog entries are refreshed first (see CategoryCatalog)
+        from(ApplicationConstants.DIRECT_PREFIX + ApplicationConstants.ENDPOINT_PUBLISH_ITEM_CACHE_INVALIDATION)
+                .routeId(ApplicationConstants.ROUTE_PUBLISH_ITEM_CACHE_INVALIDATION)
+                .bean(InventoryUpdateComponents.AsyncInventoryUpdateProcessor.class, "prepareCacheInvalidation")
+                .bean(categoryCatalog, "refreshItems")
+                .filter(simple("${exchangeProperty.cacheInvalidationCount} > 0"))
+                .marshal().json(JsonLibrary.Jackson)
+                .to(String.format(ApplicationConstants.AMQ_ITEM_CACHE_INVALIDATE_WRITE,
+                        ApplicationConstants.AMQ_ITEM_CACHE_INVALIDATE_TOPIC))
+                .end();
     }
 }
\ No newline at end of file
@@ -0,0 +1,43 @@
+package com.UST.Apache_Camel.route;
+
+import com.UST.Apache_Camel.config.ApplicationConstants;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import io.prometheus.client.exporter.common.TextFormat;
+import org.apache.camel.Exchange;
+import org.apache.camel.builder.RouteBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+public class MetricsRoute extends RouteBuilder {
+
+    private static final Logger logger = LoggerFactory.getLogger(MetricsRoute.class);
+
+    @Autowired
+    private PrometheusMeterRegistry prometheusMeterRegistry;
+
+    @Value("${app.metrics.scrape.enabled:true}")
+    private boolean scrapeEnabled;
+
+    @Value("${server.port:" + ApplicationConstants.REST_PORT + "}")
+    private int port;
+
+    /* Serves the Prometheus scrape endpoint of the queue processor
+       The service has no web server, so GET /actuator/prometheus is a netty-http route on server.port that returns
+       the registry in the Prometheus text format; app.metrics.scrape.enabled=false leaves the port closed */
+    @Override
+    public void configure() {
+        if (!scrapeEnabled) {
+            logger.info("Prometheus scrape endpoint disabled");
+            return;
+        }
+        logger.info("Prometheus scrape endpoint on port {}", port);
+        from(String.format(ApplicationConstants.NETTY_HTTP_METRICS_READ, ApplicationConstants.REST_HOST, port))
+                .routeId(ApplicationConstants.ROUTE_METRICS_SCRAPE)
+                .bean(prometheusMeterRegistry, "scrape()")
+                .setHeader(Exchange.CONTENT_TYPE, constant(TextFormat.CONTENT_TYPE_004));
+    }
+}
@@ -0,0 +1,104 @@
+package com.UST.Apache_Camel.config;
+
+import com.UST.Apache_Camel.shared.MongoTestSupport;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import org.apache.camel.Exchange;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/* AsyncInventoryUpdateProcessor: counting finished messages in the summary document of their correlation ID */
+class AsyncInventoryUpdateProcessorTest extends MongoTestSupport {
+
+    private final InventoryUpdateComponents.AsyncInventoryUpdateProcessor processor =
+            new InventoryUpdateComponents.AsyncInventoryUpdateProcessor();
+
+    @Test
+    void countsEachMessageOnceAsSucceededOrFailed() {
+        statuses().insertOne(new Document("_id", "corr-1").append("total", 3).append("succeeded", 0).append("failed", 0));
+
+        Exchange succeeded = message("corr-1", Map.of("status", "success"));
+        processor.updateCorrelationStatus(succeeded);
+        processor.updateCorrelationStatus(succeeded);
+        processor.updateCorrelationStatus(message("corr-1", Map.of("status", "error")));
+
+        Document status = status("corr-1");
+        assertThat(status.getInteger("succeeded")).isEqualTo(1);
+        assertThat(status.getInteger("failed")).isEqualTo(1);
+        assertThat(status.getInteger("total")).isEqualTo(3);
+        assertThat(status.get("lastUpdate")).isNotNull();
+    }
+
+    @Test
+    void countsAMessageWithoutItemResultAsFailed() {
+        processor.updateCorrelationStatus(message("corr-1", null));
+
+        assertThat(status("corr-1").getInteger("failed")).isEqualTo(1);
+        assertThat(status("corr-1").getInteger("succeeded")).isZero();
+    }
+
+    @Test
+    void createsTheSummaryIfTheMessageOvertookTheEnqueueRoute() {
+        processor.updateCorrelationStatus(message("corr-1", Map.of("status", "success")));
+
+        Document status = status("corr-1");
+        assertThat(status.getInteger("succeeded")).isEqualTo(1);
+        assertThat(status.get("createdAt")).isNotNull();
+        assertThat(status.containsKey("total")).isFalse();
+    }
+
+    @Test
+    void doesNotCountSkippedDuplicatesOrMessagesWithoutCorrelationId() {
+        Exchange duplicate = message("corr-1", null);
+        duplicate.getIn().setBody(Map.of("_id", "item-1"));
+        new InventoryUpdateComponents.ItemProcessor().markSkipped(duplicate);
+        processor.updateCorrelationStatus(duplicate);
+        processor.updateCorrelationStatus(message(null, Map.of("status", "success")));
+
+        assertThat(statuses().countDocuments()).isZero();
+    }
+
+    /* Duplicates are already removed from bulkItemResults by filterBatch, so every result here is counted */
+    @Test
+    void countsABatchPerCorrelationIdInOneWrite() {
+        statuses().insertOne(new Document("_id", "corr-1").append("total", 3).append("succeeded", 1).append("failed", 0));
+
+        Exchange exchange = exchange();
+        exchange.setProperty("bulkItemResults", List.of(
+                Map.of("status", "success"),
+                Map.of("status", "error"),
+                Map.of("status", "success"),
+                Map.of("status", "error"),
+                Map.of("status", "success")));
+        exchange.setProperty("batchCorrelationIds", new ArrayList<>(Arrays.asList("corr-1", "corr-2", "corr-2", "corr-1", null)));
+        processor.updateCorrelationStatuses(exchange);
+
+        assertThat(status("corr-1").getInteger("succeeded")).isEqualTo(2);
+        assertThat(status("corr-1").getInteger("failed")).isEqualTo(1);
+        assertThat(status("corr-2").getInteger("succeeded")).isEqualTo(1);
+        assertThat(status("corr-2").getInteger("failed")).isEqualTo(1);
+        assertThat(statuses().countDocuments()).isEqualTo(2);
+    }
+
+    private static Exchange message(String correlationId, Map<String, Object> itemResult) {
+        Exchange exchange = exchange();
+        exchange.getIn().setHeader("JMSCorrelationID", correlationId);
+        exchange.setProperty("itemResult", itemResult);
+        return exchange;
+    }
+
+    private static Document status(String correlationId) {
+        return statuses().find(Filters.eq("_id", correlationId)).first();
+    }
+
+    private static MongoCollection<Document> statuses() {
+        return collection(ApplicationConstants.MONGO_CORRELATION_STATUS_WRITE_COLLECTION);
+    }
+}
@@ -0,0 +1,96 @@
+package com.UST.Apache_Camel.config;
+
+import com.UST.Apache_Camel.shared.MongoTestSupport;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import org.apache.camel.Exchange;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/* BulkInventoryUpdateProcessor (batch consumer mode) on top of BulkStockWriter; the concurrent-write handling of the
+   writer itself is covered by BulkStockWriterTest in the shared module */
+class BulkInventoryUpdateProcessorTest extends MongoTestSupport {
+
+    private final InventoryUpdateComponents.BulkInventoryUpdateProcessor processor =
+            new InventoryUpdateComponents.BulkInventoryUpdateProcessor();
+
+    @Test
+    void appliesTheBatchInQueueOrderAndReportsEachLine() {
+        items().insertOne(item("item-1", "cat-1", 10));
+        items().insertOne(item("item-2", "cat-1", 1));
+
+        Exchange exchange = batch(
+                line("item-1", 3, 1),
+                line("item-2", 2, 0),
+                null,
+                line("item-1", 5, 0),
+                line("item-1", 2, 0),
+                Map.of("_id", "item-2"));
+        processor.applyBulkUpdate(exchange);
+
+        List<Map<String, Object>> results = exchange.getProperty("bulkItemResults", List.class);
+        assertThat(results).extracting(result -> result.get("status"))
+                .containsExactly("success", "error", "error", "success", "error", "error");
+        assertThat(results.get(1).get("message")).isEqualTo("Requested quantity exceeds available stock for item ID: item-2");
+        assertThat(results.get(4).get("message")).isEqualTo("Requested quantity exceeds available stock for item ID: item-1");
+        assertThat(stock("item-1").getInteger("availableStock")).isEqualTo(1);
+        assertThat(stock("item-1").getInteger("soldOut")).isEqualTo(8);
+        assertThat(stock("item-2").getInteger("availableStock")).isEqualTo(1);
+    }
+
+    @Test
+    void reportsUnknownItemsWithoutCreatingThem() {
+        items().insertOne(item("item-1", "cat-1", 10));
+
+        Exchange exchange = batch(line("missing", 1, 0), line("item-1", 1, 0));
+        processor.applyBulkUpdate(exchange);
+
+        List<Map<String, Object>> results = exchange.getProperty("bulkItemResults", List.class);
+        assertThat(results.get(0).get("message")).isEqualTo("Item not found for ID: missing");
+        assertThat(results.get(1).get("status")).isEqualTo("success");
+        assertThat(items().countDocuments()).isEqualTo(1);
+    }
+
+    @Test
+    void writesInChunksOfBulkChunkSize() {
+        List<Map<String, Object>> lines = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            items().insertOne(item("item-" + i, "cat-1", 5));
+            lines.add(line("item-" + i, 1, 1));
+        }
+
+        Exchange exchange = batch(lines.toArray(new Map[0]));
+        exchange.setProperty("bulkChunkSize", 3);
+        processor.applyBulkUpdate(exchange);
+
+        assertThat(exchange.getProperty("bulkItemResults", List.class)).hasSize(7)
+                .allSatisfy(result -> assertThat(((Map<String, Object>) result).get("status")).isEqualTo("success"));
+        items().find().forEach(item ->
+                assertThat(item.get("stockDetails", Document.class).getInteger("availableStock")).isEqualTo(3));
+    }
+
+    private static Exchange batch(Map<String, Object>... lines) {
+        Exchange exchange = exchange();
+        exchange.setProperty("inventoryList", new ArrayList<>(Arrays.asList(lines)));
+        return exchange;
+    }
+
+    private static Map<String, Object> line(String itemId, int soldOut, int damaged) {
+        return Map.of("_id", itemId, "stockDetails", Map.of("soldOut", soldOut, "damaged", damaged));
+    }
+
+    private static MongoCollection<Document> items() {
+        return collection(ApplicationConstants.MONGO_ITEM_WRITE_COLLECTION);
+    }
+
+    private static Document stock(String itemId) {
+        return items().find(Filters.eq("_id", itemId)).first().get("stockDetails", Document.class);
+    }
+}
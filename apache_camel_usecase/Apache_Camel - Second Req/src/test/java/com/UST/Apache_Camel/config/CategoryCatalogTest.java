@@ -0,0 +1,77 @@
+package com.UST.Apache_Camel.config;
+
+import com.UST.Apache_Camel.shared.MongoTestSupport;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/* CategoryCatalog: refresh of the catalog entries after the stock updates applied here, guarded by the item version */
+class CategoryCatalogTest extends MongoTestSupport {
+
+    private CategoryCatalog catalog;
+
+    @BeforeEach
+    void createCatalog() {
+        catalog = new CategoryCatalog();
+        ReflectionTestUtils.setField(catalog, "mongoClient", mongoClient);
+        ReflectionTestUtils.setField(catalog, "enabled", true);
+        catalog.init();
+    }
+
+    @Test
+    void replacesEntriesWithAHigherVersionOfTheItem() {
+        items().insertOne(item("item-1", "cat-1", 25).append("version", 4));
+        items().insertOne(item("item-2", "cat-1", 25));
+        catalogs().insertOne(segment(entry("item-1", 10, 3), entry("item-2", 10, null)));
+
+        catalog.refreshItems(List.of("item-1", "item-2"));
+
+        List<Document> entries = entries();
+        assertThat(entries.get(0).getInteger("version")).isEqualTo(4);
+        assertThat(entries.get(0).get("stockDetails", Document.class).getInteger("availableStock")).isEqualTo(25);
+        assertThat(entries.get(1).get("stockDetails", Document.class).getInteger("availableStock")).isEqualTo(25);
+        assertThat(catalog.getRefreshedItemCount()).isEqualTo(2);
+    }
+
+    @Test
+    void keepsEntriesWrittenFromANewerVersion() {
+        items().insertOne(item("item-1", "cat-1", 25).append("version", 4));
+        items().insertOne(item("item-2", "cat-1", 25));
+        catalogs().insertOne(segment(entry("item-1", 10, 6), entry("item-2", 10, 1)));
+
+        catalog.refreshItems(List.of("item-1", "item-2"));
+
+        assertThat(entries()).allSatisfy(entry ->
+                assertThat(entry.get("stockDetails", Document.class).getInteger("availableStock")).isEqualTo(10));
+        assertThat(catalog.getRefreshFailureCount()).isZero();
+    }
+
+    private static Document segment(Document... entries) {
+        return new Document("_id", "cat-1:regular").append("categoryId", "cat-1").append("count", entries.length)
+                .append("items", List.of(entries));
+    }
+
+    private static Document entry(String itemId, int availableStock, Integer version) {
+        Document entry = new Document("_id", itemId).append("stockDetails", new Document("availableStock", availableStock));
+        return version != null ? entry.append("version", version) : entry;
+    }
+
+    private static List<Document> entries() {
+        return catalogs().find(Filters.eq("_id", "cat-1:regular")).first().getList("items", Document.class);
+    }
+
+    private static MongoCollection<Document> items() {
+        return collection(ApplicationConstants.MONGO_ITEM_WRITE_COLLECTION);
+    }
+
+    private static MongoCollection<Document> catalogs() {
+        return collection(ApplicationConstants.MONGO_CATEGORY_CATALOG_WRITE_COLLECTION);
+    }
+}
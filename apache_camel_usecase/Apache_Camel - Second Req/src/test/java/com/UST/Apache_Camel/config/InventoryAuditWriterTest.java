@@ -0,0 +1,156 @@
+package com.UST.Apache_Camel.config;
+
+import com.UST.Apache_Camel.shared.MongoTestSupport;
+import com.mongodb.MongoException;
+import com.mongodb.MongoTimeoutException;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.InsertManyOptions;
+import org.apache.camel.Exchange;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.AdditionalAnswers;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+
+/* InventoryAuditWriter (app.inventory.audit.writeBehind=true): buffered inserts, bounded retries and dead-lettering */
+class InventoryAuditWriterTest extends MongoTestSupport {
+
+    private InventoryAuditWriter writer;
+
+    @BeforeEach
+    void createWriter() {
+        writer = new InventoryAuditWriter();
+        ReflectionTestUtils.setField(writer, "mongoClient", mongoClient);
+        ReflectionTestUtils.setField(writer, "bufferCapacity", 100);
+        ReflectionTestUtils.setField(writer, "flushSize", 10);
+        ReflectionTestUtils.setField(writer, "flushIntervalMs", 50L);
+        ReflectionTestUtils.setField(writer, "maxBlockMs", 100L);
+        ReflectionTestUtils.setField(writer, "shutdownTimeoutMs", 5000L);
+        ReflectionTestUtils.setField(writer, "maxFlushAttempts", 3);
+        ReflectionTestUtils.setField(writer, "retryBackoffMs", 10L);
+        ReflectionTestUtils.setField(writer, "auditCollection", audits());
+    }
+
+    @Test
+    void writesSubmittedRecordsAndDrainsTheBufferOnStop() throws Exception {
+        writer.start();
+        for (int i = 0; i < 25; i++) {
+            Exchange exchange = exchange();
+            exchange.getIn().setBody(Map.of("_id", "audit-" + i, "itemId", "item-" + i));
+            writer.submit(exchange);
+        }
+        writer.stop();
+
+        assertThat(audits().countDocuments()).isEqualTo(25);
+        assertThat(writer.getWrittenCount()).isEqualTo(25);
+        assertThat(writer.getDeadLetteredCount()).isZero();
+    }
+
+    @Test
+    void ignoresDuplicateKeysOfRecordsStoredByAnEarlierAttempt() {
+        audits().insertOne(auditRecord(1));
+
+        writer.flush(List.of(auditRecord(1), auditRecord(2)));
+
+        assertThat(audits().countDocuments()).isEqualTo(2);
+        assertThat(writer.getDeadLetteredCount()).isZero();
+    }
+
+    @Test
+    void boundsTheRetriesAndDeadLettersTheBatchWhenMongoIsUnreachable() {
+        MongoCollection<Document> unreachable = Mockito.mock(MongoCollection.class);
+        Mockito.when(unreachable.insertMany(anyList(), any(InsertManyOptions.class)))
+                .thenThrow(new MongoTimeoutException("no server"));
+        ReflectionTestUtils.setField(writer, "auditCollection", unreachable);
+
+        writer.flush(List.of(auditRecord(1), auditRecord(2), auditRecord(3)));
+
+        Mockito.verify(unreachable, Mockito.times(3)).insertMany(anyList(), any(InsertManyOptions.class));
+        assertThat(writer.getFailedFlushCount()).isEqualTo(3);
+        assertThat(writer.getDeadLetteredCount()).isEqualTo(3);
+    }
+
+    @Test
+    void splitsABatchThatKeepsFailingToDeadLetterOnlyTheRecordThatCannotBeWritten() {
+        MongoCollection<Document> real = audits();
+        MongoCollection<Document> rejectsPoison = Mockito.mock(MongoCollection.class, AdditionalAnswers.delegatesTo(real));
+        Mockito.doAnswer(invocation -> {
+            List<Document> records = invocation.getArgument(0);
+            if (records.stream().anyMatch(record -> record.containsKey("poison"))) {
+                throw new MongoException("document too large");
+            }
+            return AdditionalAnswers.delegatesTo(real).answer(invocation);
+        }).when(rejectsPoison).insertMany(anyList(), any(InsertManyOptions.class));
+        ReflectionTestUtils.setField(writer, "auditCollection", rejectsPoison);
+
+        List<Document> batch = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            batch.add(auditRecord(i));
+        }
+        batch.get(4).append("poison", true);
+        writer.flush(batch);
+
+        assertThat(audits().countDocuments()).isEqualTo(5);
+        assertThat(audits().countDocuments(new Document("poison", true))).isZero();
+        assertThat(writer.getDeadLetteredCount()).isEqualTo(1);
+        assertThat(writer.getWrittenCount()).isEqualTo(5);
+    }
+
+    @Test
+    void stopsRetryingAndRestoresTheInterruptWhenInterrupted() {
+        MongoCollection<Document> unreachable = Mockito.mock(MongoCollection.class);
+        Mockito.when(unreachable.insertMany(anyList(), any(InsertManyOptions.class)))
+                .thenThrow(new MongoTimeoutException("no server"));
+        ReflectionTestUtils.setField(writer, "auditCollection", unreachable);
+        ReflectionTestUtils.setField(writer, "retryBackoffMs", 60_000L);
+
+        Thread.currentThread().interrupt();
+        writer.flush(List.of(auditRecord(1), auditRecord(2)));
+
+        assertThat(Thread.interrupted()).isTrue();
+        Mockito.verify(unreachable, Mockito.times(1)).insertMany(anyList(), any(InsertManyOptions.class));
+        assertThat(writer.getDeadLetteredCount()).isEqualTo(2);
+    }
+
+    @Test
+    void stopDeadLettersWhatItCouldNotFlushInTime() throws Exception {
+        MongoCollection<Document> unreachable = Mockito.mock(MongoCollection.class);
+        Mockito.when(unreachable.insertMany(anyList(), any(InsertManyOptions.class)))
+                .thenThrow(new MongoTimeoutException("no server"));
+        MongoClient client = Mockito.mock(MongoClient.class, Mockito.RETURNS_DEEP_STUBS);
+        Mockito.when(client.getDatabase(anyString()).getCollection(anyString())).thenReturn(unreachable);
+        ReflectionTestUtils.setField(writer, "mongoClient", client);
+        ReflectionTestUtils.setField(writer, "shutdownTimeoutMs", 100L);
+        ReflectionTestUtils.setField(writer, "retryBackoffMs", 60_000L);
+        writer.start();
+        for (int i = 0; i < 3; i++) {
+            Exchange exchange = exchange();
+            exchange.getIn().setBody(Map.of("_id", "audit-" + i));
+            writer.submit(exchange);
+        }
+
+        writer.stop();
+
+        assertThat(writer.getDeadLetteredCount()).isEqualTo(3);
+        assertThat(writer.getBufferDepth()).isZero();
+    }
+
+    private static Document auditRecord(int i) {
+        return new Document("_id", "audit-" + i).append("itemId", "item-" + i).append("status", "success");
+    }
+
+    private static MongoCollection<Document> audits() {
+        return collection(ApplicationConstants.MONGO_INVENTORY_AUDIT_WRITE_COLLECTION);
+    }
+}
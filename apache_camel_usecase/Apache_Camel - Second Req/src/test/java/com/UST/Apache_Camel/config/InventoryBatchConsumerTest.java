@@ -0,0 +1,176 @@
+package com.UST.Apache_Camel.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.activemq.ActiveMQConnectionFactory;
+import org.apache.activemq.broker.BrokerService;
+import org.apache.activemq.command.ActiveMQQueue;
+import org.apache.camel.Exchange;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.support.DefaultExchange;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.jms.Connection;
+import javax.jms.JMSException;
+import javax.jms.MessageProducer;
+import javax.jms.Session;
+import javax.jms.TextMessage;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/* InventoryBatchConsumer (batch consumer mode) against an embedded broker: nothing of a batch is acknowledged until
+   acknowledgeBatch commits the session, so a batch that is rolled back or abandoned is delivered again */
+class InventoryBatchConsumerTest {
+
+    private static BrokerService broker;
+    private static ActiveMQConnectionFactory connectionFactory;
+
+    private InventoryBatchConsumer consumer;
+
+    @BeforeAll
+    static void startBroker() throws Exception {
+        broker = new BrokerService();
+        broker.setBrokerName("batch-consumer-test");
+        broker.setPersistent(false);
+        broker.setUseJmx(false);
+        broker.start();
+        broker.waitUntilStarted();
+        connectionFactory = new ActiveMQConnectionFactory("vm://batch-consumer-test?create=false");
+        connectionFactory.getRedeliveryPolicy().setInitialRedeliveryDelay(0);
+    }
+
+    @AfterAll
+    static void stopBroker() throws Exception {
+        broker.stop();
+        broker.waitUntilStopped();
+    }
+
+    @BeforeEach
+    void createConsumer() throws Exception {
+        broker.removeDestination(new ActiveMQQueue(ApplicationConstants.AMQ_INVENTORY_UPDATE_READ_QUEUE));
+        InventoryMetrics inventoryMetrics = new InventoryMetrics();
+        ReflectionTestUtils.setField(inventoryMetrics, "meterRegistry", new SimpleMeterRegistry());
+        inventoryMetrics.init();
+
+        consumer = new InventoryBatchConsumer();
+        ReflectionTestUtils.setField(consumer, "connectionFactory", connectionFactory);
+        ReflectionTestUtils.setField(consumer, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(consumer, "inventoryIdempotencyStore", new InventoryIdempotencyStore());
+        ReflectionTestUtils.setField(consumer, "inventoryMetrics", inventoryMetrics);
+        ReflectionTestUtils.setField(consumer, "batchSize", 3);
+        ReflectionTestUtils.setField(consumer, "batchTimeoutMs", 500L);
+    }
+
+    @AfterEach
+    void closeConsumer() {
+        consumer.close();
+    }
+
+    @Test
+    void receivesUpToBatchSizeItemsAndLeavesTheRestQueued() throws Exception {
+        send("corr-1", "{\"_id\":\"item-1\",\"stockDetails\":{\"soldOut\":1,\"damaged\":0}}",
+                "{\"_id\":\"item-2\",\"stockDetails\":{\"soldOut\":2,\"damaged\":0}}",
+                "{\"_id\":\"item-3\",\"stockDetails\":{\"soldOut\":3,\"damaged\":0}}",
+                "{\"_id\":\"item-4\",\"stockDetails\":{\"soldOut\":4,\"damaged\":0}}");
+
+        Exchange first = receive();
+        consumer.acknowledgeBatch(first);
+        Exchange second = receive();
+        consumer.acknowledgeBatch(second);
+
+        assertThat(itemIds(first)).containsExactly("item-1", "item-2", "item-3");
+        assertThat(first.getProperty("batchCorrelationIds", List.class)).containsExactly("corr-1", "corr-1", "corr-1");
+        assertThat(itemIds(second)).containsExactly("item-4");
+    }
+
+    @Test
+    void acknowledgedBatchIsNotDeliveredAgain() throws Exception {
+        send("corr-1", "{\"_id\":\"item-1\",\"stockDetails\":{\"soldOut\":1,\"damaged\":0}}");
+
+        consumer.acknowledgeBatch(receive());
+        consumer.close();
+
+        assertThat(receive().getProperty("inventoryList", List.class)).isEmpty();
+    }
+
+    @Test
+    void rolledBackBatchIsDeliveredAgainAsRedelivered() throws Exception {
+        send("corr-1", "{\"_id\":\"item-1\",\"stockDetails\":{\"soldOut\":1,\"damaged\":0}}",
+                "{\"_id\":\"item-2\",\"stockDetails\":{\"soldOut\":2,\"damaged\":0}}");
+
+        Exchange first = receive();
+        consumer.rollbackBatch(first);
+        Exchange redelivery = receive();
+        consumer.acknowledgeBatch(redelivery);
+
+        assertThat(first.getProperty("batchRedelivered", List.class)).containsExactly(false, false);
+        assertThat(itemIds(redelivery)).containsExactly("item-1", "item-2");
+        assertThat(redelivery.getProperty("batchRedelivered", List.class)).containsExactly(true, true);
+    }
+
+    @Test
+    void batchAbandonedBeforeTheCommitIsDeliveredAgain() throws Exception {
+        send("corr-1", "{\"_id\":\"item-1\",\"stockDetails\":{\"soldOut\":1,\"damaged\":0}}");
+
+        receive();
+        consumer.close();
+        Exchange redelivery = receive();
+
+        assertThat(itemIds(redelivery)).containsExactly("item-1");
+        assertThat(redelivery.getProperty("batchRedelivered", List.class)).containsExactly(true);
+    }
+
+    @Test
+    void unpacksChunksAndKeepsUnreadableMessagesAsNullEntries() throws Exception {
+        try (Connection connection = connectionFactory.createConnection()) {
+            Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            MessageProducer producer = session.createProducer(session.createQueue(ApplicationConstants.AMQ_INVENTORY_UPDATE_READ_QUEUE));
+            TextMessage chunk = session.createTextMessage("[{\"_id\":\"item-1\",\"stockDetails\":{\"soldOut\":1,\"damaged\":0}},"
+                    + "{\"_id\":\"item-2\",\"stockDetails\":{\"soldOut\":1,\"damaged\":0}}]");
+            chunk.setIntProperty(ApplicationConstants.INVENTORY_CHUNK_HEADER, 2);
+            chunk.setJMSCorrelationID("corr-1");
+            producer.send(chunk);
+            TextMessage unreadable = session.createTextMessage("not json");
+            unreadable.setJMSCorrelationID("corr-2");
+            producer.send(unreadable);
+        }
+
+        Exchange exchange = receive();
+        consumer.acknowledgeBatch(exchange);
+
+        assertThat(exchange.getProperty("inventoryList", List.class)).hasSize(3).last().isNull();
+        assertThat(exchange.getProperty("batchCorrelationIds", List.class)).containsExactly("corr-1", "corr-1", "corr-2");
+    }
+
+    private Exchange receive() throws JMSException {
+        Exchange exchange = new DefaultExchange(new DefaultCamelContext());
+        consumer.receiveBatch(exchange);
+        return exchange;
+    }
+
+    private static List<Object> itemIds(Exchange exchange) {
+        return ((List<Map<String, Object>>) exchange.getProperty("inventoryList", List.class)).stream()
+                .map(item -> item.get("_id"))
+                .collect(Collectors.toList());
+    }
+
+    private static void send(String correlationId, String... bodies) throws JMSException {
+        try (Connection connection = connectionFactory.createConnection()) {
+            Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            MessageProducer producer = session.createProducer(session.createQueue(ApplicationConstants.AMQ_INVENTORY_UPDATE_READ_QUEUE));
+            for (String body : bodies) {
+                TextMessage message = session.createTextMessage(body);
+                message.setJMSCorrelationID(correlationId);
+                producer.send(message);
+            }
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.UST.Apache_Camel.config;
+
+import com.UST.Apache_Camel.shared.MongoTestSupport;
+import com.mongodb.client.MongoCollection;
+import org.apache.camel.Exchange;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.jms.Message;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/* InventoryIdempotencyStore (app.inventory.idempotency.enabled=true): keys of one delivery of one request line,
+   answered from the LRU and, for redeliveries it does not hold, from inventory_processed_message */
+class InventoryIdempotencyStoreTest extends MongoTestSupport {
+
+    private InventoryIdempotencyStore store;
+
+    @BeforeEach
+    void createStore() {
+        store = store(true);
+    }
+
+    @Test
+    void skipsAMessageThatWasAlreadyApplied() {
+        Exchange first = message("ID:1", null, false);
+        store.check(first);
+        store.record(first);
+        Exchange redelivery = message("ID:1", null, true);
+        store.check(redelivery);
+
+        assertThat(first.getProperty("duplicateMessage", Boolean.class)).isFalse();
+        assertThat(redelivery.getProperty("duplicateMessage", Boolean.class)).isTrue();
+        assertThat(store.getCacheHitCount()).isEqualTo(1);
+        assertThat(processed().countDocuments()).isEqualTo(1);
+    }
+
+    @Test
+    void appliesRepeatedLinesForTheSameItemWithinAChunk() {
+        Exchange firstLine = message("ID:1", 0, false);
+        store.check(firstLine);
+        store.record(firstLine);
+        Exchange secondLine = message("ID:1", 1, false);
+        store.check(secondLine);
+
+        assertThat(firstLine.getProperty("idempotencyKey")).isEqualTo("ID:1#0");
+        assertThat(secondLine.getProperty("idempotencyKey")).isEqualTo("ID:1#1");
+        assertThat(secondLine.getProperty("duplicateMessage", Boolean.class)).isFalse();
+    }
+
+    @Test
+    void looksUpOnlyRedeliveriesMissingFromTheCache() {
+        Exchange applied = message("ID:1", null, false);
+        store.check(applied);
+        store.record(applied);
+        InventoryIdempotencyStore restarted = store(true);
+
+        Exchange firstDelivery = message("ID:2", null, false);
+        restarted.check(firstDelivery);
+        Exchange redelivery = message("ID:1", null, true);
+        restarted.check(redelivery);
+
+        assertThat(firstDelivery.getProperty("duplicateMessage", Boolean.class)).isFalse();
+        assertThat(redelivery.getProperty("duplicateMessage", Boolean.class)).isTrue();
+        assertThat(restarted.getStoreLookupCount()).isEqualTo(1);
+    }
+
+    @Test
+    void doesNothingWhenDisabled() throws Exception {
+        store = store(false);
+        Exchange exchange = message("ID:1", null, true);
+        store.check(exchange);
+        store.record(exchange);
+
+        assertThat(exchange.getProperty("duplicateMessage", Boolean.class)).isFalse();
+        assertThat(exchange.getProperty("idempotencyKey")).isNull();
+        assertThat(store.key(jmsMessage("ID:1"), 0)).isNull();
+        assertThat(processed().countDocuments()).isZero();
+    }
+
+    @Test
+    void keysBatchLinesLikeTheSingleConsumer() throws Exception {
+        Exchange single = message("ID:1", 2, false);
+        store.check(single);
+
+        assertThat(store.key(jmsMessage("ID:1"), 2)).isEqualTo(single.getProperty("idempotencyKey"));
+        assertThat(store.key(jmsMessage("ID:1"), null)).isEqualTo("ID:1");
+    }
+
+    @Test
+    void filtersAppliedLinesOutOfABatchAndKeepsRepeatedItems() {
+        processed().insertOne(new Document("_id", "ID:1#0"));
+        Exchange applied = message("ID:2", null, false);
+        store.check(applied);
+        store.record(applied);
+
+        Exchange batch = batch(
+                List.of(line("item-1"), line("item-1"), line("item-2"), line("item-3")),
+                Arrays.asList("ID:1#0", "ID:1#1", "ID:2", "ID:3"),
+                List.of(true, true, false, false));
+        store.filterBatch(batch);
+
+        assertThat(batch.getProperty("batchIdempotencyKeys", List.class)).containsExactly("ID:1#1", "ID:3");
+        assertThat(batch.getProperty("inventoryList", List.class)).containsExactly(line("item-1"), line("item-3"));
+        assertThat(batch.getProperty("batchCorrelationIds", List.class)).containsExactly("corr-ID:1#1", "corr-ID:3");
+        assertThat(batch.getProperty("skippedCorrelationIds", List.class)).containsExactly("corr-ID:1#0", "corr-ID:2");
+        List<Map<String, Object>> skipped = batch.getProperty("skippedItemResults", List.class);
+        assertThat(skipped).extracting(result -> result.get("itemId")).containsExactly("item-1", "item-2");
+        assertThat(skipped).allSatisfy(result -> assertThat(result.get("status")).isEqualTo("skipped"));
+        assertThat(store.getDuplicateCount()).isEqualTo(2);
+        assertThat(store.getStoreLookupCount()).isEqualTo(1);
+    }
+
+    @Test
+    void recordsOnlyTheAppliedLinesOfABatch() {
+        processed().insertOne(new Document("_id", "ID:1"));
+
+        Exchange batch = batch(
+                List.of(line("item-1"), line("item-2"), line("item-3")),
+                Arrays.asList("ID:1", "ID:2", "ID:3"),
+                List.of(true, false, false));
+        batch.setProperty("bulkItemResults", List.of(
+                Map.of("itemId", "item-1", "status", "success"),
+                Map.of("itemId", "item-2", "status", "error"),
+                Map.of("itemId", "item-3", "status", "success")));
+        store.recordBatch(batch);
+
+        assertThat(processed().countDocuments()).isEqualTo(2);
+        assertThat(store.getRecordFailureCount()).isZero();
+    }
+
+    private static InventoryIdempotencyStore store(boolean enabled) {
+        InventoryIdempotencyStore store = new InventoryIdempotencyStore();
+        ReflectionTestUtils.setField(store, "mongoClient", mongoClient);
+        ReflectionTestUtils.setField(store, "enabled", enabled);
+        ReflectionTestUtils.setField(store, "cacheSize", 100);
+        store.init();
+        return store;
+    }
+
+    private static Exchange message(String messageId, Integer chunkIndex, boolean redelivered) {
+        Exchange exchange = exchange();
+        exchange.getIn().setHeader("JMSMessageID", messageId);
+        exchange.getIn().setHeader("JMSCorrelationID", "corr-1");
+        exchange.getIn().setHeader("JMSRedelivered", redelivered);
+        exchange.getIn().setBody(line("item-1"));
+        exchange.setProperty("itemId", "item-1");
+        if (chunkIndex != null) {
+            exchange.setProperty(Exchange.SPLIT_INDEX, chunkIndex);
+        }
+        return exchange;
+    }
+
+    private static Exchange batch(List<Map<String, Object>> items, List<String> keys, List<Boolean> redelivered) {
+        List<String> correlationIds = new ArrayList<>();
+        keys.forEach(key -> correlationIds.add("corr-" + key));
+        Exchange exchange = exchange();
+        exchange.setProperty("inventoryList", items);
+        exchange.setProperty("batchCorrelationIds", correlationIds);
+        exchange.setProperty("batchIdempotencyKeys", keys);
+        exchange.setProperty("batchRedelivered", redelivered);
+        return exchange;
+    }
+
+    private static Map<String, Object> line(String itemId) {
+        return Map.of("_id", itemId, "stockDetails", Map.of("soldOut", 1, "damaged", 0));
+    }
+
+    private static Message jmsMessage(String messageId) throws Exception {
+        Message message = Mockito.mock(Message.class);
+        Mockito.when(message.getJMSMessageID()).thenReturn(messageId);
+        return message;
+    }
+
+    private static MongoCollection<Document> processed() {
+        return collection(ApplicationConstants.MONGO_PROCESSED_MESSAGE_WRITE_COLLECTION);
+    }
+}
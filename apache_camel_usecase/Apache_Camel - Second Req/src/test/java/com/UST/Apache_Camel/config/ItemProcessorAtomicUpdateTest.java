@@ -0,0 +1,138 @@
+package com.UST.Apache_Camel.config;
+
+import com.UST.Apache_Camel.exception.InventoryValidationException;
+import com.UST.Apache_Camel.shared.MongoTestSupport;
+import com.mongodb.client.MongoCollection;
+import org.apache.camel.Exchange;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/* ItemProcessor.applyAtomicUpdate (app.inventory.updateMode=atomic): the $inc guarded by availableStock >= soldOut + damaged */
+class ItemProcessorAtomicUpdateTest extends MongoTestSupport {
+
+    private final InventoryUpdateComponents.ItemProcessor processor = new InventoryUpdateComponents.ItemProcessor();
+
+    @Test
+    void appliesTheChangeInOneUpdate() throws Exception {
+        items().insertOne(item("item-1", "cat-1", 10));
+
+        Exchange exchange = update("item-1", 3, 2);
+        processor.applyAtomicUpdate(exchange);
+
+        Document stock = stock("item-1");
+        assertThat(stock.getInteger("availableStock")).isEqualTo(5);
+        assertThat(stock.getInteger("soldOut")).isEqualTo(3);
+        assertThat(stock.getInteger("damaged")).isEqualTo(2);
+        assertThat(exchange.getProperty("updatedItem", Document.class).get("stockDetails", Document.class).getInteger("availableStock"))
+                .isEqualTo(5);
+    }
+
+    @Test
+    void rejectsAChangeOverTheAvailableStockWithoutWriting() {
+        items().insertOne(item("item-1", "cat-1", 4));
+
+        assertThatThrownBy(() -> processor.applyAtomicUpdate(update("item-1", 3, 2)))
+                .isInstanceOf(InventoryValidationException.class)
+                .hasMessage("Requested quantity exceeds available stock for item ID: item-1");
+        assertThat(stock("item-1").getInteger("availableStock")).isEqualTo(4);
+    }
+
+    @Test
+    void convertsStockStoredAsStringsBeforeApplyingTheChange() throws Exception {
+        items().insertOne(item("item-1", "cat-1", 0).append("stockDetails",
+                new Document("availableStock", "10").append("soldOut", "1").append("damaged", 0)));
+
+        processor.applyAtomicUpdate(update("item-1", 3, 2));
+
+        Document stock = stock("item-1");
+        assertThat(stock.get("availableStock")).isEqualTo(5);
+        assertThat(stock.get("soldOut")).isEqualTo(4);
+        assertThat(stock.get("damaged")).isEqualTo(2);
+        assertThatThrownBy(() -> processor.applyAtomicUpdate(update("item-1", 6, 0)))
+                .isInstanceOf(InventoryValidationException.class)
+                .hasMessage("Requested quantity exceeds available stock for item ID: item-1");
+    }
+
+    @Test
+    void rejectsStockThatIsNotANumber() {
+        items().insertOne(item("item-1", "cat-1", 0).append("stockDetails",
+                new Document("availableStock", "ten").append("soldOut", 0).append("damaged", 0)));
+
+        assertThatThrownBy(() -> processor.applyAtomicUpdate(update("item-1", 1, 0)))
+                .isInstanceOf(InventoryValidationException.class)
+                .hasMessage("Stock details are not numeric for item: item-1");
+        assertThat(stock("item-1").get("availableStock")).isEqualTo("ten");
+    }
+
+    @Test
+    void reportsMissingItemsAndStockDetails() {
+        items().insertOne(new Document("_id", "no-stock").append("itemName", "No stock"));
+
+        assertThatThrownBy(() -> processor.applyAtomicUpdate(update("missing", 1, 0)))
+                .isInstanceOf(InventoryValidationException.class)
+                .hasMessage("Item not found for ID: missing");
+        assertThatThrownBy(() -> processor.applyAtomicUpdate(update("no-stock", 1, 0)))
+                .isInstanceOf(InventoryValidationException.class)
+                .hasMessage("Missing stockDetails in DB for item: no-stock");
+    }
+
+    @Test
+    void concurrentUpdatesOfOneItemNeitherOversellNorLoseUpdates() throws Exception {
+        items().insertOne(item("item-1", "cat-1", 100));
+        AtomicInteger applied = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> updates = new ArrayList<>();
+            for (int i = 0; i < 160; i++) {
+                updates.add(executor.submit(() -> {
+                    try {
+                        processor.applyAtomicUpdate(update("item-1", 1, 0));
+                        applied.incrementAndGet();
+                    } catch (InventoryValidationException e) {
+                        rejected.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> update : updates) {
+                update.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertThat(applied.get()).isEqualTo(100);
+        assertThat(rejected.get()).isEqualTo(60);
+        Document stock = stock("item-1");
+        assertThat(stock.getInteger("availableStock")).isZero();
+        assertThat(stock.getInteger("soldOut")).isEqualTo(100);
+    }
+
+    private static Exchange update(String itemId, int soldOut, int damaged) {
+        Exchange exchange = exchange();
+        exchange.setProperty("itemId", itemId);
+        exchange.setProperty("soldOut", soldOut);
+        exchange.setProperty("damaged", damaged);
+        return exchange;
+    }
+
+    private static MongoCollection<Document> items() {
+        return collection(ApplicationConstants.MONGO_ITEM_WRITE_COLLECTION);
+    }
+
+    private static Document stock(String itemId) {
+        return items().find(new Document("_id", itemId)).first().get("stockDetails", Document.class);
+    }
+}
@@ -0,0 +1,314 @@
+package com.UST.Apache_Camel.shared;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+// Bulk stock update shared by the item service (app.inventory.updateMode=bulk) and the queue processor (batch consumer
+// mode); both depend on this module (com.UST:shared)
+// Loads all referenced items with one $in query and validates the lines in memory, applying lines for the same item in
+// request order, then writes one compare-and-set update per item with an unordered bulkWrite, chunked at chunkSize
+// The write is a plain update guarded by the stored version and stock values, never an upsert, so a deleted item is never
+// recreated; like every item writer it $inc's the item version
+// As a bulkWrite only reports how many updates matched, when fewer updates matched than were sent the chunk's items are
+// read back and compared with the version and stock the write would have left: missing items were deleted ("Item not
+// found"), items that cannot carry the write were changed by someone else and are reloaded, revalidated and written
+// again, up to MAX_WRITE_ATTEMPTS times (see resolveUnmatched)
+public final class BulkStockWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkStockWriter.class);
+
+    public static final int DEFAULT_CHUNK_SIZE = 500;
+    static final int MAX_WRITE_ATTEMPTS = 3;
+
+    private BulkStockWriter() {
+    }
+
+    // One validated request line: the item and the quantities to take off its available stock
+    public static final class StockLine {
+        private final String itemId;
+        private final int soldOut;
+        private final int damaged;
+
+        public StockLine(String itemId, int soldOut, int damaged) {
+            this.itemId = itemId;
+            this.soldOut = soldOut;
+            this.damaged = damaged;
+        }
+
+        public String getItemId() {
+            return itemId;
+        }
+    }
+
+    // Applies the lines and sets one itemResult ({itemId, status, message}) per line in results, in line order
+    // A null line failed validation before and keeps the result it already has in results
+    public static void apply(MongoCollection<Document> items, List<StockLine> lines, int chunkSize,
+                             List<Map<String, Object>> results) {
+        Map<String, List<Integer>> pendingLines = new LinkedHashMap<>();
+        for (int line = 0; line < lines.size(); line++) {
+            if (lines.get(line) != null) {
+                pendingLines.computeIfAbsent(lines.get(line).itemId, id -> new ArrayList<>()).add(line);
+            }
+        }
+
+        for (int attempt = 1; attempt <= MAX_WRITE_ATTEMPTS && !pendingLines.isEmpty(); attempt++) {
+            Map<String, Document> storedItems = new HashMap<>();
+            items.find(Filters.in("_id", pendingLines.keySet()))
+                    .projection(Projections.include("stockDetails", "version"))
+                    .forEach(item -> storedItems.put(item.get("_id").toString(), item));
+
+            List<StockWrite> writes = new ArrayList<>();
+            for (Map.Entry<String, List<Integer>> entry : pendingLines.entrySet()) {
+                StockWrite write = validateLines(entry.getKey(), entry.getValue(), storedItems.get(entry.getKey()), lines);
+                if (!write.applied) {
+                    write.lineResults.forEach(results::set);
+                } else {
+                    writes.add(write);
+                }
+            }
+            pendingLines = writeInChunks(items, writes, chunkSize, results);
+            if (!pendingLines.isEmpty()) {
+                logger.info("Bulk attempt {} hit concurrent updates on {} items, retrying", attempt, pendingLines.size());
+            }
+        }
+
+        pendingLines.forEach((itemId, conflictLines) -> conflictLines.forEach(line ->
+                results.set(line, itemResult(itemId, "error", "Concurrent update conflict for item ID: " + itemId))));
+    }
+
+    // The stock values of stockDetails that are stored as strings, parsed to numbers; empty when there are none
+    // applyStockChange parses such values, but the numeric guard of the atomic update mode never matches them, so that
+    // mode converts them first. Throws NumberFormatException for a string that is not an integer
+    public static Map<String, Object> parseStringStock(Map<String, Object> stockDetails) {
+        Map<String, Object> parsed = new LinkedHashMap<>();
+        for (String field : List.of("availableStock", "soldOut", "damaged")) {
+            if (stockDetails.get(field) instanceof String) {
+                parsed.put(field, Integer.parseInt((String) stockDetails.get(field)));
+            }
+        }
+        return parsed;
+    }
+
+    // Checks that the stored stock covers soldOut + damaged and applies the change to the stored stockDetails map
+    // Returns the validation error, or null when the change was applied; the stock rule of every update mode
+    public static String applyStockChange(Map<String, Object> stockDetails, String itemId, int soldOut, int damaged) {
+        int availableStock = Integer.parseInt(stockDetails.get("availableStock").toString());
+        int existingSoldOut = Integer.parseInt(stockDetails.get("soldOut").toString());
+        int existingDamaged = Integer.parseInt(stockDetails.get("damaged").toString());
+
+        if (soldOut + damaged > availableStock) {
+            return "Requested quantity exceeds available stock for item ID: " + itemId;
+        }
+
+        stockDetails.put("availableStock", availableStock - soldOut - damaged);
+        stockDetails.put("soldOut", existingSoldOut + soldOut);
+        stockDetails.put("damaged", existingDamaged + damaged);
+        return null;
+    }
+
+    public static Map<String, Object> itemResult(String itemId, String status, String message) {
+        Map<String, Object> itemResult = new HashMap<>();
+        itemResult.put("itemId", itemId);
+        itemResult.put("status", status);
+        itemResult.put("message", message);
+        return itemResult;
+    }
+
+    // Validates all lines for one item against its stored stockDetails, in request order
+    // Lines that fit the remaining stock are applied to a copy of the stored values; the others get an error result
+    private static StockWrite validateLines(String itemId, List<Integer> itemLines, Document item, List<StockLine> lines) {
+        StockWrite write = new StockWrite(itemId, itemLines, item);
+        for (int line : itemLines) {
+            String error;
+            if (item == null) {
+                error = "Item not found for ID: " + itemId;
+            } else if (write.storedStock == null) {
+                error = "Missing stockDetails in DB for item: " + itemId;
+            } else {
+                error = applyStockChange(write.updatedStock, itemId, lines.get(line).soldOut, lines.get(line).damaged);
+            }
+            if (error == null) {
+                write.lineResults.put(line, itemResult(itemId, "success", "Inventory updated successfully for item " + itemId));
+                write.applied = true;
+            } else {
+                write.lineResults.put(line, itemResult(itemId, "error", error));
+            }
+        }
+        return write;
+    }
+
+    // Executes the item writes as unordered bulkWrites of at most chunkSize operations and sets the results of the
+    // written items; returns the lines of the items that changed since they were read, for a retry
+    private static Map<String, List<Integer>> writeInChunks(MongoCollection<Document> items, List<StockWrite> writes,
+                                                            int chunkSize, List<Map<String, Object>> results) {
+        Map<String, List<Integer>> conflicts = new LinkedHashMap<>();
+        String lastUpdateDate = LocalDate.now().toString();
+
+        for (int from = 0; from < writes.size(); from += chunkSize) {
+            List<StockWrite> chunk = writes.subList(from, Math.min(from + chunkSize, writes.size()));
+            List<WriteModel<Document>> models = new ArrayList<>(chunk.size());
+            for (StockWrite write : chunk) {
+                models.add(write.toWriteModel(lastUpdateDate));
+            }
+
+            Map<Integer, BulkWriteError> writeErrors = new HashMap<>();
+            BulkWriteResult result;
+            try {
+                result = items.bulkWrite(models, new BulkWriteOptions().ordered(false));
+            } catch (MongoBulkWriteException e) {
+                e.getWriteErrors().forEach(error -> writeErrors.put(error.getIndex(), error));
+                result = e.getWriteResult();
+            }
+
+            List<StockWrite> sent = new ArrayList<>(chunk.size());
+            for (int index = 0; index < chunk.size(); index++) {
+                StockWrite write = chunk.get(index);
+                BulkWriteError error = writeErrors.get(index);
+                if (error != null) {
+                    write.lines.forEach(line -> results.set(line, itemResult(write.itemId, "error",
+                            "Stock details could not be updated for item " + write.itemId + ": " + error.getMessage())));
+                } else {
+                    sent.add(write);
+                }
+            }
+            if (result.getMatchedCount() == sent.size()) {
+                sent.forEach(write -> write.lineResults.forEach(results::set));
+            } else {
+                resolveUnmatched(items, sent, result.getMatchedCount(), results, conflicts);
+            }
+            logger.debug("Bulk wrote {} items, {} matched, {} errors", chunk.size(), result.getMatchedCount(), writeErrors.size());
+        }
+        return conflicts;
+    }
+
+    // Works out which writes of a chunk matched when fewer than all did, from the items read back
+    // A write leaves the item at the version read + 1 with exactly the updated stock, and any later write moves the
+    // version further; so an item at a lower version, or at that version with other stock, was not written by this chunk
+    // (a conflict, retried). The items left at that version and stock were written by this chunk when their count equals
+    // the matched count and no item moved past it; otherwise they and the items that moved past it are reported as
+    // unconfirmed rather than retried and applied twice
+    private static void resolveUnmatched(MongoCollection<Document> items, List<StockWrite> sent, int matched,
+                                         List<Map<String, Object>> results, Map<String, List<Integer>> conflicts) {
+        Map<String, Document> readBack = new HashMap<>();
+        List<String> itemIds = new ArrayList<>(sent.size());
+        sent.forEach(write -> itemIds.add(write.itemId));
+        items.find(Filters.in("_id", itemIds))
+                .projection(Projections.include("stockDetails", "version"))
+                .forEach(item -> readBack.put(item.get("_id").toString(), item));
+
+        List<StockWrite> missing = new ArrayList<>();
+        List<StockWrite> notWritten = new ArrayList<>();
+        List<StockWrite> asWritten = new ArrayList<>();
+        List<StockWrite> movedOn = new ArrayList<>();
+        for (StockWrite write : sent) {
+            Document item = readBack.get(write.itemId);
+            if (item == null) {
+                missing.add(write);
+            } else if (version(item) > write.storedVersion + 1) {
+                movedOn.add(write);
+            } else if (version(item) == write.storedVersion + 1 && write.leftAsWritten(item)) {
+                asWritten.add(write);
+            } else {
+                notWritten.add(write);
+            }
+        }
+
+        missing.forEach(write -> write.lines.forEach(line ->
+                results.set(line, itemResult(write.itemId, "error", "Item not found for ID: " + write.itemId))));
+        notWritten.forEach(write -> conflicts.put(write.itemId, write.lines));
+        if (matched == 0) {
+            asWritten.forEach(write -> conflicts.put(write.itemId, write.lines));
+            movedOn.forEach(write -> conflicts.put(write.itemId, write.lines));
+        } else if (movedOn.isEmpty() && asWritten.size() == matched) {
+            asWritten.forEach(write -> write.lineResults.forEach(results::set));
+        } else {
+            List<StockWrite> unconfirmed = new ArrayList<>(asWritten);
+            unconfirmed.addAll(movedOn);
+            logger.warn("Could not attribute {} matched bulk writes among items {}", matched, unconfirmed);
+            unconfirmed.forEach(write -> write.lineResults.forEach((line, lineResult) -> results.set(line,
+                    "success".equals(lineResult.get("status"))
+                            ? itemResult(write.itemId, "error", "Stock update of item " + write.itemId
+                            + " could not be confirmed after a concurrent update; check the item before retrying")
+                            : lineResult)));
+        }
+    }
+
+    // The version of a stored item, 0 for items written before items had one
+    private static long version(Document item) {
+        Object version = item.get("version");
+        return version instanceof Number ? ((Number) version).longValue() : 0;
+    }
+
+    // Pending stock change for one item: the stored values used as the write guard, the values after all applied lines,
+    // and the per-line results that become final once the write is confirmed
+    private static final class StockWrite {
+        private final String itemId;
+        private final List<Integer> lines;
+        private final Map<String, Object> storedStock;
+        private final Object storedVersionValue;
+        private final long storedVersion;
+        private final Map<String, Object> updatedStock;
+        private final Map<Integer, Map<String, Object>> lineResults = new LinkedHashMap<>();
+        private boolean applied;
+
+        private StockWrite(String itemId, List<Integer> lines, Document item) {
+            this.itemId = itemId;
+            this.lines = lines;
+            this.storedStock = item == null ? null : (Map<String, Object>) item.get("stockDetails");
+            this.storedVersionValue = item == null ? null : item.get("version");
+            this.storedVersion = item == null ? 0 : version(item);
+            this.updatedStock = this.storedStock == null ? null : new HashMap<>(this.storedStock);
+        }
+
+        // Whether the item read back holds the stock values this write sets
+        private boolean leftAsWritten(Document item) {
+            Map<String, Object> stock = (Map<String, Object>) item.get("stockDetails");
+            return stock != null
+                    && Objects.equals(stock.get("availableStock"), updatedStock.get("availableStock"))
+                    && Objects.equals(stock.get("soldOut"), updatedStock.get("soldOut"))
+                    && Objects.equals(stock.get("damaged"), updatedStock.get("damaged"));
+        }
+
+        private WriteModel<Document> toWriteModel(String lastUpdateDate) {
+            return new UpdateOneModel<>(
+                    Filters.and(
+                            Filters.eq("_id", itemId),
+                            storedVersionValue instanceof Number
+                                    ? Filters.eq("version", storedVersionValue)
+                                    : Filters.exists("version", false),
+                            Filters.eq("stockDetails.availableStock", storedStock.get("availableStock")),
+                            Filters.eq("stockDetails.soldOut", storedStock.get("soldOut")),
+                            Filters.eq("stockDetails.damaged", storedStock.get("damaged"))),
+                    Updates.combine(
+                            Updates.set("stockDetails.availableStock", updatedStock.get("availableStock")),
+                            Updates.set("stockDetails.soldOut", updatedStock.get("soldOut")),
+                            Updates.set("stockDetails.damaged", updatedStock.get("damaged")),
+                            Updates.set("lastUpdateDate", lastUpdateDate),
+                            Updates.inc("version", 1)));
+        }
+
+        @Override
+        public String toString() {
+            return itemId;
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.UST.Apache_Camel.shared;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Updates;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.AdditionalAnswers;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+
+// BulkStockWriter; concurrent writers are simulated by changing the item between the read and the bulkWrite
+class BulkStockWriterTest extends MongoTestSupport {
+
+    @Test
+    void appliesTheLinesOfOneItemInOrderAgainstTheRemainingStock() {
+        items().insertOne(item("item-1", "cat-1", 10));
+
+        List<Map<String, Object>> results = apply(items(), new BulkStockWriter.StockLine("item-1", 3, 1),
+                new BulkStockWriter.StockLine("item-1", 7, 0), new BulkStockWriter.StockLine("item-1", 6, 0));
+
+        assertThat(results).extracting(result -> result.get("status")).containsExactly("success", "error", "success");
+        assertThat(stock("item-1").getInteger("availableStock")).isZero();
+        assertThat(stock("item-1").getInteger("soldOut")).isEqualTo(9);
+        assertThat(stock("item-1").getInteger("damaged")).isEqualTo(1);
+        assertThat(items().find(Filters.eq("_id", "item-1")).first()).containsEntry("version", 1);
+    }
+
+    @Test
+    void keepsTheResultOfALineThatFailedValidationBefore() {
+        items().insertOne(item("item-1", "cat-1", 10));
+        List<Map<String, Object>> results = new ArrayList<>(Collections.nCopies(2, null));
+        results.set(0, BulkStockWriter.itemResult("item-1", "error", "bad line"));
+
+        BulkStockWriter.apply(items(), Arrays.asList(null, new BulkStockWriter.StockLine("item-1", 1, 0)),
+                BulkStockWriter.DEFAULT_CHUNK_SIZE, results);
+
+        assertThat(results.get(0)).containsEntry("message", "bad line");
+        assertThat(results.get(1)).containsEntry("status", "success");
+    }
+
+    @Test
+    void retriesAnItemChangedBetweenTheReadAndTheWrite() {
+        items().insertOne(item("item-1", "cat-1", 10));
+        items().insertOne(item("item-2", "cat-1", 10));
+        AtomicInteger writes = new AtomicInteger();
+        MongoCollection<Document> items = beforeEachBulkWrite(() -> {
+            if (writes.incrementAndGet() == 1) {
+                sell("item-1", 4);
+            }
+        });
+
+        List<Map<String, Object>> results = apply(items, new BulkStockWriter.StockLine("item-1", 3, 0),
+                new BulkStockWriter.StockLine("item-2", 1, 0));
+
+        assertThat(results).extracting(result -> result.get("status")).containsExactly("success", "success");
+        assertThat(writes.get()).isEqualTo(2);
+        assertThat(stock("item-1").getInteger("availableStock")).isEqualTo(3);
+        assertThat(stock("item-1").getInteger("soldOut")).isEqualTo(7);
+        assertThat(stock("item-2").getInteger("availableStock")).isEqualTo(9);
+    }
+
+    @Test
+    void revalidatesARetriedItemAgainstTheNewStock() {
+        items().insertOne(item("item-1", "cat-1", 10));
+        AtomicInteger writes = new AtomicInteger();
+        MongoCollection<Document> items = beforeEachBulkWrite(() -> {
+            if (writes.incrementAndGet() == 1) {
+                sell("item-1", 8);
+            }
+        });
+
+        List<Map<String, Object>> results = apply(items, new BulkStockWriter.StockLine("item-1", 3, 0));
+
+        assertThat(results.get(0).get("message")).isEqualTo("Requested quantity exceeds available stock for item ID: item-1");
+        assertThat(stock("item-1").getInteger("availableStock")).isEqualTo(2);
+    }
+
+    @Test
+    void reportsAnItemDeletedBetweenTheReadAndTheWriteWithoutRecreatingIt() {
+        items().insertOne(item("item-1", "cat-1", 10));
+        items().insertOne(item("item-2", "cat-1", 10));
+        MongoCollection<Document> items = beforeEachBulkWrite(() -> items().deleteOne(Filters.eq("_id", "item-2")));
+
+        List<Map<String, Object>> results = apply(items, new BulkStockWriter.StockLine("item-1", 1, 0),
+                new BulkStockWriter.StockLine("item-2", 1, 0));
+
+        assertThat(results.get(0).get("status")).isEqualTo("success");
+        assertThat(results.get(1).get("message")).isEqualTo("Item not found for ID: item-2");
+        assertThat(items().countDocuments(Filters.eq("_id", "item-2"))).isZero();
+        assertThat(stock("item-1").getInteger("availableStock")).isEqualTo(9);
+    }
+
+    @Test
+    void givesUpAfterTheLastAttemptWithAConflict() {
+        items().insertOne(item("item-1", "cat-1", 100));
+        AtomicInteger writes = new AtomicInteger();
+        MongoCollection<Document> items = beforeEachBulkWrite(() -> {
+            writes.incrementAndGet();
+            sell("item-1", 1);
+        });
+
+        List<Map<String, Object>> results = apply(items, new BulkStockWriter.StockLine("item-1", 5, 0));
+
+        assertThat(results.get(0).get("message")).isEqualTo("Concurrent update conflict for item ID: item-1");
+        assertThat(writes.get()).isEqualTo(BulkStockWriter.MAX_WRITE_ATTEMPTS);
+        assertThat(stock("item-1").getInteger("availableStock")).isEqualTo(97);
+    }
+
+    @Test
+    void reportsWritesAsUnconfirmedWhenAnotherWriterLeftTheSameVersionAndStock() {
+        items().insertOne(item("item-1", "cat-1", 10).append("version", 4));
+        items().insertOne(item("item-2", "cat-1", 10).append("version", 4));
+        // item-2 is sold with the same quantity before the write: it reaches the version the write would have left, with
+        // the same stock, so only the matched count tells it apart from item-1, which the write did update
+        AtomicInteger writes = new AtomicInteger();
+        MongoCollection<Document> items = beforeEachBulkWrite(() -> {
+            if (writes.incrementAndGet() == 1) {
+                sell("item-2", 1);
+            }
+        });
+
+        List<Map<String, Object>> results = apply(items, new BulkStockWriter.StockLine("item-1", 1, 0),
+                new BulkStockWriter.StockLine("item-2", 1, 0));
+
+        assertThat(results).extracting(result -> result.get("message")).containsOnly(
+                "Stock update of item item-1 could not be confirmed after a concurrent update; check the item before retrying",
+                "Stock update of item item-2 could not be confirmed after a concurrent update; check the item before retrying");
+        assertThat(writes.get()).isEqualTo(1);
+        assertThat(items().find(Filters.eq("_id", "item-1")).first().getInteger("version")).isEqualTo(5);
+        assertThat(stock("item-1").getInteger("availableStock")).isEqualTo(9);
+        assertThat(stock("item-2").getInteger("availableStock")).isEqualTo(9);
+    }
+
+    @Test
+    void reportsWritesItCannotAttributeAsUnconfirmed() {
+        items().insertOne(item("item-1", "cat-1", 10));
+        items().insertOne(item("item-2", "cat-1", 10));
+        // item-2 changes before the write (no match); item-1 matches but is sold again right after, moving past the
+        // version the write left, so the one matched write cannot be attributed
+        AtomicInteger writes = new AtomicInteger();
+        MongoCollection<Document> real = items();
+        MongoCollection<Document> items = Mockito.mock(MongoCollection.class, AdditionalAnswers.delegatesTo(real));
+        Mockito.doAnswer(invocation -> {
+            if (writes.incrementAndGet() > 1) {
+                return AdditionalAnswers.delegatesTo(real).answer(invocation);
+            }
+            sell("item-2", 3);
+            Object result = AdditionalAnswers.delegatesTo(real).answer(invocation);
+            sell("item-1", 1);
+            return result;
+        }).when(items).bulkWrite(anyList(), any(BulkWriteOptions.class));
+
+        List<Map<String, Object>> results = apply(items, new BulkStockWriter.StockLine("item-1", 1, 0),
+                new BulkStockWriter.StockLine("item-2", 1, 0));
+
+        assertThat(results.get(0).get("message")).isEqualTo(
+                "Stock update of item item-1 could not be confirmed after a concurrent update; check the item before retrying");
+        assertThat(results.get(1).get("status")).isEqualTo("success");
+        assertThat(writes.get()).isEqualTo(2);
+        assertThat(stock("item-1").getInteger("availableStock")).isEqualTo(8);
+        assertThat(stock("item-2").getInteger("availableStock")).isEqualTo(6);
+    }
+
+    @Test
+    void parsesStockStoredAsStrings() {
+        Map<String, Object> parsed = BulkStockWriter.parseStringStock(Map.of("availableStock", "10", "soldOut", 2, "damaged", "1"));
+
+        assertThat(parsed).containsOnly(Map.entry("availableStock", 10), Map.entry("damaged", 1));
+    }
+
+    private static List<Map<String, Object>> apply(MongoCollection<Document> items, BulkStockWriter.StockLine... lines) {
+        List<Map<String, Object>> results = new ArrayList<>(Collections.nCopies(lines.length, null));
+        BulkStockWriter.apply(items, List.of(lines), BulkStockWriter.DEFAULT_CHUNK_SIZE, results);
+        return results;
+    }
+
+    // The item collection, running concurrentWrite before every bulkWrite
+    private static MongoCollection<Document> beforeEachBulkWrite(Runnable concurrentWrite) {
+        MongoCollection<Document> real = items();
+        MongoCollection<Document> items = Mockito.mock(MongoCollection.class, AdditionalAnswers.delegatesTo(real));
+        Mockito.doAnswer(invocation -> {
+            concurrentWrite.run();
+            return AdditionalAnswers.delegatesTo(real).answer(invocation);
+        }).when(items).bulkWrite(anyList(), any(BulkWriteOptions.class));
+        return items;
+    }
+
+    // A single-item sale by another writer (the atomic update mode)
+    private static void sell(String itemId, int quantity) {
+        items().updateOne(Filters.eq("_id", itemId), Updates.combine(
+                Updates.inc("stockDetails.availableStock", -quantity),
+                Updates.inc("stockDetails.soldOut", quantity),
+                Updates.inc("version", 1)));
+    }
+
+    private static MongoCollection<Document> items() {
+        return collection("item");
+    }
+
+    private static Document stock(String itemId) {
+        return items().find(Filters.eq("_id", itemId)).first().get("stockDetails", Document.class);
+    }
+}
@@ -0,0 +1,79 @@
+package com.UST.Apache_Camel.shared;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoCollection;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.apache.camel.CamelContext;
+import org.apache.camel.Exchange;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.support.DefaultExchange;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+
+import java.net.InetSocketAddress;
+
+// Base class of the tests of components that talk to MongoDB, in this module and (through its test-jar) in both services
+// Starts an in-memory MongoDB stand-in (mongo-java-server) once per test class and a CamelContext whose registry holds
+// its MongoClient under the mongoClient bean name, so the processors resolve their collections as in the application;
+// every test starts with an empty database
+public abstract class MongoTestSupport {
+
+    // The database and client bean name of both services (ApplicationConstants.MONGO_DATABASE / MONGO_CLIENT_BEAN)
+    public static final String MONGO_DATABASE = "mycartdb";
+    public static final String MONGO_CLIENT_BEAN = "mongoClient";
+
+    protected static MongoServer mongoServer;
+    protected static MongoClient mongoClient;
+    protected static CamelContext camelContext;
+
+    @BeforeAll
+    protected static void startMongo() {
+        mongoServer = new MongoServer(new MemoryBackend());
+        InetSocketAddress address = mongoServer.bind();
+        mongoClient = MongoClients.create("mongodb://" + address.getHostString() + ":" + address.getPort());
+        camelContext = new DefaultCamelContext();
+        camelContext.getRegistry().bind(MONGO_CLIENT_BEAN, mongoClient);
+        camelContext.start();
+    }
+
+    @AfterAll
+    protected static void stopMongo() {
+        camelContext.stop();
+        mongoClient.close();
+        mongoServer.shutdownNow();
+    }
+
+    @BeforeEach
+    protected void dropDatabase() {
+        mongoClient.getDatabase(MONGO_DATABASE).drop();
+    }
+
+    protected static MongoCollection<Document> collection(String name) {
+        return mongoClient.getDatabase(MONGO_DATABASE).getCollection(name);
+    }
+
+    protected static Exchange exchange() {
+        return new DefaultExchange(camelContext);
+    }
+
+    // An item as the item service stores it, with the given stock; like an item written before items carried a version,
+    // it has none, so the first write sets it to 1
+    protected static Document item(String itemId, String categoryId, int availableStock) {
+        return new Document("_id", itemId)
+                .append("itemName", "Item " + itemId)
+                .append("categoryId", categoryId)
+                .append("lastUpdateDate", "2024-01-01")
+                .append("itemPrice", new Document("basePrice", 100.0).append("sellingPrice", 90.0))
+                .append("stockDetails", new Document("availableStock", availableStock)
+                        .append("unitOfMeasure", "pcs")
+                        .append("soldOut", 0)
+                        .append("damaged", 0))
+                .append("specialProduct", false)
+                .append("ratingCount", 0)
+                .append("ratingAvg", 0.0);
+    }
+}